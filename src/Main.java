@@ -1,15 +1,35 @@
+import interfaces.DueDateListener;
 import models.AdminUser;
 import models.HardwareProject;
+import models.Permission;
 import models.Project;
 import models.RegularUser;
 import models.SoftwareProject;
 import models.Task;
 import models.User;
+import services.ArchiveService;
+import services.AssignmentBalancer;
+import services.DeltaSyncService;
+import services.DependencyService;
+import services.DueDateScheduler;
+import services.FlowMetricsService;
+import services.HistoryService;
+import services.PortfolioService;
 import services.ProjectServices;
 import services.ReportService;
 import services.TaskService;
+import services.UpdateResult;
+import services.UserService;
+import utils.BatchCommandRunner;
 import utils.ConsoleMenu;
+import utils.ResultCache;
 import utils.ValidationUtils;
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Scanner;
 
 /**
@@ -21,6 +41,13 @@ public class Main {
     private static ProjectServices projectService;
     private static TaskService taskService;
     private static ReportService reportService;
+    private static DependencyService dependencyService;
+    private static AssignmentBalancer assignmentBalancer;
+    private static ArchiveService archiveService;
+    private static PortfolioService portfolioService;
+    private static DueDateScheduler dueDateScheduler;
+    private static DeltaSyncService deltaSync;
+    private static UserService userService;
 
     private static ConsoleMenu menu;
     private static Scanner scanner;
@@ -30,14 +57,21 @@ public class Main {
     public static void main(String[] args) {
         initializeServices();
 
+        if (args.length > 0 && args[0].equals("--batch")) {
+            runBatch(args);
+            return;
+        }
+
         scanner = new Scanner(System.in);
         menu = new ConsoleMenu(projectService, taskService, reportService, scanner);
 
         menu.displayWelcomeBanner();
         loadSampleData();
+        startDueDateNotices();
         simulateLogin();
         runApplication();
 
+        dueDateScheduler.close();
         scanner.close();
         menu.displayExitMessage();
     }
@@ -45,12 +79,72 @@ public class Main {
     private static void initializeServices() {
         projectService = new ProjectServices();
         taskService = new TaskService(projectService);
-        reportService = new ReportService(projectService, taskService);
+        userService = new UserService(taskService);
+        reportService = new ReportService(projectService, taskService, userService);
+
+        ResultCache cache = new ResultCache(256, 50_000);
+        taskService.setResultCache(cache);
+        reportService.setResultCache(cache);
+        reportService.setFlowMetrics(new FlowMetricsService(taskService));
+        HistoryService historyService = new HistoryService();
+        historyService.attach(projectService, taskService);
+        reportService.setHistoryService(historyService);
+        dependencyService = new DependencyService(taskService);
+        reportService.setDependencyService(dependencyService);
+        assignmentBalancer = new AssignmentBalancer(taskService);
+        taskService.setAssignmentBalancer(assignmentBalancer);
+        portfolioService = new PortfolioService(projectService, taskService);
+        reportService.setPortfolioService(portfolioService);
+        dueDateScheduler = new DueDateScheduler(taskService, 3);
+        deltaSync = new DeltaSyncService(projectService, taskService, 4096);
+        try {
+            Path archiveFile = Files.createTempFile("taskmanager", ".archive");
+            archiveFile.toFile().deleteOnExit();
+            archiveService = new ArchiveService(projectService, taskService, archiveFile);
+            reportService.setArchive(archiveService);
+        } catch (IOException e) {
+            System.out.println("Error: could not open the archive file, archiving is disabled: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Headless mode: {@code --batch <file|->} [--no-sample-data].
+     * Commands are read from the file, or from stdin when the path is "-".
+     */
+    private static void runBatch(String[] args) {
+        String source = args.length > 1 ? args[1] : "-";
+        boolean sampleData = !(args.length > 2 && args[2].equals("--no-sample-data"));
+        userService.setQuiet(true);
+        if (sampleData) loadSampleData();
+
+        BatchCommandRunner runner = new BatchCommandRunner(projectService, taskService, reportService);
+        runner.setDependencyService(dependencyService);
+        runner.setArchiveService(archiveService);
+        runner.setPortfolioService(portfolioService);
+        runner.setDueDateScheduler(dueDateScheduler);
+        runner.setDeltaSync(deltaSync);
+        try (BufferedReader reader = source.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in))
+                : new BufferedReader(new FileReader(source))) {
+            runner.run(reader, System.out);
+        } catch (IOException e) {
+            System.out.println("Error: could not read batch input: " + e.getMessage());
+            System.exit(1);
+        }
+        if (runner.getSucceededCount() != runner.getExecutedCount()) System.exit(2);
     }
 
     private static void loadSampleData() {
         System.out.println("\nLoading sample data...");
 
+        userService.addUser(new AdminUser("ADM001", "Admin User", "admin@projectmgmt.com", "admin123"));
+        userService.addUser(new RegularUser("USR001", "John Developer", "john@projectmgmt.com", "user123"));
+        userService.addUser(new RegularUser("USR002", "Jane Designer", "jane@projectmgmt.com", "user123"));
+        userService.addUser(new RegularUser("USR003", "Sam Engineer", "sam@projectmgmt.com", "user123"));
+        for (User user : userService.getAllUsers()) {
+            if (user instanceof RegularUser) assignmentBalancer.addCandidate(user.getUserId());
+        }
+
         SoftwareProject swProject1 = new SoftwareProject(
                 "PROJ001",
                 "E-Commerce Platform",
@@ -119,7 +213,34 @@ public class Main {
                 "Review and finalize circuit board design", "USR002", "High", "2025-04-01");
         taskService.addTask(task5);
 
-        System.out.println("Sample data loaded: 3 projects, 5 tasks.");
+        portfolioService.createPortfolio("PF001", "Company Portfolio", null);
+        portfolioService.createPortfolio("PRG001", "Digital Channels", "PF001");
+        portfolioService.assignProject("PROJ001", "PRG001");
+        portfolioService.assignProject("PROJ002", "PRG001");
+        portfolioService.assignProject("PROJ003", "PF001");
+
+        System.out.println("Sample data loaded: 4 users, 3 projects, 5 tasks, 2 portfolios.");
+    }
+
+    /**
+     * Tick the due-date wheel in the background; its reminders and overdue flags
+     * are printed by the console loop, which owns the task data.
+     */
+    private static void startDueDateNotices() {
+        dueDateScheduler.addDueDateListener(new DueDateListener() {
+            @Override
+            public void taskDueSoon(Task task, long daysLeft) {
+                System.out.printf("Reminder: task %s (%s) is due in %d day(s), on %s.%n",
+                        task.getTaskId(), task.getTaskName(), daysLeft, task.getDueDate());
+            }
+
+            @Override
+            public void taskOverdue(Task task) {
+                System.out.printf("Overdue: task %s (%s) was due on %s.%n",
+                        task.getTaskId(), task.getTaskName(), task.getDueDate());
+            }
+        });
+        dueDateScheduler.start();
     }
 
     private static void simulateLogin() {
@@ -131,10 +252,10 @@ public class Main {
         int choice = ValidationUtils.getValidatedChoice(scanner, "Select user type (1-2): ", 1, 2);
 
         if (choice == 1) {
-            currentUser = new AdminUser("ADM001", "Admin User", "admin@projectmgmt.com", "admin123");
+            currentUser = userService.findUserById("ADM001");
             System.out.println("Logged in as Administrator");
         } else {
-            currentUser = new RegularUser("USR001", "John Developer", "john@projectmgmt.com", "user123");
+            currentUser = userService.findUserById("USR001");
             System.out.println("Logged in as Regular User");
         }
 
@@ -146,6 +267,7 @@ public class Main {
     private static void runApplication() {
         boolean running = true;
         while (running) {
+            dueDateScheduler.deliverNotices();
             menu.displayMainMenu();
             int choice = ValidationUtils.getValidatedChoice(scanner, "Enter your choice: ", 0, 5);
             switch (choice) {
@@ -179,6 +301,7 @@ public class Main {
 
     private static void createNewProject() {
         System.out.println("\nCREATE NEW PROJECT");
+        if (!checkPermission(Permission.CREATE_PROJECTS)) return;
         System.out.println("Select Project Type: 1) Software  2) Hardware");
 
         int type = ValidationUtils.getValidatedChoice(scanner, "Enter choice (1-2): ", 1, 2);
@@ -198,7 +321,7 @@ public class Main {
 
             SoftwareProject project = new SoftwareProject(projectId, name, description, startDate, endDate,
                     (double) budgetInt, teamSize, techStack, methodology, totalFeatures);
-            projectService.addProject(project);
+            projectService.addProject(project, currentUser);
         } else {
             String hardwareType = ValidationUtils.getValidatedString(scanner, "Enter Hardware Type: ");
             int totalComponents = ValidationUtils.getValidatedPositiveInteger(scanner, "Enter Total Components: ");
@@ -207,7 +330,7 @@ public class Main {
 
             HardwareProject project = new HardwareProject(projectId, name, description, startDate, endDate,
                     (double) budgetInt, teamSize, hardwareType, totalComponents);
-            projectService.addProject(project);
+            projectService.addProject(project, currentUser);
         }
 
         menu.pause();
@@ -215,7 +338,7 @@ public class Main {
 
     private static void searchProject() {
         String projectId = ValidationUtils.getValidatedString(scanner, "\nEnter Project ID to search: ");
-        Project project = projectService.findProjectById(projectId);
+        Project project = projectService.findProjectById(projectId, currentUser);
         if (project != null) {
             System.out.println("Project Found:");
             project.displayProjectInfo();
@@ -226,6 +349,7 @@ public class Main {
     }
 
     private static void updateProject() {
+        if (!checkPermission(Permission.UPDATE_PROJECTS)) return;
         String projectId = ValidationUtils.getValidatedString(scanner, "\nEnter Project ID to update: ");
         Project project = projectService.findProjectById(projectId);
         if (project == null) {
@@ -247,11 +371,12 @@ public class Main {
             case 4 -> project.setEndDate(ValidationUtils.getValidatedDate(scanner, "Enter new end date (YYYY-MM-DD): "));
         }
 
-        projectService.updateProject(projectId, project);
+        projectService.updateProject(projectId, project, currentUser);
         menu.pause();
     }
 
     private static void deleteProject() {
+        if (!checkPermission(Permission.DELETE_PROJECTS)) return;
         String projectId = ValidationUtils.getValidatedString(scanner, "\nEnter Project ID to delete: ");
         Project project = projectService.findProjectById(projectId);
         if (project != null) {
@@ -259,7 +384,7 @@ public class Main {
             System.out.print("Are you sure you want to delete this project? (yes/no): ");
             String confirm = scanner.nextLine();
             if (confirm.equalsIgnoreCase("yes")) {
-                projectService.deleteProject(projectId);
+                taskService.deleteProjectWithTasks(projectId, currentUser);
             } else {
                 System.out.println("Deletion cancelled.");
             }
@@ -276,7 +401,7 @@ public class Main {
             default -> "On Hold";
         };
 
-        Project[] filtered = projectService.getProjectsByStatus(status);
+        Project[] filtered = projectService.getProjectsByStatus(status, currentUser);
         System.out.println("Projects with status: " + status);
 
         if (filtered.length == 0) {
@@ -295,7 +420,7 @@ public class Main {
         int choice = ValidationUtils.getValidatedChoice(scanner, "Enter choice (1-2): ", 1, 2);
         String type = (choice == 1) ? "Software Development" : "Hardware Development";
 
-        Project[] filtered = projectService.getProjectsByType(type);
+        Project[] filtered = projectService.getProjectsByType(type, currentUser);
         System.out.println("Projects of type: " + type);
 
         if (filtered.length == 0) {
@@ -313,23 +438,40 @@ public class Main {
         boolean inTaskMenu = true;
         while (inTaskMenu) {
             menu.displayTaskMenu();
-            int choice = ValidationUtils.getValidatedChoice(scanner, "Enter your choice: ", 0, 8);
+            int choice = ValidationUtils.getValidatedChoice(scanner, "Enter your choice: ", 0, 9);
             switch (choice) {
                 case 1 -> createNewTask();
-                case 2 -> { taskService.displayAllTasks(); menu.pause(); }
+                case 2 -> viewAllTasks();
                 case 3 -> searchTask();
                 case 4 -> updateTaskStatus();
                 case 5 -> deleteTask();
                 case 6 -> viewTasksByProject();
                 case 7 -> viewTasksByUser();
                 case 8 -> viewTasksByPriority();
+                case 9 -> addTaskDependency();
                 case 0 -> inTaskMenu = false;
             }
         }
     }
 
+    private static void viewAllTasks() {
+        Task[] tasks = taskService.getAllTasks(currentUser);
+        if (tasks.length == 0) {
+            System.out.println("No tasks available.");
+        } else {
+            System.out.println("TASK LIST");
+            for (int i = 0; i < tasks.length; i++) {
+                System.out.printf("\n[%d] ", i + 1);
+                tasks[i].displayTaskInfo();
+            }
+            System.out.println("Total Tasks: " + tasks.length);
+        }
+        menu.pause();
+    }
+
     private static void createNewTask() {
         System.out.println("\nCREATE NEW TASK");
+        if (!checkPermission(Permission.CREATE_TASKS)) return;
 
         String taskId = ValidationUtils.getValidatedString(scanner, "Enter Task ID: ");
         String projectId = ValidationUtils.getValidatedString(scanner, "Enter Project ID: ");
@@ -342,19 +484,24 @@ public class Main {
 
         String taskName = ValidationUtils.getValidatedString(scanner, "Enter Task Name: ");
         String description = ValidationUtils.getValidatedString(scanner, "Enter Description: ");
-        String assignedTo = ValidationUtils.getValidatedString(scanner, "Assign to User ID: ");
+        String assignedTo = ValidationUtils.getValidatedString(scanner, "Assign to User ID (or 'auto' for the least-loaded user): ");
         System.out.println("Priority: High, Medium, Low");
         String priority = ValidationUtils.getValidatedString(scanner, "Enter Priority: ");
         String dueDate = ValidationUtils.getValidatedDate(scanner, "Enter Due Date (YYYY-MM-DD): ");
 
-        Task task = new Task(taskId, projectId, taskName, description, assignedTo, priority, dueDate);
-        taskService.addTask(task);
+        boolean auto = assignedTo.equalsIgnoreCase("auto");
+        Task task = new Task(taskId, projectId, taskName, description, auto ? null : assignedTo, priority, dueDate);
+        if (auto) {
+            if (taskService.addTaskAutoAssigned(task, currentUser)) System.out.println("Assigned to " + task.getAssignedTo() + ".");
+        } else {
+            taskService.addTask(task, currentUser);
+        }
         menu.pause();
     }
 
     private static void searchTask() {
         String taskId = ValidationUtils.getValidatedString(scanner, "\nEnter Task ID to search: ");
-        Task task = taskService.findTaskById(taskId);
+        Task task = taskService.findTaskById(taskId, currentUser);
         if (task != null) {
             System.out.println("Task Found:");
             task.displayTaskInfo();
@@ -366,37 +513,53 @@ public class Main {
 
     private static void updateTaskStatus() {
         String taskId = ValidationUtils.getValidatedString(scanner, "\nEnter Task ID to update: ");
-        Task task = taskService.findTaskById(taskId);
+        Task task = taskService.findTaskById(taskId, currentUser);
         if (task == null) {
             System.out.println("Task not found.");
             menu.pause();
             return;
         }
+        if (!taskService.canUpdate(task, currentUser)) {
+            System.out.println("Access denied: you can only update your own tasks.");
+            menu.pause();
+            return;
+        }
 
         System.out.println("Current Task:");
         task.displayTaskInfo();
+        long version = task.getVersion();
 
         System.out.println("New Status: 1.Pending 2.In Progress 3.Completed");
         int choice = ValidationUtils.getValidatedChoice(scanner, "Enter choice (1-3): ", 1, 3);
-        switch (choice) {
-            case 1 -> task.setStatus("Pending");
-            case 2 -> task.setStatus("In Progress");
-            case 3 -> task.setStatus("Completed");
-        }
+        String status = switch (choice) {
+            case 1 -> "Pending";
+            case 2 -> "In Progress";
+            default -> "Completed";
+        };
 
-        taskService.updateTask(taskId, task);
+        // only applied if nobody changed the task while the prompt was open
+        UpdateResult result = taskService.updateTaskIfVersion(taskId, version, t -> t.setStatus(status), currentUser);
+        if (result == UpdateResult.UNSUPPORTED) {
+            // store-backed tasks keep no versions: write through as a plain edit
+            Task current = taskService.findTaskById(taskId);
+            if (current != null) {
+                current.setStatus(status);
+                System.out.println("Task updated successfully.");
+            }
+        }
         menu.pause();
     }
 
     private static void deleteTask() {
+        if (!checkPermission(Permission.DELETE_TASKS)) return;
         String taskId = ValidationUtils.getValidatedString(scanner, "\nEnter Task ID to delete: ");
-        Task task = taskService.findTaskById(taskId);
+        Task task = taskService.findTaskById(taskId, currentUser);
         if (task != null) {
             task.displayTaskInfo();
             System.out.print("Are you sure you want to delete this task? (yes/no): ");
             String confirm = scanner.nextLine();
             if (confirm.equalsIgnoreCase("yes")) {
-                taskService.deleteTask(taskId);
+                taskService.deleteTask(taskId, currentUser);
             } else {
                 System.out.println("Deletion cancelled.");
             }
@@ -404,9 +567,20 @@ public class Main {
         menu.pause();
     }
 
+    private static void addTaskDependency() {
+        if (!checkPermission(Permission.UPDATE_TASKS)) return;
+        String blockerId = ValidationUtils.getValidatedString(scanner, "\nEnter ID of the blocking task: ");
+        String dependentId = ValidationUtils.getValidatedString(scanner, "Enter ID of the task it blocks: ");
+        if (dependencyService.addDependency(blockerId, dependentId)) {
+            System.out.println("Dependency added. Earliest finish of " + dependentId + ": "
+                    + dependencyService.getEarliestFinish(dependentId));
+        }
+        menu.pause();
+    }
+
     private static void viewTasksByProject() {
         String projectId = ValidationUtils.getValidatedString(scanner, "\nEnter Project ID: ");
-        Task[] tasks = taskService.getTasksByProjectId(projectId);
+        Task[] tasks = taskService.getTasksByProjectId(projectId, currentUser);
         System.out.println("Tasks for Project: " + projectId);
         if (tasks.length == 0) {
             System.out.println("No tasks found for this project.");
@@ -421,7 +595,7 @@ public class Main {
 
     private static void viewTasksByUser() {
         String userId = ValidationUtils.getValidatedString(scanner, "\nEnter User ID: ");
-        Task[] tasks = taskService.getTasksByUserId(userId);
+        Task[] tasks = taskService.getTasksByUserId(userId, currentUser);
         System.out.println("Tasks assigned to User: " + userId);
         if (tasks.length == 0) {
             System.out.println("No tasks found for this user.");
@@ -443,7 +617,7 @@ public class Main {
             default -> "Low";
         };
 
-        Task[] tasks = taskService.getTasksByPriority(priority);
+        Task[] tasks = taskService.getTasksByPriority(priority, currentUser);
         System.out.println("Tasks with priority: " + priority);
         if (tasks.length == 0) {
             System.out.println("No tasks found with this priority.");
@@ -456,6 +630,13 @@ public class Main {
         menu.pause();
     }
 
+    private static boolean checkPermission(int permission) {
+        if (currentUser.hasPermission(permission)) return true;
+        System.out.println("Access denied: your role does not allow this action.");
+        menu.pause();
+        return false;
+    }
+
     private static void handleUserManagement() {
         System.out.println("USER MANAGEMENT");
         System.out.println("Current User Information:");
@@ -471,17 +652,32 @@ public class Main {
         boolean inReportMenu = true;
         while (inReportMenu) {
             menu.displayReportMenu();
-            int choice = ValidationUtils.getValidatedChoice(scanner, "Enter your choice: ", 0, 4);
+            int choice = ValidationUtils.getValidatedChoice(scanner, "Enter your choice: ", 0, 9);
             switch (choice) {
-                case 1 -> { reportService.generateStatusReport(); menu.pause(); }
-                case 2 -> { String projectId = ValidationUtils.getValidatedString(scanner, "\nEnter Project ID: "); reportService.generateProjectReport(projectId); menu.pause(); }
-                case 3 -> { String userId = ValidationUtils.getValidatedString(scanner, "\nEnter User ID: "); reportService.generateUserWorkloadReport(userId); menu.pause(); }
+                case 1 -> { reportService.generateStatusReport(System.out); menu.pause(); }
+                case 2 -> { String projectId = ValidationUtils.getValidatedString(scanner, "\nEnter Project ID: "); reportService.generateProjectReport(System.out, projectId); menu.pause(); }
+                case 3 -> { String userId = ValidationUtils.getValidatedString(scanner, "\nEnter User ID: "); reportService.generateUserWorkloadReport(System.out, userId); menu.pause(); }
                 case 4 -> { generateCompletionSummary(); menu.pause(); }
+                case 5 -> { String projectId = ValidationUtils.getValidatedString(scanner, "\nEnter Project ID: "); reportService.generateBurndownReport(System.out, projectId); menu.pause(); }
+                case 6 -> { String projectId = ValidationUtils.getValidatedString(scanner, "\nEnter Project ID: "); reportService.generateVelocityReport(System.out, projectId, 4); menu.pause(); }
+                case 7 -> { String projectId = ValidationUtils.getValidatedString(scanner, "\nEnter Project ID: "); reportService.generateScheduleReport(System.out, projectId); menu.pause(); }
+                case 8 -> { String portfolioId = ValidationUtils.getValidatedString(scanner, "\nEnter Portfolio ID: "); reportService.generatePortfolioReport(System.out, portfolioId); menu.pause(); }
+                case 9 -> { reportService.generateStatusReportAsOf(System.out, readTime("\nAs of (YYYY-MM-DD or YYYY-MM-DDTHH:MM:SSZ): ")); menu.pause(); }
                 case 0 -> inReportMenu = false;
             }
         }
     }
 
+    private static long readTime(String prompt) {
+        while (true) {
+            try {
+                return HistoryService.parseTime(ValidationUtils.getValidatedString(scanner, prompt));
+            } catch (IllegalArgumentException e) {
+                System.out.println("❌ Invalid time! Use YYYY-MM-DD or an ISO instant such as 2025-03-01T12:00:00Z.");
+            }
+        }
+    }
+
     private static void generateCompletionSummary() {
         Project[] projects = projectService.getAllProjects();
         System.out.println("PROJECT COMPLETION SUMMARY");
@@ -0,0 +1,77 @@
+import models.SoftwareProject;
+import models.Task;
+import services.OffHeapTaskStore;
+import services.ProjectServices;
+import services.ReportService;
+import services.TaskService;
+
+/**
+ * Loads tasks into an off-heap store behind TaskService and compares the heap in
+ * use with the bytes held outside it, then serves status counts, a priority
+ * filter and the status report from the store, edits a few tasks through
+ * their views, deletes some and compacts the store.
+ * Run with: java -cp out RunOffHeapStore [tasks] [projects, at most 100]
+ */
+public class RunOffHeapStore {
+    private static final String[] STATUSES = {"Pending", "In Progress", "Completed"};
+    private static final String[] PRIORITIES = {"High", "Medium", "Low"};
+
+    public static void main(String[] args) {
+        int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int projectCount = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        OffHeapTaskStore store = new OffHeapTaskStore();
+        ProjectServices projectService = new ProjectServices();
+        TaskService taskService = new TaskService(projectService, store);
+        projectService.setQuiet(true);
+        taskService.setQuiet(true);
+
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        for (int p = 0; p < projectCount; p++) {
+            projectService.addProject(new SoftwareProject(String.format("PRJ%04d", p), "Software " + p, "Generated",
+                    "2025-01-01", "2025-12-31", 80000, 8, "Java", "Agile", 30));
+        }
+        for (int t = 0; t < taskCount; t++) {
+            Task task = new Task(String.format("T%07d", t), String.format("PRJ%04d", t % projectCount), "Task " + t,
+                    "Generated task " + t, "USR00" + (t % 5 + 1), PRIORITIES[t % 3], "2025-06-01");
+            if (t % 4 != 0) task.setStatus(STATUSES[t % 4 - 1]);
+            taskService.addTask(task);
+        }
+        System.out.printf("Loaded %d tasks in %d ms%n", taskService.getTaskCount(), (System.nanoTime() - start) / 1_000_000);
+        System.out.printf("Heap grew by %d MB; %d MB reserved off-heap, %d MB of strings%n",
+                (usedHeap() - heapBefore) >> 20, store.getOffHeapBytes() >> 20, store.getArenaBytesUsed() >> 20);
+
+        start = System.nanoTime();
+        for (String status : STATUSES) System.out.printf("%-12s: %d%n", status, taskService.countTasksByStatus(status));
+        System.out.printf("Status counts from record bytes: %d ms%n", (System.nanoTime() - start) / 1_000_000);
+
+        start = System.nanoTime();
+        int high = taskService.getTasksByPriority("High").length;
+        System.out.printf("High priority: %d views built in %d ms%n", high, (System.nanoTime() - start) / 1_000_000);
+
+        // edits through views are written back, timestamps included
+        Task first = taskService.findTaskById("T0000000");
+        long createdAt = first.getCreatedAt();
+        first.setStatus("In Progress");
+        first.setStatus("Completed");
+        Task again = taskService.findTaskById("T0000000");
+        System.out.printf("T0000000: %s, created %s, %d transitions, completed at %d%n", again.getStatus(),
+                again.getCreatedAt() == createdAt ? "unchanged" : "CHANGED", again.getTransitionCount(), again.getCompletedAt());
+
+        for (int t = 0; t < taskCount; t += 10) taskService.deleteTask(String.format("T%07d", t));
+        start = System.nanoTime();
+        long reclaimed = store.compact();
+        System.out.printf("Deleted every tenth task; compaction reclaimed %d MB in %d ms%n", reclaimed >> 20,
+                (System.nanoTime() - start) / 1_000_000);
+
+        new ReportService(projectService, taskService).generateStatusReport(System.out);
+        System.out.println(store);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,82 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import models.HardwareProject;
+import models.Project;
+import models.SoftwareProject;
+import models.Task;
+import services.PagedStore;
+import services.ProjectServices;
+import services.ReportService;
+import services.TaskService;
+
+/**
+ * Loads more projects and tasks than the working set can hold into a paged store,
+ * then runs a skewed lookup workload (most requests hit a few hot projects) and
+ * reopens the file to show the data survives a restart.
+ * Run with: java -cp out RunPagedStore [projects] [tasksPerProject] [workingSet]
+ */
+public class RunPagedStore {
+    public static void main(String[] args) throws Exception {
+        int projectCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int tasksPerProject = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int workingSet = args.length > 2 ? Integer.parseInt(args[2]) : 5000;
+        Path path = Files.createTempFile("taskstore", ".pages");
+
+        try (PagedStore store = new PagedStore(path, workingSet)) {
+            ProjectServices projectService = new ProjectServices(store);
+            TaskService taskService = new TaskService(projectService, store);
+            projectService.setQuiet(true);
+            taskService.setQuiet(true);
+
+            long start = System.nanoTime();
+            for (int p = 0; p < projectCount; p++) {
+                String projectId = String.format("PRJ%05d", p);
+                Project project = p % 3 == 0
+                        ? new HardwareProject(projectId, "Hardware " + p, "Generated", "2025-01-01", "2025-12-31", 50000, 6, "Sensor", 40)
+                        : new SoftwareProject(projectId, "Software " + p, "Generated", "2025-01-01", "2025-12-31", 80000, 8, "Java", "Agile", 30);
+                projectService.addProject(project);
+                for (int t = 0; t < tasksPerProject; t++) {
+                    taskService.addTask(new Task(projectId + "-T" + t, projectId, "Task " + t, "Generated task " + t,
+                            "USR00" + (t % 5 + 1), t % 3 == 0 ? "High" : "Medium", "2025-06-01"));
+                }
+            }
+            System.out.printf("Loaded %d projects / %d tasks in %d ms%n", projectService.getProjectCount(),
+                    taskService.getTaskCount(), (System.nanoTime() - start) / 1_000_000);
+            System.out.println(store);
+
+            // 90% of lookups go to the first 2% of projects
+            Random random = new Random(42);
+            int hot = Math.max(1, projectCount / 50);
+            long hitsBefore = store.getHits();
+            long faultsBefore = store.getFaults();
+            start = System.nanoTime();
+            for (int i = 0; i < 200_000; i++) {
+                int p = random.nextInt(10) < 9 ? random.nextInt(hot) : random.nextInt(projectCount);
+                String projectId = String.format("PRJ%05d", p);
+                if (i % 10 == 0) {
+                    Task task = taskService.findTaskById(projectId + "-T" + random.nextInt(tasksPerProject));
+                    task.setStatus("In Progress");
+                } else {
+                    projectService.findProjectById(projectId);
+                }
+            }
+            long hits = store.getHits() - hitsBefore;
+            long faults = store.getFaults() - faultsBefore;
+            System.out.printf("Skewed workload: %d ms, hit rate %.1f%% (%d hits, %d faults)%n",
+                    (System.nanoTime() - start) / 1_000_000, hits * 100.0 / Math.max(1, hits + faults), hits, faults);
+
+            new ReportService(projectService, taskService).generateStatusReport(System.out);
+            System.out.println(store);
+        }
+
+        try (PagedStore reopened = new PagedStore(path, workingSet)) {
+            ProjectServices projectService = new ProjectServices(reopened);
+            TaskService taskService = new TaskService(projectService, reopened);
+            System.out.printf("%nReopened: %d projects, %d tasks, %d in progress%n", projectService.getProjectCount(),
+                    taskService.getTaskCount(), taskService.getTasksByStatus("In Progress").length);
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+}
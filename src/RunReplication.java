@@ -0,0 +1,82 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import models.SoftwareProject;
+import models.Task;
+import services.ChangeEventBus;
+import services.ProjectServices;
+import services.ReplicationFollower;
+import services.ReplicationPrimary;
+import services.TaskService;
+
+/**
+ * Demonstrates primary/follower replication on one host: a primary in this JVM,
+ * one follower in this JVM and one in a separate JVM. The in-process follower is
+ * disconnected while the primary outruns its small log, then catches up from a snapshot.
+ * Run with: java -cp out RunReplication
+ */
+public class RunReplication {
+    public static void main(String[] args) throws Exception {
+        ProjectServices projectService = new ProjectServices();
+        TaskService taskService = new TaskService(projectService);
+        projectService.setQuiet(true);
+        taskService.setQuiet(true);
+        projectService.addProject(new SoftwareProject("PROJ001", "E-Commerce Platform", "Online shop",
+                "2025-01-01", "2025-06-30", 100000.00, 10, "Java", "Agile", 10));
+
+        try (ReplicationPrimary primary = new ReplicationPrimary(projectService, taskService, new ChangeEventBus(128), 0);
+             ReplicationFollower follower = new ReplicationFollower(
+                     new InetSocketAddress(InetAddress.getLoopbackAddress(), primary.getPort()))) {
+            follower.start();
+            Process remote = startRemoteFollower(primary.getPort());
+            try (PrintWriter remoteIn = new PrintWriter(remote.getOutputStream(), true);
+                 BufferedReader remoteOut = new BufferedReader(new InputStreamReader(remote.getInputStream()))) {
+                for (int i = 1; i <= 50; i++) {
+                    taskService.addTask(new Task(String.format("TASK%03d", i), "PROJ001", "Task " + i, "Generated",
+                            "USR00" + (i % 3 + 1), i % 2 == 0 ? "High" : "Low", "2025-05-01"));
+                }
+                taskService.findTaskById("TASK001").setStatus("Completed");
+
+                follower.awaitSequence(primary.getLastSequence(), 5000);
+                System.out.println("Local follower tasks: " + follower.query(1000, TaskService::getTaskCount));
+
+                remoteIn.println("await " + primary.getLastSequence());
+                System.out.println("Remote follower: " + remoteOut.readLine());
+                remoteIn.println("report.user USR002");
+                remoteIn.println("task.delete TASK001");
+                remote.getOutputStream().close();
+                String line;
+                while ((line = remoteOut.readLine()) != null) System.out.println("  remote> " + line);
+            } finally {
+                remote.destroy();
+            }
+
+            System.out.println("\nDisconnecting local follower and writing past the primary's log...");
+            follower.disconnect();
+            for (int i = 1; i <= 50; i++) {
+                Task task = taskService.findTaskById(String.format("TASK%03d", i));
+                for (int round = 0; round < 3; round++) task.setStatus(round % 2 == 0 ? "In Progress" : "Pending");
+            }
+            taskService.deleteTask("TASK050");
+            follower.query(Long.MAX_VALUE, tasks -> {
+                System.out.println("Stale follower tasks: " + tasks.getTaskCount());
+                return null;
+            });
+
+            follower.start();
+            follower.awaitSequence(primary.getLastSequence(), 5000);
+            System.out.printf("Caught up: tasks=%d, snapshots loaded=%d, lag=%d%n",
+                    follower.query(1000, TaskService::getTaskCount), follower.getSnapshotsLoaded(), follower.getLag());
+            follower.report(1000, reports -> reports.generateStatusReport(System.out));
+        }
+    }
+
+    private static Process startRemoteFollower(int port) throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                "services.ReplicationFollower", String.valueOf(port)).redirectErrorStream(true).start();
+    }
+}
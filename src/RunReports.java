@@ -80,13 +80,13 @@ public class RunReports {
         taskService.addTask(task5);
 
         System.out.println("SYSTEM STATUS REPORT\n");
-        reportService.generateStatusReport();
+        reportService.generateStatusReport(System.out);
 
         System.out.println("\nPROJECT DETAILED REPORT (PROJ001)\n");
-        reportService.generateProjectReport("PROJ001");
+        reportService.generateProjectReport(System.out, "PROJ001");
 
         System.out.println("\nUSER WORKLOAD REPORT (USR001)\n");
-        reportService.generateUserWorkloadReport("USR001");
+        reportService.generateUserWorkloadReport(System.out, "USR001");
 
         System.out.println("Done.");
     }
@@ -0,0 +1,74 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import services.ShardRouter;
+
+/**
+ * Starts a partitioned deployment on this machine: N shard worker JVMs on loopback
+ * ports plus a router in this process. Loads projects and tasks, prints the merged
+ * status report, then adds one more shard and rebalances incrementally.
+ * Run with: java -cp out RunShardCluster [shards] [projects]
+ */
+public class RunShardCluster {
+    public static void main(String[] args) throws Exception {
+        int shardCount = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int projectCount = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+
+        List<Process> workers = new ArrayList<>();
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        try {
+            for (int i = 0; i < shardCount; i++) addresses.add(startWorker(workers));
+            try (ShardRouter router = new ShardRouter(addresses)) {
+                for (int p = 1; p <= projectCount; p++) {
+                    String projectId = String.format("PROJ%03d", p);
+                    check(router.execute("project.add software " + projectId + " \"Project " + p + "\" \"Generated\""
+                            + " 2025-01-01 2025-12-31 50000 5 \"Java\" Agile 10"));
+                    for (int t = 1; t <= 5; t++) {
+                        String taskId = projectId + "-T" + t;
+                        check(router.execute("task.add " + taskId + " " + projectId + " \"Task " + t + "\" \"Generated\" USR00"
+                                + (t % 3 + 1) + " " + (t % 2 == 0 ? "High" : "Low") + " 2025-06-30"));
+                        if (t == 1) check(router.execute("task.status " + taskId + " Completed"));
+                    }
+                }
+                System.out.println("Projects per shard: " + router.getProjectDistribution());
+                router.execute("report.status");
+
+                System.out.println("\nAdding a shard...");
+                router.addShard(startWorker(workers));
+                System.out.println("Projects to move: " + router.getPendingMoves());
+                int remaining;
+                do {
+                    remaining = router.rebalance(5);
+                    System.out.println("  rebalanced, " + remaining + " left");
+                } while (remaining > 0);
+                System.out.println("Projects per shard: " + router.getProjectDistribution());
+                router.execute("report.status");
+                router.execute("report.user USR001");
+            }
+        } finally {
+            for (Process worker : workers) worker.destroy();
+        }
+    }
+
+    private static InetSocketAddress startWorker(List<Process> workers) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), "services.ShardServer", "0")
+                .redirectErrorStream(true).start();
+        workers.add(process);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        String line = reader.readLine();
+        if (line == null || !line.startsWith("SHARD LISTENING ")) throw new IOException("shard failed to start: " + line);
+        int port = Integer.parseInt(line.substring("SHARD LISTENING ".length()).trim());
+        System.out.println("Started shard on port " + port);
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+    }
+
+    private static void check(String result) {
+        if (!result.startsWith("OK")) System.out.println("Error: " + result);
+    }
+}
@@ -0,0 +1,80 @@
+import utils.InputParser;
+
+/**
+ * Micro-benchmark comparing the original exception/split based validation
+ * (reproduced below as legacy* methods) with the allocation-free InputParser.
+ * Run with: java -cp out RunValidationBenchmark [iterations]
+ */
+public class RunValidationBenchmark {
+    private static final String[] INTEGERS = {"42", "-17", "2147483647", "abc", "12x", "", "99999999999", "7"};
+    private static final String[] DATES = {"2025-01-31", "2025-02-31", "2024-02-29", "2025-13-01", "bad", "2025-6-5"};
+    private static final String[] STATUSES = {"Pending", "in progress", "COMPLETED", "On Hold", "Unknown", "active"};
+    private static final String[] PRIORITIES = {"High", "medium", "LOW", "Urgent"};
+
+    private static long sink;
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+
+        System.out.println("VALIDATION BENCHMARK (" + iterations + " iterations per case)");
+        for (int round = 0; round < 2; round++) {
+            boolean report = round == 1; // first round is JIT warm-up
+            run("integer  legacy", iterations, report, () -> { for (String s : INTEGERS) if (legacyIsValidInteger(s)) sink++; });
+            run("integer  parser", iterations, report, () -> { for (String s : INTEGERS) if (InputParser.parseInt(s) != InputParser.INVALID_INT) sink++; });
+            run("date     legacy", iterations, report, () -> { for (String s : DATES) if (legacyIsValidDate(s)) sink++; });
+            run("date     parser", iterations, report, () -> { for (String s : DATES) if (InputParser.parseDate(s) != InputParser.INVALID) sink++; });
+            run("status   legacy", iterations, report, () -> { for (String s : STATUSES) if (legacyIsValidStatus(s)) sink++; });
+            run("status   parser", iterations, report, () -> { for (String s : STATUSES) if (InputParser.parseStatus(s) != InputParser.INVALID) sink++; });
+            run("priority legacy", iterations, report, () -> { for (String s : PRIORITIES) if (legacyIsValidPriority(s)) sink++; });
+            run("priority parser", iterations, report, () -> { for (String s : PRIORITIES) if (InputParser.parsePriority(s) != InputParser.INVALID) sink++; });
+        }
+        System.out.println("Feb 31 accepted -> legacy: " + legacyIsValidDate("2025-02-31")
+                + ", parser: " + (InputParser.parseDate("2025-02-31") != InputParser.INVALID));
+        System.out.println("(checksum " + sink + ")");
+    }
+
+    private static void run(String name, int iterations, boolean report, Runnable body) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) body.run();
+        long elapsed = System.nanoTime() - start;
+        if (report) System.out.printf("%-16s: %8.2f ms  (%6.1f ns/iteration)%n",
+                name, elapsed / 1_000_000.0, (double) elapsed / iterations);
+    }
+
+    private static boolean legacyIsValidInteger(String input) {
+        try {
+            Integer.parseInt(input);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static boolean legacyIsValidDate(String date) {
+        if (date == null || date.trim().isEmpty()) return false;
+        String[] parts = date.split("-");
+        if (parts.length != 3) return false;
+        try {
+            int year = Integer.parseInt(parts[0]);
+            int month = Integer.parseInt(parts[1]);
+            int day = Integer.parseInt(parts[2]);
+            return year > 2000 && year < 2100 && month >= 1 && month <= 12 && day >= 1 && day <= 31;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static boolean legacyIsValidStatus(String status) {
+        if (status == null || status.trim().isEmpty()) return false;
+        String[] validStatuses = {"Active", "Completed", "On Hold", "Pending", "In Progress"};
+        for (String validStatus : validStatuses) if (validStatus.equalsIgnoreCase(status)) return true;
+        return false;
+    }
+
+    private static boolean legacyIsValidPriority(String priority) {
+        if (priority == null || priority.trim().isEmpty()) return false;
+        String[] validPriorities = {"High", "Medium", "Low"};
+        for (String validPriority : validPriorities) if (validPriority.equalsIgnoreCase(priority)) return true;
+        return false;
+    }
+}
@@ -0,0 +1,113 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import models.SoftwareProject;
+import models.Task;
+import services.ProjectServices;
+import services.TaskService;
+import services.UserService;
+import services.WriteLoop;
+
+/**
+ * Compares two ways of letting many threads mutate the services: a shared lock
+ * around every call, and a {@link WriteLoop} that funnels all mutations through
+ * one writer thread. Each producer updates task status and assignment.
+ * Run with: java -cp out RunWriteLoop [producers] [operationsPerProducer]
+ */
+public class RunWriteLoop {
+    private static final int TASKS = 400;
+    private static final String[] STATUSES = {"Pending", "In Progress", "Completed"};
+
+    public static void main(String[] args) throws Exception {
+        int producers = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+
+        System.out.printf("WRITE PATH BENCHMARK (%d producers x %d operations)%n", producers, operations);
+        for (int round = 0; round < 3; round++) {
+            boolean report = round > 0; // first round is JIT warm-up
+            long locked = runLocked(producers, operations);
+            long loop = runWriteLoop(producers, operations);
+            if (report) {
+                long total = (long) producers * operations;
+                System.out.printf("lock-based  : %6d ms  (%,10.0f ops/s)%n", locked, total * 1000.0 / Math.max(1, locked));
+                System.out.printf("write loop  : %6d ms  (%,10.0f ops/s)%n", loop, total * 1000.0 / Math.max(1, loop));
+            }
+        }
+    }
+
+    private static long runLocked(int producers, int operations) throws InterruptedException {
+        TaskService taskService = newServices(new ProjectServices());
+        ReentrantLock lock = new ReentrantLock();
+        return runProducers(producers, p -> {
+            for (int i = 0; i < operations; i++) {
+                String taskId = taskId(p, i);
+                lock.lock();
+                try {
+                    Task task = taskService.findTaskById(taskId);
+                    if (i % 2 == 0) task.setStatus(STATUSES[i % 3]);
+                    else task.setAssignedTo("USR00" + (i % 5 + 1));
+                } finally {
+                    lock.unlock();
+                }
+            }
+        });
+    }
+
+    private static long runWriteLoop(int producers, int operations) throws Exception {
+        ProjectServices projectService = new ProjectServices();
+        TaskService taskService = newServices(projectService);
+        try (WriteLoop loop = new WriteLoop(projectService, taskService, 8192)) {
+            long elapsed = runProducers(producers, p -> {
+                CompletableFuture<Boolean> last = null;
+                for (int i = 0; i < operations; i++) {
+                    String taskId = taskId(p, i);
+                    last = i % 2 == 0 ? loop.updateTaskStatus(taskId, STATUSES[i % 3])
+                            : loop.assignTask(taskId, "USR00" + (i % 5 + 1));
+                }
+                // commands are applied in queue order, so the last one completing means all of them did
+                if (last != null) last.join();
+            });
+            if (loop.getAppliedCount() != (long) producers * operations) throw new IllegalStateException("lost writes");
+            return elapsed;
+        }
+    }
+
+    /** Fresh services with TASKS tasks and a UserService listener, so each mutation also maintains counters. */
+    private static TaskService newServices(ProjectServices projectService) {
+        TaskService taskService = new TaskService(projectService);
+        projectService.setQuiet(true);
+        taskService.setQuiet(true);
+        new UserService(taskService);
+        projectService.addProject(new SoftwareProject("PRJ001", "Benchmark", "Generated", "2025-01-01", "2025-12-31",
+                10000, 5, "Java", "Agile", 10));
+        for (int t = 0; t < TASKS; t++) {
+            taskService.addTask(new Task("T" + t, "PRJ001", "Task " + t, "Generated", "USR001", "Medium", "2025-06-01"));
+        }
+        return taskService;
+    }
+
+    private static String taskId(int producer, int i) { return "T" + ((producer * 31 + i) % TASKS); }
+
+    private interface Producer {
+        void run(int producer) throws Exception;
+    }
+
+    private static long runProducers(int producers, Producer body) throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            threads.add(new Thread(() -> {
+                try {
+                    body.run(producer);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }, "producer-" + p));
+        }
+        long start = System.nanoTime();
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,8 @@
+package interfaces;
+
+/**
+ * Callback for field-level changes made through a model's setters.
+ */
+public interface ChangeListener {
+    void onChange(Object source, String field, Object oldValue, Object newValue);
+}
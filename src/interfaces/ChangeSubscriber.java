@@ -0,0 +1,26 @@
+package interfaces;
+
+import java.util.List;
+import services.ChangeEvent;
+
+/**
+ * Consumer of the change stream. Batches arrive in sequence order on the
+ * subscription's own dispatcher thread.
+ */
+public interface ChangeSubscriber {
+    void onEvents(List<ChangeEvent> batch);
+
+    /**
+     * Called when the subscriber fell so far behind that events were overwritten
+     * in the ring buffer; delivery resumes at {@code resumedAt}.
+     */
+    default void onOverrun(long missedFrom, long resumedAt) {}
+
+    /**
+     * Called once when {@code onEvents} or {@code onOverrun} threw. The subscription
+     * has stopped at {@code position}, the start of the batch that failed, so the
+     * consumer can subscribe again from there (seeing again any events of that
+     * batch it handled before throwing).
+     */
+    default void onFailure(long position, RuntimeException error) {}
+}
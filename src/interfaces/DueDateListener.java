@@ -0,0 +1,12 @@
+package interfaces;
+
+import models.Task;
+
+/**
+ * Notified when an open task's due date is near or has passed, on the thread
+ * that calls DueDateScheduler.deliverNotices().
+ */
+public interface DueDateListener {
+    void taskDueSoon(Task task, long daysLeft);
+    void taskOverdue(Task task);
+}
@@ -0,0 +1,20 @@
+package interfaces;
+
+import models.Project;
+
+/**
+ * Observer for the project collection held by ProjectServices: projects entering
+ * or leaving the store, and in-place field edits made through Project setters.
+ * Archiving and restoring are not removals and additions (see TaskEventListener).
+ */
+public interface ProjectEventListener {
+    void projectAdded(Project project);
+    void projectRemoved(Project project);
+    void projectChanged(Project project, String field, Object oldValue, Object newValue);
+
+    /** The project moved to the archive; it is unchanged and still found by ID (read-only). */
+    default void projectArchived(Project project) {}
+
+    /** An archived project is live again, as the same data it was archived with. */
+    default void projectRestored(Project project) {}
+}
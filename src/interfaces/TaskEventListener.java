@@ -0,0 +1,31 @@
+package interfaces;
+
+import models.Task;
+
+/**
+ * Observer for the task collection held by TaskService: tasks entering or
+ * leaving the store, and in-place field edits made through Task setters.
+ * Moves to and from the archive tier are reported separately, as the task
+ * stays findable by ID meanwhile; by default listeners keep what they know.
+ */
+public interface TaskEventListener {
+    void taskAdded(Task task);
+    void taskRemoved(Task task);
+    void taskChanged(Task task, String field, Object oldValue, Object newValue);
+
+    /**
+     * A stored task was replaced by another object (TaskService.updateTask with a
+     * new instance), possibly under a new ID. Listeners that keep per-task state,
+     * such as dependencies, can carry it over instead of starting afresh.
+     */
+    default void taskReplaced(Task previous, Task replacement) {
+        taskRemoved(previous);
+        taskAdded(replacement);
+    }
+
+    /** The task moved to the archive with its project; it is unchanged and still found by ID (read-only). */
+    default void taskArchived(Task task) {}
+
+    /** An archived task is live again, as the same data it was archived with. */
+    default void taskRestored(Task task) {}
+}
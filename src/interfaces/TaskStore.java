@@ -0,0 +1,57 @@
+package interfaces;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import models.Task;
+
+/**
+ * Storage backend that TaskService can keep its tasks in instead of the heap.
+ * Tasks returned by a store are views or cached instances: edits made through
+ * their setters are written back to the store and reported to the change listener.
+ * Iterating a store streams its tasks: each is read or built as the iteration
+ * reaches it, and the store keeps no list of them, so a full pass fits in memory
+ * however large the store is.
+ */
+public interface TaskStore extends Iterable<Task> {
+    /** Store a copy of the task; false if the ID is taken or the task cannot be placed. */
+    boolean add(Task task);
+    Task find(String taskId);
+    boolean contains(String taskId);
+    boolean delete(String taskId);
+    /** Tasks whose named field (a Task property name such as "projectId") equals {@code value}. */
+    List<Task> findWhere(String field, String value);
+    /** Every stored task, streamed; see the class comment. */
+    @Override
+    Iterator<Task> iterator();
+    int size();
+
+    /** Tasks whose status equals {@code status}, ignoring case; stores that index status override this. */
+    default List<Task> findByStatus(String status) {
+        List<Task> result = new ArrayList<>();
+        for (Task task : this) if (status.equalsIgnoreCase(task.getStatus())) result.add(task);
+        return result;
+    }
+
+    /** Tasks whose priority equals {@code priority}, ignoring case. */
+    default List<Task> findByPriority(String priority) {
+        List<Task> result = new ArrayList<>();
+        for (Task task : this) if (priority.equalsIgnoreCase(task.getPriority())) result.add(task);
+        return result;
+    }
+
+    default int countByStatus(String status) {
+        int count = 0;
+        for (Task task : this) if (status.equalsIgnoreCase(task.getStatus())) count++;
+        return count;
+    }
+
+    default int countByPriority(String priority) {
+        int count = 0;
+        for (Task task : this) if (priority.equalsIgnoreCase(task.getPriority())) count++;
+        return count;
+    }
+
+    /** Notified after every setter call on a task obtained from this store. */
+    void setChangeListener(ChangeListener listener);
+}
@@ -18,14 +18,7 @@ public class AdminUser extends User {
     public void setUsersManaged(int usersManaged) { this.usersManaged = usersManaged; }
 
     @Override
-    public String[] getPermissions() {
-        return new String[]{
-                "CREATE_PROJECTS","UPDATE_PROJECTS","DELETE_PROJECTS","VIEW_PROJECTS",
-                "CREATE_TASKS","UPDATE_TASKS","DELETE_TASKS","VIEW_TASKS",
-                "CREATE_USERS","UPDATE_USERS","DELETE_USERS","VIEW_USERS",
-                "GENERATE_REPORTS","VIEW_REPORTS","SYSTEM_ADMIN"
-        };
-    }
+    public int getPermissionMask() { return Permission.ADMIN_MASK; }
 
     @Override
     public boolean hasPermission(String action) {
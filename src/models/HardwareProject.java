@@ -18,13 +18,29 @@ public class HardwareProject extends Project {
     }
 
     public String getHardwareType() { return hardwareType; }
-    public void setHardwareType(String hardwareType) { this.hardwareType = hardwareType; }
+    public void setHardwareType(String hardwareType) {
+        String old = this.hardwareType;
+        this.hardwareType = hardwareType;
+        fireChange("hardwareType", old, hardwareType);
+    }
     public int getTotalComponents() { return totalComponents; }
-    public void setTotalComponents(int totalComponents) { this.totalComponents = totalComponents; }
+    public void setTotalComponents(int totalComponents) {
+        int old = this.totalComponents;
+        this.totalComponents = totalComponents;
+        fireChange("totalComponents", old, totalComponents);
+    }
     public int getAssembledComponents() { return assembledComponents; }
-    public void setAssembledComponents(int assembledComponents) { this.assembledComponents = assembledComponents; }
+    public void setAssembledComponents(int assembledComponents) {
+        int old = this.assembledComponents;
+        this.assembledComponents = assembledComponents;
+        fireChange("assembledComponents", old, assembledComponents);
+    }
     public boolean isPrototypeCompleted() { return prototypeCompleted; }
-    public void setPrototypeCompleted(boolean prototypeCompleted) { this.prototypeCompleted = prototypeCompleted; }
+    public void setPrototypeCompleted(boolean prototypeCompleted) {
+        boolean old = this.prototypeCompleted;
+        this.prototypeCompleted = prototypeCompleted;
+        fireChange("prototypeCompleted", old, prototypeCompleted);
+    }
 
     @Override
     public double calculateCompletionPercentage() {
@@ -34,6 +50,15 @@ public class HardwareProject extends Project {
         return componentProgress + prototypeProgress;
     }
 
+    @Override
+    public HardwareProject copy() {
+        HardwareProject copy = new HardwareProject(getProjectId(), getProjectName(), getDescription(), getStartDate(),
+                getEndDate(), getBudget(), getTeamSize(), hardwareType, totalComponents);
+        copy.assembledComponents = assembledComponents;
+        copy.prototypeCompleted = prototypeCompleted;
+        return copyState(copy);
+    }
+
     @Override
     public String getProjectType() { return "Hardware Development"; }
 
@@ -45,7 +70,7 @@ public class HardwareProject extends Project {
 
     public boolean assembleComponent() {
         if (assembledComponents < totalComponents) {
-            assembledComponents++;
+            setAssembledComponents(assembledComponents + 1);
             if (assembledComponents == totalComponents && prototypeCompleted) setStatus("Completed");
             return true;
         }
@@ -53,7 +78,7 @@ public class HardwareProject extends Project {
     }
 
     public void completePrototype() {
-        this.prototypeCompleted = true;
+        setPrototypeCompleted(true);
         if (assembledComponents == totalComponents) setStatus("Completed");
     }
 }
\ No newline at end of file
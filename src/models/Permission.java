@@ -0,0 +1,65 @@
+package models;
+
+/**
+ * Permission bits. Each role precomputes its mask once, so a permission check
+ * is a single bit test instead of a scan over permission names.
+ */
+public final class Permission {
+    public static final int CREATE_PROJECTS = 1;
+    public static final int UPDATE_PROJECTS = 1 << 1;
+    public static final int DELETE_PROJECTS = 1 << 2;
+    public static final int VIEW_PROJECTS = 1 << 3;
+    public static final int CREATE_TASKS = 1 << 4;
+    public static final int UPDATE_TASKS = 1 << 5;
+    public static final int DELETE_TASKS = 1 << 6;
+    public static final int VIEW_TASKS = 1 << 7;
+    public static final int CREATE_USERS = 1 << 8;
+    public static final int UPDATE_USERS = 1 << 9;
+    public static final int DELETE_USERS = 1 << 10;
+    public static final int VIEW_USERS = 1 << 11;
+    public static final int GENERATE_REPORTS = 1 << 12;
+    public static final int VIEW_REPORTS = 1 << 13;
+    public static final int SYSTEM_ADMIN = 1 << 14;
+    public static final int UPDATE_OWN_TASKS = 1 << 15;
+
+    /** Names indexed by bit position. */
+    private static final String[] NAMES = {
+            "CREATE_PROJECTS", "UPDATE_PROJECTS", "DELETE_PROJECTS", "VIEW_PROJECTS",
+            "CREATE_TASKS", "UPDATE_TASKS", "DELETE_TASKS", "VIEW_TASKS",
+            "CREATE_USERS", "UPDATE_USERS", "DELETE_USERS", "VIEW_USERS",
+            "GENERATE_REPORTS", "VIEW_REPORTS", "SYSTEM_ADMIN", "UPDATE_OWN_TASKS"
+    };
+
+    public static final int ADMIN_MASK = (1 << 15) - 1;
+    public static final int REGULAR_USER_MASK = VIEW_PROJECTS | VIEW_TASKS | UPDATE_OWN_TASKS | VIEW_REPORTS;
+
+    private Permission() {}
+
+    /** Bit for a permission name (case-insensitive), or 0 if the name is unknown. */
+    public static int fromName(String name) {
+        if (name == null) return 0;
+        for (int i = 0; i < NAMES.length; i++) {
+            if (NAMES[i].equalsIgnoreCase(name)) return 1 << i;
+        }
+        return 0;
+    }
+
+    /** Permission names contained in a mask, in bit order. */
+    public static String[] names(int mask) {
+        String[] result = new String[Integer.bitCount(mask)];
+        int index = 0;
+        for (int i = 0; i < NAMES.length; i++) {
+            if ((mask & (1 << i)) != 0) result[index++] = NAMES[i];
+        }
+        return result;
+    }
+
+    /**
+     * True when a mask only allows working on the holder's own tasks, i.e. it has
+     * UPDATE_OWN_TASKS but not UPDATE_TASKS. Task queries for such users are
+     * restricted to rows assigned to them.
+     */
+    public static boolean isOwnTasksOnly(int mask) {
+        return (mask & UPDATE_TASKS) == 0 && (mask & UPDATE_OWN_TASKS) != 0;
+    }
+}
@@ -0,0 +1,115 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.List;
+import interfaces.Completable;
+
+/**
+ * A named group of projects and other portfolios (a program is a portfolio with
+ * a parent). Each node holds running totals for everything below it: member
+ * weight, weighted completion, budget, project and task counts. They are kept
+ * as integers (completion in hundredths of a percent, budget in cents) so that
+ * adding and subtracting deltas never drifts, and every read is O(1).
+ *
+ * The totals are maintained by PortfolioService; {@link #adjust} applies a delta
+ * to this node and each of its ancestors.
+ */
+public class Portfolio implements Completable {
+    /** Completion units per 100%. */
+    public static final long FULL = 10_000;
+
+    private final String portfolioId;
+    private String name;
+    private Portfolio parent;
+    private final List<Portfolio> children = new ArrayList<>();
+
+    private long weight;
+    private long weightedCompletion;
+    private long budgetCents;
+    private int projectCount;
+    private int taskCount;
+    private int completedTaskCount;
+
+    public Portfolio(String portfolioId, String name) {
+        this.portfolioId = portfolioId;
+        this.name = name;
+    }
+
+    public String getPortfolioId() { return portfolioId; }
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public Portfolio getParent() { return parent; }
+    public Portfolio[] getChildren() { return children.toArray(new Portfolio[0]); }
+
+    /** Depth below the root; 0 for a top-level portfolio. */
+    public int getDepth() {
+        int depth = 0;
+        for (Portfolio node = parent; node != null; node = node.parent) depth++;
+        return depth;
+    }
+
+    /**
+     * Move this portfolio, with its totals, under {@code newParent} (null for top
+     * level). Returns false if that would put the portfolio inside itself.
+     */
+    public boolean setParent(Portfolio newParent) {
+        for (Portfolio node = newParent; node != null; node = node.parent) if (node == this) return false;
+        if (parent != null) {
+            parent.children.remove(this);
+            parent.adjust(-weight, -weightedCompletion, -budgetCents, -projectCount, -taskCount, -completedTaskCount);
+        }
+        parent = newParent;
+        if (parent != null) {
+            parent.children.add(this);
+            parent.adjust(weight, weightedCompletion, budgetCents, projectCount, taskCount, completedTaskCount);
+        }
+        return true;
+    }
+
+    /** Add a delta to this node's totals and to every ancestor's; O(depth). */
+    public void adjust(long weight, long weightedCompletion, long budgetCents,
+                       int projects, int tasks, int completedTasks) {
+        for (Portfolio node = this; node != null; node = node.parent) {
+            node.weight += weight;
+            node.weightedCompletion += weightedCompletion;
+            node.budgetCents += budgetCents;
+            node.projectCount += projects;
+            node.taskCount += tasks;
+            node.completedTaskCount += completedTasks;
+        }
+    }
+
+    /** Sum of the weights of all projects below this node. */
+    public long getWeight() { return weight; }
+    public double getBudget() { return budgetCents / 100.0; }
+    public int getProjectCount() { return projectCount; }
+    public int getTaskCount() { return taskCount; }
+    public int getCompletedTaskCount() { return completedTaskCount; }
+
+    /** Weighted average of the completion of every project below this node. */
+    @Override
+    public double getCompletionPercentage() {
+        return weight == 0 ? 0.0 : weightedCompletion * 100.0 / FULL / weight;
+    }
+
+    /** Every project below is at 100%; an empty portfolio is never completed. */
+    @Override
+    public boolean isCompleted() { return weight > 0 && weightedCompletion == weight * FULL; }
+
+    /** Completion rolls up from the projects, so there is nothing to mark here. */
+    @Override
+    public boolean markAsCompleted() { return false; }
+
+    @Override
+    public String getCompletionStatus() {
+        if (projectCount == 0) return "Empty";
+        if (isCompleted()) return "Completed";
+        return weightedCompletion == 0 ? "Not Started" : "In Progress";
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Portfolio[ID=%s, Name=%s, Projects=%d, Completion=%.2f%%]",
+                portfolioId, name, projectCount, getCompletionPercentage());
+    }
+}
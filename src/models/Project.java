@@ -1,7 +1,20 @@
 package models;
 
-/** Common abstract project class. */
-public abstract class Project {
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import interfaces.ChangeListener;
+import interfaces.Completable;
+import utils.StringDictionary;
+import utils.Snapshot;
+import utils.SnapshotArray;
+
+/** Common abstract project class. A version stamp moves on every setter call (see {@link Task#getVersion()}). */
+public abstract class Project implements Completable {
     private String projectId;
     private String projectName;
     private String description;
@@ -11,57 +24,142 @@ public abstract class Project {
     private double budget;
     private int teamSize;
 
-    private Task[] tasks;
-    private int taskCount;
+    private final SnapshotArray<Task> tasks;
+    private ChangeListener listener;
+    private volatile long version;
+    private static final AtomicLongFieldUpdater<Project> VERSION = AtomicLongFieldUpdater.newUpdater(Project.class, "version");
     private static final int MAX_TASKS_PER_PROJECT = 200;
+    private static final Task[] NO_TASKS = new Task[0];
+    private static final StringDictionary DICTIONARY = StringDictionary.shared();
 
     public Project(String projectId, String projectName, String description,
                    String startDate, String endDate, double budget, int teamSize) {
-        this.projectId = projectId;
+        this.projectId = DICTIONARY.intern(projectId);
         this.projectName = projectName;
         this.description = description;
-        this.startDate = startDate;
-        this.endDate = endDate;
-        this.status = "Active";
+        this.startDate = DICTIONARY.intern(startDate);
+        this.endDate = DICTIONARY.intern(endDate);
+        this.status = DICTIONARY.intern("Active");
         this.budget = budget;
         this.teamSize = teamSize;
-        this.tasks = new Task[MAX_TASKS_PER_PROJECT];
-        this.taskCount = 0;
+        this.tasks = new SnapshotArray<>();
     }
 
     public String getProjectId() { return projectId; }
-    public void setProjectId(String projectId) { this.projectId = projectId; }
+    public void setProjectId(String projectId) {
+        String old = this.projectId;
+        this.projectId = DICTIONARY.intern(projectId);
+        fireChange("projectId", old, this.projectId);
+    }
     public String getProjectName() { return projectName; }
-    public void setProjectName(String projectName) { this.projectName = projectName; }
+    public void setProjectName(String projectName) {
+        String old = this.projectName;
+        this.projectName = projectName;
+        fireChange("projectName", old, projectName);
+    }
     public String getDescription() { return description; }
-    public void setDescription(String description) { this.description = description; }
+    public void setDescription(String description) {
+        String old = this.description;
+        this.description = description;
+        fireChange("description", old, description);
+    }
     public String getStartDate() { return startDate; }
-    public void setStartDate(String startDate) { this.startDate = startDate; }
+    public void setStartDate(String startDate) {
+        String old = this.startDate;
+        this.startDate = DICTIONARY.intern(startDate);
+        fireChange("startDate", old, this.startDate);
+    }
     public String getEndDate() { return endDate; }
-    public void setEndDate(String endDate) { this.endDate = endDate; }
+    public void setEndDate(String endDate) {
+        String old = this.endDate;
+        this.endDate = DICTIONARY.intern(endDate);
+        fireChange("endDate", old, this.endDate);
+    }
     public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
+    public void setStatus(String status) {
+        String old = this.status;
+        this.status = DICTIONARY.intern(status);
+        fireChange("status", old, this.status);
+    }
     public double getBudget() { return budget; }
-    public void setBudget(double budget) { this.budget = budget; }
+    public void setBudget(double budget) {
+        double old = this.budget;
+        this.budget = budget;
+        fireChange("budget", old, budget);
+    }
     public int getTeamSize() { return teamSize; }
-    public void setTeamSize(int teamSize) { this.teamSize = teamSize; }
+    public void setTeamSize(int teamSize) {
+        int old = this.teamSize;
+        this.teamSize = teamSize;
+        fireChange("teamSize", old, teamSize);
+    }
+
+    /** Registers the owner notified after every setter call; a project has at most one. */
+    public void setChangeListener(ChangeListener listener) { this.listener = listener; }
+
+    protected void fireChange(String field, Object oldValue, Object newValue) {
+        VERSION.addAndGet(this, 2);
+        if (listener != null) listener.onChange(this, field, oldValue, newValue);
+    }
+
+    public long getVersion() { return version; }
+
+    /** Same protocol as {@link Task#claimVersion(long)}. */
+    public boolean claimVersion(long expected) {
+        return (expected & 1) == 0 && VERSION.compareAndSet(this, expected, expected + 1);
+    }
+
+    public void releaseVersion() { VERSION.incrementAndGet(this); }
 
     public abstract double calculateCompletionPercentage();
+
+    /**
+     * Detached copy of the project's own fields and version, without its task list
+     * or change listener; safe to hand to other threads.
+     */
+    public abstract Project copy();
+
+    /** Carries the status and version, which constructors do not take, over to a copy. */
+    protected <P extends Project> P copyState(P copy) {
+        Project target = copy;
+        target.status = status;
+        target.version = version;
+        return copy;
+    }
+
+    @Override
+    public boolean isCompleted() { return "Completed".equalsIgnoreCase(status); }
+
+    @Override
+    public boolean markAsCompleted() {
+        if (isCompleted()) return false;
+        setStatus("Completed");
+        return true;
+    }
+
+    @Override
+    public double getCompletionPercentage() { return calculateCompletionPercentage(); }
+
+    @Override
+    public String getCompletionStatus() { return status; }
+
     public abstract String getProjectType();
     public abstract String getProjectDetails();
 
-    public void displayProjectInfo() {
-        System.out.printf("Project ID   : %s%n", projectId);
-        System.out.printf("Name         : %s%n", projectName);
-        System.out.printf("Type         : %s%n", getProjectType());
-        System.out.printf("Description  : %s%n", description);
-        System.out.printf("Start Date   : %s%n", startDate);
-        System.out.printf("End Date     : %s%n", endDate);
-        System.out.printf("Team Size    : %d%n", teamSize);
-        System.out.printf("Budget       : $%.2f%n", budget);
-        System.out.printf("Status       : %s%n", status);
-        System.out.printf("Completion   : %.2f%%%n", calculateCompletionPercentage());
-        System.out.println(getProjectDetails());
+    public void displayProjectInfo() { displayProjectInfo(System.out); }
+
+    public void displayProjectInfo(PrintStream out) {
+        out.printf("Project ID   : %s%n", projectId);
+        out.printf("Name         : %s%n", projectName);
+        out.printf("Type         : %s%n", getProjectType());
+        out.printf("Description  : %s%n", description);
+        out.printf("Start Date   : %s%n", startDate);
+        out.printf("End Date     : %s%n", endDate);
+        out.printf("Team Size    : %d%n", teamSize);
+        out.printf("Budget       : $%.2f%n", budget);
+        out.printf("Status       : %s%n", status);
+        out.printf("Completion   : %.2f%%%n", calculateCompletionPercentage());
+        out.println(getProjectDetails());
     }
 
     @Override
@@ -71,31 +169,45 @@ public abstract class Project {
     }
 
     public boolean addTask(Task task) {
-        if (taskCount >= MAX_TASKS_PER_PROJECT) return false;
-        for (int i = 0; i < taskCount; i++) {
-            if (tasks[i].getTaskId().equals(task.getTaskId())) return false;
-        }
-        tasks[taskCount++] = task;
+        if (tasks.size() >= MAX_TASKS_PER_PROJECT) return false;
+        String taskId = task.getTaskId();
+        if (tasks.indexOf(existing -> existing.getTaskId().equals(taskId)) >= 0) return false;
+        tasks.add(task);
         return true;
     }
 
-    public boolean removeTask(String taskId) {
-        for (int i = 0; i < taskCount; i++) {
-            if (tasks[i].getTaskId().equals(taskId)) {
-                for (int j = i; j < taskCount - 1; j++) tasks[j] = tasks[j + 1];
-                tasks[taskCount - 1] = null;
-                taskCount--;
-                return true;
-            }
+    /** Add several tasks with one duplicate check and one structural write; returns how many were added. */
+    public int addTasks(Collection<Task> batch) {
+        Set<String> ids = new HashSet<>();
+        tasks.forEach(existing -> ids.add(existing.getTaskId()));
+        List<Task> accepted = new ArrayList<>(batch.size());
+        for (Task task : batch) {
+            if (ids.size() >= MAX_TASKS_PER_PROJECT) break;
+            if (ids.add(task.getTaskId())) accepted.add(task);
         }
-        return false;
+        tasks.addAll(accepted);
+        return accepted.size();
+    }
+
+    /** Remove all tasks with the given IDs in one compaction pass; returns how many were removed. */
+    public int removeTasks(Set<String> taskIds) {
+        return tasks.removeIf(task -> taskIds.contains(task.getTaskId())).size();
     }
 
+    public boolean removeTask(String taskId) {
+        int i = tasks.indexOf(task -> task.getTaskId().equals(taskId));
+        if (i < 0) return false;
+        tasks.removeAt(i);
+        return true;
+    }
+
+    /** Shared by callers until the task list changes, so do not modify it. */
     public Task[] getTasks() {
-        Task[] result = new Task[taskCount];
-        for (int i = 0; i < taskCount; i++) result[i] = tasks[i];
-        return result;
+        return tasks.snapshot().sharedArray(NO_TASKS);
     }
 
-    public int getTaskCount() { return taskCount; }
-}
\ No newline at end of file
+    /** This project's tasks as of now, without copying them; see {@link Snapshot} on field edits. */
+    public Snapshot<Task> getTaskSnapshot() { return tasks.snapshot(); }
+
+    public int getTaskCount() { return tasks.size(); }
+}
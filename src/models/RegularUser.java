@@ -26,17 +26,7 @@ public class RegularUser extends User {
     }
 
     @Override
-    public String[] getPermissions() {
-        return new String[]{"VIEW_PROJECTS", "VIEW_TASKS", "UPDATE_OWN_TASKS", "VIEW_REPORTS"};
-    }
-
-    @Override
-    public boolean hasPermission(String action) {
-        for (String permission : getPermissions()) {
-            if (permission.equalsIgnoreCase(action)) return true;
-        }
-        return false;
-    }
+    public int getPermissionMask() { return Permission.REGULAR_USER_MASK; }
 
     @Override
     public void displayUserInfo() {
@@ -18,13 +18,29 @@ public class SoftwareProject extends Project {
     }
 
     public String getTechnologyStack() { return technologyStack; }
-    public void setTechnologyStack(String technologyStack) { this.technologyStack = technologyStack; }
+    public void setTechnologyStack(String technologyStack) {
+        String old = this.technologyStack;
+        this.technologyStack = technologyStack;
+        fireChange("technologyStack", old, technologyStack);
+    }
     public String getMethodology() { return methodology; }
-    public void setMethodology(String methodology) { this.methodology = methodology; }
+    public void setMethodology(String methodology) {
+        String old = this.methodology;
+        this.methodology = methodology;
+        fireChange("methodology", old, methodology);
+    }
     public int getTotalFeatures() { return totalFeatures; }
-    public void setTotalFeatures(int totalFeatures) { this.totalFeatures = totalFeatures; }
+    public void setTotalFeatures(int totalFeatures) {
+        int old = this.totalFeatures;
+        this.totalFeatures = totalFeatures;
+        fireChange("totalFeatures", old, totalFeatures);
+    }
     public int getCompletedFeatures() { return completedFeatures; }
-    public void setCompletedFeatures(int completedFeatures) { this.completedFeatures = completedFeatures; }
+    public void setCompletedFeatures(int completedFeatures) {
+        int old = this.completedFeatures;
+        this.completedFeatures = completedFeatures;
+        fireChange("completedFeatures", old, completedFeatures);
+    }
 
     @Override
     public double calculateCompletionPercentage() {
@@ -32,6 +48,14 @@ public class SoftwareProject extends Project {
         return (completedFeatures * 100.0) / totalFeatures;
     }
 
+    @Override
+    public SoftwareProject copy() {
+        SoftwareProject copy = new SoftwareProject(getProjectId(), getProjectName(), getDescription(), getStartDate(),
+                getEndDate(), getBudget(), getTeamSize(), technologyStack, methodology, totalFeatures);
+        copy.completedFeatures = completedFeatures;
+        return copyState(copy);
+    }
+
     @Override
     public String getProjectType() { return "Software Development"; }
 
@@ -43,7 +67,7 @@ public class SoftwareProject extends Project {
 
     public boolean completeFeature() {
         if (completedFeatures < totalFeatures) {
-            completedFeatures++;
+            setCompletedFeatures(completedFeatures + 1);
             if (completedFeatures == totalFeatures) setStatus("Completed");
             return true;
         }
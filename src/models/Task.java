@@ -1,8 +1,23 @@
 package models;
 
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.LongSupplier;
+import interfaces.ChangeListener;
 import interfaces.Completable;
+import utils.StringDictionary;
 
-/** Task model representing individual tasks within projects. */
+/**
+ * Task model representing individual tasks within projects.
+ * Project ID, assignee, priority, status and due date are dictionary-encoded
+ * (see {@link StringDictionary}); the codes allow int-compare filtering.
+ * Every status transition is logged with its time (epoch millis), starting with
+ * creation in "Pending"; derived stamps (0 = not yet) give the first start, the
+ * completion (cleared when the task is reopened) and the latest change. Times come
+ * from the clock the task was created with.
+ * A version stamp moves on every setter call, for optimistic "update if
+ * unchanged" edits (see {@link #claimVersion(long)}).
+ */
 public class Task implements Completable {
     private String taskId;
     private String projectId;
@@ -12,39 +27,236 @@ public class Task implements Completable {
     private String priority;
     private String status;
     private String dueDate;
+    private int projectCode;
+    private int assigneeCode;
+    private long createdAt;
+    private long startedAt;
+    private long completedAt;
+    private long statusChangedAt;
+    private String[] transitionStatus;
+    private long[] transitionTimes;
+    private int transitionCount;
+    /** Set on a copy, which shares its owner's log arrays until it logs a transition of its own. */
+    private boolean sharedLog;
+
+    private volatile long version;
+
+    private final LongSupplier clock;
+    private static final AtomicLongFieldUpdater<Task> VERSION = AtomicLongFieldUpdater.newUpdater(Task.class, "version");
+
+    private ChangeListener listener;
+    private static final StringDictionary DICTIONARY = StringDictionary.shared();
 
     public Task(String taskId, String projectId, String taskName, String description,
                 String assignedTo, String priority, String dueDate) {
+        this(taskId, projectId, taskName, description, assignedTo, priority, dueDate, System::currentTimeMillis);
+    }
+
+    /** {@code clock} stamps the creation and every later status transition of this task. */
+    public Task(String taskId, String projectId, String taskName, String description,
+                String assignedTo, String priority, String dueDate, LongSupplier clock) {
+        this.clock = clock;
         this.taskId = taskId;
-        this.projectId = projectId;
+        this.projectId = DICTIONARY.intern(projectId);
+        this.projectCode = DICTIONARY.codeOf(this.projectId);
         this.taskName = taskName;
         this.description = description;
-        this.assignedTo = assignedTo;
-        this.priority = priority;
-        this.status = "Pending";
-        this.dueDate = dueDate;
+        this.assignedTo = DICTIONARY.intern(assignedTo);
+        this.assigneeCode = DICTIONARY.codeOf(this.assignedTo);
+        this.priority = DICTIONARY.intern(priority);
+        this.status = DICTIONARY.intern("Pending");
+        this.dueDate = DICTIONARY.intern(dueDate);
+        this.createdAt = clock.getAsLong();
+        this.statusChangedAt = createdAt;
+        clearLog();
+        logTransition(this.status, createdAt);
     }
 
     public String getTaskId() { return taskId; }
-    public void setTaskId(String taskId) { this.taskId = taskId; }
+    public void setTaskId(String taskId) {
+        String old = this.taskId;
+        this.taskId = taskId;
+        fireChange("taskId", old, taskId);
+    }
     public String getProjectId() { return projectId; }
-    public void setProjectId(String projectId) { this.projectId = projectId; }
+    public void setProjectId(String projectId) {
+        String old = this.projectId;
+        this.projectId = DICTIONARY.intern(projectId);
+        this.projectCode = DICTIONARY.codeOf(this.projectId);
+        fireChange("projectId", old, this.projectId);
+    }
+    public int getProjectCode() { return projectCode; }
     public String getTaskName() { return taskName; }
-    public void setTaskName(String taskName) { this.taskName = taskName; }
+    public void setTaskName(String taskName) {
+        String old = this.taskName;
+        this.taskName = taskName;
+        fireChange("taskName", old, taskName);
+    }
     public String getDescription() { return description; }
-    public void setDescription(String description) { this.description = description; }
+    public void setDescription(String description) {
+        String old = this.description;
+        this.description = description;
+        fireChange("description", old, description);
+    }
     public String getAssignedTo() { return assignedTo; }
-    public void setAssignedTo(String assignedTo) { this.assignedTo = assignedTo; }
+    public void setAssignedTo(String assignedTo) {
+        String old = this.assignedTo;
+        this.assignedTo = DICTIONARY.intern(assignedTo);
+        this.assigneeCode = DICTIONARY.codeOf(this.assignedTo);
+        fireChange("assignedTo", old, this.assignedTo);
+    }
+    public int getAssigneeCode() { return assigneeCode; }
     public String getPriority() { return priority; }
-    public void setPriority(String priority) { this.priority = priority; }
+    public void setPriority(String priority) {
+        String old = this.priority;
+        this.priority = DICTIONARY.intern(priority);
+        fireChange("priority", old, this.priority);
+    }
     public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
+    public void setStatus(String status) {
+        String old = this.status;
+        this.status = DICTIONARY.intern(status);
+        if (!this.status.equalsIgnoreCase(old)) {
+            long now = clock.getAsLong();
+            statusChangedAt = now;
+            if (startedAt == 0 && "In Progress".equalsIgnoreCase(this.status)) startedAt = now;
+            completedAt = isCompleted() ? now : 0;
+            logTransition(this.status, now);
+        }
+        fireChange("status", old, this.status);
+    }
+    public long getCreatedAt() { return createdAt; }
+    public long getStartedAt() { return startedAt; }
+    public long getCompletedAt() { return completedAt; }
+    public long getStatusChangedAt() { return statusChangedAt; }
+
+    /** Transitions logged so far, creation included; at least 1. */
+    public int getTransitionCount() { return transitionCount; }
+    /** Status entered by the transition at {@code index}, oldest first. */
+    public String getTransitionStatus(int index) { return transitionStatus[checkTransition(index)]; }
+    public long getTransitionTime(int index) { return transitionTimes[checkTransition(index)]; }
+
+    /**
+     * Restore the stamps of a task loaded from storage that kept only these four;
+     * the log is rebuilt from them (created, first start, current status since
+     * {@code statusChangedAt}), so transitions in between are lost.
+     */
+    public void restoreTimestamps(long createdAt, long startedAt, long completedAt, long statusChangedAt) {
+        this.createdAt = createdAt;
+        this.startedAt = startedAt;
+        this.completedAt = completedAt;
+        this.statusChangedAt = statusChangedAt;
+        clearLog();
+        logTransition(DICTIONARY.intern("Pending"), createdAt);
+        if (startedAt != 0) logTransition(DICTIONARY.intern("In Progress"), startedAt);
+        if (!getTransitionStatus(transitionCount - 1).equalsIgnoreCase(status)) logTransition(status, statusChangedAt);
+    }
+
+    /**
+     * Restore the full log of a task loaded from storage or a replication stream,
+     * oldest first; the derived stamps are recomputed from it.
+     */
+    public void restoreTransitions(String[] statuses, long[] times) {
+        if (statuses.length == 0 || statuses.length != times.length) throw new IllegalArgumentException("transition log must be non-empty and paired");
+        clearLog();
+        startedAt = 0;
+        completedAt = 0;
+        for (int i = 0; i < statuses.length; i++) {
+            String entered = DICTIONARY.intern(statuses[i]);
+            logTransition(entered, times[i]);
+            if (startedAt == 0 && "In Progress".equalsIgnoreCase(entered)) startedAt = times[i];
+            completedAt = "Completed".equalsIgnoreCase(entered) ? times[i] : 0;
+        }
+        createdAt = times[0];
+        statusChangedAt = times[times.length - 1];
+    }
+
+    /** Copies may share the old arrays, so a restored log starts in fresh ones. */
+    private void clearLog() {
+        transitionStatus = new String[2];
+        transitionTimes = new long[2];
+        transitionCount = 0;
+        sharedLog = false;
+    }
+
+    private void logTransition(String entered, long at) {
+        if (sharedLog || transitionCount == transitionTimes.length) {
+            int capacity = Math.max(2, transitionCount * 2);
+            transitionStatus = Arrays.copyOf(transitionStatus, capacity);
+            transitionTimes = Arrays.copyOf(transitionTimes, capacity);
+            sharedLog = false;
+        }
+        transitionStatus[transitionCount] = entered;
+        transitionTimes[transitionCount++] = at;
+    }
+
+    private int checkTransition(int index) {
+        if (index < 0 || index >= transitionCount) throw new IndexOutOfBoundsException("transition " + index + " of " + transitionCount);
+        return index;
+    }
+
+    /**
+     * Detached copy with the same fields, transition log, clock and version but no
+     * change listener; safe to hand to other threads, as the owner never touches it.
+     * The log is shared: the owner only appends past the copy's end of it.
+     */
+    public Task copy() { return new Task(this); }
+
+    private Task(Task source) {
+        int count = source.transitionCount;
+        transitionStatus = source.transitionStatus;
+        transitionTimes = source.transitionTimes;
+        transitionCount = Math.min(count, transitionTimes.length);
+        sharedLog = true;
+        clock = source.clock;
+        taskId = source.taskId;
+        projectId = source.projectId;
+        projectCode = source.projectCode;
+        taskName = source.taskName;
+        description = source.description;
+        assignedTo = source.assignedTo;
+        assigneeCode = source.assigneeCode;
+        priority = source.priority;
+        status = source.status;
+        dueDate = source.dueDate;
+        createdAt = source.createdAt;
+        startedAt = source.startedAt;
+        completedAt = source.completedAt;
+        statusChangedAt = source.statusChangedAt;
+        version = source.version;
+    }
     public String getDueDate() { return dueDate; }
-    public void setDueDate(String dueDate) { this.dueDate = dueDate; }
+    public void setDueDate(String dueDate) {
+        String old = this.dueDate;
+        this.dueDate = DICTIONARY.intern(dueDate);
+        fireChange("dueDate", old, this.dueDate);
+    }
+
+    /** Registers the owner notified after every setter call; a task has at most one. */
+    public void setChangeListener(ChangeListener listener) { this.listener = listener; }
+
+    private void fireChange(String field, Object oldValue, Object newValue) {
+        VERSION.addAndGet(this, 2);
+        if (listener != null) listener.onChange(this, field, oldValue, newValue);
+    }
+
+    /** Even while no conditional update holds the task; every setter call adds 2. */
+    public long getVersion() { return version; }
+
+    /**
+     * Start a conditional update: one compare-and-set from {@code expected} to the
+     * odd "held" value. Fails if the task changed since {@code expected} was read or
+     * another conditional update holds it. Must be paired with {@link #releaseVersion()}.
+     */
+    public boolean claimVersion(long expected) {
+        return (expected & 1) == 0 && VERSION.compareAndSet(this, expected, expected + 1);
+    }
+
+    public void releaseVersion() { VERSION.incrementAndGet(this); }
 
     public boolean isCompleted() { return "Completed".equalsIgnoreCase(status); }
-    public void startTask() { if ("Pending".equalsIgnoreCase(status)) this.status = "In Progress"; }
-    public void completeTask() { this.status = "Completed"; }
+    public void startTask() { if ("Pending".equalsIgnoreCase(status)) setStatus("In Progress"); }
+    public void completeTask() { setStatus("Completed"); }
 
     @Override
     public boolean markAsCompleted() {
@@ -70,7 +282,11 @@ public class Task implements Completable {
         System.out.printf("Description : %s%n", description);
     }
 
-    public int getPriorityWeight() {
+    public int getPriorityWeight() { return priorityWeight(priority); }
+
+    /** Weight of a priority name: High 3, Medium 2, Low 1, anything else 0. */
+    public static int priorityWeight(String priority) {
+        if (priority == null) return 0;
         switch (priority.toLowerCase()) {
             case "high": return 3;
             case "medium": return 2;
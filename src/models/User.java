@@ -26,8 +26,14 @@ public abstract class User {
     public String getPassword() { return password; }
     public void setPassword(String password) { this.password = password; }
 
-    public abstract String[] getPermissions();
-    public abstract boolean hasPermission(String action);
+    /** Precomputed {@link Permission} bits for this user's role. */
+    public abstract int getPermissionMask();
+
+    public String[] getPermissions() { return Permission.names(getPermissionMask()); }
+
+    public boolean hasPermission(int permission) { return (getPermissionMask() & permission) != 0; }
+
+    public boolean hasPermission(String action) { return hasPermission(Permission.fromName(action)); }
 
     public boolean verifyPassword(String inputPassword) { return this.password.equals(inputPassword); }
 
@@ -0,0 +1,318 @@
+package services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import models.HardwareProject;
+import models.Project;
+import models.SoftwareProject;
+import models.Task;
+import utils.Snapshot;
+
+/**
+ * Group-by over any collection: rows are grouped by one or more string
+ * attributes and, per group, counted and summarised over numeric measures
+ * (count, sum, avg, min, max and nearest-rank percentiles).
+ *
+ * A run is a single pass that updates each row's group in place; values are
+ * only retained when percentiles are asked for. A snapshot can also be split
+ * into ranges that are aggregated in parallel and merged. A measure that returns
+ * NaN for a row (say, cycle time of an open task) skips that row for that
+ * measure only. Missing attribute values group under "-".
+ */
+public class Aggregation<T> {
+    private static final String MISSING = "-";
+
+    private final List<String> keyNames = new ArrayList<>();
+    private final List<Function<T, String>> keys = new ArrayList<>();
+    private final List<String> measureNames = new ArrayList<>();
+    private final List<ToDoubleFunction<T>> measures = new ArrayList<>();
+    private double[] percentiles = new double[0];
+
+    public Aggregation<T> groupBy(String name, Function<T, String> key) {
+        keyNames.add(name);
+        keys.add(key);
+        return this;
+    }
+
+    public Aggregation<T> measure(String name, ToDoubleFunction<T> measure) {
+        measureNames.add(name);
+        measures.add(measure);
+        return this;
+    }
+
+    /** Percentiles (0-100] to report for every measure. */
+    public Aggregation<T> percentiles(double... percentiles) {
+        for (double p : percentiles) {
+            if (!(p > 0 && p <= 100)) throw new IllegalArgumentException("invalid percentile " + p);
+        }
+        this.percentiles = percentiles.clone();
+        return this;
+    }
+
+    public Result run(Iterable<T> rows) {
+        Partial partial = new Partial();
+        for (T row : rows) partial.add(row);
+        return partial.result();
+    }
+
+    /**
+     * Aggregate {@code parallelism} contiguous ranges of the snapshot at once and
+     * merge the partial groups; below a few thousand rows a single pass is used.
+     */
+    public Result run(Snapshot<T> rows, int parallelism) {
+        int size = rows.size();
+        int parts = Math.max(1, Math.min(parallelism, size / 4096));
+        if (parts == 1) return run(rows);
+        List<CompletableFuture<Partial>> futures = new ArrayList<>(parts);
+        for (int part = 0; part < parts; part++) {
+            int from = (int) ((long) size * part / parts);
+            int to = (int) ((long) size * (part + 1) / parts);
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                Partial partial = new Partial();
+                for (int i = from; i < to; i++) partial.add(rows.get(i));
+                return partial;
+            }));
+        }
+        Partial merged = futures.get(0).join();
+        for (int part = 1; part < parts; part++) merged.merge(futures.get(part).join());
+        return merged.result();
+    }
+
+    // ---- named attributes for projects and tasks ----
+
+    private static final Map<String, Function<Project, String>> PROJECT_KEYS = new LinkedHashMap<>();
+    private static final Map<String, ToDoubleFunction<Project>> PROJECT_MEASURES = new LinkedHashMap<>();
+    private static final Map<String, Function<Task, String>> TASK_KEYS = new LinkedHashMap<>();
+    private static final Map<String, ToDoubleFunction<Task>> TASK_MEASURES = new LinkedHashMap<>();
+
+    static {
+        PROJECT_KEYS.put("type", Project::getProjectType);
+        PROJECT_KEYS.put("status", Project::getStatus);
+        PROJECT_KEYS.put("methodology", p -> p instanceof SoftwareProject ? ((SoftwareProject) p).getMethodology() : null);
+        PROJECT_KEYS.put("hardware", p -> p instanceof HardwareProject ? ((HardwareProject) p).getHardwareType() : null);
+        PROJECT_KEYS.put("start-month", p -> month(p.getStartDate()));
+        PROJECT_MEASURES.put("budget", Project::getBudget);
+        PROJECT_MEASURES.put("completion", Project::calculateCompletionPercentage);
+        PROJECT_MEASURES.put("team", Project::getTeamSize);
+
+        TASK_KEYS.put("project", Task::getProjectId);
+        TASK_KEYS.put("status", Task::getStatus);
+        TASK_KEYS.put("priority", Task::getPriority);
+        TASK_KEYS.put("assignee", Task::getAssignedTo);
+        TASK_KEYS.put("due-month", t -> month(t.getDueDate()));
+        TASK_MEASURES.put("lead-hours", t -> t.getCompletedAt() == 0 ? Double.NaN : (t.getCompletedAt() - t.getCreatedAt()) / 3_600_000.0);
+        TASK_MEASURES.put("cycle-hours", t -> t.getCompletedAt() == 0 || t.getStartedAt() == 0 ? Double.NaN
+                : (t.getCompletedAt() - t.getStartedAt()) / 3_600_000.0);
+    }
+
+    /**
+     * Aggregation over projects from comma-separated attribute names, for example
+     * {@code ofProjects("type,status", "budget")}. Keys: type, status, methodology,
+     * hardware, start-month. Measures: budget, completion, team.
+     */
+    public static Aggregation<Project> ofProjects(String groupBy, String measures) {
+        return named(PROJECT_KEYS, PROJECT_MEASURES, groupBy, measures);
+    }
+
+    /**
+     * Aggregation over tasks. Keys: project, status, priority, assignee, due-month.
+     * Measures: lead-hours, cycle-hours (completed tasks only).
+     */
+    public static Aggregation<Task> ofTasks(String groupBy, String measures) {
+        return named(TASK_KEYS, TASK_MEASURES, groupBy, measures);
+    }
+
+    private static <T> Aggregation<T> named(Map<String, Function<T, String>> keys, Map<String, ToDoubleFunction<T>> measures,
+                                            String groupBy, String measureNames) {
+        Aggregation<T> aggregation = new Aggregation<>();
+        for (String name : split(groupBy)) {
+            Function<T, String> key = keys.get(name);
+            if (key == null) throw new IllegalArgumentException("unknown group-by " + name + " (expected one of " + keys.keySet() + ")");
+            aggregation.groupBy(name, key);
+        }
+        for (String name : split(measureNames)) {
+            ToDoubleFunction<T> measure = measures.get(name);
+            if (measure == null) throw new IllegalArgumentException("unknown measure " + name + " (expected one of " + measures.keySet() + ")");
+            aggregation.measure(name, measure);
+        }
+        return aggregation;
+    }
+
+    private static String[] split(String names) {
+        return names == null || names.isEmpty() ? new String[0] : names.split(",");
+    }
+
+    private static String month(String date) {
+        return date != null && date.length() >= 7 ? date.substring(0, 7) : null;
+    }
+
+    // ---- accumulation ----
+
+    /** Groups of one pass (or one range of a parallel run). */
+    private final class Partial {
+        final Map<Key, Group> groups = new HashMap<>();
+        final Key probe = new Key(new String[keys.size()]);
+
+        void add(T row) {
+            for (int i = 0; i < probe.parts.length; i++) {
+                String value = keys.get(i).apply(row);
+                probe.parts[i] = value == null ? MISSING : value;
+            }
+            probe.rehash();
+            Group group = groups.get(probe);
+            if (group == null) {
+                Key key = new Key(probe.parts.clone());
+                group = new Group(key.parts, measures.size(), percentiles);
+                groups.put(key, group);
+            }
+            group.count++;
+            for (int i = 0; i < group.stats.length; i++) group.stats[i].add(measures.get(i).applyAsDouble(row));
+        }
+
+        void merge(Partial other) {
+            for (Map.Entry<Key, Group> entry : other.groups.entrySet()) {
+                Group group = groups.get(entry.getKey());
+                if (group == null) groups.put(entry.getKey(), entry.getValue());
+                else group.merge(entry.getValue());
+            }
+        }
+
+        Result result() {
+            List<Group> sorted = new ArrayList<>(groups.values());
+            sorted.sort((a, b) -> Arrays.compare(a.keys, b.keys));
+            return new Result(keyNames.toArray(new String[0]), measureNames.toArray(new String[0]), percentiles.clone(), sorted);
+        }
+    }
+
+    private static final class Key {
+        final String[] parts;
+        int hash;
+
+        Key(String[] parts) {
+            this.parts = parts;
+            rehash();
+        }
+
+        void rehash() { hash = Arrays.hashCode(parts); }
+
+        @Override
+        public int hashCode() { return hash; }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && ((Key) other).hash == hash && Arrays.equals(((Key) other).parts, parts);
+        }
+    }
+
+    /** Result rows, ordered by their keys. */
+    public static final class Result {
+        private final String[] keyNames;
+        private final String[] measureNames;
+        private final double[] percentiles;
+        private final List<Group> groups;
+
+        Result(String[] keyNames, String[] measureNames, double[] percentiles, List<Group> groups) {
+            this.keyNames = keyNames;
+            this.measureNames = measureNames;
+            this.percentiles = percentiles;
+            this.groups = groups;
+        }
+
+        public String[] getKeyNames() { return keyNames.clone(); }
+        public String[] getMeasureNames() { return measureNames.clone(); }
+        public double[] getPercentiles() { return percentiles.clone(); }
+        public List<Group> getGroups() { return groups; }
+
+        /** The group with exactly these key values, or null. */
+        public Group find(String... keys) {
+            for (Group group : groups) if (Arrays.equals(group.keys, keys)) return group;
+            return null;
+        }
+    }
+
+    public static final class Group {
+        private final String[] keys;
+        private final Stats[] stats;
+        private long count;
+
+        Group(String[] keys, int measures, double[] percentiles) {
+            this.keys = keys;
+            this.stats = new Stats[measures];
+            for (int i = 0; i < measures; i++) stats[i] = new Stats(percentiles.length > 0);
+        }
+
+        public String getKey(int index) { return keys[index]; }
+        public long getCount() { return count; }
+        /** Summary of the measure at {@code index}, in the order the measures were added. */
+        public Stats getStats(int index) { return stats[index]; }
+
+        void merge(Group other) {
+            count += other.count;
+            for (int i = 0; i < stats.length; i++) stats[i].merge(other.stats[i]);
+        }
+    }
+
+    /** Count, sum, min, max and (when kept) the values of one measure in one group. */
+    public static final class Stats {
+        private long count;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private double[] values;
+        private boolean sorted;
+
+        Stats(boolean keepValues) {
+            if (keepValues) values = new double[8];
+        }
+
+        void add(double value) {
+            if (Double.isNaN(value)) return;
+            if (values != null) {
+                if (count == values.length) values = Arrays.copyOf(values, values.length * 2);
+                values[(int) count] = value;
+                sorted = false;
+            }
+            count++;
+            sum += value;
+            if (value < min) min = value;
+            if (value > max) max = value;
+        }
+
+        void merge(Stats other) {
+            if (values != null) {
+                if (count + other.count > values.length) values = Arrays.copyOf(values, (int) Math.max(values.length * 2L, count + other.count));
+                System.arraycopy(other.values, 0, values, (int) count, (int) other.count);
+                sorted = false;
+            }
+            count += other.count;
+            sum += other.sum;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+
+        /** Rows that had a value for this measure. */
+        public long getCount() { return count; }
+        public double getSum() { return sum; }
+        public double getAverage() { return count == 0 ? Double.NaN : sum / count; }
+        public double getMin() { return count == 0 ? Double.NaN : min; }
+        public double getMax() { return count == 0 ? Double.NaN : max; }
+
+        /** Nearest-rank percentile; NaN if no values were kept or none were seen. */
+        public synchronized double getPercentile(double percentile) {
+            if (values == null || count == 0) return Double.NaN;
+            if (!sorted) {
+                Arrays.sort(values, 0, (int) count);
+                sorted = true;
+            }
+            int rank = (int) Math.ceil(percentile / 100 * count);
+            return values[Math.max(0, Math.min((int) count - 1, rank - 1))];
+        }
+    }
+}
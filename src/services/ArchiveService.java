@@ -0,0 +1,475 @@
+package services;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import models.Project;
+import models.Task;
+import utils.BatchCommandRunner;
+import utils.InputParser;
+
+/**
+ * Cold tier for completed projects. {@link #archiveCompleted(long)} moves each
+ * completed project whose last activity is older than a threshold, with all of
+ * its tasks, out of the heap services into an append-only archive file.
+ *
+ * Each project becomes one deflated block laid out by column: the project
+ * record, then every task field as its own column, string columns as a small
+ * per-block dictionary plus one index per row, timestamps as deltas from the
+ * previous row. Only a directory (project ID to block, task ID to project ID)
+ * and the project's status figures stay on the heap, so the status report can
+ * count archived work without reading the file.
+ *
+ * Archived projects and tasks are still found by ID through ProjectServices and
+ * TaskService, as read-only copies decoded on demand (the last few decoded
+ * blocks are kept). Editing such a copy, or updating, deleting or adding a task
+ * to an archived project through the services, restores the whole project to
+ * the heap first; the edited copies become the live objects.
+ *
+ * Service listeners are told about archiving and restoring through their own
+ * events, not as deletions and additions, so dependencies, flow history,
+ * portfolio rollups and sync clients keep archived work. An edit that restores
+ * a project reaches them as an ordinary change once it is live again. Archives
+ * reopened from an existing file predate the listeners, so restoring one of
+ * those is announced as an addition.
+ */
+public class ArchiveService implements AutoCloseable {
+    private static final int MAGIC = 0x41524348; // "ARCH"
+    private static final int HEADER_SIZE = 12;
+    private static final int DECODED_BLOCKS = 16;
+    private static final String[] STRING_COLUMNS = {
+        "taskId", "taskName", "description", "assignedTo", "priority", "dueDate", "status"
+    };
+
+    private final ProjectServices projectService;
+    private final TaskService taskService;
+    private final FileChannel file;
+    private final LongSupplier clock;
+    private final Map<String, Block> blocks = new HashMap<>();
+    private final Map<String, String> taskProject = new HashMap<>();
+    private final LinkedHashMap<String, Decoded> decoded = new LinkedHashMap<>(16, 0.75f, true);
+    private boolean quiet;
+
+    public ArchiveService(ProjectServices projectService, TaskService taskService, Path path) throws IOException {
+        this(projectService, taskService, path, System::currentTimeMillis);
+    }
+
+    /** {@code clock} decides the age of a completed project. Archives already in the file are reopened. */
+    public ArchiveService(ProjectServices projectService, TaskService taskService, Path path, LongSupplier clock)
+            throws IOException {
+        if (taskService.hasExternalStore()) {
+            throw new IllegalArgumentException("the archive tier is for heap-resident services");
+        }
+        this.projectService = projectService;
+        this.taskService = taskService;
+        this.clock = clock;
+        this.file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        load();
+        projectService.setArchive(this);
+        taskService.setArchive(this);
+    }
+
+    /**
+     * Archive every completed project whose newest task activity (or end date, if it
+     * has no tasks) is at least {@code minAgeMillis} old. Returns the number archived.
+     */
+    public synchronized int archiveCompleted(long minAgeMillis) {
+        long cutoff = clock.getAsLong() - minAgeMillis;
+        List<Project> due = new ArrayList<>();
+        for (Project project : projectService.scan()) {
+            if (project.getStatus().equalsIgnoreCase("Completed") && lastActivity(project) <= cutoff) due.add(project);
+        }
+        int archived = archiveAll(due);
+        log(archived + " project(s) archived.");
+        return archived;
+    }
+
+    /** Move one project and its tasks into the archive, whatever its status. */
+    public synchronized boolean archive(String projectId) {
+        Project project = blocks.containsKey(projectId) ? null : projectService.findProjectById(projectId);
+        if (project == null) {
+            log("Error: Project not found!");
+            return false;
+        }
+        return archiveAll(Collections.singletonList(project)) == 1;
+    }
+
+    /** Write a block per project from its own task list, then take all of their tasks out in one pass. */
+    private int archiveAll(List<Project> projects) {
+        if (projects.isEmpty()) return 0;
+        Map<String, Block> appended = new LinkedHashMap<>();
+        Map<String, String> archivedTasks = new HashMap<>();
+        for (Project project : projects) {
+            List<Task> tasks = Arrays.asList(project.getTasks());
+            appended.put(project.getProjectId(), append(project, tasks));
+            for (Task task : tasks) archivedTasks.put(task.getTaskId(), project.getProjectId());
+        }
+        taskService.archiveWhere(task -> archivedTasks.containsKey(task.getTaskId()));
+        for (String projectId : appended.keySet()) projectService.archiveProject(projectId);
+        blocks.putAll(appended);
+        taskProject.putAll(archivedTasks);
+        return appended.size();
+    }
+
+    /**
+     * Move an archived project and its tasks back into the services. If they cannot
+     * all be taken (heap limits), the project stays archived and nothing changes.
+     */
+    public synchronized boolean restore(String projectId) {
+        Block block = blocks.get(projectId);
+        if (block == null) return false;
+        Decoded entry = decode(projectId);
+        decoded.remove(projectId);
+        blocks.remove(projectId);
+        for (Task task : entry.tasks.values()) taskProject.remove(task.getTaskId());
+        entry.project.setChangeListener(null);
+        for (Task task : entry.tasks.values()) task.setChangeListener(null);
+
+        List<Task> tasks = new ArrayList<>(entry.tasks.values());
+        boolean known = !block.reopened;
+        boolean restored = known ? projectService.restoreProject(entry.project) : projectService.addProject(entry.project);
+        if (restored && (known ? taskService.restoreAll(tasks) : taskService.addAll(tasks)) < tasks.size()) {
+            Set<Task> taken = Collections.newSetFromMap(new IdentityHashMap<>());
+            taken.addAll(tasks);
+            if (known) {
+                taskService.archiveWhere(taken::contains);
+                projectService.archiveProject(entry.project.getProjectId());
+            } else {
+                taskService.deleteWhere(taken::contains);
+                projectService.deleteProject(entry.project.getProjectId());
+            }
+            restored = false;
+        }
+        if (!restored) {
+            blocks.put(projectId, block);
+            for (Task task : tasks) taskProject.put(task.getTaskId(), projectId);
+            log("Error: Archived project " + projectId + " could not be restored!");
+            return false;
+        }
+        markDead(block);
+        return true;
+    }
+
+    /** Restore the project an archived task belongs to; false if the task is not archived. */
+    public synchronized boolean restoreTask(String taskId) {
+        String projectId = taskProject.get(taskId);
+        return projectId != null && restore(projectId);
+    }
+
+    public synchronized boolean isArchived(String projectId) { return blocks.containsKey(projectId); }
+
+    /** Read-only copy of an archived project (with its tasks attached), or null. */
+    public synchronized Project findProject(String projectId) {
+        return blocks.containsKey(projectId) ? decode(projectId).project : null;
+    }
+
+    public synchronized Task findTask(String taskId) {
+        String projectId = taskProject.get(taskId);
+        return projectId == null ? null : decode(projectId).tasks.get(taskId);
+    }
+
+    public synchronized List<Task> getTasks(String projectId) {
+        return blocks.containsKey(projectId) ? new ArrayList<>(decode(projectId).tasks.values()) : Collections.emptyList();
+    }
+
+    public synchronized int getArchivedProjectCount() { return blocks.size(); }
+
+    public synchronized int getArchivedTaskCount() { return taskProject.size(); }
+
+    /** Bytes of live (not restored) archive blocks. */
+    public synchronized long getArchivedBytes() {
+        long bytes = 0;
+        for (Block block : blocks.values()) bytes += HEADER_SIZE + block.length;
+        return bytes;
+    }
+
+    /** Status figures of everything archived, merged from the per-project figures kept in the directory. */
+    synchronized StatusFigures figures() {
+        StatusFigures total = new StatusFigures();
+        for (Block block : blocks.values()) total.merge(block.figures);
+        return total;
+    }
+
+    public void setQuiet(boolean quiet) { this.quiet = quiet; }
+
+    public boolean isQuiet() { return quiet; }
+
+    private void log(String message) {
+        if (!quiet) System.out.println(message);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        file.close();
+    }
+
+    private long lastActivity(Project project) {
+        long last = Long.MIN_VALUE;
+        for (Task task : project.getTaskSnapshot()) last = Math.max(last, Math.max(task.getCreatedAt(), task.getStatusChangedAt()));
+        if (last != Long.MIN_VALUE) return last;
+        int packed = InputParser.parseDate(project.getEndDate());
+        if (packed == InputParser.INVALID) return Long.MAX_VALUE;
+        return LocalDate.of(InputParser.dateYear(packed), InputParser.dateMonth(packed), InputParser.dateDay(packed))
+                .toEpochDay() * FlowMetricsService.DAY_MILLIS;
+    }
+
+    // ---- decoding cache ----
+
+    private Decoded decode(String projectId) {
+        Decoded entry = decoded.get(projectId);
+        if (entry != null) return entry;
+        entry = read(blocks.get(projectId));
+        // an edit to an archived copy brings its project back so the edit lands on live data
+        boolean known = !blocks.get(projectId).reopened;
+        for (Task task : entry.tasks.values()) {
+            task.setChangeListener((source, field, oldValue, newValue) -> {
+                if (restore(projectId) && known) taskService.changedWhileArchived((Task) source, field, oldValue, newValue);
+            });
+        }
+        entry.project.setChangeListener((source, field, oldValue, newValue) -> {
+            if (restore(projectId) && known) projectService.changedWhileArchived((Project) source, field, oldValue, newValue);
+        });
+        decoded.put(projectId, entry);
+        Iterator<Map.Entry<String, Decoded>> oldest = decoded.entrySet().iterator();
+        while (decoded.size() > DECODED_BLOCKS) {
+            Decoded evicted = oldest.next().getValue();
+            oldest.remove();
+            evicted.project.setChangeListener(null);
+            for (Task task : evicted.tasks.values()) task.setChangeListener(null);
+        }
+        return entry;
+    }
+
+    // ---- file layout ----
+
+    /** Append a block: MAGIC, live flag, compressed length, then the deflated columns. */
+    private Block append(Project project, List<Task> tasks) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+                writeColumns(out, project, tasks);
+            }
+            byte[] body = bytes.toByteArray();
+            long offset = file.size();
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + body.length);
+            buffer.putInt(MAGIC).putInt(1).putInt(body.length).put(body).flip();
+            while (buffer.hasRemaining()) file.write(buffer, offset + buffer.position());
+            List<Project> projects = Collections.singletonList(project);
+            return new Block(offset, body.length, new StatusFigures(projects, tasks));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void markDead(Block block) {
+        try {
+            ByteBuffer flag = ByteBuffer.allocate(4).putInt(0);
+            flag.flip();
+            file.write(flag, block.offset + 4);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Rebuild the directory with one sequential pass over the file, skipping restored blocks. */
+    private void load() throws IOException {
+        long size = file.size();
+        long offset = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (offset + HEADER_SIZE <= size) {
+            header.clear();
+            file.read(header, offset);
+            header.flip();
+            if (header.getInt() != MAGIC) throw new IOException("corrupt archive block at offset " + offset);
+            boolean live = header.getInt() == 1;
+            int length = header.getInt();
+            if (live) {
+                Block block = new Block(offset, length, null);
+                block.reopened = true;
+                Decoded entry = read(block);
+                List<Project> projects = Collections.singletonList(entry.project);
+                block.figures = new StatusFigures(projects, entry.tasks.values());
+                String projectId = entry.project.getProjectId();
+                blocks.put(projectId, block);
+                for (String taskId : entry.tasks.keySet()) taskProject.put(taskId, projectId);
+            }
+            offset += HEADER_SIZE + length;
+        }
+    }
+
+    private Decoded read(Block block) {
+        try {
+            ByteBuffer body = ByteBuffer.allocate(block.length);
+            long position = block.offset + HEADER_SIZE;
+            while (body.hasRemaining()) {
+                if (file.read(body, position + body.position()) < 0) throw new IOException("truncated archive block at offset " + block.offset);
+            }
+            try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(body.array())))) {
+                return readColumns(in);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeColumns(DataOutputStream out, Project project, List<Task> tasks) throws IOException {
+        writeString(out, ReplicationCodec.put(project));
+        out.writeInt(tasks.size());
+        for (String column : STRING_COLUMNS) {
+            Map<String, Integer> dictionary = new HashMap<>();
+            List<String> values = new ArrayList<>();
+            int[] rows = new int[tasks.size()];
+            for (int i = 0; i < rows.length; i++) {
+                String value = stringField(tasks.get(i), column);
+                if (value == null) continue;
+                Integer index = dictionary.get(value);
+                if (index == null) {
+                    values.add(value);
+                    index = values.size();
+                    dictionary.put(value, index);
+                }
+                rows[i] = index;
+            }
+            out.writeInt(values.size());
+            for (String value : values) writeString(out, value);
+            for (int row : rows) writeVarLong(out, row);
+        }
+        for (int column = 0; column < 4; column++) {
+            long previous = 0;
+            for (Task task : tasks) {
+                long value = timestamp(task, column);
+                writeVarLong(out, zigZag(value - previous));
+                previous = value;
+            }
+        }
+    }
+
+    private static Decoded readColumns(DataInputStream in) throws IOException {
+        Project project = ReplicationCodec.parseProject(BatchCommandRunner.tokenize(readString(in)));
+        int rows = in.readInt();
+        String[][] columns = new String[STRING_COLUMNS.length][rows];
+        for (String[] column : columns) {
+            String[] values = new String[in.readInt() + 1];
+            for (int i = 1; i < values.length; i++) values[i] = readString(in);
+            for (int row = 0; row < rows; row++) column[row] = values[(int) readVarLong(in)];
+        }
+        long[][] times = new long[4][rows];
+        for (long[] column : times) {
+            long previous = 0;
+            for (int row = 0; row < rows; row++) {
+                previous += unZigZag(readVarLong(in));
+                column[row] = previous;
+            }
+        }
+        Map<String, Task> tasks = new LinkedHashMap<>();
+        for (int row = 0; row < rows; row++) {
+            Task task = new Task(columns[0][row], project.getProjectId(), columns[1][row], columns[2][row],
+                    columns[3][row], columns[4][row], columns[5][row]);
+            task.setStatus(columns[6][row]);
+            task.restoreTimestamps(times[0][row], times[1][row], times[2][row], times[3][row]);
+            tasks.put(task.getTaskId(), task);
+        }
+        project.addTasks(tasks.values());
+        return new Decoded(project, tasks);
+    }
+
+    private static String stringField(Task task, String column) {
+        switch (column) {
+            case "taskId": return task.getTaskId();
+            case "taskName": return task.getTaskName();
+            case "description": return task.getDescription();
+            case "assignedTo": return task.getAssignedTo();
+            case "priority": return task.getPriority();
+            case "dueDate": return task.getDueDate();
+            default: return task.getStatus();
+        }
+    }
+
+    private static long timestamp(Task task, int column) {
+        switch (column) {
+            case 0: return task.getCreatedAt();
+            case 1: return task.getStartedAt();
+            case 2: return task.getCompletedAt();
+            default: return task.getStatusChangedAt();
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+    }
+
+    private static long zigZag(long value) { return (value << 1) ^ (value >> 63); }
+
+    private static long unZigZag(long value) { return (value >>> 1) ^ -(value & 1); }
+
+    private static final class Block {
+        final long offset;
+        final int length;
+        StatusFigures figures;
+        /** Loaded from the file at startup rather than archived by this instance. */
+        boolean reopened;
+
+        Block(long offset, int length, StatusFigures figures) {
+            this.offset = offset;
+            this.length = length;
+            this.figures = figures;
+        }
+    }
+
+    private static final class Decoded {
+        final Project project;
+        final Map<String, Task> tasks;
+
+        Decoded(Project project, Map<String, Task> tasks) {
+            this.project = project;
+            this.tasks = tasks;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import interfaces.TaskEventListener;
+import models.Task;
+
+/**
+ * Picks the assignee with the least weighted open work, where each open task
+ * counts its priority weight (High 3, Medium 2, Low 1). Loads are kept in step
+ * with TaskService through its event listener, and candidates sit in indexed
+ * min-heaps (one for all candidates, one per project team), so a pick is O(1)
+ * and a load change is O(log users) per heap the user belongs to.
+ */
+public class AssignmentBalancer implements TaskEventListener {
+    private final Map<String, Long> loads = new HashMap<>();
+    private final LoadHeap candidates = new LoadHeap();
+    private final Map<String, LoadHeap> teams = new HashMap<>();
+    private final Map<String, List<LoadHeap>> memberships = new HashMap<>();
+
+    public AssignmentBalancer(TaskService taskService) {
+        for (Task task : taskService.scan()) taskAdded(task);
+        taskService.addTaskEventListener(this);
+    }
+
+    /** Make a user eligible for automatic assignment. */
+    public synchronized void addCandidate(String userId) {
+        if (candidates.contains(userId)) return;
+        candidates.offer(userId, loadOf(userId));
+        memberships.computeIfAbsent(userId, key -> new ArrayList<>()).add(candidates);
+    }
+
+    public synchronized void removeCandidate(String userId) {
+        candidates.remove(userId);
+        List<LoadHeap> heaps = memberships.get(userId);
+        if (heaps != null) heaps.remove(candidates);
+    }
+
+    /** Restrict automatic assignment for a project's tasks to these users. */
+    public synchronized void setProjectTeam(String projectId, Collection<String> userIds) {
+        LoadHeap previous = teams.remove(projectId);
+        if (previous != null) {
+            for (List<LoadHeap> heaps : memberships.values()) heaps.remove(previous);
+        }
+        LoadHeap team = new LoadHeap();
+        for (String userId : userIds) {
+            if (team.contains(userId)) continue;
+            team.offer(userId, loadOf(userId));
+            memberships.computeIfAbsent(userId, key -> new ArrayList<>()).add(team);
+        }
+        teams.put(projectId, team);
+    }
+
+    /** Least-loaded member of the project's team (or of all candidates if it has none); null if nobody is eligible. */
+    public synchronized String pick(String projectId) {
+        LoadHeap team = projectId == null ? null : teams.get(projectId);
+        return (team != null ? team : candidates).peek();
+    }
+
+    /** Weighted open work of a user. */
+    public synchronized long getLoad(String userId) { return loadOf(userId); }
+
+    @Override
+    public synchronized void taskAdded(Task task) {
+        adjust(task.getAssignedTo(), openWeight(task.getStatus(), task.getPriority()));
+    }
+
+    @Override
+    public synchronized void taskRemoved(Task task) {
+        adjust(task.getAssignedTo(), -openWeight(task.getStatus(), task.getPriority()));
+    }
+
+    @Override
+    public synchronized void taskChanged(Task task, String field, Object oldValue, Object newValue) {
+        switch (field) {
+            case "assignedTo": {
+                int weight = openWeight(task.getStatus(), task.getPriority());
+                adjust((String) oldValue, -weight);
+                adjust(task.getAssignedTo(), weight);
+                break;
+            }
+            case "priority":
+                adjust(task.getAssignedTo(), openWeight(task.getStatus(), task.getPriority())
+                        - openWeight(task.getStatus(), (String) oldValue));
+                break;
+            case "status":
+                adjust(task.getAssignedTo(), openWeight(task.getStatus(), task.getPriority())
+                        - openWeight((String) oldValue, task.getPriority()));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static int openWeight(String status, String priority) {
+        return "Completed".equalsIgnoreCase(status) ? 0 : Task.priorityWeight(priority);
+    }
+
+    private long loadOf(String userId) {
+        Long load = loads.get(userId);
+        return load == null ? 0 : load;
+    }
+
+    private void adjust(String userId, long delta) {
+        if (userId == null || delta == 0) return;
+        long load = loadOf(userId) + delta;
+        if (load == 0) loads.remove(userId);
+        else loads.put(userId, load);
+        List<LoadHeap> heaps = memberships.get(userId);
+        if (heaps != null) for (LoadHeap heap : heaps) heap.update(userId, load);
+    }
+
+    /** Binary min-heap of users by load (ties by user ID) with a position index for O(log n) updates. */
+    private static final class LoadHeap {
+        private String[] users = new String[16];
+        private long[] keys = new long[16];
+        private final Map<String, Integer> positions = new HashMap<>();
+        private int size;
+
+        boolean contains(String userId) { return positions.containsKey(userId); }
+
+        String peek() { return size == 0 ? null : users[0]; }
+
+        void offer(String userId, long load) {
+            if (size == users.length) {
+                users = Arrays.copyOf(users, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            place(size, userId, load);
+            siftUp(size++);
+        }
+
+        void update(String userId, long load) {
+            Integer i = positions.get(userId);
+            if (i == null) return;
+            long old = keys[i];
+            keys[i] = load;
+            if (load < old) siftUp(i);
+            else siftDown(i);
+        }
+
+        void remove(String userId) {
+            Integer i = positions.remove(userId);
+            if (i == null) return;
+            size--;
+            if (i == size) {
+                users[size] = null;
+                return;
+            }
+            String moved = users[size];
+            place(i, moved, keys[size]);
+            users[size] = null;
+            siftUp(i);
+            if (users[i] == moved) siftDown(i);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!less(i, parent)) break;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int smallest = i;
+                int left = 2 * i + 1;
+                if (left < size && less(left, smallest)) smallest = left;
+                if (left + 1 < size && less(left + 1, smallest)) smallest = left + 1;
+                if (smallest == i) return;
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private boolean less(int a, int b) {
+            return keys[a] != keys[b] ? keys[a] < keys[b] : users[a].compareTo(users[b]) < 0;
+        }
+
+        private void swap(int a, int b) {
+            String user = users[a];
+            long key = keys[a];
+            place(a, users[b], keys[b]);
+            place(b, user, key);
+        }
+
+        private void place(int i, String userId, long load) {
+            users[i] = userId;
+            keys[i] = load;
+            positions.put(userId, i);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package services;
+
+/**
+ * One entry of the ordered change stream published by {@link ChangeEventBus}.
+ * CREATED events carry a copy of the new entity as newValue, DELETED events a
+ * copy of the removed entity as oldValue (see {@link models.Task#copy()}); UPDATED
+ * events carry the field name and its old and new values.
+ */
+public final class ChangeEvent {
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    public static final String TASK = "Task";
+    public static final String PROJECT = "Project";
+
+    private final long sequence;
+    private final long timestamp;
+    private final Type type;
+    private final String entity;
+    private final String entityId;
+    private final String field;
+    private final Object oldValue;
+    private final Object newValue;
+
+    public ChangeEvent(long sequence, long timestamp, Type type, String entity, String entityId,
+                       String field, Object oldValue, Object newValue) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.type = type;
+        this.entity = entity;
+        this.entityId = entityId;
+        this.field = field;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+    }
+
+    public long getSequence() { return sequence; }
+    public long getTimestamp() { return timestamp; }
+    public Type getType() { return type; }
+    public String getEntity() { return entity; }
+    public String getEntityId() { return entityId; }
+    public String getField() { return field; }
+    public Object getOldValue() { return oldValue; }
+    public Object getNewValue() { return newValue; }
+
+    @Override
+    public String toString() {
+        if (type == Type.UPDATED) {
+            return String.format("#%d %s %s %s.%s: %s -> %s", sequence, type, entity, entityId, field, oldValue, newValue);
+        }
+        return String.format("#%d %s %s %s", sequence, type, entity, entityId);
+    }
+}
@@ -0,0 +1,250 @@
+package services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import interfaces.ChangeSubscriber;
+import interfaces.ProjectEventListener;
+import interfaces.TaskEventListener;
+import models.Project;
+import models.Task;
+
+/**
+ * Change-data-capture stream for task and project mutations.
+ *
+ * Every add/replace/delete in the services and every setter call on a stored
+ * Task or Project is turned into a {@link ChangeEvent} with a gap-free sequence
+ * number and written to a bounded ring buffer. Created and deleted entities are
+ * captured as detached copies, as subscribers read them on their own threads.
+ * Publishers claim a sequence with one atomic increment and fill their slot
+ * without locking; the cursor moves past a slot once it and every earlier one
+ * are filled. Publishing never waits for subscribers: each subscription has its
+ * own dispatcher thread that drains the ring in batches, so a slow subscriber
+ * only falls behind (and is told via {@code onOverrun} if it is lapped) instead
+ * of slowing writers down. A subscriber that throws is stopped where it failed
+ * and told via {@code onFailure}; it can resume from any sequence still
+ * retained in the ring.
+ */
+public class ChangeEventBus implements TaskEventListener, ProjectEventListener {
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final int MAX_BATCH = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final AtomicReferenceArray<ChangeEvent> ring;
+    private final int capacity;
+    private final int mask;
+    /** Last sequence handed to a publisher. */
+    private final AtomicLong claimed = new AtomicLong();
+    /** Last sequence that, with all before it, is in the ring. */
+    private final AtomicLong cursor = new AtomicLong();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    public ChangeEventBus() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /** @param capacity ring size, rounded up to a power of two */
+    public ChangeEventBus(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.capacity = size;
+        this.mask = size - 1;
+        this.ring = new AtomicReferenceArray<>(size);
+    }
+
+    /** Start capturing mutations from both services. */
+    public void attach(ProjectServices projectService, TaskService taskService) {
+        projectService.addProjectEventListener(this);
+        taskService.addTaskEventListener(this);
+    }
+
+    public void detach(ProjectServices projectService, TaskService taskService) {
+        projectService.removeProjectEventListener(this);
+        taskService.removeTaskEventListener(this);
+    }
+
+    @Override
+    public void taskAdded(Task task) {
+        publish(ChangeEvent.Type.CREATED, ChangeEvent.TASK, task.getTaskId(), null, null, task.copy());
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        publish(ChangeEvent.Type.DELETED, ChangeEvent.TASK, task.getTaskId(), null, task.copy(), null);
+    }
+
+    @Override
+    public void taskChanged(Task task, String field, Object oldValue, Object newValue) {
+        publish(ChangeEvent.Type.UPDATED, ChangeEvent.TASK, task.getTaskId(), field, oldValue, newValue);
+    }
+
+    @Override
+    public void projectAdded(Project project) {
+        publish(ChangeEvent.Type.CREATED, ChangeEvent.PROJECT, project.getProjectId(), null, null, project.copy());
+    }
+
+    @Override
+    public void projectRemoved(Project project) {
+        publish(ChangeEvent.Type.DELETED, ChangeEvent.PROJECT, project.getProjectId(), null, project.copy(), null);
+    }
+
+    @Override
+    public void projectChanged(Project project, String field, Object oldValue, Object newValue) {
+        publish(ChangeEvent.Type.UPDATED, ChangeEvent.PROJECT, project.getProjectId(), field, oldValue, newValue);
+    }
+
+    /** Append an event to the stream and wake idle dispatchers; never blocks on subscribers. */
+    public long publish(ChangeEvent.Type type, String entity, String entityId,
+                        String field, Object oldValue, Object newValue) {
+        long sequence = claimed.incrementAndGet();
+        ring.set((int) (sequence & mask), new ChangeEvent(sequence, System.currentTimeMillis(),
+                type, entity, entityId, field, oldValue, newValue));
+        // move the cursor over every filled slot; a publisher that finds the next
+        // slot still empty leaves it to the one filling it
+        for (long current = cursor.get(); isFilled(current + 1); current = cursor.get()) {
+            cursor.compareAndSet(current, current + 1);
+        }
+        for (Subscription subscription : subscriptions) {
+            if (subscription.idle) LockSupport.unpark(subscription.thread);
+        }
+        return sequence;
+    }
+
+    private boolean isFilled(long sequence) {
+        ChangeEvent event = ring.get((int) (sequence & mask));
+        return event != null && event.getSequence() == sequence;
+    }
+
+    /** Sequence of the most recently published event, 0 if none. */
+    public long getLastSequence() { return cursor.get(); }
+
+    /** Oldest sequence still held in the ring buffer (publishers in flight may be overwriting older slots). */
+    public long getOldestRetainedSequence() { return Math.max(1, claimed.get() - capacity + 1); }
+
+    /**
+     * Pull-style read of up to {@code max} events starting at {@code fromSequence}.
+     * Returns null if {@code fromSequence} has already been overwritten.
+     */
+    public List<ChangeEvent> readFrom(long fromSequence, int max) {
+        long last = cursor.get();
+        if (fromSequence < getOldestRetainedSequence()) return null;
+        List<ChangeEvent> events = new ArrayList<>();
+        for (long sequence = fromSequence; sequence <= last && events.size() < max; sequence++) {
+            ChangeEvent event = ring.get((int) (sequence & mask));
+            if (event == null || event.getSequence() != sequence) return null;
+            events.add(event);
+        }
+        return events;
+    }
+
+    /** Subscribe to events published after this call. */
+    public Subscription subscribe(ChangeSubscriber subscriber) {
+        return subscribe(subscriber, cursor.get() + 1);
+    }
+
+    /**
+     * Subscribe starting at {@code fromSequence}, e.g. one past the last sequence a
+     * consumer processed before restarting. If that point is no longer retained the
+     * subscriber gets {@code onOverrun} and continues from the oldest retained event.
+     */
+    public Subscription subscribe(ChangeSubscriber subscriber, long fromSequence) {
+        Subscription subscription = new Subscription(subscriber, Math.max(1, fromSequence));
+        subscriptions.add(subscription);
+        subscription.thread.start();
+        return subscription;
+    }
+
+    /** Stop all dispatcher threads. */
+    public void close() {
+        for (Subscription subscription : subscriptions) subscription.close();
+    }
+
+    /** A subscriber's position in the stream plus the thread that feeds it. */
+    public final class Subscription implements Runnable {
+        private final ChangeSubscriber subscriber;
+        private final Thread thread;
+        private volatile long position;
+        private volatile boolean running = true;
+        private volatile boolean idle;
+        private volatile RuntimeException failure;
+
+        private Subscription(ChangeSubscriber subscriber, long position) {
+            this.subscriber = subscriber;
+            this.position = position;
+            this.thread = new Thread(this, "change-dispatcher-" + subscriber.getClass().getSimpleName());
+            this.thread.setDaemon(true);
+        }
+
+        /** Next sequence this subscriber will receive. */
+        public long getPosition() { return position; }
+
+        /** Events published but not yet delivered to this subscriber. */
+        public long getLag() { return Math.max(0, cursor.get() - position + 1); }
+
+        /** What the subscriber threw when the subscription stopped, or null. */
+        public RuntimeException getFailure() { return failure; }
+
+        public void close() {
+            running = false;
+            subscriptions.remove(this);
+            LockSupport.unpark(thread);
+        }
+
+        @Override
+        public void run() {
+            List<ChangeEvent> batch = new ArrayList<>(MAX_BATCH);
+            while (running) {
+                long available = cursor.get();
+                if (position > available) {
+                    idle = true;
+                    if (position > cursor.get() && running) LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    idle = false;
+                    continue;
+                }
+                long oldest = getOldestRetainedSequence();
+                if (position < oldest) {
+                    try {
+                        subscriber.onOverrun(position, oldest);
+                    } catch (RuntimeException e) {
+                        fail(e);
+                        return;
+                    }
+                    position = oldest;
+                }
+
+                batch.clear();
+                long sequence = position;
+                while (sequence <= available && batch.size() < MAX_BATCH) {
+                    ChangeEvent event = ring.get((int) (sequence & mask));
+                    if (event == null || event.getSequence() != sequence) break; // lapped while reading
+                    batch.add(event);
+                    sequence++;
+                }
+                if (batch.isEmpty()) continue;
+                try {
+                    subscriber.onEvents(Collections.unmodifiableList(batch));
+                } catch (RuntimeException e) {
+                    fail(e);
+                    return;
+                }
+                position = sequence;
+            }
+        }
+
+        /** Stop at the current position, which the failed batch did not get past, and tell the subscriber. */
+        private void fail(RuntimeException error) {
+            failure = error;
+            running = false;
+            subscriptions.remove(this);
+            try {
+                subscriber.onFailure(position, error);
+            } catch (RuntimeException ignored) {
+                // already stopped; nothing further to report to
+            }
+        }
+    }
+}
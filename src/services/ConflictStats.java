@@ -0,0 +1,34 @@
+package services;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** Counters for conditional updates: attempts, version conflicts and retries after a conflict. */
+public final class ConflictStats {
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    void attempt() { attempts.increment(); }
+
+    void conflict() { conflicts.increment(); }
+
+    void retry() { retries.increment(); }
+
+    public long getAttempts() { return attempts.sum(); }
+
+    public long getConflicts() { return conflicts.sum(); }
+
+    public long getRetries() { return retries.sum(); }
+
+    /** Share of attempts that hit a conflict, 0 if there were none. */
+    public double getConflictRate() {
+        long total = getAttempts();
+        return total == 0 ? 0.0 : (double) getConflicts() / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ConflictStats[attempts=%d, conflicts=%d (%.1f%%), retries=%d]",
+                getAttempts(), getConflicts(), getConflictRate() * 100, getRetries());
+    }
+}
@@ -0,0 +1,178 @@
+package services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import models.Project;
+import models.Task;
+
+/**
+ * "What changed since sequence S" for clients that keep a copy of the data
+ * (dashboards, mirrors) instead of re-reading everything.
+ *
+ * Sequences are those of a {@link ChangeEventBus}: gap-free and increasing with
+ * every mutation. A query reads the retained events after S and compacts them
+ * per entity: any number of edits become one upsert of the entity's current
+ * state, a deletion becomes a tombstone, and an entity both created and deleted
+ * after S does not appear at all. When S is older than the bus still retains
+ * (or is not a sequence the bus has issued), the answer is a full resync: every
+ * task and project, with no tombstones, to replace the client's copy.
+ *
+ * Either way the result carries the sequence to pass next time. State is read
+ * after that sequence is fixed, so an entity may already include later edits;
+ * those arrive again in the next delta, which is harmless for upserts.
+ */
+public class DeltaSyncService {
+    private final ProjectServices projectService;
+    private final TaskService taskService;
+    private final ChangeEventBus bus;
+    private final LongAdder deltas = new LongAdder();
+    private final LongAdder resyncs = new LongAdder();
+
+    /** Keep the last {@code retainedChanges} mutations (rounded up to a power of two) available for deltas. */
+    public DeltaSyncService(ProjectServices projectService, TaskService taskService, int retainedChanges) {
+        this(projectService, taskService, new ChangeEventBus(retainedChanges));
+    }
+
+    /** Share an existing bus; it is attached to the services here. */
+    public DeltaSyncService(ProjectServices projectService, TaskService taskService, ChangeEventBus bus) {
+        this.projectService = projectService;
+        this.taskService = taskService;
+        this.bus = bus;
+        bus.attach(projectService, taskService);
+    }
+
+    /** Sequence of the latest mutation; a client that has just done a full read is current as of this. */
+    public long getSequence() { return bus.getLastSequence(); }
+
+    /** Everything, as a full resync; the starting point for a new client. */
+    public Delta fetchAll() {
+        long sequence = bus.getLastSequence();
+        resyncs.increment();
+        return new Delta(sequence, true, copy(taskService.scan()), copy(projectService.scan()),
+                Collections.emptyList(), Collections.emptyList(), 0);
+    }
+
+    /** Changes after {@code sinceSequence}, or a full resync if they are no longer all retained. */
+    public Delta changesSince(long sinceSequence) {
+        long sequence = bus.getLastSequence();
+        if (sinceSequence > sequence || sinceSequence < 0) return fetchAll();
+        if (sinceSequence == sequence) {
+            deltas.increment();
+            return new Delta(sequence, false, Collections.emptyList(), Collections.emptyList(),
+                    Collections.emptyList(), Collections.emptyList(), 0);
+        }
+        List<ChangeEvent> events = bus.readFrom(sinceSequence + 1, (int) Math.min(Integer.MAX_VALUE, sequence - sinceSequence));
+        if (events == null || events.size() < sequence - sinceSequence) return fetchAll(); // overwritten, or lapped while reading
+
+        Map<String, Change> tasks = new LinkedHashMap<>();
+        Map<String, Change> projects = new LinkedHashMap<>();
+        for (ChangeEvent event : events) {
+            Map<String, Change> changes = ChangeEvent.TASK.equals(event.getEntity()) ? tasks : projects;
+            String idField = changes == tasks ? "taskId" : "projectId";
+            if (event.getType() == ChangeEvent.Type.UPDATED && idField.equals(event.getField())) {
+                change(changes, (String) event.getOldValue(), ChangeEvent.Type.DELETED);
+                change(changes, event.getEntityId(), ChangeEvent.Type.UPDATED);
+            } else {
+                change(changes, event.getEntityId(), event.getType());
+            }
+        }
+
+        List<Task> taskUpserts = new ArrayList<>();
+        List<String> deletedTasks = new ArrayList<>();
+        for (Change change : tasks.values()) {
+            Task task = change.deleted ? null : taskService.findTaskById(change.id);
+            if (task != null) taskUpserts.add(task);
+            else if (!change.created) deletedTasks.add(change.id);
+        }
+        List<Project> projectUpserts = new ArrayList<>();
+        List<String> deletedProjects = new ArrayList<>();
+        for (Change change : projects.values()) {
+            Project project = change.deleted ? null : projectService.findProjectById(change.id);
+            if (project != null) projectUpserts.add(project);
+            else if (!change.created) deletedProjects.add(change.id);
+        }
+        deltas.increment();
+        return new Delta(sequence, false, taskUpserts, projectUpserts, deletedTasks, deletedProjects, events.size());
+    }
+
+    public long getDeltaCount() { return deltas.sum(); }
+
+    public long getFullResyncCount() { return resyncs.sum(); }
+
+    private static void change(Map<String, Change> changes, String id, ChangeEvent.Type type) {
+        Change change = changes.get(id);
+        if (change == null) {
+            change = new Change(id, type == ChangeEvent.Type.CREATED);
+            changes.put(id, change);
+        }
+        change.deleted = type == ChangeEvent.Type.DELETED;
+    }
+
+    private static <T> List<T> copy(Iterable<T> view) {
+        List<T> list = new ArrayList<>();
+        for (T item : view) list.add(item);
+        return list;
+    }
+
+    /** Net effect on one entity within the window. */
+    private static final class Change {
+        final String id;
+        final boolean created;
+        boolean deleted;
+
+        Change(String id, boolean created) {
+            this.id = id;
+            this.created = created;
+        }
+    }
+
+    /**
+     * Answer to a sync query. Upserted entities are the live objects, as in a
+     * snapshot; tombstones are IDs. Apply tombstones, then upserts.
+     */
+    public static final class Delta {
+        private final long sequence;
+        private final boolean fullResync;
+        private final List<Task> tasks;
+        private final List<Project> projects;
+        private final List<String> deletedTaskIds;
+        private final List<String> deletedProjectIds;
+        private final int eventCount;
+
+        Delta(long sequence, boolean fullResync, List<Task> tasks, List<Project> projects,
+              List<String> deletedTaskIds, List<String> deletedProjectIds, int eventCount) {
+            this.sequence = sequence;
+            this.fullResync = fullResync;
+            this.tasks = Collections.unmodifiableList(tasks);
+            this.projects = Collections.unmodifiableList(projects);
+            this.deletedTaskIds = Collections.unmodifiableList(deletedTaskIds);
+            this.deletedProjectIds = Collections.unmodifiableList(deletedProjectIds);
+            this.eventCount = eventCount;
+        }
+
+        /** Pass this to the next {@link DeltaSyncService#changesSince(long)} call. */
+        public long getSequence() { return sequence; }
+
+        /** The client must replace its copy with these entities instead of merging. */
+        public boolean isFullResync() { return fullResync; }
+
+        public List<Task> getTasks() { return tasks; }
+        public List<Project> getProjects() { return projects; }
+        public List<String> getDeletedTaskIds() { return deletedTaskIds; }
+        public List<String> getDeletedProjectIds() { return deletedProjectIds; }
+
+        /** Mutation events the delta was compacted from; 0 for a full resync. */
+        public int getEventCount() { return eventCount; }
+
+        @Override
+        public String toString() {
+            return String.format("Delta[through=%d, %s, tasks=%d, projects=%d, deletedTasks=%d, deletedProjects=%d, events=%d]",
+                    sequence, fullResync ? "full" : "incremental", tasks.size(), projects.size(),
+                    deletedTaskIds.size(), deletedProjectIds.size(), eventCount);
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package services;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import interfaces.TaskEventListener;
+import models.Task;
+import utils.InputParser;
+
+/**
+ * "Blocks" relationships between tasks, kept in step with TaskService.
+ *
+ * Edges are checked for cycles when added. Each task counts its blockers that are
+ * not completed yet; when that count drops to zero (a blocker's markAsCompleted
+ * fires) the task joins its project's ready set, so "what can start now" is a
+ * lookup. Every task also has an earliest finish day: its completion day if it
+ * is done, otherwise the later of its due date and the day after its latest
+ * blocker's earliest finish. An edge, due-date or completion change recomputes
+ * only the tasks downstream of it, once each, in topological order. A task
+ * replaced through TaskService.updateTask keeps its edges.
+ */
+public class DependencyService implements TaskEventListener {
+    private static final long UNKNOWN = Long.MIN_VALUE;
+
+    private final Map<String, Node> nodes = new HashMap<>();
+    private final Map<String, Set<Node>> nodesByProject = new HashMap<>();
+    private final Map<String, Set<Node>> readyByProject = new HashMap<>();
+    private int edgeCount;
+    private boolean quiet;
+
+    public DependencyService(TaskService taskService) {
+        for (Task task : taskService.scan()) taskAdded(task);
+        taskService.addTaskEventListener(this);
+    }
+
+    /** Record that {@code blockerId} must be completed before {@code dependentId} can start. */
+    public synchronized boolean addDependency(String blockerId, String dependentId) {
+        Node blocker = nodes.get(blockerId);
+        Node dependent = nodes.get(dependentId);
+        if (blocker == null || dependent == null) {
+            log("Error: Task not found!");
+            return false;
+        }
+        if (blocker == dependent || reaches(dependent, blocker)) {
+            log("Error: Dependency would create a cycle!");
+            return false;
+        }
+        if (!blocker.dependents.add(dependent)) return true;
+        dependent.blockers.add(blocker);
+        edgeCount++;
+        if (!blocker.completed) {
+            dependent.openBlockers++;
+            updateReady(dependent);
+        }
+        propagate(dependent);
+        return true;
+    }
+
+    public synchronized boolean removeDependency(String blockerId, String dependentId) {
+        Node blocker = nodes.get(blockerId);
+        Node dependent = nodes.get(dependentId);
+        if (blocker == null || dependent == null || !blocker.dependents.remove(dependent)) return false;
+        dependent.blockers.remove(blocker);
+        edgeCount--;
+        if (!blocker.completed) {
+            dependent.openBlockers--;
+            updateReady(dependent);
+        }
+        propagate(dependent);
+        return true;
+    }
+
+    public synchronized List<String> getBlockers(String taskId) { return ids(nodes.get(taskId), true); }
+
+    public synchronized List<String> getDependents(String taskId) { return ids(nodes.get(taskId), false); }
+
+    /** Not completed and every blocker is completed. */
+    public synchronized boolean isReady(String taskId) {
+        Node node = nodes.get(taskId);
+        return node != null && !node.completed && node.openBlockers == 0;
+    }
+
+    /** Tasks of the project that can be started now. */
+    public synchronized List<String> getReadyTasks(String projectId) {
+        List<String> ready = new ArrayList<>();
+        for (Node node : readyByProject.getOrDefault(projectId, Collections.emptySet())) ready.add(node.taskId);
+        return ready;
+    }
+
+    /** Earliest finish date (YYYY-MM-DD), or null if neither the task nor its blockers have dates. */
+    public synchronized String getEarliestFinish(String taskId) {
+        Node node = nodes.get(taskId);
+        return node == null || node.earliestFinish == UNKNOWN ? null : LocalDate.ofEpochDay(node.earliestFinish).toString();
+    }
+
+    /** Open tasks whose earliest finish is past their due date because of their blockers. */
+    public synchronized List<String> getLateTasks(String projectId) {
+        List<String> late = new ArrayList<>();
+        for (Node node : nodesByProject.getOrDefault(projectId, Collections.emptySet())) {
+            if (!node.completed && node.due != UNKNOWN && node.earliestFinish > node.due) {
+                late.add(node.taskId);
+            }
+        }
+        return late;
+    }
+
+    /** Chain of blockers that decides when {@code taskId} can finish, first task first. */
+    public synchronized List<String> getCriticalPathTo(String taskId) {
+        List<String> path = new ArrayList<>();
+        for (Node node = nodes.get(taskId); node != null; node = node.criticalBlocker) path.add(0, node.taskId);
+        return path;
+    }
+
+    /** Critical path ending at the project's task with the latest earliest finish. */
+    public synchronized List<String> getCriticalPath(String projectId) {
+        Node last = null;
+        for (Node node : nodesByProject.getOrDefault(projectId, Collections.emptySet())) {
+            if (node.earliestFinish != UNKNOWN
+                    && (last == null || node.earliestFinish > last.earliestFinish)) last = node;
+        }
+        return last == null ? new ArrayList<>() : getCriticalPathTo(last.taskId);
+    }
+
+    public synchronized int getEdgeCount() { return edgeCount; }
+
+    /** Suppresses per-operation console messages (used by batch mode). */
+    public void setQuiet(boolean quiet) { this.quiet = quiet; }
+
+    public boolean isQuiet() { return quiet; }
+
+    @Override
+    public synchronized void taskAdded(Task task) {
+        Node node = nodes.get(task.getTaskId());
+        if (node == null) {
+            node = new Node(task.getTaskId(), task.getProjectId());
+            nodes.put(node.taskId, node);
+            member(nodesByProject, node, true);
+        }
+        refresh(node, task);
+    }
+
+    /** The node, with its edges, now stands for the replacement; its fields are read again. */
+    @Override
+    public synchronized void taskReplaced(Task previous, Task replacement) {
+        Node node = nodes.get(previous.getTaskId());
+        boolean renamed = !previous.getTaskId().equals(replacement.getTaskId());
+        if (node == null || (renamed && nodes.containsKey(replacement.getTaskId()))) {
+            taskRemoved(previous);
+            taskAdded(replacement);
+            return;
+        }
+        if (renamed) {
+            nodes.remove(node.taskId);
+            node.taskId = replacement.getTaskId();
+            nodes.put(node.taskId, node);
+        }
+        move(node, replacement.getProjectId());
+        refresh(node, replacement);
+    }
+
+    @Override
+    public synchronized void taskRemoved(Task task) {
+        Node node = nodes.remove(task.getTaskId());
+        if (node == null) return;
+        setReady(node, false);
+        member(nodesByProject, node, false);
+        for (Node blocker : node.blockers) blocker.dependents.remove(node);
+        for (Node dependent : node.dependents) {
+            dependent.blockers.remove(node);
+            if (!node.completed) {
+                dependent.openBlockers--;
+                updateReady(dependent);
+            }
+        }
+        edgeCount -= node.blockers.size() + node.dependents.size();
+        List<Node> dependents = new ArrayList<>(node.dependents);
+        for (Node dependent : dependents) propagate(dependent);
+    }
+
+    @Override
+    public synchronized void taskChanged(Task task, String field, Object oldValue, Object newValue) {
+        switch (field) {
+            case "taskId": {
+                Node node = nodes.remove((String) oldValue);
+                if (node == null) return;
+                node.taskId = task.getTaskId();
+                nodes.put(node.taskId, node);
+                return;
+            }
+            case "projectId": {
+                Node node = nodes.get(task.getTaskId());
+                if (node != null) move(node, task.getProjectId());
+                return;
+            }
+            case "dueDate": {
+                Node node = nodes.get(task.getTaskId());
+                if (node == null) return;
+                node.due = dueDay(task.getDueDate());
+                propagate(node);
+                return;
+            }
+            case "status":
+                statusChanged(task);
+                return;
+            default:
+                break;
+        }
+    }
+
+    private void statusChanged(Task task) {
+        Node node = nodes.get(task.getTaskId());
+        if (node != null) refresh(node, task);
+    }
+
+    /**
+     * Read the task's due date and completion into its node; a change of completion
+     * opens or closes a blocker of every dependent.
+     */
+    private void refresh(Node node, Task task) {
+        boolean completed = task.isCompleted();
+        node.due = dueDay(task.getDueDate());
+        node.completedDay = completionDay(task);
+        if (completed != node.completed) {
+            node.completed = completed;
+            for (Node dependent : node.dependents) {
+                dependent.openBlockers += completed ? -1 : 1;
+                updateReady(dependent);
+            }
+        }
+        updateReady(node);
+        propagate(node);
+    }
+
+    private void move(Node node, String projectId) {
+        if (node.projectId == null ? projectId == null : node.projectId.equals(projectId)) return;
+        setReady(node, false);
+        member(nodesByProject, node, false);
+        node.projectId = projectId;
+        member(nodesByProject, node, true);
+        updateReady(node);
+    }
+
+    /** Depth-first search along dependents; used to reject edges that would close a cycle. */
+    private static boolean reaches(Node from, Node target) {
+        Deque<Node> stack = new ArrayDeque<>();
+        Set<Node> seen = new HashSet<>();
+        stack.push(from);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            if (node == target) return true;
+            if (!seen.add(node)) continue;
+            for (Node dependent : node.dependents) stack.push(dependent);
+        }
+        return false;
+    }
+
+    /**
+     * Recompute earliest finish for {@code start} and everything downstream of it.
+     * The affected subgraph is collected first, then processed in topological order
+     * (Kahn's algorithm restricted to that subgraph), so each task is visited once
+     * and only recomputed if it is the start or one of its blockers changed.
+     */
+    private void propagate(Node start) {
+        Set<Node> affected = new HashSet<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(start);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            if (!affected.add(node)) continue;
+            for (Node dependent : node.dependents) stack.push(dependent);
+        }
+        Map<Node, Integer> pending = new HashMap<>();
+        for (Node node : affected) {
+            int count = 0;
+            for (Node blocker : node.blockers) if (affected.contains(blocker)) count++;
+            pending.put(node, count);
+        }
+        Deque<Node> queue = new ArrayDeque<>();
+        queue.add(start);
+        Set<Node> changed = new HashSet<>();
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            boolean dirty = node == start;
+            for (Node blocker : node.blockers) dirty |= changed.contains(blocker);
+            if (dirty && recompute(node)) changed.add(node);
+            for (Node dependent : node.dependents) {
+                int left = pending.merge(dependent, -1, Integer::sum);
+                if (left == 0) queue.add(dependent);
+            }
+        }
+    }
+
+    /** Returns true if the task's earliest finish or critical blocker changed. */
+    private static boolean recompute(Node node) {
+        long finish;
+        Node critical = null;
+        if (node.completed && node.completedDay != UNKNOWN) {
+            finish = node.completedDay;
+        } else {
+            finish = node.due;
+            for (Node blocker : node.blockers) {
+                if (blocker.earliestFinish == UNKNOWN) continue;
+                long after = blocker.earliestFinish + 1;
+                if (after > finish) {
+                    finish = after;
+                    critical = blocker;
+                }
+            }
+        }
+        if (finish == node.earliestFinish && critical == node.criticalBlocker) return false;
+        node.earliestFinish = finish;
+        node.criticalBlocker = critical;
+        return true;
+    }
+
+    private void updateReady(Node node) {
+        setReady(node, !node.completed && node.openBlockers == 0);
+    }
+
+    private void setReady(Node node, boolean ready) {
+        member(readyByProject, node, ready);
+    }
+
+    private static void member(Map<String, Set<Node>> byProject, Node node, boolean present) {
+        if (present) {
+            byProject.computeIfAbsent(node.projectId, key -> new LinkedHashSet<>()).add(node);
+            return;
+        }
+        Set<Node> set = byProject.get(node.projectId);
+        if (set != null && set.remove(node) && set.isEmpty()) byProject.remove(node.projectId);
+    }
+
+    private static List<String> ids(Node node, boolean blockers) {
+        List<String> ids = new ArrayList<>();
+        if (node != null) for (Node other : blockers ? node.blockers : node.dependents) ids.add(other.taskId);
+        return ids;
+    }
+
+    private static long dueDay(String dueDate) {
+        int packed = dueDate == null ? InputParser.INVALID : InputParser.parseDate(dueDate);
+        if (packed == InputParser.INVALID) return UNKNOWN;
+        return LocalDate.of(InputParser.dateYear(packed), InputParser.dateMonth(packed), InputParser.dateDay(packed)).toEpochDay();
+    }
+
+    private static long completionDay(Task task) {
+        return task.getCompletedAt() > 0 ? Math.floorDiv(task.getCompletedAt(), FlowMetricsService.DAY_MILLIS) : UNKNOWN;
+    }
+
+    private void log(String message) {
+        if (!quiet) System.out.println(message);
+    }
+
+    private static final class Node {
+        String taskId;
+        String projectId;
+        final Set<Node> blockers = new LinkedHashSet<>();
+        final Set<Node> dependents = new LinkedHashSet<>();
+        int openBlockers;
+        boolean completed;
+        long due = UNKNOWN;
+        long completedDay = UNKNOWN;
+        long earliestFinish = UNKNOWN;
+        Node criticalBlocker;
+
+        Node(String taskId, String projectId) {
+            this.taskId = taskId;
+            this.projectId = projectId;
+        }
+    }
+}
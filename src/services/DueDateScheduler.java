@@ -0,0 +1,307 @@
+package services;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+import interfaces.DueDateListener;
+import interfaces.TaskEventListener;
+import models.Task;
+import utils.InputParser;
+
+/**
+ * Overdue flags and due-date reminders for the open tasks of a TaskService,
+ * driven by a hashed timing wheel instead of scans of every due date.
+ *
+ * Each open task with a valid due date has up to two timers: a reminder at the
+ * start of the day {@code reminderDays} before it is due, and an overdue timer at
+ * the start of the day after (days are UTC, as elsewhere). A timer sits in slot
+ * {@code deadlineTick % WHEEL_SIZE} of a ring of doubly linked lists, so setting,
+ * moving or cancelling it is O(1); a tick visits one slot and fires only the
+ * timers whose deadline has come, the others waiting for a later revolution.
+ * Due-date edits reschedule, completion cancels, reopening schedules again.
+ *
+ * Time comes from the given clock. {@link #start()} runs a ticker thread;
+ * without it, call {@link #advance()} (tests move a fake clock and advance).
+ * Advancing touches only the scheduler's own state: what fires is queued, and
+ * {@link #deliverNotices()} hands it to the listeners on the calling thread,
+ * which must be the one that edits the tasks (the console loop, say).
+ */
+public class DueDateScheduler implements TaskEventListener, AutoCloseable {
+    public static final long DEFAULT_TICK_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final int WHEEL_SIZE = 1024;
+    private static final int MASK = WHEEL_SIZE - 1;
+    private static final long NO_DAY = Long.MIN_VALUE;
+
+    private final TaskService taskService;
+    private final LongSupplier clock;
+    private final long tickMillis;
+    private final int reminderDays;
+    private final Timer[] wheel = new Timer[WHEEL_SIZE];
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Set<String> overdue = new LinkedHashSet<>();
+    private final List<DueDateListener> listeners = new CopyOnWriteArrayList<>();
+    private final Deque<Notice> notices = new ArrayDeque<>();
+    private long currentTick;
+    private int pending;
+
+    private Thread ticker;
+    private volatile boolean running;
+
+    /** System clock, hourly ticks; {@code reminderDays} 0 disables reminders. */
+    public DueDateScheduler(TaskService taskService, int reminderDays) {
+        this(taskService, reminderDays, DEFAULT_TICK_MILLIS, System::currentTimeMillis);
+    }
+
+    public DueDateScheduler(TaskService taskService, int reminderDays, long tickMillis, LongSupplier clock) {
+        if (tickMillis <= 0 || reminderDays < 0) throw new IllegalArgumentException("tick and reminder days must not be negative");
+        this.taskService = taskService;
+        this.clock = clock;
+        this.tickMillis = tickMillis;
+        this.reminderDays = reminderDays;
+        this.currentTick = Math.floorDiv(clock.getAsLong(), tickMillis);
+        for (Task task : taskService.scan()) taskAdded(task);
+        taskService.addTaskEventListener(this);
+    }
+
+    public void addDueDateListener(DueDateListener listener) { listeners.add(listener); }
+
+    public void removeDueDateListener(DueDateListener listener) { listeners.remove(listener); }
+
+    /** Start a daemon thread that advances the wheel at every tick boundary of the clock. */
+    public synchronized void start() {
+        if (ticker != null) return;
+        running = true;
+        ticker = new Thread(() -> {
+            while (running) {
+                advance();
+                long wait = (currentTick() + 1) * tickMillis - clock.getAsLong();
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(Math.max(1, Math.min(wait, tickMillis))));
+            }
+        }, "due-date-scheduler");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = ticker;
+            ticker = null;
+        }
+        if (thread == null) return;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Process every tick up to the clock's current time, updating the overdue
+     * flags and queueing a notice per fired timer (only while listeners are
+     * registered); returns the number of timers fired. After a jump of more
+     * than one revolution each slot is visited once. Safe on any thread.
+     */
+    public synchronized int advance() {
+        long now = clock.getAsLong();
+        long nowTick = Math.floorDiv(now, tickMillis);
+        long today = Math.floorDiv(now, FlowMetricsService.DAY_MILLIS);
+        long steps = Math.min(nowTick - currentTick, WHEEL_SIZE);
+        int fired = 0;
+        for (long step = 1; step <= steps; step++) {
+            Timer timer = wheel[(int) (currentTick + step) & MASK];
+            while (timer != null) {
+                Timer next = timer.next;
+                if (timer.deadlineTick <= nowTick) {
+                    unlink(timer);
+                    if (timer.overdue) overdue.add(timer.entry.taskId);
+                    else timer.entry.reminded = true;
+                    long daysLeft = timer.entry.dueDay - today;
+                    // a reminder overtaken by a clock jump is not sent; the overdue notice follows
+                    if (!listeners.isEmpty() && (timer.overdue || daysLeft >= 0)) notices.add(new Notice(timer.entry.taskId, timer.overdue, daysLeft));
+                    fired++;
+                }
+                timer = next;
+            }
+        }
+        if (nowTick > currentTick) currentTick = nowTick;
+        return fired;
+    }
+
+    /**
+     * Notify listeners of the queued reminders and overdue flags, on this thread;
+     * tasks completed or deleted since are skipped. Returns the number delivered.
+     */
+    public int deliverNotices() {
+        List<Notice> pendingNotices;
+        synchronized (this) {
+            pendingNotices = new ArrayList<>(notices);
+            notices.clear();
+        }
+        int notified = 0;
+        for (Notice notice : pendingNotices) {
+            Task task = taskService.findTaskById(notice.taskId);
+            if (task == null || task.isCompleted()) continue;
+            for (DueDateListener listener : listeners) {
+                if (notice.overdue) listener.taskOverdue(task);
+                else listener.taskDueSoon(task, notice.daysLeft);
+            }
+            notified++;
+        }
+        return notified;
+    }
+
+    /** Open and past its due date, as of the last tick (or at once, if already past when scheduled). */
+    public synchronized boolean isOverdue(String taskId) { return overdue.contains(taskId); }
+
+    public synchronized List<String> getOverdueTaskIds() { return new ArrayList<>(overdue); }
+
+    public synchronized int getOverdueCount() { return overdue.size(); }
+
+    /** Timers waiting in the wheel. */
+    public synchronized int getPendingTimerCount() { return pending; }
+
+    // ---- task events ----
+
+    @Override
+    public synchronized void taskAdded(Task task) {
+        Entry entry = entries.computeIfAbsent(task.getTaskId(), Entry::new);
+        schedule(entry, task);
+    }
+
+    @Override
+    public synchronized void taskRemoved(Task task) {
+        Entry entry = entries.remove(task.getTaskId());
+        if (entry == null) return;
+        cancel(entry);
+        overdue.remove(entry.taskId);
+    }
+
+    @Override
+    public synchronized void taskChanged(Task task, String field, Object oldValue, Object newValue) {
+        switch (field) {
+            case "taskId": {
+                Entry entry = entries.remove((String) oldValue);
+                if (entry == null) return;
+                entry.taskId = task.getTaskId();
+                entries.put(entry.taskId, entry);
+                if (overdue.remove((String) oldValue)) overdue.add(entry.taskId);
+                return;
+            }
+            case "dueDate":
+            case "status": {
+                Entry entry = entries.get(task.getTaskId());
+                if (entry != null) schedule(entry, task);
+                return;
+            }
+            default:
+                break;
+        }
+    }
+
+    // ---- wheel ----
+
+    private void schedule(Entry entry, Task task) {
+        long dueDay = task.isCompleted() ? NO_DAY : dueDay(task.getDueDate());
+        if (dueDay == entry.dueDay && entry.scheduledOpen) return;
+        if (dueDay != entry.dueDay) entry.reminded = false;
+        cancel(entry);
+        overdue.remove(entry.taskId);
+        entry.dueDay = dueDay;
+        entry.scheduledOpen = dueDay != NO_DAY;
+        if (dueDay == NO_DAY) return;
+
+        long overdueAt = (dueDay + 1) * FlowMetricsService.DAY_MILLIS;
+        if (overdueAt <= clock.getAsLong()) overdue.add(entry.taskId);
+        else if (reminderDays > 0 && !entry.reminded) link(entry.reminder, (dueDay - reminderDays) * FlowMetricsService.DAY_MILLIS);
+        link(entry.overdueTimer, overdueAt);
+    }
+
+    private void cancel(Entry entry) {
+        unlink(entry.reminder);
+        unlink(entry.overdueTimer);
+        entry.scheduledOpen = false;
+    }
+
+    /** Put the timer in its slot; a deadline that has already passed fires on the next tick. */
+    private void link(Timer timer, long deadlineMillis) {
+        long tick = Math.max(-Math.floorDiv(-deadlineMillis, tickMillis), currentTick + 1);
+        timer.deadlineTick = tick;
+        timer.slot = (int) tick & MASK;
+        timer.prev = null;
+        timer.next = wheel[timer.slot];
+        if (timer.next != null) timer.next.prev = timer;
+        wheel[timer.slot] = timer;
+        pending++;
+    }
+
+    private void unlink(Timer timer) {
+        if (timer.slot < 0) return;
+        if (timer.prev != null) timer.prev.next = timer.next;
+        else wheel[timer.slot] = timer.next;
+        if (timer.next != null) timer.next.prev = timer.prev;
+        timer.prev = null;
+        timer.next = null;
+        timer.slot = -1;
+        pending--;
+    }
+
+    private synchronized long currentTick() { return currentTick; }
+
+    private static long dueDay(String dueDate) {
+        int packed = dueDate == null ? InputParser.INVALID : InputParser.parseDate(dueDate);
+        if (packed == InputParser.INVALID) return NO_DAY;
+        return LocalDate.of(InputParser.dateYear(packed), InputParser.dateMonth(packed), InputParser.dateDay(packed)).toEpochDay();
+    }
+
+    private static final class Entry {
+        String taskId;
+        long dueDay = NO_DAY;
+        boolean scheduledOpen;
+        boolean reminded;
+        final Timer reminder = new Timer(this, false);
+        final Timer overdueTimer = new Timer(this, true);
+
+        Entry(String taskId) { this.taskId = taskId; }
+    }
+
+    /** A fired timer waiting for {@link #deliverNotices()}; by ID, as the task may have changed since. */
+    private static final class Notice {
+        final String taskId;
+        final boolean overdue;
+        final long daysLeft;
+
+        Notice(String taskId, boolean overdue, long daysLeft) {
+            this.taskId = taskId;
+            this.overdue = overdue;
+            this.daysLeft = daysLeft;
+        }
+    }
+
+    private static final class Timer {
+        final Entry entry;
+        final boolean overdue;
+        long deadlineTick;
+        int slot = -1;
+        Timer prev;
+        Timer next;
+
+        Timer(Entry entry, boolean overdue) {
+            this.entry = entry;
+            this.overdue = overdue;
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package services;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import models.Project;
+import models.Task;
+
+/**
+ * Streams tasks and projects to NDJSON or CSV files, optionally gzip-compressed.
+ *
+ * Field values are encoded character by character (escaping and UTF-8 included)
+ * straight into a reusable direct buffer, which is drained to the channel when
+ * full, so no per-field or per-row Strings are built and memory use does not
+ * grow with the size of the export. Compression runs the same buffer through a
+ * raw Deflater into a second direct buffer and adds the gzip header and trailer
+ * itself. Exports share the buffers, so they run one at a time.
+ */
+public class ExportService {
+    public enum Format { NDJSON, CSV }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] NO_INPUT = new byte[0];
+    private static final String[] TASK_FIELDS = {
+        "taskId", "projectId", "taskName", "description", "assignedTo", "priority", "status", "dueDate",
+        "createdAt", "startedAt", "completedAt"
+    };
+    private static final String[] PROJECT_FIELDS = {
+        "projectId", "projectType", "projectName", "description", "startDate", "endDate", "status",
+        "budget", "teamSize", "completion"
+    };
+
+    private final ProjectServices projectService;
+    private final TaskService taskService;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final ByteBuffer compressed = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final CRC32 crc = new CRC32();
+
+    private WritableByteChannel out;
+    private boolean gzip;
+    private Format format;
+    private String[] fields;
+    private int column;
+    private long rawBytes;
+
+    public ExportService(ProjectServices projectService, TaskService taskService) {
+        this.projectService = projectService;
+        this.taskService = taskService;
+    }
+
+    /** Export every task; returns the number of rows written. */
+    public long exportTasks(Path path, Format format, boolean gzip) throws IOException {
+        return exportTasks(path, format, gzip, null);
+    }
+
+    /** Export the tasks matching {@code filter} (all tasks if null), read from a snapshot (streamed from an external store) so writers are not blocked. */
+    public long exportTasks(Path path, Format format, boolean gzip, Predicate<Task> filter) throws IOException {
+        try (FileChannel channel = create(path)) {
+            return writeTasks(taskService.scan(), filter, channel, format, gzip);
+        }
+    }
+
+    /** Export an already computed result, such as one of TaskService's filter queries. */
+    public long exportTasks(Iterable<Task> tasks, Path path, Format format, boolean gzip) throws IOException {
+        try (FileChannel channel = create(path)) {
+            return writeTasks(tasks, null, channel, format, gzip);
+        }
+    }
+
+    /** Stream tasks to any channel (a socket, stdout); the channel is left open. */
+    public synchronized long writeTasks(Iterable<Task> tasks, Predicate<Task> filter, WritableByteChannel channel,
+                                        Format format, boolean gzip) throws IOException {
+        begin(channel, format, gzip, TASK_FIELDS);
+        long rows = 0;
+        try {
+            for (Task task : tasks) {
+                if (filter != null && !filter.test(task)) continue;
+                startRow();
+                text(task.getTaskId());
+                text(task.getProjectId());
+                text(task.getTaskName());
+                text(task.getDescription());
+                text(task.getAssignedTo());
+                text(task.getPriority());
+                text(task.getStatus());
+                text(task.getDueDate());
+                number(task.getCreatedAt());
+                number(task.getStartedAt());
+                number(task.getCompletedAt());
+                endRow();
+                rows++;
+            }
+            finish();
+        } finally {
+            reset();
+        }
+        return rows;
+    }
+
+    public long exportProjects(Path path, Format format, boolean gzip) throws IOException {
+        try (FileChannel channel = create(path)) {
+            return writeProjects(projectService.scan(), channel, format, gzip);
+        }
+    }
+
+    public synchronized long writeProjects(Iterable<Project> projects, WritableByteChannel channel,
+                                           Format format, boolean gzip) throws IOException {
+        begin(channel, format, gzip, PROJECT_FIELDS);
+        long rows = 0;
+        try {
+            for (Project project : projects) {
+                startRow();
+                text(project.getProjectId());
+                text(project.getProjectType());
+                text(project.getProjectName());
+                text(project.getDescription());
+                text(project.getStartDate());
+                text(project.getEndDate());
+                text(project.getStatus());
+                decimal(project.getBudget());
+                number(project.getTeamSize());
+                decimal(project.calculateCompletionPercentage());
+                endRow();
+                rows++;
+            }
+            finish();
+        } finally {
+            reset();
+        }
+        return rows;
+    }
+
+    private static FileChannel create(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    // ---- framing ----
+
+    private void begin(WritableByteChannel channel, Format format, boolean gzip, String[] fields) throws IOException {
+        this.out = channel;
+        this.format = format;
+        this.gzip = gzip;
+        this.fields = fields;
+        buffer.clear();
+        if (gzip) {
+            compressed.clear();
+            compressed.put(new byte[] {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff});
+            compressed.flip();
+            writeFully(compressed);
+        }
+        if (format == Format.CSV) {
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) ascii(',');
+                ascii(fields[i]);
+            }
+            ascii('\n');
+        }
+    }
+
+    private void startRow() throws IOException {
+        column = 0;
+        if (format == Format.NDJSON) ascii('{');
+    }
+
+    private void endRow() throws IOException {
+        ascii(format == Format.NDJSON ? "}\n" : "\n");
+    }
+
+    /** Separator and, for NDJSON, the quoted key of the next column. */
+    private void field() throws IOException {
+        if (column > 0) ascii(',');
+        if (format == Format.NDJSON) {
+            ascii('"');
+            ascii(fields[column]);
+            ascii("\":");
+        }
+        column++;
+    }
+
+    private void finish() throws IOException {
+        drain();
+        if (!gzip) return;
+        deflater.finish();
+        while (!deflater.finished()) deflate();
+        compressed.clear();
+        compressed.putInt((int) crc.getValue()).putInt((int) rawBytes);
+        compressed.flip();
+        writeFully(compressed);
+    }
+
+    private void reset() {
+        out = null;
+        rawBytes = 0;
+        crc.reset();
+        deflater.reset();
+    }
+
+    // ---- values ----
+
+    private void text(String value) throws IOException {
+        field();
+        if (value == null) {
+            if (format == Format.NDJSON) ascii("null");
+            return;
+        }
+        boolean quote = format == Format.NDJSON || needsCsvQuotes(value);
+        if (quote) ascii('"');
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (format == Format.NDJSON && (c == '"' || c == '\\' || c < 0x20)) {
+                escapeJson(c);
+            } else if (format == Format.CSV && c == '"') {
+                ascii("\"\"");
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                utf8(Character.toCodePoint(c, value.charAt(++i)));
+            } else {
+                utf8(Character.isSurrogate(c) ? '?' : c);
+            }
+        }
+        if (quote) ascii('"');
+    }
+
+    private void number(long value) throws IOException {
+        field();
+        digits(value);
+    }
+
+    /** Fixed two decimals, written from the rounded hundredths so no Double.toString is needed. */
+    private void decimal(double value) throws IOException {
+        field();
+        long hundredths = Math.round(value * 100);
+        if (hundredths < 0) {
+            ascii('-');
+            hundredths = -hundredths;
+        }
+        digits(hundredths / 100);
+        ascii('.');
+        long cents = hundredths % 100;
+        ascii((char) ('0' + cents / 10));
+        ascii((char) ('0' + cents % 10));
+    }
+
+    private void digits(long value) throws IOException {
+        if (value < 0) {
+            ascii('-');
+            if (value == Long.MIN_VALUE) {
+                ascii("9223372036854775808");
+                return;
+            }
+            value = -value;
+        }
+        ensure(19);
+        int start = buffer.position();
+        do {
+            buffer.put((byte) ('0' + value % 10));
+            value /= 10;
+        } while (value > 0);
+        for (int i = start, j = buffer.position() - 1; i < j; i++, j--) {
+            byte swap = buffer.get(i);
+            buffer.put(i, buffer.get(j));
+            buffer.put(j, swap);
+        }
+    }
+
+    private static boolean needsCsvQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+
+    private void escapeJson(char c) throws IOException {
+        switch (c) {
+            case '"': ascii("\\\""); return;
+            case '\\': ascii("\\\\"); return;
+            case '\n': ascii("\\n"); return;
+            case '\r': ascii("\\r"); return;
+            case '\t': ascii("\\t"); return;
+            default:
+                ascii("\\u00");
+                ascii(Character.forDigit(c >> 4, 16));
+                ascii(Character.forDigit(c & 0xf, 16));
+        }
+    }
+
+    // ---- bytes ----
+
+    private void ascii(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) ascii(value.charAt(i));
+    }
+
+    private void ascii(char c) throws IOException {
+        ensure(1);
+        buffer.put((byte) c);
+    }
+
+    private void utf8(int codePoint) throws IOException {
+        ensure(4);
+        if (codePoint < 0x80) {
+            buffer.put((byte) codePoint);
+        } else if (codePoint < 0x800) {
+            buffer.put((byte) (0xc0 | codePoint >> 6));
+            buffer.put((byte) (0x80 | codePoint & 0x3f));
+        } else if (codePoint < 0x10000) {
+            buffer.put((byte) (0xe0 | codePoint >> 12));
+            buffer.put((byte) (0x80 | codePoint >> 6 & 0x3f));
+            buffer.put((byte) (0x80 | codePoint & 0x3f));
+        } else {
+            buffer.put((byte) (0xf0 | codePoint >> 18));
+            buffer.put((byte) (0x80 | codePoint >> 12 & 0x3f));
+            buffer.put((byte) (0x80 | codePoint >> 6 & 0x3f));
+            buffer.put((byte) (0x80 | codePoint & 0x3f));
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) drain();
+    }
+
+    /** Hand the encoded bytes to the channel, through the deflater when compressing. */
+    private void drain() throws IOException {
+        buffer.flip();
+        if (gzip) {
+            rawBytes += buffer.remaining();
+            int start = buffer.position();
+            crc.update(buffer);
+            buffer.position(start);
+            deflater.setInput(buffer);
+            while (!deflater.needsInput()) deflate();
+            deflater.setInput(NO_INPUT); // the deflater keeps a reference to the buffer, which is reused below
+        } else {
+            writeFully(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void deflate() throws IOException {
+        compressed.clear();
+        deflater.deflate(compressed);
+        compressed.flip();
+        writeFully(compressed);
+    }
+
+    private void writeFully(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) out.write(bytes);
+    }
+}
@@ -0,0 +1,192 @@
+package services;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.LongSupplier;
+import interfaces.TaskEventListener;
+import models.Task;
+
+/**
+ * Incremental flow metrics per project: created, started and completed counts per
+ * day (UTC) plus lead-time (created to completed) and cycle-time (started to
+ * completed) histograms, kept in step with TaskService through its event listener.
+ *
+ * The service remembers what each task contributed, so an edit, reopen, move or
+ * delete retracts exactly that and adds the new contribution. Burndown and
+ * velocity are read from the daily rollups in O(days with activity), never by
+ * rescanning tasks or their history.
+ */
+public class FlowMetricsService implements TaskEventListener {
+    static final long DAY_MILLIS = 86_400_000L;
+    static final int CREATED = 0;
+    static final int STARTED = 1;
+    static final int COMPLETED = 2;
+
+    private final Map<String, ProjectFlow> projects = new HashMap<>();
+    private final Map<String, Contribution> contributions = new HashMap<>();
+    private final LongSupplier clock;
+
+    public FlowMetricsService(TaskService taskService) {
+        this(taskService, System::currentTimeMillis);
+    }
+
+    /** {@code clock} decides what "today" is for velocity windows. */
+    public FlowMetricsService(TaskService taskService, LongSupplier clock) {
+        this.clock = clock;
+        for (Task task : taskService.scan()) taskAdded(task);
+        taskService.addTaskEventListener(this);
+    }
+
+    @Override
+    public synchronized void taskAdded(Task task) {
+        Contribution contribution = new Contribution(task);
+        contributions.put(task.getTaskId(), contribution);
+        apply(contribution, 1);
+    }
+
+    @Override
+    public synchronized void taskRemoved(Task task) {
+        Contribution contribution = contributions.remove(task.getTaskId());
+        if (contribution != null) apply(contribution, -1);
+    }
+
+    @Override
+    public synchronized void taskChanged(Task task, String field, Object oldValue, Object newValue) {
+        if (field.equals("taskId")) {
+            Contribution contribution = contributions.remove((String) oldValue);
+            if (contribution != null) contributions.put(task.getTaskId(), contribution);
+            return;
+        }
+        if (!field.equals("status") && !field.equals("projectId")) return;
+        Contribution previous = contributions.get(task.getTaskId());
+        if (previous != null) apply(previous, -1);
+        Contribution current = new Contribution(task);
+        contributions.put(task.getTaskId(), current);
+        apply(current, 1);
+    }
+
+    /** Open tasks (created minus completed) at the end of {@code epochDay}. */
+    public synchronized int getRemainingAt(String projectId, long epochDay) {
+        ProjectFlow flow = projects.get(projectId);
+        if (flow == null) return 0;
+        int remaining = 0;
+        for (int[] counts : flow.days.headMap(epochDay, true).values()) remaining += counts[CREATED] - counts[COMPLETED];
+        return remaining;
+    }
+
+    /** Tasks completed in the inclusive day range. */
+    public synchronized int getCompletedBetween(String projectId, long fromDay, long toDay) {
+        ProjectFlow flow = projects.get(projectId);
+        if (flow == null || fromDay > toDay) return 0;
+        int completed = 0;
+        for (int[] counts : flow.days.subMap(fromDay, true, toDay, true).values()) completed += counts[COMPLETED];
+        return completed;
+    }
+
+    /** Lead-time percentile in millis (0 if nothing is completed), accurate to one histogram bucket. */
+    public synchronized long getLeadTimePercentile(String projectId, double percentile) {
+        ProjectFlow flow = projects.get(projectId);
+        return flow == null ? 0 : flow.leadTime.percentile(percentile);
+    }
+
+    /** Cycle-time percentile in millis, over completed tasks that were started first. */
+    public synchronized long getCycleTimePercentile(String projectId, double percentile) {
+        ProjectFlow flow = projects.get(projectId);
+        return flow == null ? 0 : flow.cycleTime.percentile(percentile);
+    }
+
+    public synchronized int getCompletedCount(String projectId) {
+        ProjectFlow flow = projects.get(projectId);
+        return flow == null ? 0 : (int) flow.leadTime.total;
+    }
+
+    long today() { return Math.floorDiv(clock.getAsLong(), DAY_MILLIS); }
+
+    /** Copy of a project's daily rollups (epoch day -> created, started, completed) for reports. */
+    synchronized NavigableMap<Long, int[]> dailyCounts(String projectId) {
+        NavigableMap<Long, int[]> copy = new TreeMap<>();
+        ProjectFlow flow = projects.get(projectId);
+        if (flow != null) for (Map.Entry<Long, int[]> day : flow.days.entrySet()) copy.put(day.getKey(), day.getValue().clone());
+        return copy;
+    }
+
+    private void apply(Contribution contribution, int sign) {
+        if (contribution.projectId == null) return;
+        ProjectFlow flow = projects.computeIfAbsent(contribution.projectId, key -> new ProjectFlow());
+        flow.count(contribution.createdAt, CREATED, sign);
+        if (contribution.startedAt > 0) flow.count(contribution.startedAt, STARTED, sign);
+        if (contribution.completedAt > 0) {
+            flow.count(contribution.completedAt, COMPLETED, sign);
+            flow.leadTime.add(contribution.completedAt - contribution.createdAt, sign);
+            if (contribution.startedAt > 0) flow.cycleTime.add(contribution.completedAt - contribution.startedAt, sign);
+        }
+        if (flow.days.isEmpty()) projects.remove(contribution.projectId);
+    }
+
+    /** What one task last added to its project's rollups. */
+    private static final class Contribution {
+        final String projectId;
+        final long createdAt;
+        final long startedAt;
+        final long completedAt;
+
+        Contribution(Task task) {
+            this.projectId = task.getProjectId();
+            this.createdAt = task.getCreatedAt();
+            this.startedAt = task.getStartedAt();
+            this.completedAt = task.getCompletedAt();
+        }
+    }
+
+    private static final class ProjectFlow {
+        final TreeMap<Long, int[]> days = new TreeMap<>();
+        final DurationHistogram leadTime = new DurationHistogram();
+        final DurationHistogram cycleTime = new DurationHistogram();
+
+        void count(long timestamp, int kind, int sign) {
+            long day = Math.floorDiv(timestamp, DAY_MILLIS);
+            int[] counts = days.computeIfAbsent(day, key -> new int[3]);
+            counts[kind] += sign;
+            if (counts[CREATED] == 0 && counts[STARTED] == 0 && counts[COMPLETED] == 0) days.remove(day);
+        }
+    }
+
+    /**
+     * Log-scale histogram of durations: four buckets per doubling of minutes, so a
+     * percentile is within about 19% of the exact value at constant memory.
+     */
+    private static final class DurationHistogram {
+        private static final int BUCKETS = 128;
+        private static final long MINUTE = 60_000L;
+        private final long[] counts = new long[BUCKETS];
+        long total;
+
+        void add(long durationMillis, int sign) {
+            counts[bucket(durationMillis)] += sign;
+            total += sign;
+        }
+
+        long percentile(double percentile) {
+            if (total <= 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) return upperBound(i);
+            }
+            return upperBound(BUCKETS - 1);
+        }
+
+        private static int bucket(long durationMillis) {
+            double minutes = Math.max(0, durationMillis) / (double) MINUTE;
+            if (minutes < 1) return 0;
+            return (int) Math.min(BUCKETS - 1, 1 + Math.floor(Math.log(minutes) / Math.log(2) * 4));
+        }
+
+        private static long upperBound(int bucket) {
+            return bucket == 0 ? MINUTE : (long) (Math.pow(2, bucket / 4.0) * MINUTE);
+        }
+    }
+}
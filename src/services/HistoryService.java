@@ -0,0 +1,364 @@
+package services;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import interfaces.ProjectEventListener;
+import interfaces.TaskEventListener;
+import models.HardwareProject;
+import models.Project;
+import models.SoftwareProject;
+import models.Task;
+
+/**
+ * Delta-encoded version history for tasks and projects, with "state as of T" queries.
+ *
+ * Each entity keeps a base state plus an append-only log of (timestamp, field code,
+ * new value) entries; a full state is only stored when an entity is created or
+ * replaced. Retention is bounded per entity (oldest deltas are folded into the base
+ * state) and by age, so memory stays proportional to entities x maxVersionsPerEntity.
+ * Queries for a time before an entity's retained base return null.
+ *
+ * History is kept per ID. Renaming ends the old ID's timeline and starts one under
+ * the new ID, after whatever history that ID already had, so a query sees each ID
+ * as it was at the time asked about.
+ */
+public class HistoryService implements TaskEventListener, ProjectEventListener {
+    private static final String[] TASK_FIELDS = {
+            "taskId", "projectId", "taskName", "description", "assignedTo", "priority", "status", "dueDate"
+    };
+    private static final String[] PROJECT_FIELDS = {
+            "type", "projectId", "projectName", "description", "startDate", "endDate", "status", "budget", "teamSize",
+            "technologyStack", "methodology", "totalFeatures", "completedFeatures",
+            "hardwareType", "totalComponents", "assembledComponents", "prototypeCompleted"
+    };
+    /** Slot after the task fields holding the status-transition log. */
+    private static final int TRANSITIONS = TASK_FIELDS.length;
+    private static final byte DELETED = -1;
+    private static final byte FULL_STATE = -2;
+    private static final int PURGE_INTERVAL = 4096;
+
+    private final Map<String, EntityHistory> taskHistory = new HashMap<>();
+    private final Map<String, EntityHistory> projectHistory = new HashMap<>();
+    private final int maxVersionsPerEntity;
+    private final long retentionMillis;
+    private final LongSupplier clock;
+    private long totalVersions;
+    private int appendsSincePurge;
+
+    /** Keep up to 1000 versions per entity with no age limit. */
+    public HistoryService() {
+        this(1000, Long.MAX_VALUE, System::currentTimeMillis);
+    }
+
+    public HistoryService(int maxVersionsPerEntity, long retentionMillis, LongSupplier clock) {
+        if (maxVersionsPerEntity < 1) throw new IllegalArgumentException("maxVersionsPerEntity must be positive");
+        this.maxVersionsPerEntity = maxVersionsPerEntity;
+        this.retentionMillis = retentionMillis;
+        this.clock = clock;
+    }
+
+    /** Record the current contents of both services and start tracking their changes. */
+    public synchronized void attach(ProjectServices projectService, TaskService taskService) {
+        for (Project project : projectService.scan()) projectAdded(project);
+        for (Task task : taskService.scan()) taskAdded(task);
+        projectService.addProjectEventListener(this);
+        taskService.addTaskEventListener(this);
+    }
+
+    @Override
+    public synchronized void taskAdded(Task task) {
+        append(taskHistory, task.getTaskId(), FULL_STATE, captureTask(task));
+    }
+
+    @Override
+    public synchronized void taskRemoved(Task task) {
+        append(taskHistory, task.getTaskId(), DELETED, null);
+    }
+
+    @Override
+    public synchronized void taskChanged(Task task, String field, Object oldValue, Object newValue) {
+        if (field.equals("taskId")) {
+            append(taskHistory, (String) oldValue, DELETED, null);
+            append(taskHistory, task.getTaskId(), FULL_STATE, captureTask(task));
+            return;
+        }
+        if (field.equals("status") && !((String) newValue).equalsIgnoreCase((String) oldValue)) {
+            newValue = new Transition((String) newValue, task.getStatusChangedAt());
+        }
+        append(taskHistory, task.getTaskId(), code(TASK_FIELDS, field), newValue);
+    }
+
+    @Override
+    public synchronized void projectAdded(Project project) {
+        append(projectHistory, project.getProjectId(), FULL_STATE, captureProject(project));
+    }
+
+    @Override
+    public synchronized void projectRemoved(Project project) {
+        append(projectHistory, project.getProjectId(), DELETED, null);
+    }
+
+    @Override
+    public synchronized void projectChanged(Project project, String field, Object oldValue, Object newValue) {
+        if (field.equals("projectId")) {
+            append(projectHistory, (String) oldValue, DELETED, null);
+            append(projectHistory, project.getProjectId(), FULL_STATE, captureProject(project));
+            return;
+        }
+        append(projectHistory, project.getProjectId(), code(PROJECT_FIELDS, field), newValue);
+    }
+
+    /** Detached copy of a task as it was at {@code timestamp}, or null if it did not exist (or is beyond retention). */
+    public synchronized Task getTaskAsOf(String taskId, long timestamp) {
+        EntityHistory history = taskHistory.get(taskId);
+        Object[] state = history == null ? null : history.stateAt(timestamp);
+        return state == null ? null : materializeTask(state);
+    }
+
+    public synchronized Project getProjectAsOf(String projectId, long timestamp) {
+        EntityHistory history = projectHistory.get(projectId);
+        Object[] state = history == null ? null : history.stateAt(timestamp);
+        return state == null ? null : materializeProject(state);
+    }
+
+    /** Detached copies of every task that existed at {@code timestamp}. */
+    public synchronized List<Task> getTasksAsOf(long timestamp) {
+        List<Task> result = new ArrayList<>();
+        for (EntityHistory history : taskHistory.values()) {
+            Object[] state = history.stateAt(timestamp);
+            if (state != null) result.add(materializeTask(state));
+        }
+        return result;
+    }
+
+    public synchronized List<Project> getProjectsAsOf(long timestamp) {
+        List<Project> result = new ArrayList<>();
+        for (EntityHistory history : projectHistory.values()) {
+            Object[] state = history.stateAt(timestamp);
+            if (state != null) result.add(materializeProject(state));
+        }
+        return result;
+    }
+
+    /** Number of recorded versions (deltas) for a task, including its creation. */
+    public synchronized int getTaskVersionCount(String taskId) {
+        EntityHistory history = taskHistory.get(taskId);
+        return history == null ? 0 : history.count;
+    }
+
+    public synchronized long getTotalVersions() { return totalVersions; }
+
+    /**
+     * Epoch millis from epoch millis, an ISO-8601 instant ("2025-03-01T12:00:00Z")
+     * or a date ("2025-03-01", read as the end of that day, UTC).
+     */
+    public static long parseTime(String text) {
+        try {
+            if (text.indexOf('T') >= 0) return Instant.parse(text).toEpochMilli();
+            if (text.indexOf('-', 1) > 0) return LocalDate.parse(text).plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli() - 1;
+            return Long.parseLong(text);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("invalid time " + text + " (expected YYYY-MM-DD, an ISO instant or epoch millis)");
+        }
+    }
+
+    /**
+     * Fold deltas older than the retention window into base states and drop
+     * entities that were deleted before it. Runs automatically every few thousand appends.
+     */
+    public synchronized void purgeExpired() {
+        appendsSincePurge = 0;
+        if (retentionMillis == Long.MAX_VALUE) return;
+        long cutoff = clock.getAsLong() - retentionMillis;
+        purge(taskHistory, cutoff);
+        purge(projectHistory, cutoff);
+    }
+
+    private void purge(Map<String, EntityHistory> histories, long cutoff) {
+        histories.values().removeIf(history -> {
+            int expired = 0;
+            while (expired < history.count && history.times[expired] < cutoff) expired++;
+            totalVersions -= history.fold(expired);
+            if (history.baseState == null && history.count == 0) return true;
+            return false;
+        });
+    }
+
+    private void append(Map<String, EntityHistory> histories, String id, byte code, Object value) {
+        if (id == null) return;
+        EntityHistory history = histories.computeIfAbsent(id, key -> new EntityHistory());
+        history.append(clock.getAsLong(), code, value);
+        totalVersions++;
+        if (history.count > maxVersionsPerEntity) totalVersions -= history.fold(history.count - maxVersionsPerEntity);
+        if (++appendsSincePurge >= PURGE_INTERVAL) purgeExpired();
+    }
+
+    private static byte code(String[] fields, String field) {
+        for (int i = 0; i < fields.length; i++) if (fields[i].equals(field)) return (byte) i;
+        throw new IllegalArgumentException("Unknown field " + field);
+    }
+
+    private static Object[] captureTask(Task task) {
+        String[] statuses = new String[task.getTransitionCount()];
+        long[] times = new long[statuses.length];
+        for (int i = 0; i < statuses.length; i++) {
+            statuses[i] = task.getTransitionStatus(i);
+            times[i] = task.getTransitionTime(i);
+        }
+        return new Object[]{task.getTaskId(), task.getProjectId(), task.getTaskName(), task.getDescription(),
+                task.getAssignedTo(), task.getPriority(), task.getStatus(), task.getDueDate(), new Transitions(statuses, times)};
+    }
+
+    private static Task materializeTask(Object[] state) {
+        Task task = new Task((String) state[0], (String) state[1], (String) state[2], (String) state[3],
+                (String) state[4], (String) state[5], (String) state[7]);
+        task.setStatus((String) state[6]);
+        Transitions transitions = (Transitions) state[TRANSITIONS];
+        task.restoreTransitions(transitions.statuses, transitions.times);
+        return task;
+    }
+
+    private static Object[] captureProject(Project project) {
+        Object[] state = new Object[PROJECT_FIELDS.length];
+        state[0] = project.getProjectType();
+        state[1] = project.getProjectId();
+        state[2] = project.getProjectName();
+        state[3] = project.getDescription();
+        state[4] = project.getStartDate();
+        state[5] = project.getEndDate();
+        state[6] = project.getStatus();
+        state[7] = project.getBudget();
+        state[8] = project.getTeamSize();
+        if (project instanceof SoftwareProject) {
+            SoftwareProject software = (SoftwareProject) project;
+            state[9] = software.getTechnologyStack();
+            state[10] = software.getMethodology();
+            state[11] = software.getTotalFeatures();
+            state[12] = software.getCompletedFeatures();
+        } else if (project instanceof HardwareProject) {
+            HardwareProject hardware = (HardwareProject) project;
+            state[13] = hardware.getHardwareType();
+            state[14] = hardware.getTotalComponents();
+            state[15] = hardware.getAssembledComponents();
+            state[16] = hardware.isPrototypeCompleted();
+        }
+        return state;
+    }
+
+    private static Project materializeProject(Object[] state) {
+        Project project;
+        if ("Hardware Development".equals(state[0])) {
+            HardwareProject hardware = new HardwareProject((String) state[1], (String) state[2], (String) state[3],
+                    (String) state[4], (String) state[5], (Double) state[7], (Integer) state[8],
+                    (String) state[13], (Integer) state[14]);
+            hardware.setAssembledComponents((Integer) state[15]);
+            hardware.setPrototypeCompleted((Boolean) state[16]);
+            project = hardware;
+        } else {
+            SoftwareProject software = new SoftwareProject((String) state[1], (String) state[2], (String) state[3],
+                    (String) state[4], (String) state[5], (Double) state[7], (Integer) state[8],
+                    (String) state[9], (String) state[10], state[11] == null ? 0 : (Integer) state[11]);
+            software.setCompletedFeatures(state[12] == null ? 0 : (Integer) state[12]);
+            project = software;
+        }
+        project.setStatus((String) state[6]);
+        return project;
+    }
+
+    /** Base state plus parallel arrays of (time, field code, value) deltas. */
+    private static final class EntityHistory {
+        private long baseTime = Long.MIN_VALUE;
+        private Object[] baseState;
+        private long[] times = new long[4];
+        private byte[] codes = new byte[4];
+        private Object[] values = new Object[4];
+        private int count;
+
+        void append(long time, byte code, Object value) {
+            if (count == times.length) {
+                times = Arrays.copyOf(times, count * 2);
+                codes = Arrays.copyOf(codes, count * 2);
+                values = Arrays.copyOf(values, count * 2);
+            }
+            times[count] = time;
+            codes[count] = code;
+            values[count] = value;
+            count++;
+        }
+
+        /** State at {@code time}, or null if the entity did not exist or the time is beyond retention. */
+        Object[] stateAt(long time) {
+            if (time < baseTime) return null;
+            Object[] state = baseState == null ? null : baseState.clone();
+            for (int i = 0; i < count && times[i] <= time; i++) state = apply(state, codes[i], values[i]);
+            return state;
+        }
+
+        /** Merge the oldest {@code n} deltas into the base state; returns how many were folded. */
+        int fold(int n) {
+            if (n <= 0) return 0;
+            Object[] state = baseState;
+            for (int i = 0; i < n; i++) state = apply(state, codes[i], values[i]);
+            baseState = state;
+            baseTime = times[n - 1];
+            System.arraycopy(times, n, times, 0, count - n);
+            System.arraycopy(codes, n, codes, 0, count - n);
+            System.arraycopy(values, n, values, 0, count - n);
+            Arrays.fill(values, count - n, count, null);
+            count -= n;
+            return n;
+        }
+
+        private static Object[] apply(Object[] state, byte code, Object value) {
+            if (code == FULL_STATE) return ((Object[]) value).clone();
+            if (code == DELETED) return null;
+            if (state == null) return null;
+            if (value instanceof Transition) {
+                Transition transition = (Transition) value;
+                state[code] = transition.status;
+                state[TRANSITIONS] = ((Transitions) state[TRANSITIONS]).plus(transition);
+            } else {
+                state[code] = value;
+            }
+            return state;
+        }
+    }
+
+    /** Status change of a task, with the time the task logged it. */
+    private static final class Transition {
+        final String status;
+        final long time;
+
+        Transition(String status, long time) {
+            this.status = status;
+            this.time = time;
+        }
+    }
+
+    /** A task's transition log as of some state; never modified, extended by copying. */
+    private static final class Transitions {
+        final String[] statuses;
+        final long[] times;
+
+        Transitions(String[] statuses, long[] times) {
+            this.statuses = statuses;
+            this.times = times;
+        }
+
+        Transitions plus(Transition transition) {
+            String[] moreStatuses = Arrays.copyOf(statuses, statuses.length + 1);
+            long[] moreTimes = Arrays.copyOf(times, times.length + 1);
+            moreStatuses[statuses.length] = transition.status;
+            moreTimes[times.length] = transition.time;
+            return new Transitions(moreStatuses, moreTimes);
+        }
+    }
+}
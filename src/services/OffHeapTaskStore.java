@@ -0,0 +1,532 @@
+package services;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import interfaces.ChangeListener;
+import interfaces.TaskStore;
+import models.Task;
+import utils.InputParser;
+
+/**
+ * Off-heap task storage: fixed-width records plus an append-only string arena,
+ * both held in direct ByteBuffers outside the Java heap, so tens of millions of
+ * tasks add almost nothing for the GC to trace. On-heap {@link Task} objects are
+ * only created on demand as views; edits made through a view's setters are
+ * written back to the record.
+ *
+ * Record layout ({@value #RECORD_SIZE} bytes): eight string references (arena
+ * position as long, byte length as int) for the Task fields in order, a
+ * reference to the status-transition log (entry index as long, entry count as
+ * int), then a status code, a priority code, a flags byte, one pad byte and the
+ * task ID hash. Status and priority filters and counts compare the code bytes
+ * and build views only for matches.
+ *
+ * The log keeps a task's timestamps stable across views. Its entries are fixed
+ * width (a status code from a small per-store table, then the time) and live in
+ * blocks of power-of-two size in a separate log area, so a status change
+ * appends in place and a block is moved only when it doubles.
+ * Deleted records are tombstoned, and rewritten strings and moved log blocks
+ * leave their old bytes behind; {@link #compact()} reclaims them.
+ */
+public class OffHeapTaskStore implements TaskStore {
+    private static final int FIELD_TASK_ID = 0;
+    private static final int FIELD_PROJECT_ID = 1;
+    private static final int FIELD_TASK_NAME = 2;
+    private static final int FIELD_DESCRIPTION = 3;
+    private static final int FIELD_ASSIGNED_TO = 4;
+    private static final int FIELD_PRIORITY = 5;
+    private static final int FIELD_STATUS = 6;
+    private static final int FIELD_DUE_DATE = 7;
+    private static final int FIELD_TRANSITIONS = 8;
+    private static final String[] FIELD_NAMES = {
+            "taskId", "projectId", "taskName", "description", "assignedTo", "priority", "status", "dueDate"
+    };
+
+    private static final int REF_SIZE = 12;
+    private static final int STATUS_OFFSET = 9 * REF_SIZE;
+    private static final int PRIORITY_OFFSET = STATUS_OFFSET + 1;
+    private static final int FLAGS_OFFSET = STATUS_OFFSET + 2;
+    private static final int HASH_OFFSET = STATUS_OFFSET + 4;
+    static final int RECORD_SIZE = HASH_OFFSET + 4;
+    private static final byte FLAG_DELETED = 1;
+
+    private static final int RECORDS_PER_CHUNK = 1 << 16;
+    private static final int ARENA_CHUNK_SIZE = 16 << 20;
+    private static final int LOG_ENTRY_SIZE = 10;
+    private static final int LOG_ENTRIES_PER_CHUNK = 1 << 20;
+    /** Short, repetitive values (IDs, status, dates) are stored once in the arena. */
+    private static final int MAX_SHARED_VALUES = 4096;
+    private static final int MAX_SHARED_LENGTH = 32;
+
+    private List<ByteBuffer> recordChunks = new ArrayList<>();
+    private List<ByteBuffer> arenaChunks = new ArrayList<>();
+    private Map<String, Long> sharedValues = new HashMap<>();
+    private int recordCount;
+    private int liveCount;
+    private long arenaBytes;
+    private List<ByteBuffer> logChunks = new ArrayList<>();
+    private long logTail;
+    /** Statuses seen in transition logs, by code. */
+    private final List<String> statusNames = new ArrayList<>();
+    private final Map<String, Short> statusCodes = new HashMap<>();
+
+    /** Open-addressing index: taskId hash -> slot + 1 (0 = empty, -1 = removed). */
+    private int[] index = new int[1024];
+    private int indexUsed;
+    private ChangeListener listener;
+
+    @Override
+    public synchronized int size() { return liveCount; }
+
+    @Override
+    public synchronized void setChangeListener(ChangeListener listener) { this.listener = listener; }
+
+    /** Bytes reserved outside the heap for records, strings and transition logs. */
+    public synchronized long getOffHeapBytes() {
+        return (long) recordChunks.size() * RECORDS_PER_CHUNK * RECORD_SIZE + (long) arenaChunks.size() * ARENA_CHUNK_SIZE
+                + (long) logChunks.size() * LOG_ENTRIES_PER_CHUNK * LOG_ENTRY_SIZE;
+    }
+
+    /** Bytes of string data written to the arena so far. */
+    public synchronized long getArenaBytesUsed() { return arenaBytes; }
+
+    /** Bytes of the log area handed out to transition-log blocks so far. */
+    public synchronized long getLogBytesUsed() { return logTail * LOG_ENTRY_SIZE; }
+
+    /**
+     * Rewrite the live records, their strings and their logs into fresh buffers,
+     * dropping tombstones, superseded strings and moved log blocks. Views taken
+     * before stay valid. Returns the bytes reclaimed; buffers are released a
+     * whole chunk at a time, so {@link #getOffHeapBytes()} falls in steps.
+     */
+    public synchronized long compact() {
+        long before = bytesUsed();
+        OffHeapTaskStore fresh = new OffHeapTaskStore();
+        for (int slot = 0; slot < recordCount; slot++) {
+            if (!isLive(slot)) continue;
+            int copy = fresh.newRecord();
+            for (int field = FIELD_TASK_ID; field <= FIELD_DUE_DATE; field++) fresh.writeString(copy, field, readString(slot, field));
+            int count = logCount(slot);
+            long position = fresh.allocateLog(count);
+            for (int i = 0; i < count; i++) fresh.putLogEntry(position + i, statusName(logCode(slot, i)), logTime(slot, i));
+            fresh.setLog(copy, position, count);
+            fresh.chunk(copy).putInt(base(copy) + HASH_OFFSET, chunk(slot).getInt(base(slot) + HASH_OFFSET));
+            fresh.insertIndex(copy);
+        }
+        recordChunks = fresh.recordChunks;
+        arenaChunks = fresh.arenaChunks;
+        sharedValues = fresh.sharedValues;
+        logChunks = fresh.logChunks;
+        logTail = fresh.logTail;
+        recordCount = fresh.recordCount;
+        arenaBytes = fresh.arenaBytes;
+        index = fresh.index;
+        indexUsed = fresh.indexUsed;
+        statusNames.clear();
+        statusNames.addAll(fresh.statusNames);
+        statusCodes.clear();
+        statusCodes.putAll(fresh.statusCodes);
+        return before - bytesUsed();
+    }
+
+    private long bytesUsed() { return (long) recordCount * RECORD_SIZE + arenaBytes + logTail * LOG_ENTRY_SIZE; }
+
+    /** Copy a task into the store; returns false if the ID is already present. */
+    @Override
+    public synchronized boolean add(Task task) {
+        if (slotOf(task.getTaskId()) >= 0) return false;
+        int slot = newRecord();
+        liveCount++;
+        writeString(slot, FIELD_TASK_ID, task.getTaskId());
+        writeString(slot, FIELD_PROJECT_ID, task.getProjectId());
+        writeString(slot, FIELD_TASK_NAME, task.getTaskName());
+        writeString(slot, FIELD_DESCRIPTION, task.getDescription());
+        writeString(slot, FIELD_ASSIGNED_TO, task.getAssignedTo());
+        writeString(slot, FIELD_PRIORITY, task.getPriority());
+        writeString(slot, FIELD_STATUS, task.getStatus());
+        writeString(slot, FIELD_DUE_DATE, task.getDueDate());
+        int count = task.getTransitionCount();
+        long position = allocateLog(count);
+        for (int i = 0; i < count; i++) putLogEntry(position + i, task.getTransitionStatus(i), task.getTransitionTime(i));
+        setLog(slot, position, count);
+        chunk(slot).putInt(base(slot) + HASH_OFFSET, hash(task.getTaskId()));
+        insertIndex(slot);
+        return true;
+    }
+
+    /** Claim the next record slot, flags cleared. */
+    private int newRecord() {
+        int slot = recordCount;
+        if (slot / RECORDS_PER_CHUNK == recordChunks.size()) {
+            recordChunks.add(ByteBuffer.allocateDirect(RECORDS_PER_CHUNK * RECORD_SIZE));
+        }
+        recordCount++;
+        chunk(slot).put(base(slot) + FLAGS_OFFSET, (byte) 0);
+        return slot;
+    }
+
+    /** A fresh view of the task, or null. Edits through the view are written back. */
+    @Override
+    public synchronized Task find(String taskId) {
+        int slot = slotOf(taskId);
+        return slot < 0 ? null : view(slot);
+    }
+
+    @Override
+    public synchronized boolean contains(String taskId) { return slotOf(taskId) >= 0; }
+
+    @Override
+    public synchronized boolean delete(String taskId) {
+        int slot = slotOf(taskId);
+        if (slot < 0) return false;
+        removeIndex(slot);
+        chunk(slot).put(base(slot) + FLAGS_OFFSET, FLAG_DELETED);
+        liveCount--;
+        return true;
+    }
+
+    /** Matched on the status code byte; a status outside {@link InputParser}'s names falls back to a scan of views. */
+    @Override
+    public List<Task> findByStatus(String status) {
+        int code = InputParser.parseStatus(status);
+        return code == InputParser.INVALID ? TaskStore.super.findByStatus(status) : findByCode(STATUS_OFFSET, code);
+    }
+
+    /** @see #findByStatus(String) */
+    @Override
+    public List<Task> findByPriority(String priority) {
+        int code = InputParser.parsePriority(priority);
+        return code == InputParser.INVALID ? TaskStore.super.findByPriority(priority) : findByCode(PRIORITY_OFFSET, code);
+    }
+
+    /** Counted from the status code bytes alone, without building views. */
+    @Override
+    public int countByStatus(String status) {
+        int code = InputParser.parseStatus(status);
+        return code == InputParser.INVALID ? TaskStore.super.countByStatus(status) : countByCode(STATUS_OFFSET, code);
+    }
+
+    /** @see #countByStatus(String) */
+    @Override
+    public int countByPriority(String priority) {
+        int code = InputParser.parsePriority(priority);
+        return code == InputParser.INVALID ? TaskStore.super.countByPriority(priority) : countByCode(PRIORITY_OFFSET, code);
+    }
+
+    private synchronized List<Task> findByCode(int offset, int code) {
+        List<Task> result = new ArrayList<>();
+        for (int slot = 0; slot < recordCount; slot++) if (hasCode(slot, offset, code)) result.add(view(slot));
+        return result;
+    }
+
+    private synchronized int countByCode(int offset, int code) {
+        int count = 0;
+        for (int slot = 0; slot < recordCount; slot++) if (hasCode(slot, offset, code)) count++;
+        return count;
+    }
+
+    private boolean hasCode(int slot, int offset, int code) {
+        ByteBuffer chunk = chunk(slot);
+        int base = base(slot);
+        return chunk.get(base + FLAGS_OFFSET) == 0 && chunk.get(base + offset) == code;
+    }
+
+    /** Views of live tasks whose field equals {@code value}; matching is done on the raw bytes. */
+    @Override
+    public synchronized List<Task> findWhere(String field, String value) {
+        int fieldIndex = fieldIndex(field);
+        byte[] expected = value.getBytes(StandardCharsets.UTF_8);
+        List<Task> result = new ArrayList<>();
+        for (int slot = 0; slot < recordCount; slot++) {
+            if (isLive(slot) && bytesEqual(slot, fieldIndex, expected)) result.add(view(slot));
+        }
+        return result;
+    }
+
+    /** Views of the live tasks in insertion order, each built only when the iteration reaches it. */
+    @Override
+    public Iterator<Task> iterator() {
+        return new Iterator<Task>() {
+            private int slot;
+            private Task pending;
+
+            @Override
+            public boolean hasNext() {
+                if (pending == null) pending = advance();
+                return pending != null;
+            }
+
+            @Override
+            public Task next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                Task task = pending;
+                pending = null;
+                return task;
+            }
+
+            private Task advance() {
+                synchronized (OffHeapTaskStore.this) {
+                    while (slot < recordCount) {
+                        int current = slot++;
+                        if (isLive(current)) return view(current);
+                    }
+                    return null;
+                }
+            }
+        };
+    }
+
+    /** Write one field of a stored task; used for view write-back. */
+    public synchronized void update(String taskId, String field, String value) {
+        int slot = slotOf(taskId);
+        if (slot < 0) return;
+        int fieldIndex = fieldIndex(field);
+        if (fieldIndex == FIELD_TASK_ID) {
+            removeIndex(slot);
+            writeString(slot, FIELD_TASK_ID, value);
+            chunk(slot).putInt(base(slot) + HASH_OFFSET, hash(value));
+            insertIndex(slot);
+        } else {
+            writeString(slot, fieldIndex, value);
+        }
+    }
+
+    /** View write-back: the changed field, and with a status change the transition the view logged. */
+    private synchronized void writeBack(Task task, String field, String oldValue, String newValue) {
+        update(field.equals("taskId") ? oldValue : task.getTaskId(), field, newValue);
+        if (!field.equals("status") || newValue.equalsIgnoreCase(oldValue)) return;
+        int slot = slotOf(task.getTaskId());
+        int last = task.getTransitionCount() - 1;
+        if (slot >= 0) appendLog(slot, task.getTransitionStatus(last), task.getTransitionTime(last));
+    }
+
+    private Task view(int slot) {
+        Task task = new Task(readString(slot, FIELD_TASK_ID), readString(slot, FIELD_PROJECT_ID),
+                readString(slot, FIELD_TASK_NAME), readString(slot, FIELD_DESCRIPTION),
+                readString(slot, FIELD_ASSIGNED_TO), readString(slot, FIELD_PRIORITY), readString(slot, FIELD_DUE_DATE));
+        task.setStatus(readString(slot, FIELD_STATUS));
+        int count = logCount(slot);
+        String[] statuses = new String[count];
+        long[] times = new long[count];
+        for (int i = 0; i < count; i++) {
+            statuses[i] = statusName(logCode(slot, i));
+            times[i] = logTime(slot, i);
+        }
+        task.restoreTransitions(statuses, times);
+        task.setChangeListener((source, field, oldValue, newValue) -> {
+            writeBack((Task) source, field, (String) oldValue, (String) newValue);
+            ChangeListener onChange = listener;
+            if (onChange != null) onChange.onChange(source, field, oldValue, newValue);
+        });
+        return task;
+    }
+
+    private boolean isLive(int slot) {
+        return chunk(slot).get(base(slot) + FLAGS_OFFSET) == 0;
+    }
+
+    private ByteBuffer chunk(int slot) { return recordChunks.get(slot / RECORDS_PER_CHUNK); }
+
+    private static int base(int slot) { return (slot % RECORDS_PER_CHUNK) * RECORD_SIZE; }
+
+    private void writeString(int slot, int field, String value) {
+        ByteBuffer chunk = chunk(slot);
+        int ref = base(slot) + field * REF_SIZE;
+        if (value == null) {
+            chunk.putLong(ref, -1L);
+            chunk.putInt(ref + 8, 0);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            chunk.putLong(ref, arenaPosition(value, bytes));
+            chunk.putInt(ref + 8, bytes.length);
+        }
+        if (field == FIELD_STATUS) chunk.put(base(slot) + STATUS_OFFSET, (byte) InputParser.parseStatus(value));
+        if (field == FIELD_PRIORITY) chunk.put(base(slot) + PRIORITY_OFFSET, (byte) InputParser.parsePriority(value));
+    }
+
+    private long arenaPosition(String value, byte[] bytes) {
+        boolean shareable = bytes.length <= MAX_SHARED_LENGTH;
+        if (shareable) {
+            Long shared = sharedValues.get(value);
+            if (shared != null) return shared;
+        }
+        if (bytes.length > ARENA_CHUNK_SIZE) throw new IllegalArgumentException("String too large for arena");
+        int chunkIndex = arenaChunks.size() - 1;
+        ByteBuffer arena = chunkIndex < 0 ? null : arenaChunks.get(chunkIndex);
+        if (arena == null || arena.remaining() < bytes.length) {
+            arena = ByteBuffer.allocateDirect(ARENA_CHUNK_SIZE);
+            arenaChunks.add(arena);
+            chunkIndex++;
+        }
+        long position = (long) chunkIndex * ARENA_CHUNK_SIZE + arena.position();
+        arena.put(bytes);
+        arenaBytes += bytes.length;
+        if (shareable && sharedValues.size() < MAX_SHARED_VALUES) sharedValues.put(value, position);
+        return position;
+    }
+
+    private String readString(int slot, int field) {
+        ByteBuffer chunk = chunk(slot);
+        int ref = base(slot) + field * REF_SIZE;
+        long position = chunk.getLong(ref);
+        if (position < 0) return null;
+        int length = chunk.getInt(ref + 8);
+        ByteBuffer arena = arenaChunks.get((int) (position / ARENA_CHUNK_SIZE));
+        byte[] bytes = new byte[length];
+        arena.get((int) (position % ARENA_CHUNK_SIZE), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private boolean bytesEqual(int slot, int field, byte[] expected) {
+        ByteBuffer chunk = chunk(slot);
+        int ref = base(slot) + field * REF_SIZE;
+        long position = chunk.getLong(ref);
+        if (position < 0 || chunk.getInt(ref + 8) != expected.length) return false;
+        ByteBuffer arena = arenaChunks.get((int) (position / ARENA_CHUNK_SIZE));
+        int offset = (int) (position % ARENA_CHUNK_SIZE);
+        for (int i = 0; i < expected.length; i++) if (arena.get(offset + i) != expected[i]) return false;
+        return true;
+    }
+
+    private int slotOf(String taskId) {
+        if (taskId == null) return -1;
+        byte[] key = taskId.getBytes(StandardCharsets.UTF_8);
+        int mask = index.length - 1;
+        for (int i = mix(hash(taskId)) & mask; index[i] != 0; i = (i + 1) & mask) {
+            int slot = index[i] - 1;
+            if (slot >= 0 && bytesEqual(slot, FIELD_TASK_ID, key)) return slot;
+        }
+        return -1;
+    }
+
+    private void insertIndex(int slot) {
+        if ((indexUsed + 1) * 2 > index.length) rebuildIndex(index.length * 2);
+        int mask = index.length - 1;
+        int i = mix(chunk(slot).getInt(base(slot) + HASH_OFFSET)) & mask;
+        while (index[i] > 0) i = (i + 1) & mask;
+        if (index[i] == 0) indexUsed++;
+        index[i] = slot + 1;
+    }
+
+    private void removeIndex(int slot) {
+        int mask = index.length - 1;
+        for (int i = mix(chunk(slot).getInt(base(slot) + HASH_OFFSET)) & mask; index[i] != 0; i = (i + 1) & mask) {
+            if (index[i] == slot + 1) {
+                index[i] = -1;
+                return;
+            }
+        }
+    }
+
+    private void rebuildIndex(int capacity) {
+        int[] old = index;
+        index = new int[capacity];
+        indexUsed = 0;
+        for (int entry : old) if (entry > 0) insertIndex(entry - 1);
+    }
+
+    // ---- transition log ----
+
+    /** Entries a block holding {@code count} entries has room for: the next power of two, at least 2. */
+    private static int logCapacity(int count) {
+        return count <= 2 ? 2 : Integer.highestOneBit(count - 1) << 1;
+    }
+
+    /** Index of the first entry of a new block with room for {@code count} entries; blocks never span chunks. */
+    private long allocateLog(int count) {
+        int capacity = logCapacity(count);
+        long offset = logTail % LOG_ENTRIES_PER_CHUNK;
+        if (offset + capacity > LOG_ENTRIES_PER_CHUNK) logTail += LOG_ENTRIES_PER_CHUNK - offset;
+        if (logTail / LOG_ENTRIES_PER_CHUNK == logChunks.size()) {
+            logChunks.add(ByteBuffer.allocateDirect(LOG_ENTRIES_PER_CHUNK * LOG_ENTRY_SIZE));
+        }
+        long position = logTail;
+        logTail += capacity;
+        return position;
+    }
+
+    /** Add a transition to a record's log, moving it to a block twice the size when its block is full. */
+    private void appendLog(int slot, String status, long time) {
+        int count = logCount(slot);
+        long position = logPosition(slot);
+        if (count == logCapacity(count)) {
+            long moved = allocateLog(count + 1);
+            for (int i = 0; i < count; i++) copyLogEntry(position + i, moved + i);
+            position = moved;
+        }
+        putLogEntry(position + count, status, time);
+        setLog(slot, position, count + 1);
+    }
+
+    private void setLog(int slot, long position, int count) {
+        int ref = base(slot) + FIELD_TRANSITIONS * REF_SIZE;
+        chunk(slot).putLong(ref, position);
+        chunk(slot).putInt(ref + 8, count);
+    }
+
+    private long logPosition(int slot) { return chunk(slot).getLong(base(slot) + FIELD_TRANSITIONS * REF_SIZE); }
+
+    private int logCount(int slot) { return chunk(slot).getInt(base(slot) + FIELD_TRANSITIONS * REF_SIZE + 8); }
+
+    private short logCode(int slot, int i) {
+        long entry = logPosition(slot) + i;
+        return logChunk(entry).getShort(logOffset(entry));
+    }
+
+    private long logTime(int slot, int i) {
+        long entry = logPosition(slot) + i;
+        return logChunk(entry).getLong(logOffset(entry) + 2);
+    }
+
+    private void putLogEntry(long entry, String status, long time) {
+        ByteBuffer chunk = logChunk(entry);
+        int offset = logOffset(entry);
+        chunk.putShort(offset, statusCode(status));
+        chunk.putLong(offset + 2, time);
+    }
+
+    private void copyLogEntry(long from, long to) {
+        ByteBuffer source = logChunk(from);
+        int offset = logOffset(from);
+        ByteBuffer target = logChunk(to);
+        target.putShort(logOffset(to), source.getShort(offset));
+        target.putLong(logOffset(to) + 2, source.getLong(offset + 2));
+    }
+
+    private ByteBuffer logChunk(long entry) { return logChunks.get((int) (entry / LOG_ENTRIES_PER_CHUNK)); }
+
+    private static int logOffset(long entry) { return (int) (entry % LOG_ENTRIES_PER_CHUNK) * LOG_ENTRY_SIZE; }
+
+    private short statusCode(String status) {
+        Short code = statusCodes.get(status);
+        if (code != null) return code;
+        if (statusNames.size() > Short.MAX_VALUE) throw new IllegalArgumentException("Too many distinct task statuses");
+        code = (short) statusNames.size();
+        statusNames.add(status);
+        statusCodes.put(status, code);
+        return code;
+    }
+
+    private String statusName(short code) { return statusNames.get(code); }
+
+    private static int hash(String taskId) { return taskId == null ? 0 : taskId.hashCode(); }
+
+    private static int mix(int h) { return h ^ (h >>> 16); }
+
+    private static int fieldIndex(String field) {
+        for (int i = 0; i < FIELD_NAMES.length; i++) if (FIELD_NAMES[i].equals(field)) return i;
+        throw new IllegalArgumentException("Unknown task field " + field);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("OffHeapTaskStore[tasks=%d, records=%d, offHeapBytes=%d, arenaUsed=%d, logUsed=%d, sharedValues=%d]",
+                liveCount, recordCount, getOffHeapBytes(), arenaBytes, logTail * LOG_ENTRY_SIZE, sharedValues.size());
+    }
+}
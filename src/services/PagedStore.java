@@ -0,0 +1,652 @@
+package services;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import interfaces.ChangeListener;
+import interfaces.TaskStore;
+import models.Project;
+import models.Task;
+import utils.BatchCommandRunner;
+
+/**
+ * Disk-backed store for projects and their tasks with a bounded in-memory
+ * working set. Each project is kept together with all of its tasks in one
+ * segment: a run of contiguous {@value #PAGE_SIZE}-byte pages holding a header
+ * and the {@link ReplicationCodec} records of the project and its tasks.
+ *
+ * Only the project directory (project ID to segment) stays on the heap. Tasks
+ * are found through a hash index in a direct buffer, eight bytes per slot: the
+ * task ID's hash and the number of the segment holding it. A hash match faults
+ * that segment in and checks it, so no task ID is kept on the heap.
+ * Segments are faulted in on first access and kept in an LRU list whose total
+ * weight (one per project plus one per task) is bounded; evicted segments that
+ * were edited are written back, in place when they still fit, otherwise to a
+ * free run of pages or the end of the file. Full scans and iteration read
+ * non-resident segments one at a time without caching them, so a report does
+ * not flush the working set or hold more than one segment it did not need.
+ *
+ * Objects handed out stay usable after their segment is evicted: editing one
+ * faults the segment back in and re-adopts the object.
+ */
+public class PagedStore implements TaskStore, AutoCloseable {
+    static final int PAGE_SIZE = 4096;
+    private static final int HEADER_SIZE = 16;
+    private static final int MAGIC = 0x54534547; // "TSEG"
+    private static final int INDEX_SLOT = 8;
+
+    private final FileChannel file;
+    private final int maxResidentWeight;
+    private final Map<String, Segment> segments = new HashMap<>();
+    private final List<Segment> numbered = new ArrayList<>();
+    private final Deque<Integer> freeNumbers = new ArrayDeque<>();
+    /** Slots of (task ID hash, segment number + 1); 0 = empty, -1 = removed. */
+    private ByteBuffer taskIndex = ByteBuffer.allocateDirect(1024 * INDEX_SLOT);
+    private int indexCapacity = 1024;
+    private int indexUsed;
+    private int taskCount;
+    private final LinkedHashMap<String, Resident> resident = new LinkedHashMap<>(16, 0.75f, true);
+    private final List<Segment> freeRuns = new ArrayList<>();
+    private int residentWeight;
+    private int pageCount;
+
+    private ChangeListener taskListener;
+    private ChangeListener projectListener;
+
+    private long hits;
+    private long faults;
+    private long evictions;
+    private long writeBacks;
+
+    /** Open (or create) a store file; {@code maxResidentWeight} bounds projects plus tasks held in memory. */
+    public PagedStore(Path path, int maxResidentWeight) throws IOException {
+        if (maxResidentWeight < 1) throw new IllegalArgumentException("working set must be positive");
+        this.maxResidentWeight = maxResidentWeight;
+        this.file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        load();
+    }
+
+    @Override
+    public synchronized void setChangeListener(ChangeListener listener) { this.taskListener = listener; }
+
+    /** Notified after every setter call on a project obtained from this store. */
+    public synchronized void setProjectListener(ChangeListener listener) { this.projectListener = listener; }
+
+    // ---- projects ----
+
+    /** Store a copy of the project in a new segment; false if the ID is taken. */
+    public synchronized boolean addProject(Project project) {
+        String projectId = project.getProjectId();
+        if (segments.containsKey(projectId)) return false;
+        Resident entry = new Resident(copy(project), new LinkedHashMap<>());
+        Segment segment = new Segment(-1, 0);
+        segments.put(projectId, segment);
+        number(segment, projectId);
+        entry.segment = segment;
+        entry.dirty = true;
+        admit(projectId, entry);
+        return true;
+    }
+
+    public synchronized Project findProject(String projectId) {
+        Resident entry = fault(projectId);
+        return entry == null ? null : entry.project;
+    }
+
+    /** Replace a project's fields with a copy of {@code updated}, keeping its tasks. */
+    public synchronized boolean replaceProject(String projectId, Project updated) {
+        Resident entry = fault(projectId);
+        if (entry == null) return false;
+        String renamed = updated.getProjectId();
+        if (!renamed.equals(projectId)) {
+            if (segments.containsKey(renamed)) return false;
+            rekey(projectId, renamed, entry);
+        }
+        entry.project = copy(updated);
+        entry.dirty = true;
+        return true;
+    }
+
+    public synchronized boolean containsProject(String projectId) { return segments.containsKey(projectId); }
+
+    /** Remove a project's segment together with all of its tasks. */
+    public synchronized boolean deleteProject(String projectId) {
+        Resident entry = fault(projectId);
+        if (entry == null) return false;
+        for (String taskId : entry.tasks.keySet()) removeIndex(taskId.hashCode(), entry.segment.number);
+        taskCount -= entry.tasks.size();
+        resident.remove(projectId);
+        residentWeight -= entry.weight();
+        Segment segment = segments.remove(projectId);
+        unnumber(segment);
+        free(segment);
+        return true;
+    }
+
+    /** Streams the projects one segment at a time, like {@link #iterator()}. */
+    public Iterable<Project> projects() {
+        return () -> {
+            List<String> projectIds = projectIds();
+            return new Iterator<Project>() {
+                private int next;
+                private Project pending;
+
+                @Override
+                public boolean hasNext() {
+                    while (pending == null && next < projectIds.size()) pending = projectOf(projectIds.get(next++));
+                    return pending != null;
+                }
+
+                @Override
+                public Project next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    Project project = pending;
+                    pending = null;
+                    return project;
+                }
+            };
+        };
+    }
+
+    public synchronized int projectCount() { return segments.size(); }
+
+    // ---- tasks ----
+
+    /** Store a copy of the task in its project's segment; false if the ID is taken or the project is unknown. */
+    @Override
+    public synchronized boolean add(Task task) {
+        if (locate(task.getTaskId()) != null) return false;
+        Resident entry = fault(task.getProjectId());
+        if (entry == null) return false;
+        Task stored = copy(task);
+        watch(stored);
+        entry.tasks.put(stored.getTaskId(), stored);
+        entry.dirty = true;
+        residentWeight++;
+        insertIndex(stored.getTaskId().hashCode(), entry.segment.number);
+        taskCount++;
+        evict(entry);
+        return true;
+    }
+
+    @Override
+    public synchronized Task find(String taskId) {
+        Resident entry = locate(taskId);
+        return entry == null ? null : entry.tasks.get(taskId);
+    }
+
+    @Override
+    public synchronized boolean contains(String taskId) { return locate(taskId) != null; }
+
+    @Override
+    public synchronized boolean delete(String taskId) {
+        Resident entry = locate(taskId);
+        if (entry == null) return false;
+        entry.tasks.remove(taskId);
+        entry.dirty = true;
+        residentWeight--;
+        removeIndex(taskId.hashCode(), entry.segment.number);
+        taskCount--;
+        return true;
+    }
+
+    /** Filtering by projectId touches one segment; any other field scans the file. */
+    @Override
+    public synchronized List<Task> findWhere(String field, String value) {
+        List<Task> result = new ArrayList<>();
+        if (field.equals("projectId")) {
+            Resident entry = fault(value);
+            if (entry != null) {
+                for (Task task : entry.tasks.values()) if (value.equals(task.getProjectId())) result.add(task);
+            }
+            return result;
+        }
+        for (String projectId : new ArrayList<>(segments.keySet())) {
+            for (Task task : peek(projectId).tasks.values()) {
+                if (value.equals(fieldOf(task, field))) result.add(task);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Streams the tasks one segment at a time; a segment that is not resident is
+     * read for the iteration and dropped after it. Projects added after the
+     * iteration started are not visited.
+     */
+    @Override
+    public Iterator<Task> iterator() {
+        List<String> projectIds = projectIds();
+        return new Iterator<Task>() {
+            private int next;
+            private Iterator<Task> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext()) {
+                    if (next == projectIds.size()) return false;
+                    current = tasksOf(projectIds.get(next++)).iterator();
+                }
+                return true;
+            }
+
+            @Override
+            public Task next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return current.next();
+            }
+        };
+    }
+
+    @Override
+    public synchronized int size() { return taskCount; }
+
+    private synchronized List<String> projectIds() { return new ArrayList<>(segments.keySet()); }
+
+    private synchronized Project projectOf(String projectId) {
+        return segments.containsKey(projectId) ? peek(projectId).project : null;
+    }
+
+    /** A copy of one segment's task list, empty if the project is gone. */
+    private synchronized List<Task> tasksOf(String projectId) {
+        return segments.containsKey(projectId) ? new ArrayList<>(peek(projectId).tasks.values()) : Collections.emptyList();
+    }
+
+    // ---- maintenance and statistics ----
+
+    /** Write every edited resident segment back and sync the file. */
+    public synchronized void flush() throws IOException {
+        for (Resident entry : resident.values()) {
+            if (entry.dirty) writeBack(entry);
+        }
+        file.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        file.close();
+    }
+
+    public synchronized long getHits() { return hits; }
+    public synchronized long getFaults() { return faults; }
+    public synchronized long getEvictions() { return evictions; }
+    public synchronized long getWriteBacks() { return writeBacks; }
+    public synchronized int getResidentProjects() { return resident.size(); }
+    public synchronized int getResidentWeight() { return residentWeight; }
+    public synchronized long getFileBytes() { return (long) pageCount * PAGE_SIZE; }
+
+    public synchronized double getHitRate() {
+        long lookups = hits + faults;
+        return lookups == 0 ? 0.0 : (hits * 100.0) / lookups;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("PagedStore[projects=%d, tasks=%d, resident=%d (weight %d/%d), hits=%d, faults=%d, evictions=%d, writeBacks=%d, hitRate=%.1f%%, file=%d KB]",
+                segments.size(), taskCount, resident.size(), residentWeight, maxResidentWeight,
+                hits, faults, evictions, writeBacks, getHitRate(), getFileBytes() / 1024);
+    }
+
+    // ---- residency ----
+
+    /** The resident segment for a project, reading it in (and evicting others) on a miss. */
+    private Resident fault(String projectId) {
+        if (projectId == null) return null;
+        Resident entry = resident.get(projectId);
+        if (entry != null) {
+            hits++;
+            return entry;
+        }
+        Segment segment = segments.get(projectId);
+        if (segment == null) return null;
+        faults++;
+        entry = read(segment);
+        admit(projectId, entry);
+        return entry;
+    }
+
+    /** A segment's contents without making it resident; used by full scans. */
+    private Resident peek(String projectId) {
+        Resident entry = resident.get(projectId);
+        return entry != null ? entry : read(segments.get(projectId));
+    }
+
+    private void admit(String projectId, Resident entry) {
+        resident.put(projectId, entry);
+        residentWeight += entry.weight();
+        evict(entry);
+    }
+
+    /** Evict least recently used segments until the working set fits, never the one in use. */
+    private void evict(Resident keep) {
+        Iterator<Resident> eldest = resident.values().iterator();
+        while (residentWeight > maxResidentWeight && eldest.hasNext()) {
+            Resident entry = eldest.next();
+            if (entry == keep) continue;
+            if (entry.dirty) writeBack(entry);
+            eldest.remove();
+            residentWeight -= entry.weight();
+            evictions++;
+        }
+    }
+
+    // ---- write-back through model setters ----
+
+    private void watch(Task task) {
+        task.setChangeListener(this::onTaskChanged);
+    }
+
+    private void watch(Project project) {
+        project.setChangeListener(this::onProjectChanged);
+    }
+
+    private void onTaskChanged(Object source, String field, Object oldValue, Object newValue) {
+        Task task = (Task) source;
+        ChangeListener onChange;
+        synchronized (this) {
+            String taskId = field.equals("taskId") ? (String) oldValue : task.getTaskId();
+            Resident entry = locate(taskId);
+            if (entry == null) return; // deleted from the store meanwhile
+            entry.tasks.remove(taskId);
+            entry.dirty = true;
+            residentWeight--;
+            Resident home = entry;
+            if (field.equals("projectId")) {
+                Resident target = fault(task.getProjectId());
+                if (target != null) {
+                    home = target;
+                    home.dirty = true;
+                }
+            }
+            // also re-adopts an object whose segment was evicted and read in again
+            home.tasks.put(task.getTaskId(), task);
+            residentWeight++;
+            if (home != entry || !taskId.equals(task.getTaskId())) {
+                removeIndex(taskId.hashCode(), entry.segment.number);
+                insertIndex(task.getTaskId().hashCode(), home.segment.number);
+            }
+            onChange = taskListener;
+        }
+        if (onChange != null) onChange.onChange(source, field, oldValue, newValue);
+    }
+
+    private void onProjectChanged(Object source, String field, Object oldValue, Object newValue) {
+        Project project = (Project) source;
+        ChangeListener onChange;
+        synchronized (this) {
+            String projectId = field.equals("projectId") ? (String) oldValue : project.getProjectId();
+            Resident entry = fault(projectId);
+            if (entry == null) return;
+            entry.project = project;
+            entry.dirty = true;
+            if (field.equals("projectId")) rekey(projectId, project.getProjectId(), entry);
+            onChange = projectListener;
+        }
+        if (onChange != null) onChange.onChange(source, field, oldValue, newValue);
+    }
+
+    private void rekey(String projectId, String renamed, Resident entry) {
+        Segment segment = segments.remove(projectId);
+        segment.projectId = renamed;
+        segments.put(renamed, segment);
+        resident.remove(projectId);
+        resident.put(renamed, entry);
+    }
+
+    // ---- task index ----
+
+    private void number(Segment segment, String projectId) {
+        Integer free = freeNumbers.poll();
+        segment.number = free != null ? free : numbered.size();
+        segment.projectId = projectId;
+        if (free != null) numbered.set(segment.number, segment);
+        else numbered.add(segment);
+    }
+
+    private void unnumber(Segment segment) {
+        numbered.set(segment.number, null);
+        freeNumbers.push(segment.number);
+    }
+
+    /** The resident segment holding the task, faulting in the segments its hash points at; null if absent. */
+    private Resident locate(String taskId) {
+        if (taskId == null) return null;
+        int hash = taskId.hashCode();
+        int mask = indexCapacity - 1;
+        for (int i = mix(hash) & mask; ; i = (i + 1) & mask) {
+            int ref = taskIndex.getInt(i * INDEX_SLOT + 4);
+            if (ref == 0) return null;
+            if (ref > 0 && taskIndex.getInt(i * INDEX_SLOT) == hash) {
+                Resident entry = fault(numbered.get(ref - 1).projectId);
+                if (entry.tasks.containsKey(taskId)) return entry;
+            }
+        }
+    }
+
+    private void insertIndex(int hash, int segmentNumber) {
+        if ((indexUsed + 1) * 2 > indexCapacity) rebuildIndex();
+        int mask = indexCapacity - 1;
+        int i = mix(hash) & mask;
+        while (taskIndex.getInt(i * INDEX_SLOT + 4) > 0) i = (i + 1) & mask;
+        if (taskIndex.getInt(i * INDEX_SLOT + 4) == 0) indexUsed++;
+        taskIndex.putInt(i * INDEX_SLOT, hash);
+        taskIndex.putInt(i * INDEX_SLOT + 4, segmentNumber + 1);
+    }
+
+    private void removeIndex(int hash, int segmentNumber) {
+        int mask = indexCapacity - 1;
+        for (int i = mix(hash) & mask; ; i = (i + 1) & mask) {
+            int ref = taskIndex.getInt(i * INDEX_SLOT + 4);
+            if (ref == 0) return;
+            if (ref == segmentNumber + 1 && taskIndex.getInt(i * INDEX_SLOT) == hash) {
+                taskIndex.putInt(i * INDEX_SLOT + 4, -1);
+                return;
+            }
+        }
+    }
+
+    /** Rehash the live slots, dropping removed ones, into a table at most a quarter full. */
+    private void rebuildIndex() {
+        ByteBuffer old = taskIndex;
+        int oldCapacity = indexCapacity;
+        int live = 0;
+        for (int i = 0; i < oldCapacity; i++) if (old.getInt(i * INDEX_SLOT + 4) > 0) live++;
+        int capacity = oldCapacity;
+        while ((live + 1) * 4 > capacity) capacity *= 2;
+        taskIndex = ByteBuffer.allocateDirect(capacity * INDEX_SLOT);
+        indexCapacity = capacity;
+        indexUsed = 0;
+        for (int i = 0; i < oldCapacity; i++) {
+            int ref = old.getInt(i * INDEX_SLOT + 4);
+            if (ref > 0) insertIndex(old.getInt(i * INDEX_SLOT), ref - 1);
+        }
+    }
+
+    private static int mix(int h) { return h ^ (h >>> 16); }
+
+    // ---- file layout ----
+
+    /** Rebuild the directory and free list with one sequential pass over the file. */
+    private void load() throws IOException {
+        long size = file.size();
+        pageCount = (int) ((size + PAGE_SIZE - 1) / PAGE_SIZE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        int page = 0;
+        while (page < pageCount) {
+            header.clear();
+            file.read(header, (long) page * PAGE_SIZE);
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+                freeRuns.add(new Segment(page, 1));
+                page++;
+                continue;
+            }
+            int pages = Math.max(1, header.getInt());
+            header.getInt();
+            boolean live = header.getInt() == 1;
+            Segment segment = new Segment(page, pages);
+            if (live) {
+                Resident entry = read(segment);
+                String projectId = entry.project.getProjectId();
+                segments.put(projectId, segment);
+                number(segment, projectId);
+                for (String taskId : entry.tasks.keySet()) insertIndex(taskId.hashCode(), segment.number);
+                taskCount += entry.tasks.size();
+            } else {
+                freeRuns.add(segment);
+            }
+            page += pages;
+        }
+    }
+
+    private Resident read(Segment segment) {
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            file.read(header, (long) segment.start * PAGE_SIZE);
+            header.flip();
+            header.getInt();
+            header.getInt();
+            int length = header.getInt();
+            ByteBuffer body = ByteBuffer.allocate(length);
+            long position = (long) segment.start * PAGE_SIZE + HEADER_SIZE;
+            while (body.hasRemaining()) {
+                if (file.read(body, position + body.position()) < 0) throw new IOException("truncated segment at page " + segment.start);
+            }
+            String[] lines = new String(body.array(), StandardCharsets.UTF_8).split("\n");
+            Project project = ReplicationCodec.parseProject(BatchCommandRunner.tokenize(lines[0]));
+            watch(project);
+            Map<String, Task> tasks = new LinkedHashMap<>();
+            for (int i = 1; i < lines.length; i++) {
+                Task task = ReplicationCodec.parseTask(BatchCommandRunner.tokenize(lines[i]));
+                watch(task);
+                tasks.put(task.getTaskId(), task);
+            }
+            Resident entry = new Resident(project, tasks);
+            entry.segment = segment;
+            return entry;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeBack(Resident entry) {
+        StringBuilder text = new StringBuilder(ReplicationCodec.put(entry.project));
+        for (Task task : entry.tasks.values()) text.append('\n').append(ReplicationCodec.put(task));
+        byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+        int needed = (HEADER_SIZE + body.length + PAGE_SIZE - 1) / PAGE_SIZE;
+        Segment segment = entry.segment;
+        if (segment.pages < needed) {
+            if (segment.start >= 0) free(new Segment(segment.start, segment.pages));
+            Segment run = allocate(needed);
+            segment.start = run.start;
+            segment.pages = run.pages;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + body.length);
+        buffer.putInt(MAGIC).putInt(segment.pages).putInt(body.length).putInt(1).put(body).flip();
+        write(buffer, segment.start);
+        entry.dirty = false;
+        writeBacks++;
+    }
+
+    /** First fit from the free list, splitting a larger run; otherwise extend the file. */
+    private Segment allocate(int pages) {
+        for (int i = 0; i < freeRuns.size(); i++) {
+            Segment run = freeRuns.get(i);
+            if (run.pages < pages) continue;
+            freeRuns.remove(i);
+            if (run.pages > pages) free(new Segment(run.start + pages, run.pages - pages));
+            return new Segment(run.start, pages);
+        }
+        Segment run = new Segment(pageCount, pages);
+        pageCount += pages;
+        return run;
+    }
+
+    /** Mark a run of pages as a dead segment so a reload also sees it as free. */
+    private void free(Segment run) {
+        if (run == null || run.start < 0) return;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(run.pages).putInt(0).putInt(0).flip();
+        write(header, run.start);
+        freeRuns.add(new Segment(run.start, run.pages));
+    }
+
+    private void write(ByteBuffer buffer, int page) {
+        try {
+            long position = (long) page * PAGE_SIZE;
+            while (buffer.hasRemaining()) file.write(buffer, position + buffer.position());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Task copy(Task task) {
+        return ReplicationCodec.parseTask(BatchCommandRunner.tokenize(ReplicationCodec.put(task)));
+    }
+
+    private Project copy(Project project) {
+        Project stored = ReplicationCodec.parseProject(BatchCommandRunner.tokenize(ReplicationCodec.put(project)));
+        watch(stored);
+        return stored;
+    }
+
+    private static String fieldOf(Task task, String field) {
+        switch (field) {
+            case "taskId": return task.getTaskId();
+            case "projectId": return task.getProjectId();
+            case "taskName": return task.getTaskName();
+            case "description": return task.getDescription();
+            case "assignedTo": return task.getAssignedTo();
+            case "priority": return task.getPriority();
+            case "status": return task.getStatus();
+            case "dueDate": return task.getDueDate();
+            default: throw new IllegalArgumentException("unknown task field " + field);
+        }
+    }
+
+    /**
+     * A run of pages; start is -1 until the segment is first written. A live
+     * segment also has its project ID and the number the task index refers to it by.
+     */
+    private static final class Segment {
+        int start;
+        int pages;
+        int number = -1;
+        String projectId;
+
+        Segment(int start, int pages) {
+            this.start = start;
+            this.pages = pages;
+        }
+    }
+
+    /** A project and its tasks held in memory, with the segment they came from. */
+    private static final class Resident {
+        Project project;
+        final Map<String, Task> tasks;
+        Segment segment;
+        boolean dirty;
+
+        Resident(Project project, Map<String, Task> tasks) {
+            this.project = project;
+            this.tasks = tasks;
+        }
+
+        int weight() { return 1 + tasks.size(); }
+    }
+}
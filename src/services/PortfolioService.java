@@ -0,0 +1,338 @@
+package services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import interfaces.ProjectEventListener;
+import interfaces.TaskEventListener;
+import models.Portfolio;
+import models.Project;
+import models.Task;
+
+/**
+ * Portfolios and programs over the projects of a ProjectServices/TaskService pair.
+ *
+ * Every project belongs to at most one portfolio, with a weight. The service
+ * remembers what each project currently contributes (weight, weight times
+ * completion, budget, task counts) and, on any project or task event, applies
+ * only the difference to the project's portfolio, which carries it up to the
+ * root. An update costs O(depth); reading a node's rollup costs O(1).
+ *
+ * Assignments are by project ID and outlive the project's removal, so a project
+ * that is replaced, or deleted and re-added, contributes again when it comes
+ * back; while it is gone it contributes nothing. Archived projects are not gone:
+ * they keep contributing.
+ */
+public class PortfolioService implements ProjectEventListener, TaskEventListener {
+    private final Map<String, Portfolio> portfolios = new HashMap<>();
+    private final Map<String, Member> members = new HashMap<>();
+    private final Map<Portfolio, Set<Member>> membersByPortfolio = new HashMap<>();
+    private boolean quiet;
+
+    public PortfolioService(ProjectServices projectService, TaskService taskService) {
+        for (Project project : projectService.scan()) projectAdded(project);
+        for (Task task : taskService.scan()) taskAdded(task);
+        projectService.addProjectEventListener(this);
+        taskService.addTaskEventListener(this);
+    }
+
+    /** Create a portfolio, at the top level when {@code parentId} is null. */
+    public synchronized boolean createPortfolio(String portfolioId, String name, String parentId) {
+        if (portfolios.containsKey(portfolioId)) {
+            log("Error: Portfolio ID already exists!");
+            return false;
+        }
+        Portfolio parent = null;
+        if (parentId != null) {
+            parent = portfolios.get(parentId);
+            if (parent == null) {
+                log("Error: Parent portfolio not found!");
+                return false;
+            }
+        }
+        Portfolio portfolio = new Portfolio(portfolioId, name);
+        portfolio.setParent(parent);
+        portfolios.put(portfolioId, portfolio);
+        return true;
+    }
+
+    /** Move a portfolio and everything below it under another one (null for the top level). */
+    public synchronized boolean movePortfolio(String portfolioId, String parentId) {
+        Portfolio portfolio = portfolios.get(portfolioId);
+        Portfolio parent = parentId == null ? null : portfolios.get(parentId);
+        if (portfolio == null || (parentId != null && parent == null)) {
+            log("Error: Portfolio not found!");
+            return false;
+        }
+        if (!portfolio.setParent(parent)) {
+            log("Error: A portfolio cannot be moved inside itself!");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Remove a portfolio; its projects and sub-portfolios move up to its parent,
+     * or become unassigned and top-level when it has none.
+     */
+    public synchronized boolean deletePortfolio(String portfolioId) {
+        Portfolio portfolio = portfolios.remove(portfolioId);
+        if (portfolio == null) {
+            log("Error: Portfolio not found!");
+            return false;
+        }
+        Portfolio parent = portfolio.getParent();
+        for (Portfolio child : portfolio.getChildren()) child.setParent(parent);
+        Set<Member> moved = membersByPortfolio.remove(portfolio);
+        if (moved != null) {
+            for (Member member : moved) {
+                contribute(member, -1);
+                member.portfolio = null;
+                join(member, parent);
+                contribute(member, 1);
+                forget(member);
+            }
+        }
+        portfolio.setParent(null);
+        return true;
+    }
+
+    /** Assign a project to a portfolio with weight 1. */
+    public boolean assignProject(String projectId, String portfolioId) {
+        return assignProject(projectId, portfolioId, 1);
+    }
+
+    /** Assign (or reassign, or reweight) a project; {@code weight} must be positive. */
+    public synchronized boolean assignProject(String projectId, String portfolioId, long weight) {
+        Portfolio portfolio = portfolios.get(portfolioId);
+        Member member = members.get(projectId);
+        if (portfolio == null) {
+            log("Error: Portfolio not found!");
+            return false;
+        }
+        if (member == null || !member.present) {
+            log("Error: Project not found!");
+            return false;
+        }
+        if (weight <= 0) {
+            log("Error: Weight must be positive!");
+            return false;
+        }
+        contribute(member, -1);
+        leave(member);
+        member.weight = weight;
+        join(member, portfolio);
+        contribute(member, 1);
+        return true;
+    }
+
+    public synchronized boolean unassignProject(String projectId) {
+        Member member = members.get(projectId);
+        if (member == null || member.portfolio == null) {
+            log("Error: Project is not in a portfolio!");
+            return false;
+        }
+        contribute(member, -1);
+        leave(member);
+        return true;
+    }
+
+    public synchronized Portfolio findPortfolio(String portfolioId) { return portfolios.get(portfolioId); }
+
+    /** The portfolio a project is assigned to, or null. */
+    public synchronized Portfolio getPortfolioOf(String projectId) {
+        Member member = members.get(projectId);
+        return member == null ? null : member.portfolio;
+    }
+
+    public synchronized long getWeight(String projectId) {
+        Member member = members.get(projectId);
+        return member == null || member.portfolio == null ? 0 : member.weight;
+    }
+
+    /** IDs of the projects assigned directly to the portfolio that are currently present. */
+    public synchronized List<String> getProjectIds(String portfolioId) {
+        List<String> ids = new ArrayList<>();
+        Portfolio portfolio = portfolios.get(portfolioId);
+        if (portfolio == null) return ids;
+        for (Member member : membersByPortfolio.getOrDefault(portfolio, Collections.emptySet())) {
+            if (member.present) ids.add(member.projectId);
+        }
+        return ids;
+    }
+
+    public synchronized List<Portfolio> getRootPortfolios() {
+        List<Portfolio> roots = new ArrayList<>();
+        for (Portfolio portfolio : portfolios.values()) if (portfolio.getParent() == null) roots.add(portfolio);
+        roots.sort((a, b) -> a.getPortfolioId().compareTo(b.getPortfolioId()));
+        return roots;
+    }
+
+    public synchronized int getPortfolioCount() { return portfolios.size(); }
+
+    /** Suppresses per-operation console messages (used by batch mode). */
+    public void setQuiet(boolean quiet) { this.quiet = quiet; }
+
+    public boolean isQuiet() { return quiet; }
+
+    // ---- events ----
+
+    @Override
+    public synchronized void projectAdded(Project project) {
+        Member member = member(project.getProjectId());
+        contribute(member, -1);
+        member.present = true;
+        read(member, project);
+        contribute(member, 1);
+    }
+
+    @Override
+    public synchronized void projectRemoved(Project project) {
+        Member member = members.get(project.getProjectId());
+        if (member == null) return;
+        contribute(member, -1);
+        member.present = false;
+        forget(member);
+    }
+
+    @Override
+    public synchronized void projectChanged(Project project, String field, Object oldValue, Object newValue) {
+        if (field.equals("projectId")) {
+            // the assignment follows the project; its tasks still name the old ID
+            Member old = members.get((String) oldValue);
+            Member renamed = member(project.getProjectId());
+            if (old != null) {
+                contribute(old, -1);
+                old.present = false;
+                if (old.portfolio != null && renamed.portfolio == null) {
+                    Portfolio portfolio = old.portfolio;
+                    long weight = old.weight;
+                    leave(old);
+                    renamed.weight = weight;
+                    join(renamed, portfolio);
+                }
+                forget(old);
+            }
+            projectAdded(project);
+            return;
+        }
+        Member member = members.get(project.getProjectId());
+        if (member == null || !member.present) return;
+        long completion = completionUnits(project);
+        long budget = Math.round(project.getBudget() * 100);
+        if (completion == member.completion && budget == member.budgetCents) return;
+        contribute(member, -1);
+        member.completion = completion;
+        member.budgetCents = budget;
+        contribute(member, 1);
+    }
+
+    @Override
+    public synchronized void taskAdded(Task task) {
+        Member member = member(task.getProjectId());
+        contribute(member, -1);
+        member.tasks++;
+        if (task.isCompleted()) member.completedTasks++;
+        contribute(member, 1);
+    }
+
+    @Override
+    public synchronized void taskRemoved(Task task) {
+        Member member = members.get(task.getProjectId());
+        if (member == null) return;
+        contribute(member, -1);
+        member.tasks--;
+        if (task.isCompleted()) member.completedTasks--;
+        contribute(member, 1);
+        forget(member);
+    }
+
+    @Override
+    public synchronized void taskChanged(Task task, String field, Object oldValue, Object newValue) {
+        if (field.equals("status")) {
+            boolean was = "Completed".equalsIgnoreCase((String) oldValue);
+            if (was == task.isCompleted()) return;
+            Member member = member(task.getProjectId());
+            contribute(member, -1);
+            member.completedTasks += was ? -1 : 1;
+            contribute(member, 1);
+        } else if (field.equals("projectId")) {
+            Member from = member((String) oldValue);
+            Member to = member(task.getProjectId());
+            int completed = task.isCompleted() ? 1 : 0;
+            contribute(from, -1);
+            from.tasks--;
+            from.completedTasks -= completed;
+            contribute(from, 1);
+            contribute(to, -1);
+            to.tasks++;
+            to.completedTasks += completed;
+            contribute(to, 1);
+            forget(from);
+        }
+    }
+
+    // ---- internals ----
+
+    /** Add ({@code sign} 1) or withdraw ({@code sign} -1) what the member currently contributes. */
+    private static void contribute(Member member, int sign) {
+        if (member.portfolio == null || !member.present) return;
+        member.portfolio.adjust(sign * member.weight, sign * member.weight * member.completion,
+                sign * member.budgetCents, sign, sign * member.tasks, sign * member.completedTasks);
+    }
+
+    private static void read(Member member, Project project) {
+        member.completion = completionUnits(project);
+        member.budgetCents = Math.round(project.getBudget() * 100);
+    }
+
+    private static long completionUnits(Project project) {
+        double percentage = project.getCompletionPercentage();
+        long units = Math.round(percentage * Portfolio.FULL / 100);
+        return Math.max(0, Math.min(Portfolio.FULL, units));
+    }
+
+    private Member member(String projectId) {
+        return members.computeIfAbsent(projectId, Member::new);
+    }
+
+    private void join(Member member, Portfolio portfolio) {
+        member.portfolio = portfolio;
+        if (portfolio != null) membersByPortfolio.computeIfAbsent(portfolio, key -> new LinkedHashSet<>()).add(member);
+    }
+
+    private void leave(Member member) {
+        if (member.portfolio == null) return;
+        Set<Member> set = membersByPortfolio.get(member.portfolio);
+        if (set != null && set.remove(member) && set.isEmpty()) membersByPortfolio.remove(member.portfolio);
+        member.portfolio = null;
+        member.weight = 1;
+    }
+
+    /** Drop bookkeeping that no longer carries anything. */
+    private void forget(Member member) {
+        if (!member.present && member.portfolio == null && member.tasks == 0) members.remove(member.projectId);
+    }
+
+    private void log(String message) {
+        if (!quiet) System.out.println(message);
+    }
+
+    /** Per-project state: its assignment and what it contributed last. */
+    private static final class Member {
+        final String projectId;
+        Portfolio portfolio;
+        long weight = 1;
+        boolean present;
+        long completion;
+        long budgetCents;
+        int tasks;
+        int completedTasks;
+
+        Member(String projectId) { this.projectId = projectId; }
+    }
+}
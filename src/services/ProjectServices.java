@@ -1,108 +1,380 @@
 package services;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import interfaces.ProjectEventListener;
+import models.Permission;
 import models.Project;
+import models.Task;
+import models.User;
+import utils.Snapshot;
+import utils.SnapshotArray;
+import utils.StringDictionary;
+import utils.VersionedCopies;
 
 /** Service class for managing project operations (in-memory). */
 public class ProjectServices {
-    private Project[] projects;
-    private int projectCount;
+    private final SnapshotArray<Project> projects = new SnapshotArray<>();
+    /** What {@link #snapshot()} hands out for heap-resident projects. */
+    private final VersionedCopies<Project> copies = new VersionedCopies<>(Project::copy, Project::getVersion);
     private static final int MAX_PROJECTS = 100;
+    private static final Project[] NO_PROJECTS = new Project[0];
+    private boolean quiet;
+    private final List<ProjectEventListener> listeners = new ArrayList<>();
+
+    private PagedStore store;
+    private ArchiveService archive;
+    private TaskService taskService;
+    /** Set while the archive moves a project out or back; listeners then get archive events. */
+    private boolean archiveMove;
+    private final ConflictStats conflictStats = new ConflictStats();
 
     public ProjectServices() {
-        this.projects = new Project[MAX_PROJECTS];
-        this.projectCount = 0;
+    }
+
+    /**
+     * Keep projects (and, through a TaskService on the same store, their tasks) in
+     * a disk-backed {@link PagedStore} with a bounded working set. Lifts the
+     * MAX_PROJECTS limit; lookups fault the project's pages in transparently.
+     */
+    public ProjectServices(PagedStore store) {
+        this.store = store;
+        store.setProjectListener(this::onProjectChanged);
     }
 
     public boolean addProject(Project project) {
-        if (projectCount >= MAX_PROJECTS) {
-            System.out.println("Error: Maximum project limit reached!");
+        if (store != null) {
+            if (!store.addProject(project)) {
+                log("Error: Project ID already exists!");
+                return false;
+            }
+            projects.touch();
+            Project stored = store.findProject(project.getProjectId());
+            for (ProjectEventListener listener : listeners) listener.projectAdded(stored);
+            log("Project added successfully.");
+            return true;
+        }
+        if (projects.size() >= MAX_PROJECTS) {
+            log("Error: Maximum project limit reached!");
             return false;
         }
         if (findProjectById(project.getProjectId()) != null) {
-            System.out.println("Error: Project ID already exists!");
+            log("Error: Project ID already exists!");
             return false;
         }
-        projects[projectCount++] = project;
-        System.out.println("Project added successfully.");
+        projects.add(project);
+        copies.added(project);
+        attach(project);
+        log("Project added successfully.");
         return true;
     }
 
+    /**
+     * Project IDs are dictionary-interned, so an ID no live project holds fails fast
+     * and matches are reference compares.
+     */
     public Project findProjectById(String projectId) {
-        for (int i = 0; i < projectCount; i++) {
-            if (projects[i].getProjectId().equals(projectId)) return projects[i];
-        }
-        return null;
+        if (store != null) return store.findProject(projectId);
+        String canonical = StringDictionary.shared().lookup(projectId);
+        Project project = canonical == null ? null : projects.find(candidate -> candidate.getProjectId() == canonical);
+        if (project != null) return project;
+        return archive != null ? archive.findProject(projectId) : null;
     }
 
+    /** Called by the archive it registers with; archived projects are then found (read-only) by ID. */
+    void setArchive(ArchiveService archive) { this.archive = archive; }
+
+    /** Called by a TaskService sharing the paged store, which is told of the tasks a project deletion drops. */
+    void setTaskService(TaskService taskService) { this.taskService = taskService; }
+
     public boolean updateProject(String projectId, Project updatedProject) {
-        for (int i = 0; i < projectCount; i++) {
-            if (projects[i].getProjectId().equals(projectId)) {
-                projects[i] = updatedProject;
-                System.out.println("Project updated successfully.");
-                return true;
+        if (store != null) return updateInStore(projectId, updatedProject);
+        int i = indexOf(projectId);
+        if (i < 0 && archive != null && archive.restore(projectId)) i = indexOf(projectId);
+        if (i >= 0) {
+            Project current = projects.get(i);
+            if (current != updatedProject) {
+                detach(current);
+                projects.set(i, updatedProject);
+                copies.replaced(current, updatedProject);
+                attach(updatedProject);
             }
+            log("Project updated successfully.");
+            return true;
         }
-        System.out.println("Error: Project not found!");
+        log("Error: Project not found!");
         return false;
     }
 
+    /**
+     * Apply {@code edit} only if the project's version is still {@code expectedVersion};
+     * see {@link TaskService#updateTaskIfVersion(String, long, Consumer)}. With an
+     * external store the result is UNSUPPORTED.
+     */
+    public UpdateResult updateProjectIfVersion(String projectId, long expectedVersion, Consumer<Project> edit) {
+        if (store != null) {
+            log("Error: Versioned updates are not available for projects in an external store!");
+            return UpdateResult.UNSUPPORTED;
+        }
+        Project project = findProjectById(projectId);
+        if (project == null) {
+            log("Error: Project not found!");
+            return UpdateResult.NOT_FOUND;
+        }
+        conflictStats.attempt();
+        if (!project.claimVersion(expectedVersion)) {
+            conflictStats.conflict();
+            log("Error: Project was changed by someone else (version " + project.getVersion() + ", expected " + expectedVersion + ")!");
+            return UpdateResult.CONFLICT;
+        }
+        try {
+            edit.accept(project);
+        } finally {
+            project.releaseVersion();
+        }
+        log("Project updated successfully.");
+        return UpdateResult.UPDATED;
+    }
+
+    public UpdateResult updateProjectIfVersion(String projectId, long expectedVersion, Consumer<Project> edit, User actor) {
+        if (!allowed(actor, Permission.UPDATE_PROJECTS, "UPDATE_PROJECTS")) return UpdateResult.DENIED;
+        return updateProjectIfVersion(projectId, expectedVersion, edit);
+    }
+
+    /** Retry the conditional update with a freshly read version after each conflict, up to {@code maxAttempts} times. */
+    public UpdateResult updateProjectWithRetry(String projectId, Consumer<Project> edit, int maxAttempts) {
+        UpdateResult result = UpdateResult.CONFLICT;
+        for (int attempt = 0; attempt < maxAttempts && result == UpdateResult.CONFLICT; attempt++) {
+            if (attempt > 0) conflictStats.retry();
+            Project project = findProjectById(projectId);
+            if (project == null) return updateProjectIfVersion(projectId, 0, edit);
+            result = updateProjectIfVersion(projectId, project.getVersion(), edit);
+        }
+        return result;
+    }
+
+    public ConflictStats getConflictStats() { return conflictStats; }
+
+    /**
+     * Removes the project only; its tasks stay in TaskService (see
+     * {@link TaskService#deleteProjectWithTasks(String)}), except with a paged store,
+     * where they share the project's segment and are deleted (and reported) with it.
+     */
     public boolean deleteProject(String projectId) {
-        for (int i = 0; i < projectCount; i++) {
-            if (projects[i].getProjectId().equals(projectId)) {
-                for (int j = i; j < projectCount - 1; j++) projects[j] = projects[j + 1];
-                projects[projectCount - 1] = null;
-                projectCount--;
-                System.out.println("Project deleted successfully.");
+        if (store != null) {
+            Project project = store.findProject(projectId);
+            List<Task> dropped = project != null && taskService != null ? store.findWhere("projectId", projectId) : null;
+            if (project != null && store.deleteProject(projectId)) {
+                if (dropped != null) taskService.droppedWithProject(dropped);
+                projects.touch();
+                for (ProjectEventListener listener : listeners) listener.projectRemoved(project);
+                log("Project deleted successfully.");
                 return true;
             }
+            log("Error: Project not found!");
+            return false;
+        }
+        int i = indexOf(projectId);
+        if (i < 0 && archive != null && archive.restore(projectId)) i = indexOf(projectId);
+        if (i >= 0) {
+            Project project = projects.get(i);
+            detach(project);
+            projects.removeAt(i);
+            copies.removed(project);
+            log("Project deleted successfully.");
+            return true;
         }
-        System.out.println("Error: Project not found!");
+        log("Error: Project not found!");
         return false;
     }
 
+    /** {@link #deleteProject} for the archive: listeners are told the project was archived. */
+    boolean archiveProject(String projectId) {
+        archiveMove = true;
+        try {
+            return deleteProject(projectId);
+        } finally {
+            archiveMove = false;
+        }
+    }
+
+    /** {@link #addProject} for the archive: listeners are told the project was restored. */
+    boolean restoreProject(Project project) {
+        archiveMove = true;
+        try {
+            return addProject(project);
+        } finally {
+            archiveMove = false;
+        }
+    }
+
+    /** Report an edit that was made to an archived copy, which has since been restored as the live project. */
+    void changedWhileArchived(Project project, String field, Object oldValue, Object newValue) {
+        onProjectChanged(project, field, oldValue, newValue);
+    }
+
+    private boolean updateInStore(String projectId, Project updatedProject) {
+        Project current = store.findProject(projectId);
+        if (current == null) {
+            log("Error: Project not found!");
+            return false;
+        }
+        if (current != updatedProject) {
+            if (!store.replaceProject(projectId, updatedProject)) {
+                log("Error: Project ID already exists!");
+                return false;
+            }
+            projects.touch();
+            Project stored = store.findProject(updatedProject.getProjectId());
+            for (ProjectEventListener listener : listeners) listener.projectRemoved(current);
+            for (ProjectEventListener listener : listeners) listener.projectAdded(stored);
+        }
+        log("Project updated successfully.");
+        return true;
+    }
+
+    private int indexOf(String projectId) {
+        String canonical = StringDictionary.shared().lookup(projectId);
+        if (canonical == null) return -1;
+        return projects.indexOf(project -> project.getProjectId() == canonical);
+    }
+
+    /**
+     * Detached copies of every project as of this call, without task lists; see
+     * {@link TaskService#snapshot()}. With a paged store this reads every project
+     * onto the heap on each call; readers that only iterate should use {@link #scan()}.
+     */
+    public Snapshot<Project> snapshot() {
+        if (store == null) return copies.snapshot();
+        SnapshotArray<Project> views = new SnapshotArray<>();
+        for (Project project : store.projects()) views.add(project);
+        return views.snapshot();
+    }
+
+    public boolean hasExternalStore() { return store != null; }
+
+    /** Every project, for a single pass; streamed one segment at a time from a paged store. */
+    public Iterable<Project> scan() {
+        return store != null ? store.projects() : projects.snapshot();
+    }
+
+    /** Registers an observer for projects added, removed or edited in this service. */
+    public void addProjectEventListener(ProjectEventListener listener) { listeners.add(listener); }
+
+    public void removeProjectEventListener(ProjectEventListener listener) { listeners.remove(listener); }
+
+    private void attach(Project project) {
+        project.setChangeListener(this::onProjectChanged);
+        for (ProjectEventListener listener : listeners) {
+            if (archiveMove) listener.projectRestored(project);
+            else listener.projectAdded(project);
+        }
+    }
+
+    private void detach(Project project) {
+        project.setChangeListener(null);
+        for (ProjectEventListener listener : listeners) {
+            if (archiveMove) listener.projectArchived(project);
+            else listener.projectRemoved(project);
+        }
+    }
+
+    private void onProjectChanged(Object source, String field, Object oldValue, Object newValue) {
+        projects.touch();
+        copies.changed((Project) source);
+        for (ProjectEventListener listener : listeners) listener.projectChanged((Project) source, field, oldValue, newValue);
+    }
+
+    /** Incremented on every add, replace, delete and in-place project edit. */
+    public long getDataVersion() { return projects.version(); }
+
+    /** Shared by callers until the projects change, so do not modify it. */
     public Project[] getAllProjects() {
-        Project[] result = new Project[projectCount];
-        for (int i = 0; i < projectCount; i++) result[i] = projects[i];
-        return result;
+        if (store != null) return snapshot().toArray(NO_PROJECTS);
+        return projects.snapshot().sharedArray(NO_PROJECTS);
     }
 
     public Project[] getProjectsByStatus(String status) {
-        int count = 0;
-        for (int i = 0; i < projectCount; i++) if (projects[i].getStatus().equalsIgnoreCase(status)) count++;
-        Project[] result = new Project[count];
-        int index = 0;
-        for (int i = 0; i < projectCount; i++) if (projects[i].getStatus().equalsIgnoreCase(status)) result[index++] = projects[i];
-        return result;
+        List<Project> result = new ArrayList<>();
+        for (Project project : scan()) if (project.getStatus().equalsIgnoreCase(status)) result.add(project);
+        return result.toArray(NO_PROJECTS);
     }
 
     public Project[] getProjectsByType(String type) {
-        int count = 0;
-        for (int i = 0; i < projectCount; i++) if (projects[i].getProjectType().equalsIgnoreCase(type)) count++;
-        Project[] result = new Project[count];
-        int index = 0;
-        for (int i = 0; i < projectCount; i++) if (projects[i].getProjectType().equalsIgnoreCase(type)) result[index++] = projects[i];
-        return result;
+        List<Project> result = new ArrayList<>();
+        for (Project project : scan()) if (project.getProjectType().equalsIgnoreCase(type)) result.add(project);
+        return result.toArray(NO_PROJECTS);
+    }
+
+    public boolean addProject(Project project, User actor) {
+        return allowed(actor, Permission.CREATE_PROJECTS, "CREATE_PROJECTS") && addProject(project);
+    }
+
+    public boolean updateProject(String projectId, Project updatedProject, User actor) {
+        return allowed(actor, Permission.UPDATE_PROJECTS, "UPDATE_PROJECTS") && updateProject(projectId, updatedProject);
+    }
+
+    public boolean deleteProject(String projectId, User actor) {
+        return allowed(actor, Permission.DELETE_PROJECTS, "DELETE_PROJECTS") && deleteProject(projectId);
+    }
+
+    public Project findProjectById(String projectId, User viewer) {
+        return allowed(viewer, Permission.VIEW_PROJECTS, "VIEW_PROJECTS") ? findProjectById(projectId) : null;
+    }
+
+    public Project[] getAllProjects(User viewer) {
+        return allowed(viewer, Permission.VIEW_PROJECTS, "VIEW_PROJECTS") ? getAllProjects() : NO_PROJECTS;
+    }
+
+    public Project[] getProjectsByStatus(String status, User viewer) {
+        return allowed(viewer, Permission.VIEW_PROJECTS, "VIEW_PROJECTS") ? getProjectsByStatus(status) : NO_PROJECTS;
+    }
+
+    public Project[] getProjectsByType(String type, User viewer) {
+        return allowed(viewer, Permission.VIEW_PROJECTS, "VIEW_PROJECTS") ? getProjectsByType(type) : NO_PROJECTS;
+    }
+
+    private boolean allowed(User user, int permission, String name) {
+        if (user.hasPermission(permission)) return true;
+        log("Error: Access denied - " + name + " required!");
+        return false;
     }
 
     public void displayAllProjects() {
-        if (projectCount == 0) {
-            System.out.println("No projects available.");
-            return;
-        }
-        System.out.println("PROJECT CATALOG");
-        for (int i = 0; i < projectCount; i++) {
-            System.out.printf("\n[%d] ", i + 1);
-            projects[i].displayProjectInfo();
+        int shown = 0;
+        for (Project project : scan()) {
+            if (shown == 0) System.out.println("PROJECT CATALOG");
+            System.out.printf("\n[%d] ", ++shown);
+            project.displayProjectInfo();
         }
-        System.out.println("Total Projects: " + projectCount);
+        if (shown == 0) System.out.println("No projects available.");
+        else System.out.println("Total Projects: " + shown);
     }
 
-    public int getProjectCount() { return projectCount; }
+    public int getProjectCount() { return store != null ? store.projectCount() : projects.size(); }
+
+    /** Suppresses per-operation console messages (used by batch mode). */
+    public void setQuiet(boolean quiet) { this.quiet = quiet; }
+
+    public boolean isQuiet() { return quiet; }
+
+    private void log(String message) {
+        if (!quiet) System.out.println(message);
+    }
 
     public double getAverageCompletion() {
-        if (projectCount == 0) return 0.0;
+        return getAverageCompletion(scan());
+    }
+
+    /** Average completion over one pass of the projects, so a report works from one set of them. */
+    public static double getAverageCompletion(Iterable<Project> view) {
+        int count = 0;
         double total = 0.0;
-        for (int i = 0; i < projectCount; i++) total += projects[i].calculateCompletionPercentage();
-        return total / projectCount;
+        for (Project project : view) {
+            total += project.calculateCompletionPercentage();
+            count++;
+        }
+        return count == 0 ? 0.0 : total / count;
     }
-}
\ No newline at end of file
+}
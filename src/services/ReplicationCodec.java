@@ -0,0 +1,237 @@
+package services;
+
+import java.util.ArrayList;
+import java.util.List;
+import models.HardwareProject;
+import models.Project;
+import models.SoftwareProject;
+import models.Task;
+import utils.BatchCommandRunner;
+
+/**
+ * Text records for the replication log. Each record is one line in batch-command
+ * syntax (double-quoted arguments):
+ *   project.put software|hardware ID ...all fields...      task.put ID ...all fields... TIMESTAMPS LOG
+ *   project.set ID FIELD VALUE                             task.set ID FIELD VALUE
+ *   project.del ID                                         task.del ID
+ * Applying a record is idempotent (put is an upsert, del of a missing entity is a
+ * no-op), so a follower can replay events that a fuzzy snapshot already contains.
+ */
+final class ReplicationCodec {
+    private ReplicationCodec() {}
+
+    /** Records for one change event, or none if the event is not replicated. */
+    static List<String> encode(ChangeEvent event) {
+        List<String> records = new ArrayList<>(1);
+        boolean task = event.getEntity().equals(ChangeEvent.TASK);
+        switch (event.getType()) {
+            case CREATED:
+                records.add(task ? put((Task) event.getNewValue()) : put((Project) event.getNewValue()));
+                break;
+            case DELETED:
+                records.add((task ? "task.del " : "project.del ") + quote(event.getEntityId()));
+                break;
+            default:
+                // an ID change is addressed by the old ID, which the replica still knows
+                boolean rename = event.getField().equals(task ? "taskId" : "projectId");
+                String target = rename ? String.valueOf(event.getOldValue()) : event.getEntityId();
+                records.add((task ? "task.set " : "project.set ") + quote(target) + " " + event.getField() + " "
+                        + quote(String.valueOf(event.getNewValue())));
+        }
+        return records;
+    }
+
+    /** Records that recreate the full contents of both services. */
+    static List<String> snapshot(ProjectServices projectService, TaskService taskService) {
+        List<String> records = new ArrayList<>();
+        for (Project project : projectService.scan()) records.add(put(project));
+        for (Task task : taskService.scan()) records.add(put(task));
+        return records;
+    }
+
+    static String put(Task task) {
+        return "task.put " + quote(task.getTaskId()) + " " + quote(task.getProjectId()) + " " + quote(task.getTaskName())
+                + " " + quote(task.getDescription()) + " " + quote(task.getAssignedTo()) + " " + quote(task.getPriority())
+                + " " + quote(task.getDueDate()) + " " + quote(task.getStatus()) + " " + task.getCreatedAt()
+                + " " + task.getStartedAt() + " " + task.getCompletedAt() + " " + task.getStatusChangedAt()
+                + transitions(task);
+    }
+
+    /** The transition log as a count followed by status/time pairs, oldest first. */
+    private static String transitions(Task task) {
+        StringBuilder text = new StringBuilder(" ").append(task.getTransitionCount());
+        for (int i = 0; i < task.getTransitionCount(); i++) {
+            text.append(' ').append(quote(task.getTransitionStatus(i))).append(' ').append(task.getTransitionTime(i));
+        }
+        return text.toString();
+    }
+
+    static String put(Project project) {
+        String common = quote(project.getProjectId()) + " " + quote(project.getProjectName()) + " "
+                + quote(project.getDescription()) + " " + quote(project.getStartDate()) + " " + quote(project.getEndDate())
+                + " " + project.getBudget() + " " + project.getTeamSize() + " " + quote(project.getStatus()) + " ";
+        if (project instanceof HardwareProject) {
+            HardwareProject hardware = (HardwareProject) project;
+            return "project.put hardware " + common + quote(hardware.getHardwareType()) + " "
+                    + hardware.getTotalComponents() + " " + hardware.getAssembledComponents() + " "
+                    + hardware.isPrototypeCompleted();
+        }
+        SoftwareProject software = (SoftwareProject) project;
+        return "project.put software " + common + quote(software.getTechnologyStack()) + " "
+                + quote(software.getMethodology()) + " " + software.getTotalFeatures() + " " + software.getCompletedFeatures();
+    }
+
+    /** Apply one tokenized record to the replica's services. */
+    static void apply(String[] args, ProjectServices projectService, TaskService taskService) {
+        switch (args[0]) {
+            case "task.put": {
+                Task task = taskService.findTaskById(args[1]);
+                if (task == null) {
+                    taskService.addTask(parseTask(args));
+                } else {
+                    String[] fields = {"projectId", "taskName", "description", "assignedTo", "priority", "dueDate", "status"};
+                    for (int i = 0; i < fields.length; i++) setTaskField(task, fields[i], args[i + 2]);
+                    restoreTimestamps(task, args);
+                }
+                break;
+            }
+            case "task.set": {
+                Task task = taskService.findTaskById(args[1]);
+                if (task != null) setTaskField(task, args[2], args[3]);
+                break;
+            }
+            case "task.del":
+                if (taskService.findTaskById(args[1]) != null) taskService.deleteTask(args[1]);
+                break;
+            case "project.put":
+                putProject(args, projectService);
+                break;
+            case "project.set": {
+                Project project = projectService.findProjectById(args[1]);
+                if (project != null) setProjectField(project, args[2], args[3]);
+                break;
+            }
+            case "project.del":
+                if (projectService.findProjectById(args[1]) != null) projectService.deleteProject(args[1]);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown replication record " + args[0]);
+        }
+    }
+
+    /** A detached task from a tokenized task.put record. */
+    static Task parseTask(String[] args) {
+        Task task = new Task(args[1], args[2], args[3], args[4], args[5], args[6], args[7]);
+        task.setStatus(args[8]);
+        restoreTimestamps(task, args);
+        return task;
+    }
+
+    /**
+     * Records written before status timestamps existed keep the locally stamped
+     * times; those without a transition log rebuild it from the four stamps.
+     */
+    private static void restoreTimestamps(Task task, String[] args) {
+        if (args.length < 13) return;
+        if (args.length > 13) {
+            int count = Integer.parseInt(args[13]);
+            if (args.length != 14 + 2 * count) throw new IllegalArgumentException("task.put: transition log does not match its count");
+            String[] statuses = new String[count];
+            long[] times = new long[count];
+            for (int i = 0; i < count; i++) {
+                statuses[i] = args[14 + 2 * i];
+                times[i] = Long.parseLong(args[15 + 2 * i]);
+            }
+            task.restoreTransitions(statuses, times);
+            return;
+        }
+        task.restoreTimestamps(Long.parseLong(args[9]), Long.parseLong(args[10]), Long.parseLong(args[11]),
+                Long.parseLong(args[12]));
+    }
+
+    /** A detached project from a tokenized project.put record. */
+    static Project parseProject(String[] args) {
+        boolean hardware = args[1].equals("hardware");
+        Project project = hardware
+                ? new HardwareProject(args[2], args[3], args[4], args[5], args[6], Double.parseDouble(args[7]),
+                        Integer.parseInt(args[8]), args[10], Integer.parseInt(args[11]))
+                : new SoftwareProject(args[2], args[3], args[4], args[5], args[6], Double.parseDouble(args[7]),
+                        Integer.parseInt(args[8]), args[10], args[11], Integer.parseInt(args[12]));
+        setProjectFields(project, args);
+        return project;
+    }
+
+    private static void putProject(String[] args, ProjectServices projectService) {
+        boolean hardware = args[1].equals("hardware");
+        Project existing = projectService.findProjectById(args[2]);
+        if (existing != null && (existing instanceof HardwareProject) != hardware) {
+            projectService.deleteProject(args[2]);
+            existing = null;
+        }
+        if (existing == null) {
+            projectService.addProject(parseProject(args));
+        } else {
+            setProjectFields(existing, args);
+        }
+    }
+
+    private static void setProjectFields(Project project, String[] args) {
+        boolean hardware = args[1].equals("hardware");
+        String[] fields = hardware
+                ? new String[]{"projectName", "description", "startDate", "endDate", "budget", "teamSize", "status",
+                        "hardwareType", "totalComponents", "assembledComponents", "prototypeCompleted"}
+                : new String[]{"projectName", "description", "startDate", "endDate", "budget", "teamSize", "status",
+                        "technologyStack", "methodology", "totalFeatures", "completedFeatures"};
+        for (int i = 0; i < fields.length; i++) setProjectField(project, fields[i], args[i + 3]);
+    }
+
+    private static void setTaskField(Task task, String field, String value) {
+        switch (field) {
+            case "taskId": task.setTaskId(value); break;
+            case "projectId": task.setProjectId(value); break;
+            case "taskName": task.setTaskName(value); break;
+            case "description": task.setDescription(value); break;
+            case "assignedTo": task.setAssignedTo(value); break;
+            case "priority": task.setPriority(value); break;
+            case "status": task.setStatus(value); break;
+            case "dueDate": task.setDueDate(value); break;
+            default: throw new IllegalArgumentException("unknown task field " + field);
+        }
+    }
+
+    private static void setProjectField(Project project, String field, String value) {
+        switch (field) {
+            case "projectId": project.setProjectId(value); return;
+            case "projectName": project.setProjectName(value); return;
+            case "description": project.setDescription(value); return;
+            case "startDate": project.setStartDate(value); return;
+            case "endDate": project.setEndDate(value); return;
+            case "status": project.setStatus(value); return;
+            case "budget": project.setBudget(Double.parseDouble(value)); return;
+            case "teamSize": project.setTeamSize(Integer.parseInt(value)); return;
+            default: break;
+        }
+        if (project instanceof SoftwareProject) {
+            SoftwareProject software = (SoftwareProject) project;
+            switch (field) {
+                case "technologyStack": software.setTechnologyStack(value); return;
+                case "methodology": software.setMethodology(value); return;
+                case "totalFeatures": software.setTotalFeatures(Integer.parseInt(value)); return;
+                case "completedFeatures": software.setCompletedFeatures(Integer.parseInt(value)); return;
+                default: break;
+            }
+        } else if (project instanceof HardwareProject) {
+            HardwareProject hardware = (HardwareProject) project;
+            switch (field) {
+                case "hardwareType": hardware.setHardwareType(value); return;
+                case "totalComponents": hardware.setTotalComponents(Integer.parseInt(value)); return;
+                case "assembledComponents": hardware.setAssembledComponents(Integer.parseInt(value)); return;
+                case "prototypeCompleted": hardware.setPrototypeCompleted(Boolean.parseBoolean(value)); return;
+                default: break;
+            }
+        }
+        throw new IllegalArgumentException("unknown project field " + field);
+    }
+
+    static String quote(String value) { return BatchCommandRunner.quote(value); }
+}
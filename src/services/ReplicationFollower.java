@@ -0,0 +1,198 @@
+package services;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import utils.BatchCommandRunner;
+
+/**
+ * Read-only replica fed by a {@link ReplicationPrimary}. A background thread applies
+ * the shipped log to the replica's own services; queries and reports run under a
+ * read lock and are refused when the replica is staler than the caller allows.
+ * After a disconnect the follower resumes from its last applied sequence, or
+ * reloads from a snapshot if the primary no longer has that part of the log.
+ *
+ * As a process: {@code java -cp <classpath> services.ReplicationFollower PORT}, then
+ * report.* commands on stdin are answered from the replica.
+ */
+public class ReplicationFollower implements AutoCloseable {
+    private final InetSocketAddress primary;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private ProjectServices projectService;
+    private TaskService taskService;
+    private ReportService reportService;
+
+    private volatile long appliedSequence;
+    private volatile long primarySequence;
+    private volatile long lastCaughtUpMillis;
+    private volatile int snapshotsLoaded;
+    private volatile Socket socket;
+
+    public ReplicationFollower(InetSocketAddress primary) {
+        this.primary = primary;
+        resetServices();
+    }
+
+    /** Connect (or reconnect) and start applying the log in the background. */
+    public synchronized void start() throws IOException {
+        if (socket != null && !socket.isClosed()) return;
+        Socket connection = new Socket(primary.getAddress(), primary.getPort());
+        connection.setTcpNoDelay(true);
+        socket = connection;
+        Thread applier = new Thread(() -> follow(connection), "replication-follower");
+        applier.setDaemon(true);
+        applier.start();
+    }
+
+    /** Drop the connection; the replica keeps serving increasingly stale reads. */
+    public synchronized void disconnect() throws IOException {
+        if (socket != null) socket.close();
+    }
+
+    @Override
+    public void close() throws IOException { disconnect(); }
+
+    public long getAppliedSequence() { return appliedSequence; }
+
+    /** Events the primary has reported that are not applied here yet. */
+    public long getLag() { return Math.max(0, primarySequence - appliedSequence); }
+
+    /** Milliseconds since this replica was last known to be fully caught up. */
+    public long getStalenessMillis() {
+        return lastCaughtUpMillis == 0 ? Long.MAX_VALUE : System.currentTimeMillis() - lastCaughtUpMillis;
+    }
+
+    public int getSnapshotsLoaded() { return snapshotsLoaded; }
+
+    /** Wait until {@code sequence} has been applied, e.g. to read one's own write. */
+    public boolean awaitSequence(long sequence, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (appliedSequence < sequence) {
+            if (System.currentTimeMillis() >= deadline) return false;
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    /** Run reports against the replica if it is no staler than {@code maxStalenessMillis}. */
+    public boolean report(long maxStalenessMillis, Consumer<ReportService> reports) {
+        return query(maxStalenessMillis, services -> {
+            reports.accept(reportService);
+            return Boolean.TRUE;
+        }) != null;
+    }
+
+    /** Run a read-only query against the replica's task service; null if the replica is too stale. */
+    public <T> T query(long maxStalenessMillis, Function<TaskService, T> query) {
+        long staleness = getStalenessMillis();
+        if (staleness > maxStalenessMillis) {
+            System.out.println("Error: Replica is stale (" + (staleness == Long.MAX_VALUE ? "never synced" : staleness + " ms") + ")!");
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            return query.apply(taskService);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void follow(Socket connection) {
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8))) {
+            out.write("FOLLOW " + (appliedSequence == 0 ? 0 : appliedSequence + 1) + "\n");
+            out.flush();
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith("E ")) {
+                    int space = line.indexOf(' ', 2);
+                    long sequence = Long.parseLong(line.substring(2, space));
+                    applyLocked(line.substring(space + 1));
+                    appliedSequence = sequence;
+                    if (sequence > primarySequence) primarySequence = sequence;
+                    if (!in.ready()) lastCaughtUpMillis = System.currentTimeMillis();
+                } else if (line.startsWith("HB ")) {
+                    primarySequence = Math.max(primarySequence, Long.parseLong(line.substring(3).trim()));
+                    if (appliedSequence >= primarySequence) lastCaughtUpMillis = System.currentTimeMillis();
+                } else if (line.startsWith("SNAPSHOT ")) {
+                    loadSnapshot(in, Long.parseLong(line.substring("SNAPSHOT ".length()).trim()));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            if (!connection.isClosed()) System.out.println("Error: replication stream failed: " + e.getMessage());
+        }
+    }
+
+    /** Replace the replica's contents with the snapshot that follows. */
+    private void loadSnapshot(BufferedReader in, long sequence) throws IOException {
+        lock.writeLock().lock();
+        try {
+            resetServices();
+            String line;
+            while ((line = in.readLine()) != null && !line.equals("END")) {
+                if (line.startsWith("R ")) ReplicationCodec.apply(BatchCommandRunner.tokenize(line.substring(2)), projectService, taskService);
+            }
+            appliedSequence = sequence;
+            primarySequence = Math.max(primarySequence, sequence);
+            snapshotsLoaded++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void applyLocked(String record) {
+        lock.writeLock().lock();
+        try {
+            ReplicationCodec.apply(BatchCommandRunner.tokenize(record), projectService, taskService);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: could not apply replicated record: " + e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void resetServices() {
+        projectService = new ProjectServices();
+        taskService = new TaskService(projectService);
+        reportService = new ReportService(projectService, taskService);
+        projectService.setQuiet(true);
+        taskService.setQuiet(true);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = Integer.parseInt(args[0]);
+        long maxStaleness = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+        ReplicationFollower follower = new ReplicationFollower(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        follower.start();
+        BufferedReader stdin = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = stdin.readLine()) != null) {
+            String command = line.trim();
+            if (command.isEmpty()) continue;
+            if (command.startsWith("await ")) {
+                boolean reached = follower.awaitSequence(Long.parseLong(command.substring(6).trim()), 5000);
+                System.out.println(reached ? "OK applied " + follower.getAppliedSequence() : "ERROR timed out");
+            } else if (!command.startsWith("report.")) {
+                System.out.println("ERROR read-only replica");
+            } else {
+                boolean ok = follower.report(maxStaleness, reports -> {
+                    String result = new BatchCommandRunner(follower.projectService, follower.taskService, reports).executeLine(command, System.out);
+                    System.out.println(result);
+                });
+                if (!ok) System.out.println("ERROR stale replica");
+            }
+            System.out.flush();
+        }
+        follower.close();
+    }
+}
@@ -0,0 +1,145 @@
+package services;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Primary side of log-shipping replication. Mutations of the primary's services
+ * are sequenced by a {@link ChangeEventBus}; every connected follower gets its own
+ * shipping thread that reads the bus from the follower's position and streams the
+ * events as {@link ReplicationCodec} records over a loopback socket.
+ *
+ * Protocol (one line each): the follower sends {@code FOLLOW <next sequence>} (0 for
+ * a fresh replica). The primary answers with a snapshot when the follower is new or
+ * its position has already been overwritten in the bus ({@code SNAPSHOT <seq>},
+ * {@code R <record>}..., {@code END}), then streams {@code E <seq> <record>} lines
+ * and sends {@code HB <last seq>} heartbeats while idle.
+ */
+public class ReplicationPrimary implements AutoCloseable {
+    private static final int MAX_BATCH = 256;
+    private static final long HEARTBEAT_MILLIS = 100;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final ProjectServices projectService;
+    private final TaskService taskService;
+    private final ChangeEventBus bus;
+    private final ServerSocket serverSocket;
+    private final List<Socket> followers = new CopyOnWriteArrayList<>();
+    private final AtomicInteger snapshotsSent = new AtomicInteger();
+
+    /** Replicate through a new default-size change bus; {@code port} 0 picks a free port. */
+    public ReplicationPrimary(ProjectServices projectService, TaskService taskService, int port) throws IOException {
+        this(projectService, taskService, new ChangeEventBus(), port);
+    }
+
+    /** The bus capacity bounds how far a follower can fall behind before it needs a snapshot. */
+    public ReplicationPrimary(ProjectServices projectService, TaskService taskService,
+                              ChangeEventBus bus, int port) throws IOException {
+        this.projectService = projectService;
+        this.taskService = taskService;
+        this.bus = bus;
+        bus.attach(projectService, taskService);
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "replication-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() { return serverSocket.getLocalPort(); }
+
+    public int getFollowerCount() { return followers.size(); }
+
+    public int getSnapshotsSent() { return snapshotsSent.get(); }
+
+    public long getLastSequence() { return bus.getLastSequence(); }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket follower : followers) follower.close();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                followers.add(socket);
+                Thread shipper = new Thread(() -> ship(socket), "replication-shipper");
+                shipper.setDaemon(true);
+                shipper.start();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) System.out.println("Error: replication accept failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void ship(Socket socket) {
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+            String hello = in.readLine();
+            if (hello == null || !hello.startsWith("FOLLOW ")) return;
+            long next = Long.parseLong(hello.substring("FOLLOW ".length()).trim());
+            if (next <= 0 || next < bus.getOldestRetainedSequence()) next = sendSnapshot(out);
+
+            long lastHeartbeat = 0;
+            while (!s.isClosed()) {
+                List<ChangeEvent> events = bus.readFrom(next, MAX_BATCH);
+                if (events == null) {
+                    next = sendSnapshot(out); // fell further behind than the bus retains
+                    continue;
+                }
+                if (events.isEmpty()) {
+                    long now = System.currentTimeMillis();
+                    if (now - lastHeartbeat >= HEARTBEAT_MILLIS) {
+                        out.write("HB " + (next - 1) + "\n");
+                        out.flush();
+                        lastHeartbeat = now;
+                    }
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    continue;
+                }
+                for (ChangeEvent event : events) {
+                    for (String record : ReplicationCodec.encode(event)) {
+                        out.write("E " + event.getSequence() + " " + record + "\n");
+                    }
+                    next = event.getSequence() + 1;
+                }
+                out.flush();
+            }
+        } catch (IOException | RuntimeException e) {
+            if (!serverSocket.isClosed()) System.out.println("Error: follower disconnected: " + e.getMessage());
+        } finally {
+            followers.remove(socket);
+        }
+    }
+
+    /**
+     * Send a fuzzy snapshot and return the sequence to stream from. The snapshot is
+     * taken after reading the bus position, so it may already contain some of the
+     * events that follow; replaying them is harmless because records are idempotent.
+     */
+    private long sendSnapshot(BufferedWriter out) throws IOException {
+        long position = bus.getLastSequence();
+        List<String> records = ReplicationCodec.snapshot(projectService, taskService);
+        out.write("SNAPSHOT " + position + "\n");
+        for (String record : records) out.write("R " + record + "\n");
+        out.write("END\n");
+        out.flush();
+        snapshotsSent.incrementAndGet();
+        return position + 1;
+    }
+}
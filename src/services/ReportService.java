@@ -1,76 +1,196 @@
 package services;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import models.Portfolio;
 import models.Project;
 import models.Task;
+import utils.ResultCache;
 
 /** Service class for generating reports. */
 public class ReportService {
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+
     private ProjectServices projectService;
     private TaskService taskService;
+    private UserService userService;
+    private HistoryService historyService;
+    private FlowMetricsService flowMetrics;
+    private DependencyService dependencies;
+    private ArchiveService archive;
+    private PortfolioService portfolios;
+    private ResultCache cache;
 
     public ReportService(ProjectServices projectService, TaskService taskService) {
         this.projectService = projectService;
         this.taskService = taskService;
     }
 
-    public void generateStatusReport() {
-        System.out.println("SYSTEM STATUS REPORT");
+    /** With a UserService, workload reports are read from its live counters instead of scanning tasks. */
+    public ReportService(ProjectServices projectService, TaskService taskService, UserService userService) {
+        this(projectService, taskService);
+        this.userService = userService;
+    }
+
+    /** Enables the time-travel ("as of") reports. */
+    public void setHistoryService(HistoryService historyService) {
+        this.historyService = historyService;
+    }
+
+    public boolean hasHistory() { return historyService != null; }
+
+    /** Enables the burndown and velocity reports. */
+    public void setFlowMetrics(FlowMetricsService flowMetrics) {
+        this.flowMetrics = flowMetrics;
+    }
+
+    /** Enables the dependency schedule report. */
+    public void setDependencyService(DependencyService dependencies) {
+        this.dependencies = dependencies;
+    }
+
+    /** Includes archived projects in the status report and serves project reports for them. */
+    public void setArchive(ArchiveService archive) {
+        this.archive = archive;
+    }
+
+    /** Enables the portfolio report. */
+    public void setPortfolioService(PortfolioService portfolios) {
+        this.portfolios = portfolios;
+    }
+
+    /**
+     * Cache rendered status and project reports; a repeat on unchanged data is a
+     * lookup. Status reports are keyed to both data versions, project reports to the
+     * project data version and that project's task version.
+     */
+    public void setResultCache(ResultCache cache) { this.cache = cache; }
+
+    public ResultCache getResultCache() { return cache; }
+
+    public void generateStatusReport(PrintStream out) {
+        if (cache != null) {
+            out.print(cache.get("report.status", projectService.getDataVersion(), taskService.getDataVersion(),
+                    () -> render(buffer -> printStatusReport(buffer, statusFigures()))));
+            return;
+        }
+        printStatusReport(out, statusFigures());
+    }
+
+    /** Figures for the live data plus, with an archive, the archived projects. */
+    private StatusFigures statusFigures() {
+        StatusFigures figures = new StatusFigures(projectService.scan(), taskService);
+        if (archive != null) figures.merge(archive.figures());
+        return figures;
+    }
+
+    /** Status report reconstructed from version history as it stood at {@code timestamp} (epoch millis). */
+    public void generateStatusReportAsOf(PrintStream out, long timestamp) {
+        if (historyService == null) {
+            out.println("Error: History is not enabled!");
+            return;
+        }
+        out.printf("(as of %s)%n", Instant.ofEpochMilli(timestamp));
+        printStatusReport(out, new StatusFigures(historyService.getProjectsAsOf(timestamp), historyService.getTasksAsOf(timestamp)));
+    }
+
+    static void printStatusReport(PrintStream out, StatusFigures figures) {
+        out.println("SYSTEM STATUS REPORT");
 
-        Project[] allProjects = projectService.getAllProjects();
-        System.out.println("PROJECT STATISTICS");
-        System.out.printf("Total Projects     : %d%n", allProjects.length);
-        System.out.printf("Average Completion : %.2f%%%n", projectService.getAverageCompletion());
+        out.println("PROJECT STATISTICS");
+        out.printf("Total Projects     : %d%n", figures.projects);
+        out.printf("Average Completion : %.2f%%%n", figures.averageCompletion());
 
-        Project[] activeProjects = projectService.getProjectsByStatus("Active");
-        Project[] completedProjects = projectService.getProjectsByStatus("Completed");
-        Project[] onHoldProjects = projectService.getProjectsByStatus("On Hold");
+        out.printf("Active Projects    : %d%n", figures.activeProjects);
+        out.printf("Completed Projects : %d%n", figures.completedProjects);
+        out.printf("On Hold Projects   : %d%n", figures.onHoldProjects);
 
-        System.out.printf("Active Projects    : %d%n", activeProjects.length);
-        System.out.printf("Completed Projects : %d%n", completedProjects.length);
-        System.out.printf("On Hold Projects   : %d%n", onHoldProjects.length);
+        out.println("TASK STATISTICS");
+        out.printf("Total Tasks        : %d%n", figures.tasks);
 
-        Task[] allTasks = taskService.getAllTasks();
-        System.out.println("TASK STATISTICS");
-        System.out.printf("Total Tasks        : %d%n", allTasks.length);
+        out.printf("Pending Tasks      : %d%n", figures.pendingTasks);
+        out.printf("In Progress Tasks  : %d%n", figures.inProgressTasks);
+        out.printf("Completed Tasks    : %d%n", figures.completedTasks);
 
-        Task[] pendingTasks = taskService.getTasksByStatus("Pending");
-        Task[] inProgressTasks = taskService.getTasksByStatus("In Progress");
-        Task[] completedTasks = taskService.getTasksByStatus("Completed");
+        if (figures.tasks > 0) {
+            double taskCompletionRate = (figures.completedTasks * 100.0) / figures.tasks;
+            out.printf("Task Completion Rate: %.2f%%%n", taskCompletionRate);
+        }
 
-        System.out.printf("Pending Tasks      : %d%n", pendingTasks.length);
-        System.out.printf("In Progress Tasks  : %d%n", inProgressTasks.length);
-        System.out.printf("Completed Tasks    : %d%n", completedTasks.length);
+        out.println("TASK PRIORITY BREAKDOWN");
+        out.printf("High   : %d%n", figures.highPriority);
+        out.printf("Medium : %d%n", figures.mediumPriority);
+        out.printf("Low    : %d%n", figures.lowPriority);
+    }
 
-        if (allTasks.length > 0) {
-            double taskCompletionRate = (completedTasks.length * 100.0) / allTasks.length;
-            System.out.printf("Task Completion Rate: %.2f%%%n", taskCompletionRate);
+    /** Same figures as {@link #generateStatusReport(PrintStream)} as metric,value CSV rows. */
+    public void generateStatusReportCsv(PrintStream out) {
+        if (cache != null) {
+            out.print(cache.get("report.status.csv", projectService.getDataVersion(), taskService.getDataVersion(),
+                    () -> render(buffer -> printStatusReportCsv(buffer, statusFigures()))));
+            return;
         }
+        printStatusReportCsv(out, statusFigures());
+    }
 
-        Task[] highPriority = taskService.getTasksByPriority("High");
-        Task[] mediumPriority = taskService.getTasksByPriority("Medium");
-        Task[] lowPriority = taskService.getTasksByPriority("Low");
+    static void printStatusReportCsv(PrintStream out, StatusFigures figures) {
+        out.println("metric,value");
+        out.printf("total_projects,%d%n", figures.projects);
+        out.printf("average_completion,%.2f%n", figures.averageCompletion());
+        out.printf("active_projects,%d%n", figures.activeProjects);
+        out.printf("completed_projects,%d%n", figures.completedProjects);
+        out.printf("on_hold_projects,%d%n", figures.onHoldProjects);
+        out.printf("total_tasks,%d%n", figures.tasks);
+        out.printf("pending_tasks,%d%n", figures.pendingTasks);
+        out.printf("in_progress_tasks,%d%n", figures.inProgressTasks);
+        out.printf("completed_tasks,%d%n", figures.completedTasks);
+        out.printf("task_completion_rate,%.2f%n",
+                figures.tasks == 0 ? 0.0 : (figures.completedTasks * 100.0) / figures.tasks);
+        out.printf("high_priority_tasks,%d%n", figures.highPriority);
+        out.printf("medium_priority_tasks,%d%n", figures.mediumPriority);
+        out.printf("low_priority_tasks,%d%n", figures.lowPriority);
+    }
 
-        System.out.println("TASK PRIORITY BREAKDOWN");
-        System.out.printf("High   : %d%n", highPriority.length);
-        System.out.printf("Medium : %d%n", mediumPriority.length);
-        System.out.printf("Low    : %d%n", lowPriority.length);
+    public void generateProjectReport(PrintStream out, String projectId) {
+        if (cache != null) {
+            out.print(cache.get("report.project:" + projectId, projectService.getDataVersion(),
+                    taskService.getProjectDataVersion(projectId), () -> render(buffer -> printProjectReport(buffer, projectId))));
+            return;
+        }
+        printProjectReport(out, projectId);
     }
 
-    public void generateProjectReport(String projectId) {
+    private void printProjectReport(PrintStream out, String projectId) {
         Project project = projectService.findProjectById(projectId);
         if (project == null) {
-            System.out.println("Error: Project not found!");
+            out.println("Error: Project not found!");
             return;
         }
 
-        System.out.println("PROJECT DETAILED REPORT");
-        project.displayProjectInfo();
+        out.println("PROJECT DETAILED REPORT");
+        project.displayProjectInfo(out);
 
-        Task[] projectTasks = taskService.getTasksByProjectId(projectId);
-        System.out.println("ASSOCIATED TASKS");
-        System.out.printf("Total Tasks: %d%n", projectTasks.length);
+        List<Task> projectTasks = new ArrayList<>();
+        if (archive != null && archive.isArchived(projectId)) {
+            out.println("(archived)");
+            projectTasks.addAll(archive.getTasks(projectId));
+        } else {
+            projectTasks.addAll(Arrays.asList(taskService.getTasksByProjectId(project.getProjectId())));
+        }
+        out.println("ASSOCIATED TASKS");
+        out.printf("Total Tasks: %d%n", projectTasks.size());
 
-        if (projectTasks.length > 0) {
+        if (!projectTasks.isEmpty()) {
             int completed = 0;
             int inProgress = 0;
             int pending = 0;
@@ -81,24 +201,28 @@ public class ReportService {
                 else pending++;
             }
 
-            System.out.printf("Completed Tasks  : %d%n", completed);
-            System.out.printf("In Progress Tasks: %d%n", inProgress);
-            System.out.printf("Pending Tasks     : %d%n", pending);
-            System.out.printf("Task Completion   : %.2f%%%n", taskService.calculateProjectTaskCompletion(projectId));
+            out.printf("Completed Tasks  : %d%n", completed);
+            out.printf("In Progress Tasks: %d%n", inProgress);
+            out.printf("Pending Tasks     : %d%n", pending);
+            out.printf("Task Completion   : %.2f%%%n", (completed * 100.0) / projectTasks.size());
 
-            System.out.println("Task Details:");
-            for (int i = 0; i < projectTasks.length; i++) {
-                Task task = projectTasks[i];
-                System.out.printf("  [%d] %s - %s (%s)%n", i + 1, task.getTaskName(), task.getStatus(), task.getPriority());
+            out.println("Task Details:");
+            for (int i = 0; i < projectTasks.size(); i++) {
+                Task task = projectTasks.get(i);
+                out.printf("  [%d] %s - %s (%s)%n", i + 1, task.getTaskName(), task.getStatus(), task.getPriority());
             }
         }
     }
 
-    public void generateUserWorkloadReport(String userId) {
+    public void generateUserWorkloadReport(PrintStream out, String userId) {
+        if (userService != null) {
+            printWorkload(out, userService.getWorkload(userId));
+            return;
+        }
         Task[] userTasks = taskService.getTasksByUserId(userId);
-        System.out.println("USER WORKLOAD REPORT");
-        System.out.printf("User ID: %s%n", userId);
-        System.out.printf("Total Assigned Tasks: %d%n", userTasks.length);
+        out.println("USER WORKLOAD REPORT");
+        out.printf("User ID: %s%n", userId);
+        out.printf("Total Assigned Tasks: %d%n", userTasks.length);
 
         if (userTasks.length > 0) {
             int completed = 0;
@@ -121,18 +245,282 @@ public class ReportService {
                 }
             }
 
-            System.out.println("Status Breakdown:");
-            System.out.printf("Completed   : %d%n", completed);
-            System.out.printf("In Progress : %d%n", inProgress);
-            System.out.printf("Pending     : %d%n", pending);
+            out.println("Status Breakdown:");
+            out.printf("Completed   : %d%n", completed);
+            out.printf("In Progress : %d%n", inProgress);
+            out.printf("Pending     : %d%n", pending);
 
-            System.out.println("Priority Breakdown:");
-            System.out.printf("High   : %d%n", high);
-            System.out.printf("Medium : %d%n", medium);
-            System.out.printf("Low    : %d%n", low);
+            out.println("Priority Breakdown:");
+            out.printf("High   : %d%n", high);
+            out.printf("Medium : %d%n", medium);
+            out.printf("Low    : %d%n", low);
 
             double completionRate = (completed * 100.0) / userTasks.length;
-            System.out.printf("Completion Rate: %.2f%%%n", completionRate);
+            out.printf("Completion Rate: %.2f%%%n", completionRate);
+        }
+    }
+
+    /** Daily created / started / completed counts with the open-task line, then lead and cycle times. */
+    public void generateBurndownReport(PrintStream out, String projectId) {
+        if (flowMetrics == null) {
+            out.println("Error: Flow metrics are not enabled!");
+            return;
+        }
+        NavigableMap<Long, int[]> days = flowMetrics.dailyCounts(projectId);
+        out.println("BURNDOWN REPORT");
+        out.printf("Project ID: %s%n", projectId);
+        if (days.isEmpty()) {
+            out.println("No task activity recorded.");
+            return;
+        }
+        out.printf("%-12s %8s %8s %10s %10s%n", "Date", "Created", "Started", "Completed", "Remaining");
+        int remaining = 0;
+        for (Map.Entry<Long, int[]> day : days.entrySet()) {
+            int[] counts = day.getValue();
+            remaining += counts[FlowMetricsService.CREATED] - counts[FlowMetricsService.COMPLETED];
+            out.printf("%-12s %8d %8d %10d %10d%n", LocalDate.ofEpochDay(day.getKey()),
+                    counts[FlowMetricsService.CREATED], counts[FlowMetricsService.STARTED],
+                    counts[FlowMetricsService.COMPLETED], remaining);
+        }
+        out.printf("Lead Time  (p50/p85/p95): %s / %s / %s%n", duration(flowMetrics.getLeadTimePercentile(projectId, 50)),
+                duration(flowMetrics.getLeadTimePercentile(projectId, 85)), duration(flowMetrics.getLeadTimePercentile(projectId, 95)));
+        out.printf("Cycle Time (p50/p85/p95): %s / %s / %s%n", duration(flowMetrics.getCycleTimePercentile(projectId, 50)),
+                duration(flowMetrics.getCycleTimePercentile(projectId, 85)), duration(flowMetrics.getCycleTimePercentile(projectId, 95)));
+    }
+
+    /** Tasks completed in each of the last {@code weeks} seven-day windows, ending today. */
+    public void generateVelocityReport(PrintStream out, String projectId, int weeks) {
+        if (flowMetrics == null) {
+            out.println("Error: Flow metrics are not enabled!");
+            return;
+        }
+        long today = flowMetrics.today();
+        out.println("VELOCITY REPORT");
+        out.printf("Project ID: %s%n", projectId);
+        int total = 0;
+        for (int week = weeks - 1; week >= 0; week--) {
+            long end = today - 7L * week;
+            int completed = flowMetrics.getCompletedBetween(projectId, end - 6, end);
+            total += completed;
+            out.printf("Week ending %s: %d completed%n", LocalDate.ofEpochDay(end), completed);
+        }
+        out.printf("Average Velocity: %.1f tasks/week%n", weeks == 0 ? 0.0 : (double) total / weeks);
+        out.printf("Open Tasks      : %d%n", flowMetrics.getRemainingAt(projectId, today));
+    }
+
+    /** Tasks ready to start, tasks pushed past their due date by blockers, and the critical path. */
+    public void generateScheduleReport(PrintStream out, String projectId) {
+        if (dependencies == null) {
+            out.println("Error: Task dependencies are not enabled!");
+            return;
         }
+        out.println("PROJECT SCHEDULE REPORT");
+        out.printf("Project ID: %s%n", projectId);
+        List<String> ready = dependencies.getReadyTasks(projectId);
+        out.printf("Ready to Start (%d): %s%n", ready.size(), ready.isEmpty() ? "-" : String.join(", ", ready));
+        List<String> late = dependencies.getLateTasks(projectId);
+        out.printf("Late Because of Blockers (%d):%n", late.size());
+        for (String taskId : late) {
+            Task task = taskService.findTaskById(taskId);
+            out.printf("  %s due %s, earliest finish %s%n", taskId, task == null ? "-" : task.getDueDate(),
+                    dependencies.getEarliestFinish(taskId));
+        }
+        List<String> path = dependencies.getCriticalPath(projectId);
+        out.println("Critical Path:");
+        if (path.isEmpty()) out.println("  -");
+        for (String taskId : path) out.printf("  %s (finish %s)%n", taskId, dependencies.getEarliestFinish(taskId));
+    }
+
+    /** Conditional-update attempts, version conflicts and retries, for tasks and for projects. */
+    public void generateConflictReport(PrintStream out) {
+        out.println("CONFLICT REPORT");
+        out.printf("%-9s %9s %9s %9s %9s%n", "", "Attempts", "Conflicts", "Rate", "Retries");
+        printConflicts(out, "Tasks", taskService.getConflictStats());
+        printConflicts(out, "Projects", projectService.getConflictStats());
+    }
+
+    private static void printConflicts(PrintStream out, String label, ConflictStats stats) {
+        out.printf("%-9s %9d %9d %8.1f%% %9d%n", label, stats.getAttempts(), stats.getConflicts(),
+                stats.getConflictRate() * 100, stats.getRetries());
+    }
+
+    /**
+     * A portfolio's rollup and, indented below it, its sub-portfolios and projects.
+     * Every figure is read from the maintained totals; nothing is summed here.
+     */
+    public void generatePortfolioReport(PrintStream out, String portfolioId) {
+        if (portfolios == null) {
+            out.println("Error: Portfolios are not enabled!");
+            return;
+        }
+        Portfolio portfolio = portfolios.findPortfolio(portfolioId);
+        if (portfolio == null) {
+            out.println("Error: Portfolio not found!");
+            return;
+        }
+        out.println("PORTFOLIO REPORT");
+        out.printf("%-34s %8s %6s %9s %15s %8s%n", "Portfolio / Project", "Projects", "Weight", "Tasks", "Budget", "Complete");
+        printPortfolio(out, portfolio, 0);
+    }
+
+    private void printPortfolio(PrintStream out, Portfolio portfolio, int depth) {
+        String indent = "  ".repeat(depth);
+        out.printf("%-34s %8d %6d %4d/%-4d %15.2f %7.2f%%%n",
+                clip(indent + portfolio.getPortfolioId() + " " + portfolio.getName(), 34),
+                portfolio.getProjectCount(), portfolio.getWeight(), portfolio.getCompletedTaskCount(),
+                portfolio.getTaskCount(), portfolio.getBudget(), portfolio.getCompletionPercentage());
+        for (Portfolio child : portfolio.getChildren()) printPortfolio(out, child, depth + 1);
+        for (String projectId : portfolios.getProjectIds(portfolio.getPortfolioId())) {
+            Project project = projectService.findProjectById(projectId);
+            if (project == null) continue;
+            out.printf("%-34s %8s %6d %9s %15.2f %7.2f%%%n",
+                    clip(indent + "  - " + projectId + " " + project.getProjectName(), 34), "",
+                    portfolios.getWeight(projectId), "", project.getBudget(), project.getCompletionPercentage());
+        }
+    }
+
+    /**
+     * Breakdown of projects by comma-separated attributes (see
+     * {@link Aggregation#ofProjects}), with sum, avg, min, max, p50 and p90 of each measure.
+     */
+    public void generateProjectBreakdown(PrintStream out, String groupBy, String measures, boolean csv) {
+        Aggregation<Project> aggregation = Aggregation.ofProjects(groupBy, measures).percentiles(50, 90);
+        String key = "report.group.projects:" + groupBy + ":" + measures + ":" + csv;
+        breakdown(out, key, 0, () -> projectService.hasExternalStore() ? aggregation.run(projectService.scan())
+                : aggregation.run(projectService.snapshot(), PARALLELISM), csv);
+    }
+
+    /** Breakdown of tasks; see {@link Aggregation#ofTasks}. */
+    public void generateTaskBreakdown(PrintStream out, String groupBy, String measures, boolean csv) {
+        Aggregation<Task> aggregation = Aggregation.ofTasks(groupBy, measures).percentiles(50, 90);
+        String key = "report.group.tasks:" + groupBy + ":" + measures + ":" + csv;
+        breakdown(out, key, taskService.getDataVersion(), () -> taskService.hasExternalStore() ? aggregation.run(taskService.scan())
+                : aggregation.run(taskService.snapshot(), PARALLELISM), csv);
+    }
+
+    private void breakdown(PrintStream out, String key, long taskVersion, Supplier<Aggregation.Result> query, boolean csv) {
+        Consumer<PrintStream> report = target -> {
+            if (csv) printGroupsCsv(target, query.get());
+            else printGroups(target, query.get());
+        };
+        if (cache != null) {
+            out.print(cache.get(key, projectService.getDataVersion(), taskVersion, () -> render(report)));
+            return;
+        }
+        report.accept(out);
+    }
+
+    /** Render any aggregation result as a text table. */
+    public static void printGroups(PrintStream out, Aggregation.Result result) {
+        String[] keyNames = result.getKeyNames();
+        String[] measureNames = result.getMeasureNames();
+        double[] percentiles = result.getPercentiles();
+        out.println("BREAKDOWN REPORT");
+        StringBuilder header = new StringBuilder();
+        for (String name : keyNames) header.append(String.format("%-22s ", name));
+        header.append(String.format("%8s", "count"));
+        for (String name : measureNames) {
+            for (String column : statColumns(percentiles)) header.append(String.format(" %14s", name + "." + column));
+        }
+        out.println(header);
+        for (Aggregation.Group group : result.getGroups()) {
+            StringBuilder row = new StringBuilder();
+            for (int i = 0; i < keyNames.length; i++) row.append(String.format("%-22s ", clip(group.getKey(i), 22)));
+            row.append(String.format("%8d", group.getCount()));
+            for (int i = 0; i < measureNames.length; i++) {
+                for (double value : statValues(group.getStats(i), percentiles)) {
+                    row.append(Double.isNaN(value) ? String.format(" %14s", "-") : String.format(" %14.2f", value));
+                }
+            }
+            out.println(row);
+        }
+        out.printf("Groups: %d%n", result.getGroups().size());
+    }
+
+    /** Render any aggregation result as CSV, one row per group. */
+    public static void printGroupsCsv(PrintStream out, Aggregation.Result result) {
+        String[] keyNames = result.getKeyNames();
+        String[] measureNames = result.getMeasureNames();
+        double[] percentiles = result.getPercentiles();
+        StringBuilder header = new StringBuilder();
+        for (String name : keyNames) header.append(name).append(',');
+        header.append("count");
+        for (String name : measureNames) {
+            for (String column : statColumns(percentiles)) header.append(',').append(name).append('_').append(column);
+        }
+        out.println(header);
+        for (Aggregation.Group group : result.getGroups()) {
+            StringBuilder row = new StringBuilder();
+            for (int i = 0; i < keyNames.length; i++) row.append(csvField(group.getKey(i))).append(',');
+            row.append(group.getCount());
+            for (int i = 0; i < measureNames.length; i++) {
+                for (double value : statValues(group.getStats(i), percentiles)) {
+                    row.append(',');
+                    if (!Double.isNaN(value)) row.append(String.format("%.2f", value));
+                }
+            }
+            out.println(row);
+        }
+    }
+
+    private static List<String> statColumns(double[] percentiles) {
+        List<String> columns = new ArrayList<>(List.of("sum", "avg", "min", "max"));
+        for (double p : percentiles) columns.add(p == Math.rint(p) ? "p" + (long) p : "p" + p);
+        return columns;
+    }
+
+    /** Sum, avg, min, max and percentiles; all NaN (shown as "-" or an empty cell) when the group had no values. */
+    private static double[] statValues(Aggregation.Stats stats, double[] percentiles) {
+        double[] values = new double[4 + percentiles.length];
+        values[0] = stats.getCount() == 0 ? Double.NaN : stats.getSum();
+        values[1] = stats.getAverage();
+        values[2] = stats.getMin();
+        values[3] = stats.getMax();
+        for (int i = 0; i < percentiles.length; i++) values[4 + i] = stats.getPercentile(percentiles[i]);
+        return values;
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String clip(String text, int width) {
+        return text.length() <= width ? text : text.substring(0, width - 1) + "~";
+    }
+
+    private static String duration(long millis) {
+        if (millis == 0) return "-";
+        double hours = millis / 3_600_000.0;
+        if (hours < 1) return (millis / 60_000) + "m";
+        return hours < 48 ? String.format("%.1fh", hours) : String.format("%.1fd", hours / 24);
+    }
+
+    /** Print a report into a private buffer so the text can be cached. */
+    private static String render(Consumer<PrintStream> report) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (PrintStream target = new PrintStream(buffer, false, StandardCharsets.UTF_8)) {
+            report.accept(target);
+        }
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+
+    static void printWorkload(PrintStream out, UserWorkload workload) {
+        out.println("USER WORKLOAD REPORT");
+        out.printf("User ID: %s%n", workload.getUserId());
+        out.printf("Total Assigned Tasks: %d%n", workload.getTotal());
+        if (workload.getTotal() == 0) return;
+
+        out.println("Status Breakdown:");
+        out.printf("Completed   : %d%n", workload.getCompleted());
+        out.printf("In Progress : %d%n", workload.getInProgress());
+        out.printf("Pending     : %d%n", workload.getPending());
+
+        out.println("Priority Breakdown:");
+        out.printf("High   : %d%n", workload.getHigh());
+        out.printf("Medium : %d%n", workload.getMedium());
+        out.printf("Low    : %d%n", workload.getLow());
+
+        out.printf("Completion Rate: %.2f%%%n", workload.getCompletionRate());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,459 @@
+package services;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import utils.BatchCommandRunner;
+
+/**
+ * Routes the batch command language across {@link ShardServer} processes.
+ *
+ * Projects are placed on a consistent-hash ring by projectId and their tasks live
+ * on the same shard. CRUD commands go to the owning shard; status and workload
+ * reports are scattered to every shard and the partial figures merged. Adding a
+ * shard only moves the projects whose ring owner changed, and they move one at a
+ * time via {@link #rebalance(int)}: a project keeps being served from its old
+ * shard until its copy on the new one is complete. A move copies every field,
+ * the status timestamps and the dependencies among the project's tasks.
+ *
+ * Task commands go to the shard of the task's project; bulk commands are split
+ * by shard and task.overdue is gathered from all of them. Dependencies must stay
+ * within one project, so that moves keep them intact. Commands that need state
+ * spanning every shard (archive, portfolios, delta sync, export, breakdowns,
+ * history and conflict reports) are answered with an error.
+ */
+public class ShardRouter implements AutoCloseable {
+    private static final int VIRTUAL_NODES = 64;
+
+    private final List<Shard> shards = new ArrayList<>();
+    private final TreeMap<Integer, Shard> ring = new TreeMap<>();
+    /** Where each known project currently lives (may lag the ring while moves are pending). */
+    private final Map<String, Shard> projectLocation = new HashMap<>();
+    private final Map<String, String> taskProject = new HashMap<>();
+    private final Deque<String> pendingMoves = new ArrayDeque<>();
+    /** Project copies that failed moves left behind, per shard; purged again on the next rebalance. */
+    private final Map<Shard, List<String>> strayCopies = new LinkedHashMap<>();
+
+    /** Connect to running shards and learn which projects and tasks each one holds. */
+    public ShardRouter(List<InetSocketAddress> addresses) throws IOException {
+        for (InetSocketAddress address : addresses) {
+            Shard shard = new Shard(address);
+            shards.add(shard);
+            placeOnRing(shard);
+        }
+        for (Shard shard : shards) discover(shard);
+        planMoves();
+    }
+
+    /**
+     * Execute one command. Report output is printed to System.out; the returned
+     * string is the command result ("OK ..." or "ERROR ...").
+     */
+    public synchronized String execute(String line) {
+        String[] args = BatchCommandRunner.tokenize(line.trim());
+        if (args.length == 0) return "ERROR empty command";
+        try {
+            return route(line, args);
+        } catch (UncheckedIOException e) {
+            return "ERROR shard unavailable: " + e.getCause().getMessage();
+        }
+    }
+
+    private String route(String line, String[] args) {
+        switch (args[0]) {
+            case "project.add": {
+                if (args.length < 3) return "ERROR expected project type and ID";
+                Shard shard = projectLocation.containsKey(args[2]) ? projectLocation.get(args[2]) : owner(args[2]);
+                Response response = shard.send(line);
+                if (response.ok()) projectLocation.put(args[2], shard);
+                return response.status;
+            }
+            case "project.status":
+            case "report.project":
+            case "report.burndown":
+            case "report.velocity":
+            case "report.schedule": {
+                if (args.length < 2) return "ERROR expected 1 argument(s), got 0";
+                Shard shard = projectLocation.get(args[1]);
+                if (shard == null) return "ERROR project not found: " + args[1];
+                return shard.send(line).print().status;
+            }
+            case "project.delete": {
+                if (args.length < 2) return "ERROR expected 1 argument(s), got 0";
+                Shard shard = projectLocation.get(args[1]);
+                if (shard == null) return "ERROR project not found: " + args[1];
+                Response response = shard.send(line);
+                if (response.ok()) {
+                    projectLocation.remove(args[1]);
+                    pendingMoves.remove(args[1]);
+                    taskProject.values().removeIf(args[1]::equals); // deleted with the project
+                }
+                return response.status;
+            }
+            case "task.add": {
+                if (args.length < 3) return "ERROR expected 7 argument(s), got " + (args.length - 1);
+                Shard shard = projectLocation.get(args[2]);
+                if (shard == null) return "ERROR project not found: " + args[2];
+                Response response = shard.send(line);
+                if (response.ok()) taskProject.put(args[1], args[2]);
+                return response.status;
+            }
+            case "task.status":
+            case "task.assign":
+            case "task.priority":
+            case "task.delete": {
+                if (args.length < 2) return "ERROR expected 1 argument(s), got 0";
+                Response response = sendForTask(args[1], line);
+                if (response.ok() && args[0].equals("task.delete")) taskProject.remove(args[1]);
+                return response.status;
+            }
+            case "task.bulk-status":
+                return bulkStatus(args);
+            case "task.delete-where":
+                return deleteWhere(line, args);
+            case "task.depend":
+            case "task.undepend": {
+                if (args.length < 3) return "ERROR expected 2 argument(s), got " + (args.length - 1);
+                String projectId = taskProject.get(args[1]);
+                if (projectId == null || !projectId.equals(taskProject.get(args[2]))) {
+                    return "ERROR dependencies must be between tasks of the same project in sharded mode";
+                }
+                return sendForTask(args[1], line).status;
+            }
+            case "task.overdue": {
+                List<String> overdue = new ArrayList<>();
+                for (Shard shard : shards) {
+                    Response response = shard.send(line);
+                    if (!response.ok()) return response.status;
+                    int colon = response.status.indexOf(": ");
+                    if (colon > 0) overdue.addAll(List.of(response.status.substring(colon + 2).split(" ")));
+                }
+                return "OK " + overdue.size() + " overdue" + (overdue.isEmpty() ? "" : ": " + String.join(" ", overdue));
+            }
+            case "report.status":
+                return reportStatus(args);
+            case "report.user": {
+                if (args.length < 2) return "ERROR expected 1 argument(s), got 0";
+                UserWorkload total = new UserWorkload(args[1]);
+                for (Shard shard : shards) {
+                    Response response = shard.send("shard.workload " + quote(args[1]));
+                    if (!response.ok()) return response.status;
+                    total.merge(UserWorkload.fromWire(args[1], response.status.split(" "), 1));
+                }
+                ReportService.printWorkload(System.out, total);
+                return "OK";
+            }
+            case "project.archive":
+            case "project.restore":
+            case "portfolio.add":
+            case "portfolio.move":
+            case "portfolio.delete":
+            case "portfolio.assign":
+            case "portfolio.unassign":
+            case "report.portfolio":
+            case "report.group":
+            case "report.conflicts":
+            case "report.status-asof":
+            case "export.tasks":
+            case "export.projects":
+            case "sync.since":
+                return "ERROR " + args[0] + " is not available in sharded mode";
+            default:
+                return "ERROR unknown command";
+        }
+    }
+
+    /** Each shard updates the tasks it holds; unknown IDs count as not updated. */
+    private String bulkStatus(String[] args) {
+        if (args.length < 3) return "ERROR expected 2 argument(s), got " + (args.length - 1);
+        Map<Shard, StringBuilder> commands = new LinkedHashMap<>();
+        for (int i = 2; i < args.length; i++) {
+            String projectId = taskProject.get(args[i]);
+            Shard shard = projectId == null ? null : projectLocation.get(projectId);
+            if (shard == null) continue;
+            commands.computeIfAbsent(shard, key -> new StringBuilder("task.bulk-status " + quote(args[1])))
+                    .append(' ').append(quote(args[i]));
+        }
+        int updated = 0;
+        String status = args[1];
+        for (Map.Entry<Shard, StringBuilder> entry : commands.entrySet()) {
+            Response response = entry.getKey().send(entry.getValue().toString());
+            if (!response.ok()) return response.status;
+            String[] tokens = response.status.split(" ");
+            updated += Integer.parseInt(tokens[1]);
+            status = response.status.substring(response.status.indexOf("-> ") + 3);
+        }
+        return "OK " + updated + " of " + (args.length - 2) + " task(s) -> " + status;
+    }
+
+    /** A project filter goes to the project's shard, any other filter to every shard. */
+    private String deleteWhere(String line, String[] args) {
+        if (args.length < 3) return "ERROR expected 2 argument(s), got " + (args.length - 1);
+        List<Shard> targets = shards;
+        if (args[1].equalsIgnoreCase("project")) {
+            Shard shard = projectLocation.get(args[2]);
+            targets = shard == null ? List.of() : List.of(shard);
+        }
+        int deleted = 0;
+        for (Shard shard : targets) {
+            Response response = shard.send(line);
+            if (!response.ok()) return response.status;
+            deleted += Integer.parseInt(response.status.split(" ")[2]);
+            discoverTasks(shard);
+        }
+        return "OK deleted " + deleted + " task(s)";
+    }
+
+    private String reportStatus(String[] args) {
+        boolean csv = args.length > 1 && args[1].equalsIgnoreCase("--format=csv");
+        if (args.length > 1 && !csv && !args[1].equalsIgnoreCase("--format=text")) return "ERROR unknown option " + args[1];
+        StatusFigures total = new StatusFigures();
+        for (Shard shard : shards) {
+            Response response = shard.send("shard.stats");
+            if (!response.ok()) return response.status;
+            total.merge(StatusFigures.fromWire(response.status.split(" "), 1));
+        }
+        if (csv) ReportService.printStatusReportCsv(System.out, total);
+        else ReportService.printStatusReport(System.out, total);
+        return "OK";
+    }
+
+    /** Tasks are routed via their project; unknown tasks are looked for on every shard. */
+    private Response sendForTask(String taskId, String line) {
+        String projectId = taskProject.get(taskId);
+        Shard shard = projectId == null ? null : projectLocation.get(projectId);
+        if (shard != null) return shard.send(line);
+        Response response = null;
+        for (Shard candidate : shards) {
+            response = candidate.send(line);
+            if (!response.status.startsWith("ERROR task not found")) return response;
+        }
+        return response != null ? response : new Response(new ArrayList<>(), "ERROR task not found: " + taskId);
+    }
+
+    /** Add a running shard to the ring and queue the projects it now owns for migration. */
+    public synchronized void addShard(InetSocketAddress address) throws IOException {
+        Shard shard = new Shard(address);
+        shards.add(shard);
+        placeOnRing(shard);
+        discover(shard);
+        planMoves();
+    }
+
+    /**
+     * Migrate up to {@code maxProjects} queued projects to their new owners and
+     * return how many remain. Each move copies the project and its tasks, then
+     * purges the old copy; a failed copy is rolled back and retried later.
+     */
+    public synchronized int rebalance(int maxProjects) {
+        removeStrayCopies();
+        int attempts = Math.min(maxProjects, pendingMoves.size());
+        for (int i = 0; i < attempts; i++) {
+            String projectId = pendingMoves.poll();
+            Shard from = projectLocation.get(projectId);
+            Shard to = owner(projectId);
+            if (from == null || from == to) continue;
+            boolean moved;
+            try {
+                moved = move(projectId, from, to);
+            } catch (UncheckedIOException e) {
+                System.out.println("Error: moving " + projectId + " failed: " + e.getCause().getMessage());
+                moved = false;
+            }
+            if (!moved) pendingMoves.add(projectId);
+        }
+        return pendingMoves.size();
+    }
+
+    /**
+     * Copy the project to its new shard, then purge the old copy. If either step
+     * fails the project stays where it was and the new copy is purged again.
+     */
+    private boolean move(String projectId, Shard from, Shard to) {
+        Response export = from.send("shard.export " + quote(projectId));
+        if (!export.ok()) return false;
+        for (String command : export.payload) {
+            Response applied = to.send(command);
+            if (!applied.ok()) {
+                System.out.println("Error: moving " + projectId + " failed: " + applied.status);
+                purge(to, projectId);
+                return false;
+            }
+        }
+        Response purged = from.send("shard.purge " + quote(projectId));
+        if (!purged.ok()) {
+            System.out.println("Error: moving " + projectId + " failed: " + purged.status);
+            purge(to, projectId);
+            return false;
+        }
+        projectLocation.put(projectId, to);
+        return true;
+    }
+
+    /** Purge a copy that must not stay; if the shard refuses, try again on the next rebalance. */
+    private void purge(Shard shard, String projectId) {
+        Response response;
+        try {
+            response = shard.send("shard.purge " + quote(projectId));
+        } catch (UncheckedIOException e) {
+            response = new Response(new ArrayList<>(), "ERROR " + e.getCause().getMessage());
+        }
+        if (response.ok() || response.status.startsWith("ERROR project not found")) return;
+        System.out.println("Error: could not purge the copy of " + projectId + " on " + shard + ": " + response.status);
+        strayCopies.computeIfAbsent(shard, key -> new ArrayList<>()).add(projectId);
+    }
+
+    private void removeStrayCopies() {
+        if (strayCopies.isEmpty()) return;
+        Map<Shard, List<String>> retry = new LinkedHashMap<>(strayCopies);
+        strayCopies.clear();
+        for (Map.Entry<Shard, List<String>> entry : retry.entrySet()) {
+            for (String projectId : entry.getValue()) {
+                if (projectLocation.get(projectId) != entry.getKey()) purge(entry.getKey(), projectId);
+            }
+        }
+    }
+
+    public synchronized int getPendingMoves() { return pendingMoves.size(); }
+
+    public synchronized int getShardCount() { return shards.size(); }
+
+    /** Number of projects currently held by each shard, keyed by address. */
+    public synchronized Map<String, Integer> getProjectDistribution() {
+        Map<String, Integer> distribution = new LinkedHashMap<>();
+        for (Shard shard : shards) distribution.put(shard.toString(), 0);
+        for (Shard shard : projectLocation.values()) distribution.merge(shard.toString(), 1, Integer::sum);
+        return distribution;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (Shard shard : shards) shard.close();
+    }
+
+    private void discover(Shard shard) throws IOException {
+        try {
+            Response ids = shard.send("shard.ids");
+            String[] tokens = BatchCommandRunner.tokenize(ids.status);
+            for (int i = 1; i < tokens.length; i++) projectLocation.put(tokens[i], shard);
+            discoverTasks(shard);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /** Re-read which tasks the shard holds, replacing what was known for its projects. */
+    private void discoverTasks(Shard shard) {
+        taskProject.values().removeIf(projectId -> projectLocation.get(projectId) == shard);
+        for (String row : shard.send("shard.tasks").payload) {
+            String[] pair = BatchCommandRunner.tokenize(row);
+            if (pair.length == 2) taskProject.put(pair[0], pair[1]);
+        }
+    }
+
+    private void planMoves() {
+        pendingMoves.clear();
+        for (Map.Entry<String, Shard> entry : projectLocation.entrySet()) {
+            if (owner(entry.getKey()) != entry.getValue()) pendingMoves.add(entry.getKey());
+        }
+    }
+
+    private void placeOnRing(Shard shard) {
+        for (int i = 0; i < VIRTUAL_NODES; i++) ring.put(hash(shard + "#" + i), shard);
+    }
+
+    private Shard owner(String projectId) {
+        Map.Entry<Integer, Shard> entry = ring.ceilingEntry(hash(projectId));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    /** FNV-1a with a final avalanche, so similar IDs spread across the ring. */
+    private static int hash(String key) {
+        int h = 0x811c9dc5;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    private static String quote(String value) { return BatchCommandRunner.quote(value); }
+
+    private static final class Response {
+        final List<String> payload;
+        final String status;
+
+        Response(List<String> payload, String status) {
+            this.payload = payload;
+            this.status = status;
+        }
+
+        boolean ok() { return status.startsWith("OK"); }
+
+        Response print() {
+            for (String row : payload) System.out.println(row);
+            return this;
+        }
+    }
+
+    /** One connection to a shard; requests on it are strictly sequential. */
+    private static final class Shard {
+        private final InetSocketAddress address;
+        private final Socket socket;
+        private final BufferedReader in;
+        private final BufferedWriter out;
+
+        Shard(InetSocketAddress address) throws IOException {
+            this.address = address;
+            this.socket = new Socket(address.getAddress(), address.getPort());
+            this.socket.setTcpNoDelay(true);
+            this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            this.out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        }
+
+        Response send(String line) {
+            try {
+                out.write(line);
+                out.write('\n');
+                out.flush();
+                List<String> payload = new ArrayList<>();
+                String row;
+                while ((row = in.readLine()) != null && row.startsWith(ShardServer.PAYLOAD_PREFIX)) {
+                    payload.add(row.substring(ShardServer.PAYLOAD_PREFIX.length()));
+                }
+                if (row == null) throw new IOException("shard " + this + " closed the connection");
+                return new Response(payload, row);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                System.out.println("Error: closing shard " + this + ": " + e.getMessage());
+            }
+        }
+
+        @Override
+        public String toString() { return address.getHostString() + ":" + address.getPort(); }
+    }
+}
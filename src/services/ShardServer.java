@@ -0,0 +1,191 @@
+package services;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import models.Project;
+import models.Task;
+import utils.BatchCommandRunner;
+
+/**
+ * One shard of a partitioned deployment: a worker process that owns a subset of
+ * projects (and their tasks) and serves the batch command language over a
+ * loopback socket. Usage: {@code java -cp <classpath> services.ShardServer [port]}.
+ *
+ * Protocol: one command per request line. The response is any report output as
+ * lines prefixed with "| ", followed by one status line starting with OK or ERROR.
+ * Besides the batch commands a shard understands:
+ *   shard.ids                 project IDs held by this shard (quoted)
+ *   shard.tasks               "| TASK_ID PROJECT_ID" for every task (quoted)
+ *   shard.stats               mergeable status report figures
+ *   shard.workload USER_ID    mergeable workload counters
+ *   shard.export PROJECT_ID   records that recreate a project, its tasks with their
+ *                             status timestamps, and the dependencies among them
+ *   shard.purge PROJECT_ID    delete a project together with its tasks
+ *   project.put / task.put    apply an exported record (see ReplicationCodec)
+ *
+ * Each shard tracks flow metrics, dependencies and due dates for what it holds,
+ * so the project reports and task.overdue work per shard.
+ */
+public class ShardServer {
+    static final String PAYLOAD_PREFIX = "| ";
+
+    private final ProjectServices projectService = new ProjectServices();
+    private final TaskService taskService = new TaskService(projectService);
+    private final ReportService reportService = new ReportService(projectService, taskService);
+    private final DependencyService dependencies = new DependencyService(taskService);
+    private final BatchCommandRunner runner = new BatchCommandRunner(projectService, taskService, reportService);
+    private final ServerSocket serverSocket;
+
+    /** @param port loopback port to listen on, 0 for any free port */
+    public ShardServer(int port) throws IOException {
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        projectService.setQuiet(true);
+        taskService.setQuiet(true);
+        reportService.setFlowMetrics(new FlowMetricsService(taskService));
+        reportService.setDependencyService(dependencies);
+        runner.setDependencyService(dependencies);
+        runner.setDueDateScheduler(new DueDateScheduler(taskService, 0));
+    }
+
+    public int getPort() { return serverSocket.getLocalPort(); }
+
+    /** Accept connections until the socket is closed; each connection gets its own thread. */
+    public void serve() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread thread = new Thread(() -> handle(socket), "shard-connection");
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) System.err.println("Error: accept failed: " + e.getMessage());
+            }
+        }
+    }
+
+    public void close() throws IOException { serverSocket.close(); }
+
+    private void handle(Socket socket) {
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                List<String> payload = new ArrayList<>();
+                String status = execute(line, payload);
+                for (String row : payload) out.write(PAYLOAD_PREFIX + row + "\n");
+                out.write(status + "\n");
+                out.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("Error: shard connection closed: " + e.getMessage());
+        }
+    }
+
+    /** Commands are applied one at a time, so a shard has a single writer. */
+    synchronized String execute(String line, List<String> payload) {
+        String[] args = BatchCommandRunner.tokenize(line.trim());
+        if (args.length == 0) return "ERROR empty command";
+        try {
+            switch (args[0]) {
+                case "shard.ids": {
+                    StringBuilder ids = new StringBuilder("OK");
+                    for (Project project : projectService.scan()) ids.append(' ').append(quote(project.getProjectId()));
+                    return ids.toString();
+                }
+                case "shard.tasks":
+                    for (Task task : taskService.scan()) payload.add(quote(task.getTaskId()) + " " + quote(task.getProjectId()));
+                    return "OK " + payload.size();
+                case "shard.stats":
+                    return "OK " + new StatusFigures(projectService.scan(), taskService).toWire();
+                case "shard.workload": {
+                    requireArgs(args, 2);
+                    UserWorkload workload = new UserWorkload(args[1]);
+                    for (Task task : taskService.getTasksByUserId(args[1])) workload.apply(task, 1);
+                    return "OK " + workload.toWire();
+                }
+                case "shard.export":
+                    requireArgs(args, 2);
+                    return export(args[1], payload);
+                case "shard.purge":
+                    requireArgs(args, 2);
+                    return purge(args[1]);
+                case "project.put":
+                    requireArgs(args, 14);
+                    ReplicationCodec.apply(args, projectService, taskService);
+                    return "OK " + args[2];
+                case "task.put":
+                    requireArgs(args, 9);
+                    if (projectService.findProjectById(args[2]) == null) return "ERROR project not found: " + args[2];
+                    ReplicationCodec.apply(args, projectService, taskService);
+                    return "OK " + args[1];
+                default:
+                    return captureOutput(line, payload);
+            }
+        } catch (IllegalArgumentException e) {
+            return "ERROR " + e.getMessage();
+        }
+    }
+
+    /** Run a batch command, returning anything it printed (reports) as payload lines. */
+    private String captureOutput(String line, List<String> payload) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        String status;
+        try (PrintStream out = new PrintStream(buffer, false, StandardCharsets.UTF_8)) {
+            status = runner.executeLine(line, out);
+        }
+        String printed = buffer.toString(StandardCharsets.UTF_8);
+        if (!printed.isEmpty()) for (String row : printed.split("\\R")) payload.add(row);
+        return status;
+    }
+
+    private String export(String projectId, List<String> payload) {
+        Project project = projectService.findProjectById(projectId);
+        if (project == null) return "ERROR project not found: " + projectId;
+        payload.add(ReplicationCodec.put(project));
+        Task[] tasks = taskService.getTasksByProjectId(projectId);
+        for (Task task : tasks) payload.add(ReplicationCodec.put(task));
+        for (Task task : tasks) {
+            for (String dependent : dependencies.getDependents(task.getTaskId())) {
+                Task other = taskService.findTaskById(dependent);
+                if (other != null && projectId.equals(other.getProjectId())) {
+                    payload.add("task.depend " + quote(task.getTaskId()) + " " + quote(dependent));
+                }
+            }
+        }
+        return "OK " + payload.size();
+    }
+
+    private String purge(String projectId) {
+        if (projectService.findProjectById(projectId) == null) return "ERROR project not found: " + projectId;
+        int tasks = taskService.getTasksByProjectId(projectId).length;
+        if (!taskService.deleteProjectWithTasks(projectId)) return "ERROR could not purge " + projectId;
+        return "OK purged " + projectId + " with " + tasks + " task(s)";
+    }
+
+    private static void requireArgs(String[] args, int count) {
+        if (args.length < count) {
+            throw new IllegalArgumentException("expected " + (count - 1) + " argument(s), got " + (args.length - 1));
+        }
+    }
+
+    private static String quote(String value) { return BatchCommandRunner.quote(value); }
+
+    public static void main(String[] args) throws IOException {
+        ShardServer server = new ShardServer(args.length > 0 ? Integer.parseInt(args[0]) : 0);
+        System.out.println("SHARD LISTENING " + server.getPort());
+        System.out.flush();
+        server.serve();
+    }
+}
@@ -0,0 +1,112 @@
+package services;
+
+import java.util.Collections;
+import models.Project;
+import models.Task;
+
+/**
+ * Status report figures computed in one pass over snapshots of the projects
+ * and tasks (task figures come from counts when the tasks live in a store). Figures from several shards can be merged, and travel
+ * between processes as a single space-separated line.
+ */
+final class StatusFigures {
+    int projects;
+    double totalCompletion;
+    int activeProjects;
+    int completedProjects;
+    int onHoldProjects;
+    int tasks;
+    int pendingTasks;
+    int inProgressTasks;
+    int completedTasks;
+    int highPriority;
+    int mediumPriority;
+    int lowPriority;
+
+    StatusFigures() {
+    }
+
+    StatusFigures(Iterable<Project> projectView, Iterable<Task> taskView) {
+        addProjects(projectView);
+        for (Task task : taskView) {
+            tasks++;
+            String status = task.getStatus();
+            if (status.equalsIgnoreCase("Pending")) pendingTasks++;
+            else if (status.equalsIgnoreCase("In Progress")) inProgressTasks++;
+            else if (status.equalsIgnoreCase("Completed")) completedTasks++;
+
+            String priority = task.getPriority();
+            if (priority.equalsIgnoreCase("High")) highPriority++;
+            else if (priority.equalsIgnoreCase("Medium")) mediumPriority++;
+            else if (priority.equalsIgnoreCase("Low")) lowPriority++;
+        }
+    }
+
+    /**
+     * Task figures from the service's counts when it keeps tasks in an external
+     * store, which counts status and priority without building the tasks.
+     */
+    StatusFigures(Iterable<Project> projectView, TaskService taskService) {
+        this(projectView, taskService.hasExternalStore() ? Collections.<Task>emptyList() : taskService.scan());
+        if (!taskService.hasExternalStore()) return;
+        tasks = taskService.getTaskCount();
+        pendingTasks = taskService.countTasksByStatus("Pending");
+        inProgressTasks = taskService.countTasksByStatus("In Progress");
+        completedTasks = taskService.countTasksByStatus("Completed");
+        highPriority = taskService.countTasksByPriority("High");
+        mediumPriority = taskService.countTasksByPriority("Medium");
+        lowPriority = taskService.countTasksByPriority("Low");
+    }
+
+    private void addProjects(Iterable<Project> projectView) {
+        for (Project project : projectView) {
+            projects++;
+            totalCompletion += project.calculateCompletionPercentage();
+            String status = project.getStatus();
+            if (status.equalsIgnoreCase("Active")) activeProjects++;
+            else if (status.equalsIgnoreCase("Completed")) completedProjects++;
+            else if (status.equalsIgnoreCase("On Hold")) onHoldProjects++;
+        }
+    }
+
+    double averageCompletion() { return projects == 0 ? 0.0 : totalCompletion / projects; }
+
+    void merge(StatusFigures other) {
+        projects += other.projects;
+        totalCompletion += other.totalCompletion;
+        activeProjects += other.activeProjects;
+        completedProjects += other.completedProjects;
+        onHoldProjects += other.onHoldProjects;
+        tasks += other.tasks;
+        pendingTasks += other.pendingTasks;
+        inProgressTasks += other.inProgressTasks;
+        completedTasks += other.completedTasks;
+        highPriority += other.highPriority;
+        mediumPriority += other.mediumPriority;
+        lowPriority += other.lowPriority;
+    }
+
+    String toWire() {
+        return projects + " " + totalCompletion + " " + activeProjects + " " + completedProjects + " " + onHoldProjects
+                + " " + tasks + " " + pendingTasks + " " + inProgressTasks + " " + completedTasks
+                + " " + highPriority + " " + mediumPriority + " " + lowPriority;
+    }
+
+    /** Parse {@link #toWire()} output starting at {@code tokens[offset]}. */
+    static StatusFigures fromWire(String[] tokens, int offset) {
+        StatusFigures figures = new StatusFigures();
+        figures.projects = Integer.parseInt(tokens[offset]);
+        figures.totalCompletion = Double.parseDouble(tokens[offset + 1]);
+        figures.activeProjects = Integer.parseInt(tokens[offset + 2]);
+        figures.completedProjects = Integer.parseInt(tokens[offset + 3]);
+        figures.onHoldProjects = Integer.parseInt(tokens[offset + 4]);
+        figures.tasks = Integer.parseInt(tokens[offset + 5]);
+        figures.pendingTasks = Integer.parseInt(tokens[offset + 6]);
+        figures.inProgressTasks = Integer.parseInt(tokens[offset + 7]);
+        figures.completedTasks = Integer.parseInt(tokens[offset + 8]);
+        figures.highPriority = Integer.parseInt(tokens[offset + 9]);
+        figures.mediumPriority = Integer.parseInt(tokens[offset + 10]);
+        figures.lowPriority = Integer.parseInt(tokens[offset + 11]);
+        return figures;
+    }
+}
@@ -1,18 +1,69 @@
 package services;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import interfaces.TaskEventListener;
+import interfaces.TaskStore;
+import models.Permission;
+import models.Project;
 import models.Task;
+import models.User;
+import utils.ResultCache;
+import utils.Snapshot;
+import utils.SnapshotArray;
+import utils.StringDictionary;
+import utils.VersionedCopies;
 
 /** Service class for managing task operations. */
 public class TaskService {
-    private Task[] tasks;
-    private int taskCount;
+    private final SnapshotArray<Task> tasks = new SnapshotArray<>();
+    /** What {@link #snapshot()} hands out for heap-resident tasks. */
+    private final VersionedCopies<Task> copies = new VersionedCopies<>(Task::copy, Task::getVersion);
     private static final int MAX_TASKS = 500;
+    private boolean quiet;
 
     private ProjectServices projectService;
 
+    /** Concurrent maps and atomics, so edits of different tasks on different threads take no lock here. */
+    private final Map<String, Task> tasksById = new ConcurrentHashMap<>();
+    /** Keyed by the assignee's dictionary code; a queue is kept once emptied, as another thread may be adding to it. */
+    private final Map<Integer, Queue<Task>> tasksByAssignee = new ConcurrentHashMap<>();
+    private static final StringDictionary DICTIONARY = StringDictionary.shared();
+    private static final Task[] NO_TASKS = new Task[0];
+    private final List<TaskEventListener> listeners = new ArrayList<>();
+
+    /** Per-project versions by project dictionary code, stamped from one shared counter so a reused code never repeats a version. */
+    private volatile AtomicLongArray projectVersions = new AtomicLongArray(64);
+    private final AtomicLong projectStamp = new AtomicLong();
+    private ResultCache cache;
+    private AssignmentBalancer balancer;
+    private ArchiveService archive;
+    private final ConflictStats conflictStats = new ConflictStats();
+
+    /** Set on the thread running a bulk update, so the data version moves once per batch. */
+    private final ThreadLocal<Boolean> batching = ThreadLocal.withInitial(() -> false);
+    /** Set while the archive moves tasks out or back; listeners then get archive events. */
+    private boolean archiveMove;
+
+    private TaskStore store;
+
     public TaskService() {
-        this.tasks = new Task[MAX_TASKS];
-        this.taskCount = 0;
         this.projectService = null;
     }
 
@@ -21,116 +72,753 @@ public class TaskService {
         this.projectService = projectService;
     }
 
+    /** Keep tasks in an external store (off-heap, paged) instead of on the heap; lifts MAX_TASKS, and projects hold no references to them. */
+    public TaskService(ProjectServices projectService, TaskStore store) {
+        this(projectService);
+        this.store = store;
+        store.setChangeListener(this::onStoreTaskChanged);
+        // a paged store drops a project's tasks with the project
+        if (store instanceof PagedStore && projectService != null) projectService.setTaskService(this);
+    }
+
+    public boolean hasExternalStore() { return store != null; }
+
     public boolean addTask(Task task) {
-        if (taskCount >= MAX_TASKS) {
-            System.out.println("Error: Maximum task limit reached!");
+        if (store != null) {
+            if (store.contains(task.getTaskId())) {
+                log("Error: Task ID already exists!");
+                return false;
+            }
+            if (!store.add(task)) {
+                log("Error: Task could not be stored!");
+                return false;
+            }
+            tasks.touch();
+            bumpProject(task.getProjectCode());
+            for (TaskEventListener listener : listeners) listener.taskAdded(task);
+            log("Task added successfully.");
+            return true;
+        }
+        if (tasks.size() >= MAX_TASKS) {
+            log("Error: Maximum task limit reached!");
             return false;
         }
         if (findTaskById(task.getTaskId()) != null) {
-            System.out.println("Error: Task ID already exists!");
+            log("Error: Task ID already exists!");
             return false;
         }
-        tasks[taskCount++] = task;
+        if (archive != null) archive.restore(task.getProjectId());
+        tasks.add(task);
+        copies.added(task);
+        index(task);
+        for (TaskEventListener listener : listeners) listener.taskAdded(task);
         if (projectService != null) {
-            models.Project project = projectService.findProjectById(task.getProjectId());
+            Project project = projectService.findProjectById(task.getProjectId());
             if (project != null) project.addTask(task);
         }
-        System.out.println("Task added successfully.");
+        log("Task added successfully.");
         return true;
     }
 
     public Task findTaskById(String taskId) {
-        for (int i = 0; i < taskCount; i++) if (tasks[i].getTaskId().equals(taskId)) return tasks[i];
-        return null;
+        if (store != null) return store.find(taskId);
+        Task task = tasksById.get(taskId);
+        return task == null && archive != null ? archive.findTask(taskId) : task;
     }
 
+    /** Called by the archive it registers with; archived tasks are then found (read-only) by ID. */
+    void setArchive(ArchiveService archive) { this.archive = archive; }
+
     public boolean updateTask(String taskId, Task updatedTask) {
-        for (int i = 0; i < taskCount; i++) {
-            if (tasks[i].getTaskId().equals(taskId)) {
-                tasks[i] = updatedTask;
-                System.out.println("Task updated successfully.");
-                return true;
+        if (store != null) return updateInStore(taskId, updatedTask);
+        int i = indexOf(taskId);
+        if (i < 0 && archive != null && archive.restoreTask(taskId)) i = indexOf(taskId);
+        if (i >= 0) {
+            Task current = tasks.get(i);
+            if (current != updatedTask) {
+                unindex(current);
+                tasks.set(i, updatedTask);
+                copies.replaced(current, updatedTask);
+                index(updatedTask);
+                if (projectService != null) {
+                    Project from = projectService.findProjectById(current.getProjectId());
+                    if (from != null) from.removeTask(current.getTaskId());
+                    joinProject(updatedTask);
+                }
+                for (TaskEventListener listener : listeners) listener.taskReplaced(current, updatedTask);
             }
+            log("Task updated successfully.");
+            return true;
         }
-        System.out.println("Error: Task not found!");
+        log("Error: Task not found!");
         return false;
     }
 
+    /** Apply {@code edit} only if the task's version is still {@code expectedVersion}; CONFLICT otherwise, UNSUPPORTED with an external store. */
+    public UpdateResult updateTaskIfVersion(String taskId, long expectedVersion, Consumer<Task> edit) {
+        if (store != null) {
+            log("Error: Versioned updates are not available for tasks in an external store!");
+            return UpdateResult.UNSUPPORTED;
+        }
+        Task task = findTaskById(taskId);
+        if (task == null) {
+            log("Error: Task not found!");
+            return UpdateResult.NOT_FOUND;
+        }
+        conflictStats.attempt();
+        if (!task.claimVersion(expectedVersion)) {
+            conflictStats.conflict();
+            log("Error: Task was changed by someone else (version " + task.getVersion() + ", expected " + expectedVersion + ")!");
+            return UpdateResult.CONFLICT;
+        }
+        try {
+            edit.accept(task);
+        } finally {
+            task.releaseVersion();
+        }
+        log("Task updated successfully.");
+        return UpdateResult.UPDATED;
+    }
+
+    /** Conditional form of {@link #updateTask}: copy the editable fields of {@code updated} that differ. */
+    public UpdateResult updateTaskIfVersion(String taskId, long expectedVersion, Task updated) {
+        return updateTaskIfVersion(taskId, expectedVersion, task -> {
+            if (!Objects.equals(task.getProjectId(), updated.getProjectId())) task.setProjectId(updated.getProjectId());
+            if (!Objects.equals(task.getTaskName(), updated.getTaskName())) task.setTaskName(updated.getTaskName());
+            if (!Objects.equals(task.getDescription(), updated.getDescription())) task.setDescription(updated.getDescription());
+            if (!Objects.equals(task.getAssignedTo(), updated.getAssignedTo())) task.setAssignedTo(updated.getAssignedTo());
+            if (!Objects.equals(task.getPriority(), updated.getPriority())) task.setPriority(updated.getPriority());
+            if (!Objects.equals(task.getDueDate(), updated.getDueDate())) task.setDueDate(updated.getDueDate());
+            if (!Objects.equals(task.getStatus(), updated.getStatus())) task.setStatus(updated.getStatus());
+        });
+    }
+
+    public UpdateResult updateTaskIfVersion(String taskId, long expectedVersion, Consumer<Task> edit, User actor) {
+        Task task = findTaskById(taskId);
+        if (task != null && !canUpdate(task, actor)) {
+            log("Error: Access denied - you can only update your own tasks!");
+            return UpdateResult.DENIED;
+        }
+        return updateTaskIfVersion(taskId, expectedVersion, edit);
+    }
+
+    /** Retry the conditional update with a freshly read version after each conflict, up to {@code maxAttempts} times. */
+    public UpdateResult updateTaskWithRetry(String taskId, Consumer<Task> edit, int maxAttempts) {
+        UpdateResult result = UpdateResult.CONFLICT;
+        for (int attempt = 0; attempt < maxAttempts && result == UpdateResult.CONFLICT; attempt++) {
+            if (attempt > 0) conflictStats.retry();
+            Task task = findTaskById(taskId);
+            if (task == null) return updateTaskIfVersion(taskId, 0, edit);
+            result = updateTaskIfVersion(taskId, task.getVersion(), edit);
+        }
+        return result;
+    }
+
+    /** Conditional-update attempts, conflicts and retries so far. */
+    public ConflictStats getConflictStats() { return conflictStats; }
+
     public boolean deleteTask(String taskId) {
-        for (int i = 0; i < taskCount; i++) {
-            if (tasks[i].getTaskId().equals(taskId)) {
-                String projectId = tasks[i].getProjectId();
-                for (int j = i; j < taskCount - 1; j++) tasks[j] = tasks[j + 1];
-                tasks[taskCount - 1] = null;
-                taskCount--;
-                if (projectService != null) {
-                    models.Project project = projectService.findProjectById(projectId);
-                    if (project != null) project.removeTask(taskId);
-                }
-                System.out.println("Task deleted successfully.");
+        if (store != null) {
+            Task task = store.find(taskId);
+            if (task != null && store.delete(taskId)) {
+                tasks.touch();
+                bumpProject(task.getProjectCode());
+                for (TaskEventListener listener : listeners) listener.taskRemoved(task);
+                log("Task deleted successfully.");
                 return true;
             }
+            log("Error: Task not found!");
+            return false;
         }
-        System.out.println("Error: Task not found!");
+        int i = indexOf(taskId);
+        if (i < 0 && archive != null && archive.restoreTask(taskId)) i = indexOf(taskId);
+        if (i >= 0) {
+            Task task = tasks.get(i);
+            unindex(task);
+            tasks.removeAt(i);
+            copies.removed(task);
+            for (TaskEventListener listener : listeners) listener.taskRemoved(task);
+            if (projectService != null) {
+                Project project = projectService.findProjectById(task.getProjectId());
+                if (project != null) project.removeTask(taskId);
+            }
+            log("Task deleted successfully.");
+            return true;
+        }
+        log("Error: Task not found!");
         return false;
     }
 
+    /** Add many tasks as one structural write; returns the number added (duplicates and overflow are skipped). */
+    public int addAll(Collection<Task> batch) {
+        List<Task> accepted = new ArrayList<>(batch.size());
+        Set<String> seen = new HashSet<>();
+        for (Task task : batch) {
+            boolean duplicate = !seen.add(task.getTaskId())
+                    || (store != null ? store.contains(task.getTaskId()) : isIndexed(task.getTaskId()));
+            if (duplicate || (store == null && tasks.size() + accepted.size() >= MAX_TASKS)) continue;
+            if (store != null && !store.add(task)) continue;
+            accepted.add(task);
+        }
+        if (store != null) {
+            if (!accepted.isEmpty()) tasks.touch();
+            for (Task task : accepted) {
+                bumpProject(task.getProjectCode());
+                for (TaskEventListener listener : listeners) listener.taskAdded(task);
+            }
+        } else {
+            tasks.addAll(accepted);
+            for (Task task : accepted) copies.added(task);
+            Map<String, List<Task>> byProject = new HashMap<>();
+            for (Task task : accepted) {
+                index(task);
+                for (TaskEventListener listener : listeners) {
+                    if (archiveMove) listener.taskRestored(task);
+                    else listener.taskAdded(task);
+                }
+                byProject.computeIfAbsent(task.getProjectId(), key -> new ArrayList<>()).add(task);
+            }
+            if (projectService != null) {
+                for (Map.Entry<String, List<Task>> entry : byProject.entrySet()) {
+                    Project project = projectService.findProjectById(entry.getKey());
+                    if (project != null) project.addTasks(entry.getValue());
+                }
+            }
+        }
+        logBulk(accepted.size(), "added", batch.size() - accepted.size(), "duplicate ID or limit reached");
+        return accepted.size();
+    }
+
+    /** Set the status of many tasks, moving the data version once; returns the number found and updated. */
+    public int updateStatus(Collection<String> taskIds, String status) {
+        int[] updated = new int[1];
+        inPlaceBatch(() -> {
+            for (String taskId : taskIds) {
+                Task task = findTaskById(taskId);
+                if (task == null) continue;
+                task.setStatus(status);
+                updated[0]++;
+            }
+        });
+        logBulk(updated[0], "updated", taskIds.size() - updated[0], "not found");
+        return updated[0];
+    }
+
+    /** Run in-place task edits with the data version moving once at the end; batches may nest. */
+    void inPlaceBatch(Runnable edits) {
+        boolean outer = batching.get();
+        batching.set(true);
+        try {
+            edits.run();
+        } finally {
+            batching.set(outer);
+        }
+        if (!outer) tasks.touch();
+    }
+
+    /** Delete every task matching the predicate in one pass; returns the number deleted. */
+    public int deleteWhere(Predicate<Task> predicate) {
+        List<Task> removed;
+        if (store != null) {
+            removed = new ArrayList<>();
+            for (Task task : store) {
+                if (predicate.test(task) && store.delete(task.getTaskId())) removed.add(task);
+            }
+            if (!removed.isEmpty()) tasks.touch();
+        } else {
+            removed = tasks.removeIf(predicate);
+            copies.removedAll(removed);
+            Set<Task> gone = Collections.newSetFromMap(new IdentityHashMap<>());
+            gone.addAll(removed);
+            Set<Integer> assignees = new HashSet<>();
+            Map<String, Set<String>> byProject = new HashMap<>();
+            for (Task task : removed) {
+                task.setChangeListener(null);
+                tasksById.remove(task.getTaskId(), task);
+                assignees.add(task.getAssigneeCode());
+                byProject.computeIfAbsent(task.getProjectId(), key -> new HashSet<>()).add(task.getTaskId());
+            }
+            for (Integer code : assignees) {
+                Queue<Task> assigned = tasksByAssignee.get(code);
+                if (assigned != null) assigned.removeIf(gone::contains);
+            }
+            if (projectService != null) {
+                for (Map.Entry<String, Set<String>> entry : byProject.entrySet()) {
+                    Project project = projectService.findProjectById(entry.getKey());
+                    if (project != null) project.removeTasks(entry.getValue());
+                }
+            }
+        }
+        for (Task task : removed) {
+            bumpProject(task.getProjectCode());
+            for (TaskEventListener listener : listeners) {
+                if (archiveMove) listener.taskArchived(task);
+                else listener.taskRemoved(task);
+            }
+        }
+        logBulk(removed.size(), "deleted", 0, null);
+        return removed.size();
+    }
+
+    /** {@link #deleteWhere} for the archive: listeners are told the tasks were archived. */
+    int archiveWhere(Predicate<Task> predicate) {
+        archiveMove = true;
+        try {
+            return deleteWhere(predicate);
+        } finally {
+            archiveMove = false;
+        }
+    }
+
+    /** {@link #addAll} for the archive: listeners are told the tasks were restored. */
+    int restoreAll(Collection<Task> batch) {
+        archiveMove = true;
+        try {
+            return addAll(batch);
+        } finally {
+            archiveMove = false;
+        }
+    }
+
+    /** Report an edit that was made to an archived copy, which has since been restored as the live task. */
+    void changedWhileArchived(Task task, String field, Object oldValue, Object newValue) {
+        if (field.equals("projectId")) moveProject(task, (String) oldValue);
+        onStoreTaskChanged(task, field, oldValue, newValue);
+    }
+
+    /** Delete a project together with all of its tasks, so none are left orphaned. */
+    public boolean deleteProjectWithTasks(String projectId) {
+        if (projectService == null || projectService.findProjectById(projectId) == null) {
+            log("Error: Project not found!");
+            return false;
+        }
+        if (archive != null) archive.restore(projectId);
+        if (store instanceof PagedStore) return projectService.deleteProject(projectId);
+        if (store != null) {
+            List<Task> removed = new ArrayList<>();
+            for (Task task : store.findWhere("projectId", projectId)) if (store.delete(task.getTaskId())) removed.add(task);
+            droppedWithProject(removed);
+        } else {
+            int code = DICTIONARY.codeOf(projectId);
+            deleteWhere(task -> task.getProjectCode() == code);
+        }
+        return projectService.deleteProject(projectId);
+    }
+
+    /** Report tasks already taken out of the store with their project. */
+    void droppedWithProject(List<Task> removed) {
+        if (!removed.isEmpty()) tasks.touch();
+        for (Task task : removed) {
+            bumpProject(task.getProjectCode());
+            for (TaskEventListener listener : listeners) listener.taskRemoved(task);
+        }
+        logBulk(removed.size(), "deleted", 0, null);
+    }
+
+    public boolean deleteProjectWithTasks(String projectId, User actor) {
+        if (!actor.hasPermission(Permission.DELETE_PROJECTS)) {
+            log("Error: Access denied - DELETE_PROJECTS required!");
+            return false;
+        }
+        return deleteProjectWithTasks(projectId);
+    }
+
+    private void logBulk(int done, String action, int skipped, String reason) {
+        log(done + " task(s) " + action + (skipped > 0 ? ", " + skipped + " skipped (" + reason + ")" : "") + ".");
+    }
+
+    /** Enables automatic assignment of new tasks to the least-loaded user. */
+    public void setAssignmentBalancer(AssignmentBalancer balancer) { this.balancer = balancer; }
+
+    /** Assign the task to the least-loaded user (within the project's team if set) and add it. */
+    public boolean addTaskAutoAssigned(Task task) {
+        if (balancer == null) {
+            log("Error: Auto-assignment is not enabled!");
+            return false;
+        }
+        String assignee = balancer.pick(task.getProjectId());
+        if (assignee == null) {
+            log("Error: No users available for auto-assignment!");
+            return false;
+        }
+        String requested = task.getAssignedTo();
+        task.setAssignedTo(assignee);
+        if (addTask(task)) return true;
+        task.setAssignedTo(requested);
+        return false;
+    }
+
+    public boolean addTaskAutoAssigned(Task task, User actor) {
+        if (!actor.hasPermission(Permission.CREATE_TASKS)) {
+            log("Error: Access denied - CREATE_TASKS required!");
+            return false;
+        }
+        return addTaskAutoAssigned(task);
+    }
+
+    /** Auto-assign and add a backlog one task at a time (O(log users) per pick); returns the number added. */
+    public int addAllAutoAssigned(Collection<Task> backlog) {
+        int added = 0;
+        for (Task task : backlog) if (addTaskAutoAssigned(task)) added++;
+        return added;
+    }
+
+    /** Views write back through their setters; any other object replaces the stored record. */
+    private boolean updateInStore(String taskId, Task updatedTask) {
+        Task current = store.find(taskId);
+        if (current == null) {
+            log("Error: Task not found!");
+            return false;
+        }
+        if (!updatedTask.getTaskId().equals(taskId) && store.contains(updatedTask.getTaskId())) {
+            log("Error: Task ID already exists!");
+            return false;
+        }
+        if (!updatedTask.getTaskId().equals(taskId) || !sameFields(current, updatedTask)) {
+            store.delete(taskId);
+            store.add(updatedTask);
+            tasks.touch();
+            bumpProject(current.getProjectCode());
+            bumpProject(updatedTask.getProjectCode());
+            for (TaskEventListener listener : listeners) listener.taskReplaced(current, updatedTask);
+        }
+        log("Task updated successfully.");
+        return true;
+    }
+
+    private static boolean sameFields(Task a, Task b) {
+        return Objects.equals(a.getProjectId(), b.getProjectId())
+                && Objects.equals(a.getTaskName(), b.getTaskName())
+                && Objects.equals(a.getDescription(), b.getDescription())
+                && Objects.equals(a.getAssignedTo(), b.getAssignedTo())
+                && Objects.equals(a.getPriority(), b.getPriority())
+                && Objects.equals(a.getStatus(), b.getStatus())
+                && Objects.equals(a.getDueDate(), b.getDueDate());
+    }
+
+    private int indexOf(String taskId) {
+        if (!isIndexed(taskId)) return -1;
+        return tasks.indexOf(task -> task.getTaskId().equals(taskId));
+    }
+
+    /** Detached copies of every task as of this call, for reports; only tasks edited since the last call are copied again. */
+    public Snapshot<Task> snapshot() {
+        if (store == null) return copies.snapshot();
+        SnapshotArray<Task> views = new SnapshotArray<>();
+        for (Task task : store) views.add(task);
+        return views.snapshot();
+    }
+
+    /** Every task, for a single pass; with an external store a stream that keeps none of them on the heap. */
+    public Iterable<Task> scan() {
+        return store != null ? store : tasks.snapshot();
+    }
+
+    /** Incremented on every add, replace, delete and in-place task edit. */
+    public long getDataVersion() { return tasks.version(); }
+
+    /** Moves only when a task of this project is added, removed or edited; the data version with an external store. */
+    public long getProjectDataVersion(String projectId) {
+        if (store != null) return getDataVersion();
+        int code = DICTIONARY.codeOf(projectId);
+        AtomicLongArray versions = projectVersions;
+        return code == StringDictionary.NO_CODE || code >= versions.length() ? 0 : versions.get(code);
+    }
+
+    /** Versions only grow, so a bump is a max; one that races a resize is repeated on, or copied into, the new array. */
+    private void bumpProject(int projectCode) {
+        if (projectCode == StringDictionary.NO_CODE) return;
+        long stamp = projectStamp.incrementAndGet();
+        AtomicLongArray versions = projectVersions;
+        if (projectCode >= versions.length()) versions = growProjectVersions(projectCode);
+        versions.accumulateAndGet(projectCode, stamp, Math::max);
+        while (versions != projectVersions) {
+            versions = projectVersions;
+            versions.accumulateAndGet(projectCode, stamp, Math::max);
+        }
+    }
+
+    private synchronized AtomicLongArray growProjectVersions(int projectCode) {
+        AtomicLongArray old = projectVersions;
+        if (projectCode < old.length()) return old;
+        AtomicLongArray grown = new AtomicLongArray(Math.max(projectCode + 1, old.length() * 2));
+        for (int i = 0; i < old.length(); i++) grown.set(i, old.get(i));
+        projectVersions = grown;
+        for (int i = 0; i < old.length(); i++) grown.accumulateAndGet(i, old.get(i), Math::max);
+        return grown;
+    }
+
+    /** Serve the status, priority and project filters from a versioned cache (heap-resident tasks only). */
+    public void setResultCache(ResultCache cache) { this.cache = cache; }
+
+    /** Every task in one array, shared by callers until the tasks change, so do not modify it; with an external store, prefer {@link #scan()}. */
     public Task[] getAllTasks() {
-        Task[] result = new Task[taskCount];
-        for (int i = 0; i < taskCount; i++) result[i] = tasks[i];
-        return result;
+        if (store != null) return filter(store, task -> true);
+        return tasks.snapshot().sharedArray(NO_TASKS);
     }
 
     public Task[] getTasksByProjectId(String projectId) {
-        int count = 0;
-        for (int i = 0; i < taskCount; i++) if (tasks[i].getProjectId().equals(projectId)) count++;
-        Task[] result = new Task[count];
-        int index = 0;
-        for (int i = 0; i < taskCount; i++) if (tasks[i].getProjectId().equals(projectId)) result[index++] = tasks[i];
-        return result;
+        if (cache != null && store == null) {
+            return cache.<Task[]>get("tasks.project:" + projectId, getProjectDataVersion(projectId),
+                    () -> findTasksByProjectId(projectId)).clone();
+        }
+        return findTasksByProjectId(projectId);
+    }
+
+    private Task[] findTasksByProjectId(String projectId) {
+        if (store != null) return store.findWhere("projectId", projectId).toArray(NO_TASKS);
+        int code = DICTIONARY.codeOf(projectId);
+        if (code == StringDictionary.NO_CODE) return NO_TASKS;
+        return filter(tasks.snapshot(), task -> task.getProjectCode() == code);
     }
 
     public Task[] getTasksByUserId(String userId) {
-        int count = 0;
-        for (int i = 0; i < taskCount; i++) if (tasks[i].getAssignedTo().equals(userId)) count++;
-        Task[] result = new Task[count];
-        int index = 0;
-        for (int i = 0; i < taskCount; i++) if (tasks[i].getAssignedTo().equals(userId)) result[index++] = tasks[i];
-        return result;
+        if (store != null) return store.findWhere("assignedTo", userId).toArray(NO_TASKS);
+        Queue<Task> assigned = tasksByAssignee.get(DICTIONARY.codeOf(userId));
+        return assigned == null ? NO_TASKS : assigned.toArray(NO_TASKS);
     }
 
     public Task[] getTasksByStatus(String status) {
+        if (cache != null && store == null) {
+            return cache.<Task[]>get("tasks.status:" + status.toLowerCase(), getDataVersion(),
+                    () -> findTasksByStatus(status)).clone();
+        }
+        return findTasksByStatus(status);
+    }
+
+    private Task[] findTasksByStatus(String status) {
+        if (store != null) return store.findByStatus(status).toArray(NO_TASKS);
+        return filter(tasks.snapshot(), task -> task.getStatus().equalsIgnoreCase(status));
+    }
+
+    /** Tasks with this status (ignoring case); an external store counts without building tasks where it can. */
+    public int countTasksByStatus(String status) {
+        if (store != null) return store.countByStatus(status);
         int count = 0;
-        for (int i = 0; i < taskCount; i++) if (tasks[i].getStatus().equalsIgnoreCase(status)) count++;
-        Task[] result = new Task[count];
-        int index = 0;
-        for (int i = 0; i < taskCount; i++) if (tasks[i].getStatus().equalsIgnoreCase(status)) result[index++] = tasks[i];
-        return result;
+        for (Task task : tasks.snapshot()) if (task.getStatus().equalsIgnoreCase(status)) count++;
+        return count;
     }
 
     public Task[] getTasksByPriority(String priority) {
+        if (cache != null && store == null) {
+            return cache.<Task[]>get("tasks.priority:" + priority.toLowerCase(), getDataVersion(),
+                    () -> findTasksByPriority(priority)).clone();
+        }
+        return findTasksByPriority(priority);
+    }
+
+    private Task[] findTasksByPriority(String priority) {
+        if (store != null) return store.findByPriority(priority).toArray(NO_TASKS);
+        return filter(tasks.snapshot(), task -> task.getPriority().equalsIgnoreCase(priority));
+    }
+
+    /** @see #countTasksByStatus(String) */
+    public int countTasksByPriority(String priority) {
+        if (store != null) return store.countByPriority(priority);
         int count = 0;
-        for (int i = 0; i < taskCount; i++) if (tasks[i].getPriority().equalsIgnoreCase(priority)) count++;
-        Task[] result = new Task[count];
-        int index = 0;
-        for (int i = 0; i < taskCount; i++) if (tasks[i].getPriority().equalsIgnoreCase(priority)) result[index++] = tasks[i];
-        return result;
+        for (Task task : tasks.snapshot()) if (priority.equalsIgnoreCase(task.getPriority())) count++;
+        return count;
     }
 
-    public void displayAllTasks() {
-        if (taskCount == 0) {
-            System.out.println("No tasks available.");
-            return;
+    private static Task[] filter(Iterable<Task> view, Predicate<Task> predicate) {
+        List<Task> result = new ArrayList<>();
+        for (Task task : view) if (predicate.test(task)) result.add(task);
+        return result.toArray(NO_TASKS);
+    }
+
+    /** Tasks the viewer may see: all of them, or only their own for own-tasks-only roles. */
+    public Task[] getAllTasks(User viewer) {
+        return select(viewer, task -> true);
+    }
+
+    public Task[] getTasksByProjectId(String projectId, User viewer) {
+        int code = DICTIONARY.codeOf(projectId);
+        return select(viewer, task -> task.getProjectCode() == code && code != StringDictionary.NO_CODE);
+    }
+
+    public Task[] getTasksByStatus(String status, User viewer) {
+        return select(viewer, task -> task.getStatus().equalsIgnoreCase(status));
+    }
+
+    public Task[] getTasksByPriority(String priority, User viewer) {
+        return select(viewer, task -> task.getPriority().equalsIgnoreCase(priority));
+    }
+
+    public Task[] getTasksByUserId(String userId, User viewer) {
+        if (!canView(viewer)) return NO_TASKS;
+        if (Permission.isOwnTasksOnly(viewer.getPermissionMask()) && !viewer.getUserId().equals(userId)) return NO_TASKS;
+        return getTasksByUserId(userId);
+    }
+
+    /** Lookup honouring VIEW_TASKS and own-tasks-only row filtering; null if absent or not visible. */
+    public Task findTaskById(String taskId, User viewer) {
+        Task task = findTaskById(taskId);
+        if (task == null || !canView(viewer)) return null;
+        if (Permission.isOwnTasksOnly(viewer.getPermissionMask()) && !isAssignedTo(task, viewer)) return null;
+        return task;
+    }
+
+    public boolean canUpdate(Task task, User actor) {
+        if (actor.hasPermission(Permission.UPDATE_TASKS)) return true;
+        return actor.hasPermission(Permission.UPDATE_OWN_TASKS) && isAssignedTo(task, actor);
+    }
+
+    public boolean addTask(Task task, User actor) {
+        if (!actor.hasPermission(Permission.CREATE_TASKS)) {
+            log("Error: Access denied - CREATE_TASKS required!");
+            return false;
+        }
+        return addTask(task);
+    }
+
+    public boolean updateTaskStatus(String taskId, String status, User actor) {
+        Task task = findTaskById(taskId);
+        if (task == null) {
+            log("Error: Task not found!");
+            return false;
+        }
+        if (!canUpdate(task, actor)) {
+            log("Error: Access denied - you can only update your own tasks!");
+            return false;
+        }
+        task.setStatus(status);
+        return updateTask(taskId, task);
+    }
+
+    public boolean deleteTask(String taskId, User actor) {
+        if (!actor.hasPermission(Permission.DELETE_TASKS)) {
+            log("Error: Access denied - DELETE_TASKS required!");
+            return false;
         }
-        System.out.println("TASK LIST");
-        for (int i = 0; i < taskCount; i++) {
-            System.out.printf("\n[%d] ", i + 1);
-            tasks[i].displayTaskInfo();
+        return deleteTask(taskId);
+    }
+
+    private boolean canView(User viewer) {
+        if (viewer.hasPermission(Permission.VIEW_TASKS)) return true;
+        log("Error: Access denied - VIEW_TASKS required!");
+        return false;
+    }
+
+    private static boolean isAssignedTo(Task task, User user) {
+        return task.getAssigneeCode() != StringDictionary.NO_CODE
+                && task.getAssigneeCode() == DICTIONARY.codeOf(user.getUserId());
+    }
+
+    /** Evaluate a filter for a viewer; own-tasks-only viewers are served from the assignee index. */
+    private Task[] select(User viewer, Predicate<Task> predicate) {
+        if (!canView(viewer)) return NO_TASKS;
+        if (store != null) {
+            if (!Permission.isOwnTasksOnly(viewer.getPermissionMask())) return filter(store, predicate);
+            return filter(Arrays.asList(getTasksByUserId(viewer.getUserId())), predicate);
         }
-        System.out.println("Total Tasks: " + taskCount);
+        if (!Permission.isOwnTasksOnly(viewer.getPermissionMask())) return filter(tasks.snapshot(), predicate);
+        return filter(Arrays.asList(getTasksByUserId(viewer.getUserId())), predicate);
+    }
+
+    /** Registers an observer for tasks added, removed or edited in this service. */
+    public void addTaskEventListener(TaskEventListener listener) { listeners.add(listener); }
+
+    public void removeTaskEventListener(TaskEventListener listener) { listeners.remove(listener); }
+
+    private boolean isIndexed(String taskId) {
+        return tasksById.containsKey(taskId);
     }
 
-    public int getTaskCount() { return taskCount; }
+    private void index(Task task) {
+        tasksById.put(task.getTaskId(), task);
+        addToAssignee(task.getAssigneeCode(), task);
+        bumpProject(task.getProjectCode());
+        task.setChangeListener(this::onTaskChanged);
+    }
+
+    private void unindex(Task task) {
+        task.setChangeListener(null);
+        tasksById.remove(task.getTaskId());
+        removeFromAssignee(task.getAssigneeCode(), task);
+        bumpProject(task.getProjectCode());
+    }
+
+    /** Keeps the ID and assignee indexes in step with Task setter calls, made on any thread. */
+    private void onTaskChanged(Object source, String field, Object oldValue, Object newValue) {
+        Task task = (Task) source;
+        if (!batching.get()) tasks.touch();
+        copies.changed(task);
+        bumpProject(task.getProjectCode());
+        switch (field) {
+            case "taskId":
+                tasksById.remove((String) oldValue, task);
+                tasksById.put(task.getTaskId(), task);
+                break;
+            case "assignedTo":
+                removeFromAssignee(DICTIONARY.codeOf((String) oldValue), task);
+                addToAssignee(task.getAssigneeCode(), task);
+                break;
+            case "projectId":
+                bumpProject(DICTIONARY.codeOf((String) oldValue));
+                break;
+            default:
+                break;
+        }
+        if (field.equals("projectId")) moveProject(task, (String) oldValue);
+        for (TaskEventListener listener : listeners) listener.taskChanged(task, field, oldValue, newValue);
+    }
+
+    /** Take a task that now names another project out of its old project's task list and into the new one's. */
+    private void moveProject(Task task, String oldProjectId) {
+        if (projectService == null) return;
+        Project from = projectService.findProjectById(oldProjectId);
+        if (from != null) from.removeTask(task.getTaskId());
+        joinProject(task);
+    }
+
+    private void joinProject(Task task) {
+        if (archive != null) archive.restore(task.getProjectId());
+        Project project = projectService.findProjectById(task.getProjectId());
+        if (project != null && !project.addTask(task)) log("Error: Project task limit reached!");
+    }
+
+    /** Store-backed (or restored) tasks already hold the edit and their index entries; only bump the version and notify. */
+    private void onStoreTaskChanged(Object source, String field, Object oldValue, Object newValue) {
+        if (!batching.get()) tasks.touch();
+        if (store == null) copies.changed((Task) source);
+        bumpProject(((Task) source).getProjectCode());
+        if (field.equals("projectId")) bumpProject(DICTIONARY.codeOf((String) oldValue));
+        for (TaskEventListener listener : listeners) listener.taskChanged((Task) source, field, oldValue, newValue);
+    }
+
+    private void addToAssignee(int assigneeCode, Task task) {
+        if (assigneeCode == StringDictionary.NO_CODE) return;
+        Queue<Task> assigned = tasksByAssignee.get(assigneeCode);
+        if (assigned == null) assigned = tasksByAssignee.computeIfAbsent(assigneeCode, key -> new ConcurrentLinkedQueue<>());
+        assigned.add(task);
+    }
+
+    private void removeFromAssignee(int assigneeCode, Task task) {
+        Queue<Task> assigned = tasksByAssignee.get(assigneeCode);
+        if (assigned != null) assigned.remove(task);
+    }
+
+    public void displayAllTasks() {
+        int shown = 0;
+        for (Task task : scan()) {
+            if (shown == 0) System.out.println("TASK LIST");
+            System.out.printf("\n[%d] ", ++shown);
+            task.displayTaskInfo();
+        }
+        if (shown == 0) System.out.println("No tasks available.");
+        else System.out.println("Total Tasks: " + shown);
+    }
+
+    public int getTaskCount() { return store != null ? store.size() : tasks.size(); }
+
+    /** Suppresses per-operation console messages (used by batch mode). */
+    public void setQuiet(boolean quiet) { this.quiet = quiet; }
+
+    public boolean isQuiet() { return quiet; }
+
+    private void log(String message) {
+        if (!quiet) System.out.println(message);
+    }
 
     public double calculateProjectTaskCompletion(String projectId) {
         Task[] projectTasks = getTasksByProjectId(projectId);
@@ -0,0 +1,12 @@
+package services;
+
+/** Outcome of a conditional ("update if version matches") edit. */
+public enum UpdateResult {
+    UPDATED,
+    /** The entity changed since the expected version was read; nothing was written. */
+    CONFLICT,
+    NOT_FOUND,
+    DENIED,
+    /** The entity lives in an external store, which keeps no versions; nothing was written. */
+    UNSUPPORTED
+}
@@ -0,0 +1,136 @@
+package services;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import interfaces.TaskEventListener;
+import models.RegularUser;
+import models.Task;
+import models.User;
+
+/**
+ * Service class for managing users, with O(1) lookup by user ID and email and
+ * per-user workload counters kept in sync with TaskService. Synchronized, as
+ * task edits may be reported from several threads at once.
+ */
+public class UserService implements TaskEventListener {
+    private final Map<String, User> usersById = new HashMap<>();
+    private final Map<String, User> usersByEmail = new HashMap<>();
+    private final Map<String, UserWorkload> workloads = new HashMap<>();
+    private boolean quiet;
+
+    public UserService(TaskService taskService) {
+        for (Task task : taskService.scan()) taskAdded(task);
+        taskService.addTaskEventListener(this);
+    }
+
+    public synchronized boolean addUser(User user) {
+        if (usersById.containsKey(user.getUserId())) {
+            log("Error: User ID already exists!");
+            return false;
+        }
+        String emailKey = emailKey(user.getEmail());
+        if (usersByEmail.containsKey(emailKey)) {
+            log("Error: Email already registered!");
+            return false;
+        }
+        usersById.put(user.getUserId(), user);
+        usersByEmail.put(emailKey, user);
+        syncCounters(user.getUserId());
+        return true;
+    }
+
+    public synchronized User findUserById(String userId) { return usersById.get(userId); }
+
+    public synchronized User findUserByEmail(String email) { return usersByEmail.get(emailKey(email)); }
+
+    public synchronized boolean removeUser(String userId) {
+        User user = usersById.remove(userId);
+        if (user == null) return false;
+        usersByEmail.remove(emailKey(user.getEmail()));
+        return true;
+    }
+
+    public synchronized User[] getAllUsers() { return usersById.values().toArray(new User[0]); }
+
+    public synchronized int getUserCount() { return usersById.size(); }
+
+    /** Suppresses per-operation console messages (used by batch mode). */
+    public void setQuiet(boolean quiet) { this.quiet = quiet; }
+
+    public boolean isQuiet() { return quiet; }
+
+    /** Counters for a user ID; assignees that are not registered users are tracked too. */
+    public synchronized UserWorkload getWorkload(String userId) {
+        UserWorkload workload = workloads.get(userId);
+        return workload != null ? workload : new UserWorkload(userId);
+    }
+
+    @Override
+    public synchronized void taskAdded(Task task) {
+        if (task.getAssignedTo() == null) return;
+        workload(task.getAssignedTo()).apply(task, 1);
+        syncCounters(task.getAssignedTo());
+    }
+
+    @Override
+    public synchronized void taskRemoved(Task task) {
+        if (task.getAssignedTo() == null) return;
+        workload(task.getAssignedTo()).apply(task, -1);
+        syncCounters(task.getAssignedTo());
+    }
+
+    @Override
+    public synchronized void taskChanged(Task task, String field, Object oldValue, Object newValue) {
+        String assignee = task.getAssignedTo();
+        switch (field) {
+            case "assignedTo":
+                String previous = (String) oldValue;
+                if (previous != null) {
+                    workload(previous).apply(task, -1);
+                    syncCounters(previous);
+                }
+                if (assignee != null) {
+                    workload(assignee).apply(task, 1);
+                    syncCounters(assignee);
+                }
+                break;
+            case "status":
+                if (assignee == null) return;
+                workload(assignee).applyStatus((String) oldValue, -1);
+                workload(assignee).applyStatus((String) newValue, 1);
+                syncCounters(assignee);
+                break;
+            case "priority":
+                if (assignee == null) return;
+                workload(assignee).applyPriority((String) oldValue, -1);
+                workload(assignee).applyPriority((String) newValue, 1);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private UserWorkload workload(String userId) {
+        return workloads.computeIfAbsent(userId, UserWorkload::new);
+    }
+
+    /** Mirror the counters into RegularUser so getProductivityRate() stays O(1) and accurate. */
+    private void syncCounters(String userId) {
+        User user = usersById.get(userId);
+        if (user instanceof RegularUser) {
+            UserWorkload workload = getWorkload(userId);
+            RegularUser regularUser = (RegularUser) user;
+            regularUser.setTasksAssigned(workload.getTotal());
+            regularUser.setTasksCompleted(workload.getCompleted());
+        }
+    }
+
+    private void log(String message) {
+        if (!quiet) System.out.println(message);
+    }
+
+    private static String emailKey(String email) {
+        return email == null ? null : email.toLowerCase(Locale.ROOT);
+    }
+}
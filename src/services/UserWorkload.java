@@ -0,0 +1,86 @@
+package services;
+
+import models.Task;
+import utils.InputParser;
+
+/**
+ * Live status and priority counters for one assignee, maintained by UserService
+ * as tasks are assigned, reassigned, re-prioritised and completed.
+ * Status and priority buckets mirror the workload report: unknown statuses count
+ * as pending and unknown priorities as low.
+ */
+public class UserWorkload {
+    private final String userId;
+    private int pending;
+    private int inProgress;
+    private int completed;
+    private int high;
+    private int medium;
+    private int low;
+
+    UserWorkload(String userId) {
+        this.userId = userId;
+    }
+
+    public String getUserId() { return userId; }
+    public int getTotal() { return pending + inProgress + completed; }
+    public int getPending() { return pending; }
+    public int getInProgress() { return inProgress; }
+    public int getCompleted() { return completed; }
+    public int getHigh() { return high; }
+    public int getMedium() { return medium; }
+    public int getLow() { return low; }
+
+    public double getCompletionRate() {
+        int total = getTotal();
+        return total == 0 ? 0.0 : (completed * 100.0) / total;
+    }
+
+    /** Add another partial workload for the same user, e.g. from another shard. */
+    void merge(UserWorkload other) {
+        pending += other.pending;
+        inProgress += other.inProgress;
+        completed += other.completed;
+        high += other.high;
+        medium += other.medium;
+        low += other.low;
+    }
+
+    String toWire() {
+        return pending + " " + inProgress + " " + completed + " " + high + " " + medium + " " + low;
+    }
+
+    /** Parse {@link #toWire()} output starting at {@code tokens[offset]}. */
+    static UserWorkload fromWire(String userId, String[] tokens, int offset) {
+        UserWorkload workload = new UserWorkload(userId);
+        workload.pending = Integer.parseInt(tokens[offset]);
+        workload.inProgress = Integer.parseInt(tokens[offset + 1]);
+        workload.completed = Integer.parseInt(tokens[offset + 2]);
+        workload.high = Integer.parseInt(tokens[offset + 3]);
+        workload.medium = Integer.parseInt(tokens[offset + 4]);
+        workload.low = Integer.parseInt(tokens[offset + 5]);
+        return workload;
+    }
+
+    /** Add (+1) or remove (-1) a task's contribution. */
+    void apply(Task task, int delta) {
+        applyStatus(task.getStatus(), delta);
+        applyPriority(task.getPriority(), delta);
+    }
+
+    void applyStatus(String status, int delta) {
+        switch (InputParser.parseStatus(status)) {
+            case InputParser.STATUS_COMPLETED: completed += delta; break;
+            case InputParser.STATUS_IN_PROGRESS: inProgress += delta; break;
+            default: pending += delta;
+        }
+    }
+
+    void applyPriority(String priority, int delta) {
+        switch (InputParser.parsePriority(priority)) {
+            case InputParser.PRIORITY_HIGH: high += delta; break;
+            case InputParser.PRIORITY_MEDIUM: medium += delta; break;
+            default: low += delta;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import models.Project;
+import models.Task;
+import utils.Snapshot;
+
+/**
+ * Single-writer front end for a ProjectServices/TaskService pair.
+ *
+ * Every mutation is a command placed in a bounded ring: producers claim a slot
+ * with one atomic increment and publish into it, with no lock on the way. One
+ * writer thread consumes the ring in sequence order, up to {@value #MAX_BATCH}
+ * commands at a time, so the services are never touched by two threads and the
+ * claimed sequence is the mutation history. In-place task edits within a batch
+ * move the data version once. After each batch the writer publishes a
+ * {@link View} of the services' detached snapshots, then completes the batch's
+ * futures, so a caller whose future has completed always reads its own write.
+ * Only entities the batch added or edited are copied. Producers wait while the
+ * ring is full; {@link #close()} seals the ring, and commands claimed before
+ * the seal are still applied while later ones fail.
+ *
+ * While a loop is running, mutate the services only through it.
+ */
+public class WriteLoop implements AutoCloseable {
+    private static final int MAX_BATCH = 2048;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+    /** Added to {@link #claimed} by close; sequences claimed from then on are refused. */
+    private static final long SEALED = 1L << 62;
+
+    private final ProjectServices projectService;
+    private final TaskService taskService;
+    private final AtomicReferenceArray<Command<?>> ring;
+    private final int capacity;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    /** The claimed count at the seal, once close has set it; the writer stops there. */
+    private volatile long sealedAt = -1;
+    private volatile long consumed;
+    private volatile boolean sleeping;
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile View view;
+
+    private final boolean projectsWereQuiet;
+    private final boolean tasksWereQuiet;
+
+    private long applied;
+    private volatile long batches;
+
+    /** @param capacity ring size, rounded up to a power of two */
+    public WriteLoop(ProjectServices projectService, TaskService taskService, int capacity) {
+        this.projectService = projectService;
+        this.taskService = taskService;
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.capacity = size;
+        this.mask = size - 1;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.projectsWereQuiet = projectService.isQuiet();
+        this.tasksWereQuiet = taskService.isQuiet();
+        projectService.setQuiet(true);
+        taskService.setQuiet(true);
+        this.view = publish(0);
+        this.writer = new Thread(this::run, "service-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // ---- async mutations ----
+
+    public CompletableFuture<Boolean> addProject(Project project) {
+        return submit(() -> projectService.addProject(project));
+    }
+
+    public CompletableFuture<Boolean> deleteProject(String projectId) {
+        return submit(() -> taskService.deleteProjectWithTasks(projectId));
+    }
+
+    public CompletableFuture<Boolean> addTask(Task task) {
+        return submit(() -> taskService.addTask(task));
+    }
+
+    public CompletableFuture<Boolean> updateTaskStatus(String taskId, String status) {
+        return submit(() -> {
+            Task task = taskService.findTaskById(taskId);
+            if (task == null) return false;
+            task.setStatus(status);
+            return true;
+        });
+    }
+
+    public CompletableFuture<Boolean> assignTask(String taskId, String userId) {
+        return submit(() -> {
+            Task task = taskService.findTaskById(taskId);
+            if (task == null) return false;
+            task.setAssignedTo(userId);
+            return true;
+        });
+    }
+
+    public CompletableFuture<Boolean> deleteTask(String taskId) {
+        return submit(() -> taskService.deleteTask(taskId));
+    }
+
+    /**
+     * Run any mutation on the writer thread. It may use both services freely;
+     * an exception it throws completes the future exceptionally.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> mutation) {
+        Command<T> command = new Command<>(mutation);
+        if (!running) {
+            command.future.completeExceptionally(new IllegalStateException("write loop is closed"));
+            return command.future;
+        }
+        long sequence = claimed.getAndIncrement();
+        if (sequence >= SEALED) {
+            command.future.completeExceptionally(new IllegalStateException("write loop is closed"));
+            return command.future;
+        }
+        while (sequence - consumed >= capacity) {
+            if (!writer.isAlive()) {
+                command.future.completeExceptionally(new IllegalStateException("write loop is closed"));
+                return command.future;
+            }
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+        ring.set((int) sequence & mask, command);
+        if (sleeping) LockSupport.unpark(writer);
+        return command.future;
+    }
+
+    // ---- reads ----
+
+    /** Latest published view; never blocks and never sees a half-applied batch. */
+    public View view() { return view; }
+
+    /** Mutations applied so far; also the sequence number of the latest one. */
+    public long getAppliedCount() { return view.sequence; }
+
+    public long getBatchCount() { return batches; }
+
+    /**
+     * Stop accepting commands, apply everything claimed before the seal, then stop
+     * the writer and give the services back their console messages.
+     */
+    @Override
+    public void close() {
+        running = false;
+        long sealed = claimed.get();
+        while (sealed < SEALED && !claimed.compareAndSet(sealed, sealed + SEALED)) sealed = claimed.get();
+        if (sealed < SEALED) sealedAt = sealed;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        projectService.setQuiet(projectsWereQuiet);
+        taskService.setQuiet(tasksWereQuiet);
+    }
+
+    private void run() {
+        List<Command<?>> batch = new ArrayList<>(MAX_BATCH);
+        long next = 0;
+        while (true) {
+            Command<?> command = ring.get((int) next & mask);
+            if (command == null) {
+                long end = claimed.get();
+                boolean sealed = end >= SEALED;
+                if (sealed) {
+                    end = sealedAt;
+                    if (end < 0) {
+                        Thread.yield(); // close has sealed the ring but not yet recorded where
+                        continue;
+                    }
+                }
+                if (next < end) {
+                    Thread.yield(); // claimed but not yet published; let the producer finish
+                } else if (sealed) {
+                    break;
+                } else {
+                    sleeping = true;
+                    if (claimed.get() == end && ring.get((int) next & mask) == null) LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    sleeping = false;
+                }
+                continue;
+            }
+            while (command != null && batch.size() < MAX_BATCH) {
+                batch.add(command);
+                ring.set((int) next & mask, null);
+                next++;
+                command = ring.get((int) next & mask);
+            }
+            consumed = next;
+            taskService.inPlaceBatch(() -> {
+                for (Command<?> queued : batch) queued.apply();
+            });
+            applied += batch.size();
+            batches++;
+            view = publish(applied);
+            for (Command<?> queued : batch) queued.complete();
+            batch.clear();
+        }
+    }
+
+    private View publish(long sequence) {
+        return new View(sequence, projectService.snapshot(), taskService.snapshot());
+    }
+
+    /**
+     * What readers see: the projects and tasks as of mutation {@code sequence}.
+     * The objects are detached copies that nothing edits, so they can be read
+     * from any thread; a project copy carries no task list (use {@link #tasks}).
+     */
+    public static final class View {
+        public final long sequence;
+        public final Snapshot<Project> projects;
+        public final Snapshot<Task> tasks;
+
+        View(long sequence, Snapshot<Project> projects, Snapshot<Task> tasks) {
+            this.sequence = sequence;
+            this.projects = projects;
+            this.tasks = tasks;
+        }
+    }
+
+    private static final class Command<T> {
+        final Supplier<T> mutation;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        T result;
+        Throwable failure;
+
+        Command(Supplier<T> mutation) { this.mutation = mutation; }
+
+        void apply() {
+            try {
+                result = mutation.get();
+            } catch (Throwable e) {
+                // an Error is reported to its caller too; it must not stop the writer
+                failure = e;
+            }
+        }
+
+        void complete() {
+            if (failure != null) future.completeExceptionally(failure);
+            else future.complete(result);
+        }
+    }
+}
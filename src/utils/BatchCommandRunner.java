@@ -0,0 +1,593 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import models.HardwareProject;
+import models.Project;
+import models.SoftwareProject;
+import models.Task;
+import services.ArchiveService;
+import services.DeltaSyncService;
+import services.DependencyService;
+import services.DueDateScheduler;
+import services.ExportService;
+import services.HistoryService;
+import services.PortfolioService;
+import services.ProjectServices;
+import services.ReportService;
+import services.TaskService;
+
+/**
+ * Headless command runner for scripted bulk operations.
+ * Reads one command per line (blank lines and lines starting with # are skipped),
+ * executes them against the services without prompts or pauses and reports
+ * a per-command result plus the total elapsed time.
+ *
+ * Supported commands (arguments with spaces may be double-quoted; see {@link #tokenize(String)} for escapes):
+ *   project.add software ID "Name" "Description" START END BUDGET TEAM "Tech Stack" METHODOLOGY FEATURES
+ *   project.add hardware ID "Name" "Description" START END BUDGET TEAM "Hardware Type" COMPONENTS
+ *   project.status ID STATUS
+ *   project.delete ID                        (also deletes the project's tasks)
+ *   project.archive [DAYS]                   (completed projects idle for DAYS, default 30)
+ *   project.restore ID
+ *   task.add ID PROJECT_ID "Name" "Description" ASSIGNEE PRIORITY DUE_DATE  (ASSIGNEE "auto": least-loaded user)
+ *   task.status ID STATUS
+ *   task.assign ID USER_ID
+ *   task.priority ID PRIORITY
+ *   task.delete ID
+ *   task.bulk-status STATUS ID [ID ...]
+ *   task.delete-where FIELD VALUE            (FIELD: project, status, priority or assignee)
+ *   task.depend BLOCKER_ID DEPENDENT_ID      (BLOCKER must be completed before DEPENDENT can start)
+ *   task.undepend BLOCKER_ID DEPENDENT_ID
+ *   task.overdue                             (open tasks past their due date)
+ *   portfolio.add ID "Name" [PARENT_ID]
+ *   portfolio.move ID PARENT_ID              (PARENT_ID "-": top level)
+ *   portfolio.delete ID                      (its projects and sub-portfolios move up to its parent)
+ *   portfolio.assign PROJECT_ID PORTFOLIO_ID [WEIGHT]
+ *   portfolio.unassign PROJECT_ID
+ *   report.status [--format=text|csv]
+ *   report.status-asof DATE|TIMESTAMP        (from version history; DATE is read as the end of that day, UTC)
+ *   report.project PROJECT_ID
+ *   report.user USER_ID
+ *   report.burndown PROJECT_ID
+ *   report.velocity PROJECT_ID [WEEKS]
+ *   report.schedule PROJECT_ID
+ *   report.portfolio PORTFOLIO_ID
+ *   report.group projects|tasks KEY[,KEY...] [MEASURE[,MEASURE...]] [--format=text|csv]
+ *       (project keys: type, status, methodology, hardware, start-month; measures: budget, completion, team;
+ *        task keys: project, status, priority, assignee, due-month; measures: lead-hours, cycle-hours)
+ *   report.conflicts                         (conditional-update attempts, conflicts and retries)
+ *   export.tasks PATH [--format=ndjson|csv] [--gzip] [FIELD VALUE]   (FIELD as for task.delete-where)
+ *   export.projects PATH [--format=ndjson|csv] [--gzip]
+ *   sync.since SEQUENCE                      (entities changed after SEQUENCE, or a full resync if it is too old)
+ */
+public class BatchCommandRunner {
+    private static final int BATCH_SIZE = 256;
+
+    private ProjectServices projectService;
+    private TaskService taskService;
+    private ReportService reportService;
+    private DependencyService dependencies;
+    private final ExportService exports;
+    private ArchiveService archive;
+    private PortfolioService portfolios;
+    private DueDateScheduler dueDates;
+    private DeltaSyncService sync;
+
+    private int executed;
+    private int succeeded;
+
+    public BatchCommandRunner(ProjectServices projectService, TaskService taskService,
+                              ReportService reportService) {
+        this.projectService = projectService;
+        this.taskService = taskService;
+        this.reportService = reportService;
+        this.exports = new ExportService(projectService, taskService);
+    }
+
+    /** Enables the task.depend and task.undepend commands. */
+    public void setDependencyService(DependencyService dependencies) { this.dependencies = dependencies; }
+
+    /** Enables the project.archive and project.restore commands. */
+    public void setArchiveService(ArchiveService archive) { this.archive = archive; }
+
+    /** Enables the task.overdue command. */
+    public void setDueDateScheduler(DueDateScheduler dueDates) { this.dueDates = dueDates; }
+
+    /** Enables the sync.since command. */
+    public void setDeltaSync(DeltaSyncService sync) { this.sync = sync; }
+
+    /** Enables the portfolio.* commands and report.portfolio. */
+    public void setPortfolioService(PortfolioService portfolios) { this.portfolios = portfolios; }
+
+    /**
+     * Execute every command from the reader. Commands are read and applied in
+     * batches of {@value #BATCH_SIZE}; results are buffered and flushed once per batch.
+     */
+    public void run(BufferedReader reader, PrintStream out) throws IOException {
+        boolean projectsWereQuiet = projectService.isQuiet();
+        boolean tasksWereQuiet = taskService.isQuiet();
+        boolean archiveWasQuiet = archive != null && archive.isQuiet();
+        boolean portfoliosWereQuiet = portfolios != null && portfolios.isQuiet();
+        boolean dependenciesWereQuiet = dependencies != null && dependencies.isQuiet();
+        projectService.setQuiet(true);
+        taskService.setQuiet(true);
+        if (archive != null) archive.setQuiet(true);
+        if (portfolios != null) portfolios.setQuiet(true);
+        if (dependencies != null) dependencies.setQuiet(true);
+        long start = System.nanoTime();
+        executed = 0;
+        succeeded = 0;
+
+        String[] batch = new String[BATCH_SIZE];
+        int[] lineNumbers = new int[BATCH_SIZE];
+        StringBuilder results = new StringBuilder();
+        int lineNumber = 0;
+        String line;
+        int size = 0;
+        try {
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                batch[size] = line;
+                lineNumbers[size] = lineNumber;
+                size++;
+                if (size == BATCH_SIZE) {
+                    executeBatch(batch, lineNumbers, size, results, out);
+                    size = 0;
+                }
+            }
+            executeBatch(batch, lineNumbers, size, results, out);
+        } finally {
+            projectService.setQuiet(projectsWereQuiet);
+            taskService.setQuiet(tasksWereQuiet);
+            if (archive != null) archive.setQuiet(archiveWasQuiet);
+            if (portfolios != null) portfolios.setQuiet(portfoliosWereQuiet);
+            if (dependencies != null) dependencies.setQuiet(dependenciesWereQuiet);
+        }
+
+        double elapsedMs = (System.nanoTime() - start) / 1_000_000.0;
+        out.printf("BATCH SUMMARY: %d commands, %d succeeded, %d failed, %.3f ms total%n",
+                executed, succeeded, executed - succeeded, elapsedMs);
+        out.flush();
+    }
+
+    private void executeBatch(String[] batch, int[] lineNumbers, int size,
+                              StringBuilder results, PrintStream out) {
+        for (int i = 0; i < size; i++) {
+            String[] args = tokenize(batch[i]);
+            String result;
+            boolean ok;
+            if (args[0].startsWith("report.")) {
+                // reports print directly, so flush what is buffered to keep output ordered
+                out.print(results);
+                results.setLength(0);
+            }
+            try {
+                result = execute(args, out);
+                ok = result.startsWith("OK");
+            } catch (IllegalArgumentException e) {
+                result = "ERROR " + e.getMessage();
+                ok = false;
+            }
+            executed++;
+            if (ok) succeeded++;
+            results.append('[').append(lineNumbers[i]).append("] ")
+                    .append(args[0]).append(": ").append(result).append(System.lineSeparator());
+            batch[i] = null;
+        }
+        out.print(results);
+        results.setLength(0);
+    }
+
+    /**
+     * Execute a single command line and return its result ("OK ..." or "ERROR ...");
+     * report output goes to {@code out}.
+     */
+    public String executeLine(String line, PrintStream out) {
+        String[] args = tokenize(line.trim());
+        if (args.length == 0) return "ERROR empty command";
+        try {
+            return execute(args, out);
+        } catch (IllegalArgumentException e) {
+            return "ERROR " + e.getMessage();
+        }
+    }
+
+    private String execute(String[] args, PrintStream out) {
+        switch (args[0]) {
+            case "project.add": return addProject(args);
+            case "project.status": {
+                requireArgs(args, 3);
+                Project project = projectService.findProjectById(args[1]);
+                if (project == null) return "ERROR project not found: " + args[1];
+                project.setStatus(projectStatus(args[2]));
+                projectService.updateProject(args[1], project);
+                return "OK " + args[1] + " -> " + project.getStatus();
+            }
+            case "project.delete":
+                requireArgs(args, 2);
+                return taskService.deleteProjectWithTasks(args[1]) ? "OK deleted " + args[1] : "ERROR project not found: " + args[1];
+            case "task.add": {
+                requireArgs(args, 8);
+                if (projectService.findProjectById(args[2]) == null) return "ERROR project not found: " + args[2];
+                boolean auto = args[5].equalsIgnoreCase("auto");
+                Task task = new Task(args[1], args[2], args[3], args[4], auto ? null : args[5],
+                        priority(args[6]), requireDate(args[7]));
+                if (auto) {
+                    return taskService.addTaskAutoAssigned(task)
+                            ? "OK added " + args[1] + " -> " + task.getAssignedTo() : "ERROR could not auto-assign task " + args[1];
+                }
+                return taskService.addTask(task) ? "OK added " + args[1] : "ERROR could not add task " + args[1];
+            }
+            case "task.status": {
+                requireArgs(args, 3);
+                Task task = taskService.findTaskById(args[1]);
+                if (task == null) return "ERROR task not found: " + args[1];
+                task.setStatus(taskStatus(args[2]));
+                taskService.updateTask(args[1], task);
+                return "OK " + args[1] + " -> " + task.getStatus();
+            }
+            case "task.assign": {
+                requireArgs(args, 3);
+                Task task = taskService.findTaskById(args[1]);
+                if (task == null) return "ERROR task not found: " + args[1];
+                task.setAssignedTo(args[2]);
+                taskService.updateTask(args[1], task);
+                return "OK " + args[1] + " -> " + args[2];
+            }
+            case "task.priority": {
+                requireArgs(args, 3);
+                Task task = taskService.findTaskById(args[1]);
+                if (task == null) return "ERROR task not found: " + args[1];
+                task.setPriority(priority(args[2]));
+                taskService.updateTask(args[1], task);
+                return "OK " + args[1] + " -> " + task.getPriority();
+            }
+            case "task.delete":
+                requireArgs(args, 2);
+                return taskService.deleteTask(args[1]) ? "OK deleted " + args[1] : "ERROR task not found: " + args[1];
+            case "task.bulk-status": {
+                requireArgs(args, 3);
+                String status = taskStatus(args[1]);
+                int updated = taskService.updateStatus(Arrays.asList(args).subList(2, args.length), status);
+                return "OK " + updated + " of " + (args.length - 2) + " task(s) -> " + status;
+            }
+            case "task.delete-where": {
+                requireArgs(args, 3);
+                return "OK deleted " + taskService.deleteWhere(taskFilter(args[1], args[2])) + " task(s)";
+            }
+            case "task.depend":
+            case "task.undepend": {
+                requireArgs(args, 3);
+                if (dependencies == null) return "ERROR task dependencies are not enabled";
+                if (args[0].equals("task.depend")) {
+                    return dependencies.addDependency(args[1], args[2]) ? "OK " + args[1] + " blocks " + args[2]
+                            : "ERROR dependency rejected (unknown task or cycle)";
+                }
+                return dependencies.removeDependency(args[1], args[2]) ? "OK removed" : "ERROR no such dependency";
+            }
+            case "task.overdue": {
+                if (dueDates == null) return "ERROR due-date scheduling is not enabled";
+                dueDates.advance();
+                List<String> overdue = dueDates.getOverdueTaskIds();
+                return "OK " + overdue.size() + " overdue" + (overdue.isEmpty() ? "" : ": " + String.join(" ", overdue));
+            }
+            case "report.status":
+                if (args.length > 1 && args[1].equalsIgnoreCase("--format=csv")) reportService.generateStatusReportCsv(out);
+                else if (args.length == 1 || args[1].equalsIgnoreCase("--format=text")) reportService.generateStatusReport(out);
+                else return "ERROR unknown option " + args[1];
+                return "OK";
+            case "report.status-asof":
+                requireArgs(args, 2);
+                if (!reportService.hasHistory()) return "ERROR history is not enabled";
+                reportService.generateStatusReportAsOf(out, HistoryService.parseTime(args[1]));
+                return "OK";
+            case "report.project":
+                requireArgs(args, 2);
+                if (projectService.findProjectById(args[1]) == null) return "ERROR project not found: " + args[1];
+                reportService.generateProjectReport(out, args[1]);
+                return "OK";
+            case "report.user":
+                requireArgs(args, 2);
+                reportService.generateUserWorkloadReport(out, args[1]);
+                return "OK";
+            case "report.burndown":
+                requireArgs(args, 2);
+                reportService.generateBurndownReport(out, args[1]);
+                return "OK";
+            case "report.schedule":
+                requireArgs(args, 2);
+                reportService.generateScheduleReport(out, args[1]);
+                return "OK";
+            case "report.portfolio":
+                requireArgs(args, 2);
+                if (portfolios == null) return "ERROR portfolios are not enabled";
+                if (portfolios.findPortfolio(args[1]) == null) return "ERROR portfolio not found: " + args[1];
+                reportService.generatePortfolioReport(out, args[1]);
+                return "OK";
+            case "report.group":
+                return group(args, out);
+            case "report.conflicts":
+                reportService.generateConflictReport(out);
+                return "OK";
+            case "report.velocity":
+                requireArgs(args, 2);
+                reportService.generateVelocityReport(out, args[1], args.length > 2 ? requirePositiveInteger(args[2], "weeks") : 4);
+                return "OK";
+            case "project.archive": {
+                if (archive == null) return "ERROR archive is not enabled";
+                long days = args.length > 1 ? InputParser.parseInt(args[1]) : 30;
+                if (days < 0) throw new IllegalArgumentException("invalid days " + args[1]);
+                return "OK archived " + archive.archiveCompleted(days * 86_400_000L) + " project(s)";
+            }
+            case "project.restore":
+                requireArgs(args, 2);
+                if (archive == null) return "ERROR archive is not enabled";
+                return archive.restore(args[1]) ? "OK restored " + args[1] : "ERROR project not archived: " + args[1];
+            case "export.tasks":
+            case "export.projects":
+                return export(args);
+            case "sync.since": {
+                requireArgs(args, 2);
+                if (sync == null) return "ERROR delta sync is not enabled";
+                long since;
+                try {
+                    since = Long.parseLong(args[1]);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("invalid sequence " + args[1]);
+                }
+                if (since < 0) throw new IllegalArgumentException("invalid sequence " + args[1]);
+                return delta(sync.changesSince(since));
+            }
+            case "portfolio.add":
+            case "portfolio.move":
+            case "portfolio.delete":
+            case "portfolio.assign":
+            case "portfolio.unassign":
+                return portfolio(args);
+            default:
+                return "ERROR unknown command";
+        }
+    }
+
+    private String addProject(String[] args) {
+        requireArgs(args, 2);
+        boolean software = args[1].equalsIgnoreCase("software");
+        if (!software && !args[1].equalsIgnoreCase("hardware")) {
+            return "ERROR project type must be software or hardware";
+        }
+        requireArgs(args, software ? 12 : 11);
+        String startDate = requireDate(args[5]);
+        String endDate = requireDate(args[6]);
+        double budget = requirePositiveNumber(args[7], "budget");
+        int teamSize = requirePositiveInteger(args[8], "team size");
+
+        Project project;
+        if (software) {
+            project = new SoftwareProject(args[2], args[3], args[4], startDate, endDate, budget, teamSize,
+                    args[9], args[10], requirePositiveInteger(args[11], "total features"));
+        } else {
+            project = new HardwareProject(args[2], args[3], args[4], startDate, endDate, budget, teamSize,
+                    args[9], requirePositiveInteger(args[10], "total components"));
+        }
+        return projectService.addProject(project) ? "OK added " + args[2] : "ERROR could not add project " + args[2];
+    }
+
+    private static String delta(DeltaSyncService.Delta delta) {
+        StringBuilder result = new StringBuilder("OK through ").append(delta.getSequence())
+                .append(delta.isFullResync() ? " (full resync)" : "");
+        List<String> ids = new ArrayList<>();
+        for (Task task : delta.getTasks()) ids.add(task.getTaskId());
+        result.append(" tasks=").append(ids);
+        ids.clear();
+        for (Project project : delta.getProjects()) ids.add(project.getProjectId());
+        result.append(" projects=").append(ids);
+        if (!delta.isFullResync()) {
+            result.append(" deleted-tasks=").append(delta.getDeletedTaskIds())
+                    .append(" deleted-projects=").append(delta.getDeletedProjectIds());
+        }
+        return result.toString();
+    }
+
+    private String group(String[] args, PrintStream out) {
+        requireArgs(args, 3);
+        boolean csv = false;
+        String measures = "";
+        for (int i = 3; i < args.length; i++) {
+            if (args[i].equalsIgnoreCase("--format=csv")) csv = true;
+            else if (args[i].equalsIgnoreCase("--format=text")) csv = false;
+            else if (args[i].startsWith("--")) return "ERROR unknown option " + args[i];
+            else measures = args[i];
+        }
+        if (args[1].equalsIgnoreCase("projects")) reportService.generateProjectBreakdown(out, args[2], measures, csv);
+        else if (args[1].equalsIgnoreCase("tasks")) reportService.generateTaskBreakdown(out, args[2], measures, csv);
+        else return "ERROR expected projects or tasks, got " + args[1];
+        return "OK";
+    }
+
+    private String portfolio(String[] args) {
+        requireArgs(args, 2);
+        if (portfolios == null) return "ERROR portfolios are not enabled";
+        switch (args[0]) {
+            case "portfolio.add":
+                requireArgs(args, 3);
+                return portfolios.createPortfolio(args[1], args[2], args.length > 3 ? args[3] : null)
+                        ? "OK added " + args[1] : "ERROR could not add portfolio " + args[1] + " (duplicate ID or unknown parent)";
+            case "portfolio.move":
+                requireArgs(args, 3);
+                return portfolios.movePortfolio(args[1], args[2].equals("-") ? null : args[2])
+                        ? "OK " + args[1] + " -> " + args[2] : "ERROR could not move portfolio " + args[1] + " (unknown portfolio or cycle)";
+            case "portfolio.delete":
+                return portfolios.deletePortfolio(args[1]) ? "OK deleted " + args[1] : "ERROR portfolio not found: " + args[1];
+            case "portfolio.assign": {
+                requireArgs(args, 3);
+                int weight = args.length > 3 ? requirePositiveInteger(args[3], "weight") : 1;
+                return portfolios.assignProject(args[1], args[2], weight)
+                        ? "OK " + args[1] + " -> " + args[2] : "ERROR could not assign " + args[1] + " (unknown project or portfolio)";
+            }
+            default:
+                return portfolios.unassignProject(args[1]) ? "OK unassigned " + args[1] : "ERROR project is not in a portfolio: " + args[1];
+        }
+    }
+
+    public int getExecutedCount() { return executed; }
+    public int getSucceededCount() { return succeeded; }
+
+    private static void requireArgs(String[] args, int count) {
+        if (args.length < count) {
+            throw new IllegalArgumentException("expected " + (count - 1) + " argument(s), got " + (args.length - 1));
+        }
+    }
+
+    private static String requireDate(String value) {
+        if (!ValidationUtils.isValidDate(value)) throw new IllegalArgumentException("invalid date " + value);
+        return value;
+    }
+
+    private static int requirePositiveInteger(String value, String name) {
+        long parsed = InputParser.parseInt(value);
+        if (parsed <= 0) throw new IllegalArgumentException("invalid " + name + " " + value);
+        return (int) parsed;
+    }
+
+    private static double requirePositiveNumber(String value, String name) {
+        double parsed;
+        try {
+            parsed = Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid " + name + " " + value);
+        }
+        if (!(parsed > 0) || Double.isInfinite(parsed)) throw new IllegalArgumentException("invalid " + name + " " + value);
+        return parsed;
+    }
+
+    private String export(String[] args) {
+        requireArgs(args, 2);
+        ExportService.Format format = ExportService.Format.NDJSON;
+        boolean gzip = false;
+        int i = 2;
+        for (; i < args.length && args[i].startsWith("--"); i++) {
+            if (args[i].equalsIgnoreCase("--gzip")) gzip = true;
+            else if (args[i].equalsIgnoreCase("--format=csv")) format = ExportService.Format.CSV;
+            else if (args[i].equalsIgnoreCase("--format=ndjson")) format = ExportService.Format.NDJSON;
+            else return "ERROR unknown option " + args[i];
+        }
+        boolean tasks = args[0].equals("export.tasks");
+        Predicate<Task> filter = null;
+        if (tasks && i < args.length) {
+            requireArgs(args, i + 2);
+            filter = taskFilter(args[i], args[i + 1]);
+        }
+        try {
+            long rows = tasks
+                    ? exports.exportTasks(Paths.get(args[1]), format, gzip, filter)
+                    : exports.exportProjects(Paths.get(args[1]), format, gzip);
+            return "OK exported " + rows + (tasks ? " tasks" : " projects") + " to " + args[1];
+        } catch (IOException e) {
+            return "ERROR export failed: " + e.getMessage();
+        }
+    }
+
+    private static Predicate<Task> taskFilter(String field, String value) {
+        switch (field) {
+            case "project": return task -> task.getProjectId().equals(value);
+            case "status": {
+                String status = taskStatus(value);
+                return task -> task.getStatus().equalsIgnoreCase(status);
+            }
+            case "priority": {
+                String priority = priority(value);
+                return task -> task.getPriority().equalsIgnoreCase(priority);
+            }
+            case "assignee": return task -> value.equals(task.getAssignedTo());
+            default: throw new IllegalArgumentException("unknown filter field " + field);
+        }
+    }
+
+    private static String projectStatus(String value) {
+        int code = InputParser.parseStatus(value);
+        if (code != InputParser.STATUS_ACTIVE && code != InputParser.STATUS_COMPLETED
+                && code != InputParser.STATUS_ON_HOLD) {
+            throw new IllegalArgumentException("invalid project status " + value);
+        }
+        return InputParser.statusName(code);
+    }
+
+    private static String taskStatus(String value) {
+        int code = InputParser.parseStatus(value);
+        if (code != InputParser.STATUS_PENDING && code != InputParser.STATUS_IN_PROGRESS
+                && code != InputParser.STATUS_COMPLETED) {
+            throw new IllegalArgumentException("invalid task status " + value);
+        }
+        return InputParser.statusName(code);
+    }
+
+    private static String priority(String value) {
+        int code = InputParser.parsePriority(value);
+        if (code == InputParser.INVALID) throw new IllegalArgumentException("invalid priority " + value);
+        return InputParser.priorityName(code);
+    }
+
+    /**
+     * Split a command line on whitespace, keeping double-quoted arguments together.
+     * Inside quotes, \" and \\ stand for a quote and a backslash and \n and \r for
+     * line breaks; any other backslash is kept as it is.
+     */
+    public static String[] tokenize(String line) {
+        String[] tokens = new String[16];
+        int count = 0;
+        StringBuilder current = new StringBuilder();
+        boolean inQuotes = false;
+        boolean hasToken = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && inQuotes && i + 1 < line.length() && "\"\\nr".indexOf(line.charAt(i + 1)) >= 0) {
+                char escaped = line.charAt(++i);
+                current.append(escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : escaped);
+            } else if (c == '"') {
+                inQuotes = !inQuotes;
+                hasToken = true;
+            } else if (Character.isWhitespace(c) && !inQuotes) {
+                if (hasToken) {
+                    if (count == tokens.length) tokens = Arrays.copyOf(tokens, count * 2);
+                    tokens[count++] = current.toString();
+                    current.setLength(0);
+                    hasToken = false;
+                }
+            } else {
+                current.append(c);
+                hasToken = true;
+            }
+        }
+        if (hasToken) {
+            if (count == tokens.length) tokens = Arrays.copyOf(tokens, count + 1);
+            tokens[count++] = current.toString();
+        }
+        return Arrays.copyOf(tokens, count);
+    }
+
+    /** A double-quoted argument that {@link #tokenize(String)} reads back as {@code value} (null as empty). */
+    public static String quote(String value) {
+        if (value == null) return "\"\"";
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': quoted.append("\\\""); break;
+                case '\\': quoted.append("\\\\"); break;
+                case '\n': quoted.append("\\n"); break;
+                case '\r': quoted.append("\\r"); break;
+                default: quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
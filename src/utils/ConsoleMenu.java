@@ -67,6 +67,7 @@ public class ConsoleMenu {
         System.out.println("6.  View Tasks by Project");
         System.out.println("7.  View Tasks by User");
         System.out.println("8.  View Tasks by Priority");
+        System.out.println("9.  Add Task Dependency");
         System.out.println("0.  Back to Main Menu");
         System.out.println("--------------------------------------------------------------");
     }
@@ -78,6 +79,11 @@ public class ConsoleMenu {
         System.out.println("2.  Project Detail Report");
         System.out.println("3.  User Workload Report");
         System.out.println("4.  Project Completion Summary");
+        System.out.println("5.  Project Burndown");
+        System.out.println("6.  Project Velocity (last 4 weeks)");
+        System.out.println("7.  Project Schedule (dependencies)");
+        System.out.println("8.  Portfolio Rollup");
+        System.out.println("9.  System Status As Of (history)");
         System.out.println("0.  Back to Main Menu");
         System.out.println("---------------------------------------------------------------");
     }
@@ -88,6 +94,11 @@ public class ConsoleMenu {
         System.out.printf("Total Projects : %d%n", projectService.getProjectCount());
         System.out.printf("Total Tasks    : %d%n", taskService.getTaskCount());
         System.out.printf("Avg Completion : %.2f%%%n", projectService.getAverageCompletion());
+        ResultCache cache = reportService.getResultCache();
+        if (cache != null) {
+            System.out.printf("Result Cache   : %d hits, %d misses, %d evictions (%.1f%% hit rate)%n",
+                    cache.getHits(), cache.getMisses(), cache.getEvictions(), cache.getHitRate());
+        }
         System.out.println("---------------------------------------------------------------");
     }
 
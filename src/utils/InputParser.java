@@ -0,0 +1,170 @@
+package utils;
+
+/**
+ * Allocation-free parsers for high-volume input (batch files, imports, API traffic).
+ * Every method reads straight from a {@link CharSequence}, never throws on bad
+ * input and never creates temporary objects; failures are reported through
+ * sentinel return values instead.
+ */
+public final class InputParser {
+    /** Returned by {@link #parseInt(CharSequence)} when the input is not a valid int. */
+    public static final long INVALID_INT = Long.MIN_VALUE;
+    /** Returned by the date and code parsers when the input is invalid. */
+    public static final int INVALID = -1;
+
+    public static final int STATUS_PENDING = 0;
+    public static final int STATUS_IN_PROGRESS = 1;
+    public static final int STATUS_COMPLETED = 2;
+    public static final int STATUS_ACTIVE = 3;
+    public static final int STATUS_ON_HOLD = 4;
+    private static final String[] STATUS_NAMES = {"Pending", "In Progress", "Completed", "Active", "On Hold"};
+
+    /** Priority codes match {@code Task.getPriorityWeight()}. */
+    public static final int PRIORITY_LOW = 1;
+    public static final int PRIORITY_MEDIUM = 2;
+    public static final int PRIORITY_HIGH = 3;
+    private static final String[] PRIORITY_NAMES = {null, "Low", "Medium", "High"};
+
+    private static final int[] DAYS_IN_MONTH = {0, 31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private InputParser() {}
+
+    /**
+     * Parse a decimal int with optional sign, same grammar as {@link Integer#parseInt(String)}.
+     * @return the value, or {@link #INVALID_INT}
+     */
+    public static long parseInt(CharSequence s) {
+        if (s == null) return INVALID_INT;
+        int len = s.length();
+        if (len == 0) return INVALID_INT;
+        int i = 0;
+        boolean negative = false;
+        char first = s.charAt(0);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (len == 1) return INVALID_INT;
+            i = 1;
+        }
+        long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+        long value = 0;
+        for (; i < len; i++) {
+            int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9) return INVALID_INT;
+            value = value * 10 + digit;
+            if (value > limit) return INVALID_INT;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parse a YYYY-MM-DD date (month and day may be one or two digits) and check it
+     * against the real calendar, including leap years.
+     * @return the date packed as {@code yyyy * 10000 + mm * 100 + dd}, or {@link #INVALID}
+     */
+    public static int parseDate(CharSequence s) {
+        if (s == null) return INVALID;
+        int len = s.length();
+        int i = 0;
+        int year = 0;
+        int digits = 0;
+        while (i < len && isDigit(s.charAt(i)) && digits < 4) { year = year * 10 + (s.charAt(i++) - '0'); digits++; }
+        if (digits != 4 || i >= len || s.charAt(i++) != '-') return INVALID;
+
+        int month = 0;
+        digits = 0;
+        while (i < len && isDigit(s.charAt(i)) && digits < 2) { month = month * 10 + (s.charAt(i++) - '0'); digits++; }
+        if (digits == 0 || i >= len || s.charAt(i++) != '-') return INVALID;
+
+        int day = 0;
+        digits = 0;
+        while (i < len && isDigit(s.charAt(i)) && digits < 2) { day = day * 10 + (s.charAt(i++) - '0'); digits++; }
+        if (digits == 0 || i != len) return INVALID;
+
+        if (month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) return INVALID;
+        return year * 10000 + month * 100 + day;
+    }
+
+    public static int dateYear(int packedDate) { return packedDate / 10000; }
+    public static int dateMonth(int packedDate) { return (packedDate / 100) % 100; }
+    public static int dateDay(int packedDate) { return packedDate % 100; }
+
+    public static int daysInMonth(int year, int month) {
+        if (month == 2 && isLeapYear(year)) return 29;
+        return DAYS_IN_MONTH[month];
+    }
+
+    public static boolean isLeapYear(int year) {
+        return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+    }
+
+    /**
+     * Case-insensitive match against the known project and task statuses.
+     * @return one of the {@code STATUS_*} codes, or {@link #INVALID}
+     */
+    public static int parseStatus(CharSequence s) {
+        if (s == null) return INVALID;
+        for (int code = 0; code < STATUS_NAMES.length; code++) {
+            if (equalsIgnoreCase(STATUS_NAMES[code], s)) return code;
+        }
+        return INVALID;
+    }
+
+    /** @return one of the {@code PRIORITY_*} codes, or {@link #INVALID} */
+    public static int parsePriority(CharSequence s) {
+        if (s == null) return INVALID;
+        for (int code = PRIORITY_LOW; code <= PRIORITY_HIGH; code++) {
+            if (equalsIgnoreCase(PRIORITY_NAMES[code], s)) return code;
+        }
+        return INVALID;
+    }
+
+    /** Canonical spelling of a status code, e.g. "In Progress". */
+    public static String statusName(int code) { return STATUS_NAMES[code]; }
+
+    /** Canonical spelling of a priority code, e.g. "High". */
+    public static String priorityName(int code) { return PRIORITY_NAMES[code]; }
+
+    /**
+     * Structural email check: a non-empty local part, exactly one '@', and a domain
+     * containing a '.' that is neither its first nor last character. No whitespace.
+     */
+    public static boolean isValidEmail(CharSequence s) {
+        if (s == null) return false;
+        int len = s.length();
+        int at = -1;
+        int lastDot = -1;
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            if (c <= ' ') return false;
+            if (c == '@') {
+                if (at >= 0) return false;
+                at = i;
+            } else if (c == '.' && at >= 0) {
+                lastDot = i;
+            }
+        }
+        return at > 0 && lastDot > at + 1 && lastDot < len - 1;
+    }
+
+    /** True if the sequence is null or contains only whitespace. */
+    public static boolean isBlank(CharSequence s) {
+        if (s == null) return true;
+        for (int i = 0; i < s.length(); i++) {
+            if (!Character.isWhitespace(s.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) { return c >= '0' && c <= '9'; }
+
+    private static boolean equalsIgnoreCase(String expected, CharSequence actual) {
+        int len = expected.length();
+        if (actual.length() != len) return false;
+        for (int i = 0; i < len; i++) {
+            char a = expected.charAt(i);
+            char b = actual.charAt(i);
+            if (a != b && Character.toLowerCase(a) != Character.toLowerCase(b)) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,118 @@
+package utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache for query and report results, validated by data versions.
+ * Each entry remembers the version(s) it was computed at; a lookup with a newer
+ * version is a miss and recomputes, so nothing is ever served stale and no
+ * explicit invalidation hooks are needed. Entries are evicted least recently
+ * used first when either the entry count or the total weight (array length or
+ * string length of the cached values) exceeds its limit.
+ */
+public class ResultCache {
+    private final int maxEntries;
+    private final long maxWeight;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    private long hits;
+    private long misses;
+    private long invalidations;
+    private long evictions;
+
+    public ResultCache(int maxEntries, long maxWeight) {
+        if (maxEntries < 1 || maxWeight < 1) throw new IllegalArgumentException("cache limits must be positive");
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+    }
+
+    /** Cached value for {@code key} at {@code version}, computing and storing it on a miss. */
+    public <T> T get(String key, long version, Supplier<T> compute) {
+        return get(key, version, 0L, compute);
+    }
+
+    /** As {@link #get(String, long, Supplier)} for results that depend on two versioned sources. */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T get(String key, long version, long secondVersion, Supplier<T> compute) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (entry.version == version && entry.secondVersion == secondVersion) {
+                hits++;
+                return (T) entry.value;
+            }
+            invalidations++;
+            remove(key, entry);
+        }
+        misses++;
+        T value = compute.get();
+        Entry fresh = new Entry(value, version, secondVersion, weigh(value));
+        if (fresh.weight <= maxWeight) {
+            entries.put(key, fresh);
+            weight += fresh.weight;
+            evict();
+        }
+        return value;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized int size() { return entries.size(); }
+    public synchronized long getWeight() { return weight; }
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    /** Misses caused by an entry whose version was out of date. */
+    public synchronized long getInvalidations() { return invalidations; }
+    public synchronized long getEvictions() { return evictions; }
+
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (hits * 100.0) / lookups;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || weight > maxWeight) && eldest.hasNext()) {
+            weight -= eldest.next().getValue().weight;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    private void remove(String key, Entry entry) {
+        entries.remove(key);
+        weight -= entry.weight;
+    }
+
+    private static long weigh(Object value) {
+        if (value instanceof Object[]) return Math.max(1, ((Object[]) value).length);
+        if (value instanceof CharSequence) return Math.max(1, ((CharSequence) value).length());
+        return 1;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("ResultCache[entries=%d, weight=%d, hits=%d, misses=%d, invalidations=%d, evictions=%d, hitRate=%.1f%%]",
+                entries.size(), weight, hits, misses, invalidations, evictions, getHitRate());
+    }
+
+    private static final class Entry {
+        final Object value;
+        final long version;
+        final long secondVersion;
+        final long weight;
+
+        Entry(Object value, long version, long secondVersion, long weight) {
+            this.value = value;
+            this.version = version;
+            this.secondVersion = secondVersion;
+            this.weight = weight;
+        }
+    }
+}
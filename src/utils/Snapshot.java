@@ -0,0 +1,76 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable view of which elements a {@link SnapshotArray} held, and in what
+ * order, at one moment. Obtaining one costs a copy of the chunk directory only;
+ * element chunks are shared with the live array until a writer touches them, so
+ * a report can iterate a snapshot for as long as it likes while writers continue.
+ *
+ * Only membership is frozen: the elements are whatever the array holds, so field
+ * edits made to live objects after the snapshot was taken are visible through it
+ * (see {@link VersionedCopies} for snapshots of detached copies).
+ */
+public final class Snapshot<T> implements Iterable<T> {
+    private final Object[][] chunks;
+    private final int size;
+    private final long version;
+    private volatile Object[] shared;
+
+    Snapshot(Object[][] chunks, int size, long version) {
+        this.chunks = chunks;
+        this.size = size;
+        this.version = version;
+    }
+
+    public int size() { return size; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    /** Version of the source array when this snapshot was taken. */
+    public long version() { return version; }
+
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return (T) chunks[index >>> SnapshotArray.CHUNK_BITS][index & SnapshotArray.CHUNK_MASK];
+    }
+
+    /** Copy the elements into an array of the runtime type of {@code template}. */
+    @SuppressWarnings("unchecked")
+    public T[] toArray(T[] template) {
+        T[] result = Arrays.copyOf(template, size);
+        for (int i = 0; i < size; i++) result[i] = (T) chunks[i >>> SnapshotArray.CHUNK_BITS][i & SnapshotArray.CHUNK_MASK];
+        return result;
+    }
+
+    /** The elements in one array, built once per snapshot and shared by every caller; callers must not modify it. */
+    @SuppressWarnings("unchecked")
+    public T[] sharedArray(T[] template) {
+        Object[] array = shared;
+        if (array == null || array.getClass() != template.getClass()) shared = array = toArray(template);
+        return (T[]) array;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() { return index < size; }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (index >= size) throw new NoSuchElementException();
+                T element = (T) chunks[index >>> SnapshotArray.CHUNK_BITS][index & SnapshotArray.CHUNK_MASK];
+                index++;
+                return element;
+            }
+        };
+    }
+}
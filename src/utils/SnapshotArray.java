@@ -0,0 +1,159 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Growable array with cheap, structurally shared snapshots (copy-on-write per chunk).
+ * Elements live in fixed-size chunks. Taking a snapshot copies only the chunk
+ * directory and marks every chunk as shared; the next write to a shared chunk
+ * copies that chunk alone. Writers and {@link #snapshot()} are synchronized, while
+ * {@link #touch()}, {@link #version()} and readers of a published snapshot take no lock.
+ */
+public class SnapshotArray<T> {
+    static final int CHUNK_BITS = 5;
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private Object[][] chunks = new Object[4][];
+    /** Epoch in which each chunk was last copied; chunks from older epochs are shared. */
+    private int[] chunkEpochs = new int[4];
+    private int epoch = 1;
+    private int size;
+    private final AtomicLong version = new AtomicLong();
+    private Snapshot<T> lastSnapshot;
+
+    public synchronized int size() { return size; }
+
+    /** Incremented on every structural change and every {@link #touch()}. */
+    public long version() { return version.get(); }
+
+    @SuppressWarnings("unchecked")
+    public synchronized T get(int index) {
+        checkIndex(index);
+        return (T) chunks[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    public synchronized void add(T element) {
+        append(element);
+        version.incrementAndGet();
+    }
+
+    /** Append every element as one structural change. */
+    public synchronized void addAll(Collection<? extends T> elements) {
+        if (elements.isEmpty()) return;
+        for (T element : elements) append(element);
+        version.incrementAndGet();
+    }
+
+    private void append(T element) {
+        int chunk = size >>> CHUNK_BITS;
+        if (chunk == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length * 2);
+            chunkEpochs = Arrays.copyOf(chunkEpochs, chunkEpochs.length * 2);
+        }
+        if (chunks[chunk] == null) {
+            chunks[chunk] = new Object[CHUNK_SIZE];
+            chunkEpochs[chunk] = epoch;
+        }
+        writable(chunk)[size & CHUNK_MASK] = element;
+        size++;
+    }
+
+    public synchronized void set(int index, T element) {
+        checkIndex(index);
+        writable(index >>> CHUNK_BITS)[index & CHUNK_MASK] = element;
+        version.incrementAndGet();
+    }
+
+    /** Remove the element at index, shifting later elements left to keep order. */
+    public synchronized void removeAt(int index) {
+        checkIndex(index);
+        for (int i = index; i < size - 1; i++) {
+            writable(i >>> CHUNK_BITS)[i & CHUNK_MASK] = chunks[(i + 1) >>> CHUNK_BITS][(i + 1) & CHUNK_MASK];
+        }
+        size--;
+        writable(size >>> CHUNK_BITS)[size & CHUNK_MASK] = null;
+        version.incrementAndGet();
+    }
+
+    /**
+     * Remove every matching element in a single left-compacting pass, keeping the
+     * order of the rest. Returns the removed elements in their original order.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized List<T> removeIf(Predicate<? super T> filter) {
+        List<T> removed = new ArrayList<>();
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            T element = (T) chunks[i >>> CHUNK_BITS][i & CHUNK_MASK];
+            if (filter.test(element)) {
+                removed.add(element);
+            } else {
+                if (kept != i) writable(kept >>> CHUNK_BITS)[kept & CHUNK_MASK] = element;
+                kept++;
+            }
+        }
+        if (removed.isEmpty()) return removed;
+        for (int i = kept; i < size; i++) writable(i >>> CHUNK_BITS)[i & CHUNK_MASK] = null;
+        size = kept;
+        version.incrementAndGet();
+        return removed;
+    }
+
+    /**
+     * Index of the first element that matches, or -1. Scans the live array under
+     * the lock, so unlike iterating a snapshot it leaves no chunk shared for the
+     * next write to copy.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized int indexOf(Predicate<? super T> filter) {
+        for (int i = 0; i < size; i++) if (filter.test((T) chunks[i >>> CHUNK_BITS][i & CHUNK_MASK])) return i;
+        return -1;
+    }
+
+    /** The first element that matches, or null; see {@link #indexOf(Predicate)}. */
+    @SuppressWarnings("unchecked")
+    public synchronized T find(Predicate<? super T> filter) {
+        int i = indexOf(filter);
+        return i < 0 ? null : (T) chunks[i >>> CHUNK_BITS][i & CHUNK_MASK];
+    }
+
+    /** Visit every element under the lock, without taking a snapshot. */
+    @SuppressWarnings("unchecked")
+    public synchronized void forEach(Consumer<? super T> action) {
+        for (int i = 0; i < size; i++) action.accept((T) chunks[i >>> CHUNK_BITS][i & CHUNK_MASK]);
+    }
+
+    /** Record an in-place change to an element (e.g. a setter call) without a structural write. */
+    public void touch() { version.incrementAndGet(); }
+
+    /**
+     * View of the elements and their order as of this call; repeated calls without
+     * intervening writes return the same object. Elements are not copied.
+     */
+    public synchronized Snapshot<T> snapshot() {
+        long current = version.get();
+        if (lastSnapshot != null && lastSnapshot.version() == current) return lastSnapshot;
+        lastSnapshot = new Snapshot<>(chunks.clone(), size, current);
+        epoch++;
+        return lastSnapshot;
+    }
+
+    private Object[] writable(int chunk) {
+        if (chunkEpochs[chunk] != epoch) {
+            chunks[chunk] = chunks[chunk].clone();
+            chunkEpochs[chunk] = epoch;
+        }
+        return chunks[chunk];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+}
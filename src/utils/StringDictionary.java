@@ -0,0 +1,135 @@
+package utils;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary encoding for repeated strings (project IDs, assignees, statuses,
+ * priorities, dates). Each distinct value gets a small int code and one canonical
+ * String instance, so millions of tasks share a handful of strings and equality
+ * checks become int compares. Do not feed it free text such as names or
+ * descriptions. Lookups of known values are lock-free.
+ *
+ * The dictionary holds its canonical instances weakly: once nothing else refers
+ * to one (the last task of a deleted project is gone, say), the value is dropped
+ * and its code is reused for a later value, so the table tracks the values in use
+ * rather than every value ever seen. A code therefore identifies its value only
+ * while the canonical instance is reachable; holders of a code must also hold
+ * the instance, as {@code Task} does.
+ */
+public final class StringDictionary {
+    public static final int NO_CODE = -1;
+
+    private static final StringDictionary SHARED = new StringDictionary();
+
+    private final ConcurrentHashMap<Object, Entry> codes = new ConcurrentHashMap<>();
+    private final ReferenceQueue<String> collected = new ReferenceQueue<>();
+    private volatile Entry[] values = new Entry[256];
+    private int size;
+    private int live;
+    private int[] freeCodes = new int[16];
+    private int freeCount;
+
+    /** The dictionary used by the models and services. */
+    public static StringDictionary shared() { return SHARED; }
+
+    /** Canonical instance equal to {@code value}, adding it if new; null for null. */
+    public String intern(String value) {
+        if (value == null) return null;
+        String canonical = lookup(value);
+        return canonical != null ? canonical : add(value);
+    }
+
+    /** Canonical instance equal to {@code value} without adding it, or null if there is none. */
+    public String lookup(String value) {
+        if (value == null) return null;
+        Entry entry = codes.get(new Probe(value));
+        return entry == null ? null : entry.get();
+    }
+
+    /** Code of a value without adding it, or {@link #NO_CODE} if it is not in use. */
+    public int codeOf(String value) {
+        if (value == null) return NO_CODE;
+        Entry entry = codes.get(new Probe(value));
+        return entry == null || entry.get() == null ? NO_CODE : entry.code;
+    }
+
+    /** Value of a code in use, or null. */
+    public String decode(int code) {
+        Entry[] table = values;
+        if (code < 0 || code >= table.length) return null;
+        Entry entry = table[code];
+        return entry == null ? null : entry.get();
+    }
+
+    /** Values currently in use. */
+    public synchronized int size() {
+        expunge();
+        return live;
+    }
+
+    private synchronized String add(String value) {
+        expunge();
+        Entry existing = codes.get(new Probe(value));
+        String canonical = existing == null ? null : existing.get();
+        if (canonical != null) return canonical;
+        int code = freeCount > 0 ? freeCodes[--freeCount] : size++;
+        Entry[] table = values;
+        if (code == table.length) table = Arrays.copyOf(table, code * 2);
+        Entry entry = new Entry(value, code, collected);
+        table[code] = entry;
+        values = table;
+        codes.put(entry, entry);
+        live++;
+        return value;
+    }
+
+    /** Drop the entries whose values were collected and free their codes. */
+    private void expunge() {
+        for (Object reference; (reference = collected.poll()) != null; ) {
+            Entry entry = (Entry) reference;
+            codes.remove(entry);
+            values[entry.code] = null;
+            if (freeCount == freeCodes.length) freeCodes = Arrays.copyOf(freeCodes, freeCount * 2);
+            freeCodes[freeCount++] = entry.code;
+            live--;
+        }
+    }
+
+    /** Map key and value at once; equal only to itself or to a probe for its value. */
+    private static final class Entry extends WeakReference<String> {
+        final int hash;
+        final int code;
+
+        Entry(String value, int code, ReferenceQueue<String> queue) {
+            super(value, queue);
+            this.hash = value.hashCode();
+            this.code = code;
+        }
+
+        @Override
+        public int hashCode() { return hash; }
+
+        @Override
+        public boolean equals(Object other) {
+            return other == this || (other instanceof Probe && other.equals(this));
+        }
+    }
+
+    /** Lookup key for a plain String; matches the live entry with an equal value. */
+    private static final class Probe {
+        final String value;
+
+        Probe(String value) { this.value = value; }
+
+        @Override
+        public int hashCode() { return value.hashCode(); }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Entry && value.equals(((Entry) other).get());
+        }
+    }
+}
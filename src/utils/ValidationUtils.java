@@ -20,64 +20,37 @@ public class ValidationUtils {
 
     /**
      * Validate email format
-     * Simple validation - checks for @ and .
+     * Structural check: local part, single @, dotted domain
      */
     public static boolean isValidEmail(String email) {
-        if (!isValidString(email)) {
-            return false;
-        }
-        return email.contains("@") && email.contains(".");
+        return InputParser.isValidEmail(email);
     }
 
     /**
      * Validate date format (YYYY-MM-DD)
+     * Also rejects dates that do not exist in the calendar, such as Feb 31
      */
     public static boolean isValidDate(String date) {
-        if (!isValidString(date)) {
-            return false;
-        }
-
-        // Simple format validation
-        String[] parts = date.split("-");
-        if (parts.length != 3) {
-            return false;
-        }
-
-        try {
-            int year = Integer.parseInt(parts[0]);
-            int month = Integer.parseInt(parts[1]);
-            int day = Integer.parseInt(parts[2]);
-
-            return year > 2000 && year < 2100 &&
-                    month >= 1 && month <= 12 &&
-                    day >= 1 && day <= 31;
-        } catch (NumberFormatException e) {
+        int packed = InputParser.parseDate(date);
+        if (packed == InputParser.INVALID) {
             return false;
         }
+        int year = InputParser.dateYear(packed);
+        return year > 2000 && year < 2100;
     }
 
     /**
      * Validate integer input
      */
     public static boolean isValidInteger(String input) {
-        try {
-            Integer.parseInt(input);
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
-        }
+        return InputParser.parseInt(input) != InputParser.INVALID_INT;
     }
 
     /**
      * Validate positive integer
      */
     public static boolean isValidPositiveInteger(String input) {
-        try {
-            int value = Integer.parseInt(input);
-            return value > 0;
-        } catch (NumberFormatException e) {
-            return false;
-        }
+        return InputParser.parseInt(input) > 0;
     }
 
     /**
@@ -91,35 +64,14 @@ public class ValidationUtils {
      * Validate status value
      */
     public static boolean isValidStatus(String status) {
-        if (!isValidString(status)) {
-            return false;
-        }
-
-        String[] validStatuses = {"Active", "Completed", "On Hold",
-                "Pending", "In Progress"};
-        for (String validStatus : validStatuses) {
-            if (validStatus.equalsIgnoreCase(status)) {
-                return true;
-            }
-        }
-        return false;
+        return InputParser.parseStatus(status) != InputParser.INVALID;
     }
 
     /**
      * Validate priority value
      */
     public static boolean isValidPriority(String priority) {
-        if (!isValidString(priority)) {
-            return false;
-        }
-
-        String[] validPriorities = {"High", "Medium", "Low"};
-        for (String validPriority : validPriorities) {
-            if (validPriority.equalsIgnoreCase(priority)) {
-                return true;
-            }
-        }
-        return false;
+        return InputParser.parsePriority(priority) != InputParser.INVALID;
     }
 
     /**
@@ -0,0 +1,120 @@
+package utils;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Detached copies of a service's entities, in the service's order, for readers
+ * that must not see later edits. The owner reports each add, replace, delete and
+ * in-place edit; {@link #snapshot()} then copies only the entities edited or added
+ * since the last call and patches them into a {@link SnapshotArray} of copies, so
+ * snapshots share every unchanged copy.
+ *
+ * Entities carry a version that is odd while a conditional update holds them. An
+ * entity is copied only when its version is even and unchanged across the copy;
+ * otherwise the previous copy stays in place until the next snapshot, so an edit
+ * made through a conditional update is seen whole or not at all.
+ */
+public class VersionedCopies<T> {
+    private final UnaryOperator<T> copier;
+    private final ToLongFunction<T> version;
+    private final SnapshotArray<T> copies = new SnapshotArray<>();
+    /** The live entities, in the same order as {@link #copies}. */
+    private final List<T> sources = new ArrayList<>();
+    private final Map<T, Integer> positions = new IdentityHashMap<>();
+    /** Entities whose slot still holds the entity itself or an outdated copy; entities must not override equals. */
+    private final Set<T> dirty = ConcurrentHashMap.newKeySet();
+
+    public VersionedCopies(UnaryOperator<T> copier, ToLongFunction<T> version) {
+        this.copier = copier;
+        this.version = version;
+    }
+
+    /** The entity was appended to the owner's order. */
+    public synchronized void added(T entity) {
+        positions.put(entity, sources.size());
+        sources.add(entity);
+        copies.add(entity);
+        dirty.add(entity);
+    }
+
+    /** {@code replacement} took the place of {@code previous}. */
+    public synchronized void replaced(T previous, T replacement) {
+        Integer position = positions.remove(previous);
+        if (position == null) return;
+        dirty.remove(previous);
+        positions.put(replacement, position);
+        sources.set(position, replacement);
+        copies.set(position, replacement);
+        dirty.add(replacement);
+    }
+
+    public synchronized void removed(T entity) {
+        Integer position = positions.remove(entity);
+        if (position == null) return;
+        dirty.remove(entity);
+        sources.remove((int) position);
+        copies.removeAt(position);
+        for (int i = position; i < sources.size(); i++) positions.put(sources.get(i), i);
+    }
+
+    /** Remove many entities in one compacting pass. */
+    public synchronized void removedAll(Collection<T> entities) {
+        Set<T> gone = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (T entity : entities) {
+            Integer position = positions.remove(entity);
+            if (position == null) continue;
+            dirty.remove(entity);
+            gone.add(copies.get(position));
+        }
+        if (gone.isEmpty()) return;
+        copies.removeIf(gone::contains);
+        sources.removeIf(entity -> !positions.containsKey(entity));
+        for (int i = 0; i < sources.size(); i++) positions.put(sources.get(i), i);
+    }
+
+    /** The entity was edited in place; takes no lock, so it may be called from any editing thread. */
+    public void changed(T entity) { dirty.add(entity); }
+
+    /** Copies of every entity as of this call; unchanged since the last call, the same snapshot again. */
+    public synchronized Snapshot<T> snapshot() {
+        List<T> held = null;
+        for (T entity : dirty) {
+            dirty.remove(entity);
+            Integer position = positions.get(entity);
+            if (position == null) continue;
+            boolean hasCopy = copies.get(position) != entity;
+            T copy = stableCopy(entity);
+            while (copy == null && !hasCopy) {
+                Thread.onSpinWait();
+                copy = stableCopy(entity);
+            }
+            if (copy != null) {
+                copies.set(position, copy);
+            } else {
+                if (held == null) held = new ArrayList<>();
+                held.add(entity);
+            }
+        }
+        if (held != null) dirty.addAll(held);
+        return copies.snapshot();
+    }
+
+    /** A copy taken while the entity's version stayed even and unchanged, or null. */
+    private T stableCopy(T entity) {
+        long before = version.applyAsLong(entity);
+        if ((before & 1) != 0) return null;
+        T copy = copier.apply(entity);
+        VarHandle.acquireFence();
+        return version.applyAsLong(entity) == before ? copy : null;
+    }
+}